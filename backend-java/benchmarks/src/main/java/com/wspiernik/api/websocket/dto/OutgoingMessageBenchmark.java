@@ -0,0 +1,68 @@
+package com.wspiernik.api.websocket.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.wspiernik.benchmarks.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of outgoing WebSocket messages: a streamed fragment, a full answer and a facts list.
+ * The mapper is configured like the application's (Java time as ISO strings).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OutgoingMessageBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int factCount;
+
+    private ObjectMapper objectMapper;
+    private OutgoingMessage delta;
+    private OutgoingMessage answer;
+    private OutgoingMessage factsList;
+
+    @Setup
+    public void setUp() {
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        delta = OutgoingMessage.of(OutgoingMessage.SUPPORT_MESSAGE_DELTA, new MessageDeltaPayload(" opiekunów"), "req-1");
+        answer = OutgoingMessage.of(OutgoingMessage.SUPPORT_MESSAGE, new SupportMessagePayload(
+                BenchmarkData.conversation(1).get(2).content().repeat(6)), "req-1");
+        factsList = OutgoingMessage.of(OutgoingMessage.FACTS_LIST, new FactsListPayload(
+                BenchmarkData.facts(factCount).stream().map(FactDto::from).toList(), factCount), "req-1");
+    }
+
+    @Benchmark
+    public String delta() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(delta);
+    }
+
+    @Benchmark
+    public String answer() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(answer);
+    }
+
+    @Benchmark
+    public String factsList() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(factsList);
+    }
+}
@@ -0,0 +1,132 @@
+package com.wspiernik.benchmarks;
+
+import com.wspiernik.domain.facts.Fact;
+import com.wspiernik.infrastructure.llm.dto.LlmMessage;
+import com.wspiernik.infrastructure.persistence.entity.CrisisScenario;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic Polish-language inputs of a given size for the benchmarks.
+ */
+public final class BenchmarkData {
+
+    private static final List<List<String>> TAGS = List.of(
+            List.of("medical_condition", "ward"),
+            List.of("daily_functioning", "ward"),
+            List.of("behavioral_issues", "ward"),
+            List.of("routines_and_preferences", "ward"),
+            List.of("caregiver_situation", "caregiver"),
+            List.of("support_network", "caregiver"),
+            List.of("living_situation"),
+            List.of("relationship_to_patient", "caregiver"));
+
+    private static final List<String> FACT_VALUES = List.of(
+            "Pacjentka choruje na Alzheimera od trzech lat",
+            "Podopieczny przyjmuje leki na nadciśnienie rano i wieczorem",
+            "Wieczorami pacjentka jest niespokojna i chodzi po mieszkaniu",
+            "Muzyka z lat sześćdziesiątych uspokaja podopiecznego",
+            "Opiekunka pracuje zawodowo na pełen etat",
+            "Brat opiekunki pomaga w weekendy",
+            "Opiekunka mieszka z pacjentką w mieszkaniu na trzecim piętrze bez windy",
+            "Opiekun jest synem pacjenta");
+
+    private static final List<String> CAREGIVER_LINES = List.of(
+            "Mama znowu nie spała w nocy, chodziła po mieszkaniu i szukała taty.",
+            "Nie wiem już, jak jej tłumaczyć, że musi brać leki, wypluwa tabletki.",
+            "Dzisiaj się przewróciła w łazience, ale na szczęście nic się nie stało.",
+            "Jestem bardzo zmęczona, brat obiecał pomóc, ale nie przyjechał.");
+
+    private static final List<String> ASSISTANT_LINES = List.of(
+            "Rozumiem, że to było dla Ciebie trudne. Czy mama była dziś bardziej niespokojna niż zwykle?",
+            "To częsty problem. Czy lekarz proponował leki w innej postaci, na przykład w syropie?",
+            "Dobrze, że nic się nie stało. Czy w łazience są uchwyty i mata antypoślizgowa?",
+            "Masz prawo czuć zmęczenie. Czy jest ktoś, kto mógłby Cię zmienić choć na kilka godzin?");
+
+    private static final List<String> KEYWORDS = List.of(
+            "upadek", "przewrócił", "przewróciła", "nie może wstać", "krew", "ból w klatce", "duszność",
+            "nie oddycha", "agresja", "krzyczy", "bije", "zgubił się", "nie wrócił", "nie poznaje",
+            "gorączka", "wymioty", "zakrztusił", "drgawki", "omdlenie", "poparzenie");
+
+    private BenchmarkData() {
+    }
+
+    public static List<Fact> facts(int count) {
+        Random random = new Random(count);
+        List<Fact> facts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Fact fact = new Fact();
+            fact.id = (long) i + 1;
+            fact.conversationId = (long) i / 5 + 1;
+            fact.tags = TAGS.get(random.nextInt(TAGS.size()));
+            fact.factValue = FACT_VALUES.get(random.nextInt(FACT_VALUES.size()));
+            fact.severity = random.nextInt(4) == 0 ? 1 + random.nextInt(10) : null;
+            fact.extractedAt = LocalDateTime.of(2025, 1, 1, 12, 0).plusMinutes(i);
+            fact.createdAt = fact.extractedAt;
+            facts.add(fact);
+        }
+        return facts;
+    }
+
+    /**
+     * LLM answer to the facts distiller: a JSON array of facts with prose around it.
+     */
+    public static String distillerAnswer(int factCount) {
+        StringBuilder sb = new StringBuilder("Oto wyodrębnione fakty:\n[");
+        for (Fact fact : facts(factCount)) {
+            if (sb.charAt(sb.length() - 1) != '[') {
+                sb.append(',');
+            }
+            sb.append("{\"tags\":[\"").append(String.join("\",\"", fact.tags))
+                    .append("\"],\"value\":\"").append(fact.factValue).append("\"}");
+        }
+        return sb.append("]\nTo wszystkie fakty z rozmowy.").toString();
+    }
+
+    /**
+     * Conversation of the given number of caregiver/assistant exchanges, after a system prompt.
+     */
+    public static List<LlmMessage> conversation(int turns) {
+        List<LlmMessage> messages = new ArrayList<>(turns * 2 + 1);
+        messages.add(LlmMessage.system("Jesteś Wspiernikiem, wspierającym asystentem opiekunów osób z demencją."));
+        for (int i = 0; i < turns; i++) {
+            messages.add(LlmMessage.user(CAREGIVER_LINES.get(i % CAREGIVER_LINES.size())));
+            messages.add(LlmMessage.assistant(ASSISTANT_LINES.get(i % ASSISTANT_LINES.size())));
+        }
+        return messages;
+    }
+
+    /**
+     * Plain-text transcript of the given number of exchanges, as passed to the facts distiller.
+     */
+    public static String transcript(int turns) {
+        StringBuilder sb = new StringBuilder();
+        for (LlmMessage message : conversation(turns).subList(1, turns * 2 + 1)) {
+            sb.append(message.role()).append(": ").append(message.content()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    public static List<CrisisScenario> scenarios(int count) {
+        Random random = new Random(count);
+        List<CrisisScenario> scenarios = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            CrisisScenario scenario = new CrisisScenario();
+            scenario.id = (long) i + 1;
+            scenario.scenarioKey = "scenario_" + i;
+            scenario.name = "Scenariusz " + i;
+            List<String> keywords = new ArrayList<>();
+            for (int k = 0; k < 6; k++) {
+                keywords.add(KEYWORDS.get(random.nextInt(KEYWORDS.size())) + (i == 0 ? "" : " " + i));
+            }
+            scenario.triggerKeywords = "[\"" + String.join("\",\"", keywords) + "\"]";
+            scenario.questionsSequence = "[\"Czy podopieczny jest przytomny?\",\"Czy oddycha normalnie?\"]";
+            scenario.systemPrompt = "Jesteś asystentem kryzysowym. Znane fakty: {facts_json}";
+            scenarios.add(scenario);
+        }
+        return scenarios;
+    }
+}
@@ -0,0 +1,53 @@
+package com.wspiernik.domain.facts;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wspiernik.benchmarks.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of the facts distiller's answer, by number of facts in it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FactsExtractorBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    int factCount;
+
+    private FactsExtractor extractor;
+    private String answer;
+
+    @Setup
+    public void setUp() {
+        extractor = new FactsExtractor();
+        extractor.objectMapper = new ObjectMapper();
+        answer = BenchmarkData.distillerAnswer(factCount);
+    }
+
+    @Benchmark
+    public List<String> extractJsons() {
+        return extractor.extractJsons(answer);
+    }
+
+    @Benchmark
+    public List<ExtractedFact> parseFactsJson() {
+        return extractor.parseFactsJson(answer);
+    }
+}
@@ -0,0 +1,58 @@
+package com.wspiernik.domain.intervention;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wspiernik.benchmarks.BenchmarkData;
+import com.wspiernik.infrastructure.persistence.entity.CrisisScenario;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keyword matching of a situation description against scenario catalogs of growing size.
+ * The database read is left out; only the catalog scan is measured.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScenarioMatchingBenchmark {
+
+    private static final String MATCHING_INPUT = "Mama się przewróciła w łazience i nie może wstać, leci jej krew z głowy.";
+    private static final String UNMATCHED_INPUT = "Tata od rana jest smutny i nie chce rozmawiać, nie wiem co robić.";
+
+    @Param({"10", "100", "1000", "10000"})
+    int scenarioCount;
+
+    private ScenarioMatchingService service;
+    private List<CrisisScenario> scenarios;
+
+    @Setup
+    public void setUp() {
+        service = new ScenarioMatchingService();
+        service.objectMapper = new ObjectMapper();
+        scenarios = BenchmarkData.scenarios(scenarioCount);
+    }
+
+    @Benchmark
+    public ScenarioMatchingService.MatchResult matching() {
+        return service.matchScenario(MATCHING_INPUT, scenarios);
+    }
+
+    @Benchmark
+    public ScenarioMatchingService.MatchResult noMatch() {
+        return service.matchScenario(UNMATCHED_INPUT, scenarios);
+    }
+}
@@ -0,0 +1,64 @@
+package com.wspiernik.infrastructure.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wspiernik.benchmarks.BenchmarkData;
+import com.wspiernik.domain.facts.Fact;
+import com.wspiernik.infrastructure.persistence.entity.CrisisScenario;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prompt assembly by size of the fact table.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PromptTemplatesBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    int factCount;
+
+    private PromptTemplates templates;
+    private List<Fact> facts;
+    private String transcript;
+    private CrisisScenario scenario;
+
+    @Setup
+    public void setUp() {
+        templates = new PromptTemplates();
+        templates.objectMapper = new ObjectMapper();
+        facts = BenchmarkData.facts(factCount);
+        transcript = BenchmarkData.transcript(20);
+        scenario = BenchmarkData.scenarios(1).getFirst();
+    }
+
+    @Benchmark
+    public String factsDistillerPrompt() {
+        return templates.buildFactsDistillerPrompt(transcript, facts);
+    }
+
+    @Benchmark
+    public String supportPrompt() {
+        return templates.buildSupportPrompt(facts);
+    }
+
+    @Benchmark
+    public String interventionPrompt() {
+        return templates.buildInterventionPrompt(facts, scenario);
+    }
+}
@@ -0,0 +1,58 @@
+package com.wspiernik.infrastructure.persistence;
+
+import com.wspiernik.benchmarks.BenchmarkData;
+import com.wspiernik.infrastructure.llm.dto.LlmMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Transcript column conversion, which runs on every saved turn, by conversation length.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonToLlmMessageListConverterBenchmark {
+
+    @Param({"10", "100", "1000"})
+    int turns;
+
+    private final JsonToLlmMessageListConverter converter = new JsonToLlmMessageListConverter();
+    private List<LlmMessage> conversation;
+    private String column;
+
+    @Setup
+    public void setUp() {
+        conversation = BenchmarkData.conversation(turns);
+        column = converter.convertToDatabaseColumn(conversation);
+    }
+
+    @Benchmark
+    public String toDatabaseColumn() {
+        return converter.convertToDatabaseColumn(conversation);
+    }
+
+    @Benchmark
+    public List<LlmMessage> toEntityAttribute() {
+        return converter.convertToEntityAttribute(column);
+    }
+
+    @Benchmark
+    public List<LlmMessage> roundTrip() {
+        return converter.convertToEntityAttribute(converter.convertToDatabaseColumn(conversation));
+    }
+}
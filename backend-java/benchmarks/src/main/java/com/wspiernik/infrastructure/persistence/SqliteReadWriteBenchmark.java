@@ -0,0 +1,198 @@
+package com.wspiernik.infrastructure.persistence;
+
+import com.wspiernik.benchmarks.BenchmarkData;
+import com.wspiernik.domain.facts.Fact;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Fact table reads (the facts list query) by four threads while one thread keeps inserting facts,
+ * one commit each. {@code single} is the default setup: one connection shared by readers and the writer,
+ * rollback journal. {@code wal} is the sqlite-wal profile: the writer keeps its connection, each reader
+ * has its own read-only one, WAL journal and the profile's pragmas. Compare the {@code read} throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SqliteReadWriteBenchmark {
+
+    private static final String WAL_PRAGMAS = "journal_mode=WAL&synchronous=NORMAL&busy_timeout=5000"
+            + "&cache_size=-65536&mmap_size=268435456";
+    private static final String READ_PRAGMAS = "open_mode=1&busy_timeout=5000&cache_size=-16384&mmap_size=268435456";
+    private static final List<String> NEW_FACT_TAGS = List.of("behavioral_issues", "ward");
+    private static final String SELECT = """
+            SELECT id, conversation_id, fact_type, fact_value, severity, extracted_at, created_at
+            FROM facts ORDER BY created_at DESC""";
+
+    @State(Scope.Group)
+    public static class Database {
+
+        @Param({"single", "wal"})
+        String mode;
+
+        @Param({"2000"})
+        int facts;
+
+        Path file;
+        Connection writer;
+        // Stands in for the one-connection pool: callers wait their turn
+        final ReentrantLock writerLock = new ReentrantLock(true);
+        final JsonToStringListConverter tags = new JsonToStringListConverter();
+        long inserted;
+
+        @Setup
+        public void setUp() throws IOException, SQLException {
+            file = Files.createTempDirectory("wspiernik-bench").resolve("wspiernik.db");
+            writer = DriverManager.getConnection(url(wal() ? WAL_PRAGMAS : null));
+            try (Statement statement = writer.createStatement()) {
+                statement.execute("""
+                        CREATE TABLE facts (id INTEGER PRIMARY KEY AUTOINCREMENT, conversation_id INTEGER,
+                        fact_type TEXT, fact_value TEXT, severity INTEGER, extracted_at TIMESTAMP, created_at TIMESTAMP)""");
+            }
+            writer.setAutoCommit(false);
+            for (Fact fact : BenchmarkData.facts(facts)) {
+                insert(fact);
+            }
+            writer.commit();
+            writer.setAutoCommit(true);
+        }
+
+        @TearDown
+        public void tearDown() throws IOException, SQLException {
+            writer.close();
+            try (Stream<Path> files = Files.walk(file.getParent())) {
+                for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+
+        boolean wal() {
+            return "wal".equals(mode);
+        }
+
+        String url(String pragmas) {
+            return "jdbc:sqlite:" + file + (pragmas != null ? "?" + pragmas : "");
+        }
+
+        void insert(Fact fact) throws SQLException {
+            try (PreparedStatement statement = writer.prepareStatement("""
+                    INSERT INTO facts (conversation_id, fact_type, fact_value, severity, extracted_at, created_at)
+                    VALUES (?, ?, ?, ?, ?, ?)""")) {
+                statement.setLong(1, fact.conversationId);
+                statement.setString(2, tags.convertToDatabaseColumn(fact.tags));
+                statement.setString(3, fact.factValue);
+                if (fact.severity != null) {
+                    statement.setInt(4, fact.severity);
+                } else {
+                    statement.setNull(4, Types.INTEGER);
+                }
+                statement.setTimestamp(5, Timestamp.valueOf(fact.extractedAt));
+                statement.setTimestamp(6, Timestamp.valueOf(fact.createdAt));
+                statement.executeUpdate();
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Reader {
+
+        Connection connection;
+
+        @Setup
+        public void setUp(Database database) throws SQLException {
+            connection = database.wal() ? DriverManager.getConnection(database.url(READ_PRAGMAS)) : null;
+        }
+
+        @TearDown
+        public void tearDown() throws SQLException {
+            if (connection != null) {
+                connection.close();
+            }
+        }
+    }
+
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(4)
+    public int read(Database database, Reader reader) throws SQLException {
+        if (reader.connection != null) {
+            return readFacts(reader.connection, database.tags);
+        }
+        database.writerLock.lock();
+        try {
+            return readFacts(database.writer, database.tags);
+        } finally {
+            database.writerLock.unlock();
+        }
+    }
+
+    @Benchmark
+    @Group("readWhileWriting")
+    @GroupThreads(1)
+    public void write(Database database) throws SQLException {
+        Fact fact = new Fact();
+        fact.conversationId = 1L;
+        fact.tags = NEW_FACT_TAGS;
+        fact.factValue = "Nowy fakt " + database.inserted++;
+        fact.createdAt = LocalDateTime.now();
+        fact.extractedAt = fact.createdAt;
+        database.writerLock.lock();
+        try {
+            database.insert(fact);
+        } finally {
+            database.writerLock.unlock();
+        }
+    }
+
+    /**
+     * The facts list query with the row mapping the repository does.
+     */
+    private static int readFacts(Connection connection, JsonToStringListConverter tags) throws SQLException {
+        int rows = 0;
+        try (PreparedStatement statement = connection.prepareStatement(SELECT);
+             ResultSet row = statement.executeQuery()) {
+            while (row.next()) {
+                Fact fact = new Fact();
+                fact.id = row.getLong("id");
+                fact.tags = tags.convertToEntityAttribute(row.getString("fact_type"));
+                fact.factValue = row.getString("fact_value");
+                fact.createdAt = row.getTimestamp("created_at").toLocalDateTime();
+                rows++;
+            }
+        }
+        return rows;
+    }
+}
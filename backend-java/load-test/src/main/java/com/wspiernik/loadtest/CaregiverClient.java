@@ -0,0 +1,187 @@
+package com.wspiernik.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One caregiver's WebSocket connection to {@code /ws}.
+ * Requests are sent with a request_id and block until the server's reply carrying the same id:
+ * the message that answers the request type, or an error. Streamed {@code *_delta} fragments
+ * only mark the time to the first fragment.
+ */
+final class CaregiverClient implements WebSocket.Listener {
+
+    /**
+     * Outgoing message types that answer each request type.
+     */
+    private static final Map<String, Set<String>> ANSWERS = Map.of(
+            "survey_start", Set.of("survey_question"),
+            "survey_message", Set.of("survey_question", "survey_completed"),
+            "survey_complete", Set.of("survey_completed"),
+            "intervention_start", Set.of("intervention_question"),
+            "intervention_message", Set.of("intervention_question"),
+            "intervention_complete", Set.of("intervention_completed"),
+            "support_start", Set.of("support_message"),
+            "support_message", Set.of("support_message"),
+            "support_complete", Set.of("support_completed"),
+            "get_facts", Set.of("facts_list"));
+
+    private final String id;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final StringBuilder frame = new StringBuilder();
+    private volatile WebSocket socket;
+    private volatile boolean sessionOpen;
+
+    private CaregiverClient(String id, ObjectMapper objectMapper) {
+        this.id = id;
+        this.objectMapper = objectMapper;
+    }
+
+    static CaregiverClient connect(HttpClient http, URI url, String id, ObjectMapper objectMapper, Duration timeout)
+            throws InterruptedException, ExecutionException, TimeoutException {
+        CaregiverClient client = new CaregiverClient(id, objectMapper);
+        client.socket = http.newWebSocketBuilder()
+                .connectTimeout(timeout)
+                .buildAsync(url, client)
+                .get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        return client;
+    }
+
+    /**
+     * Send a request and wait for its reply.
+     */
+    Reply request(String type, Map<String, String> payload, Duration timeout) throws InterruptedException {
+        String requestId = id + "-" + sequence.incrementAndGet();
+        ObjectNode message = objectMapper.createObjectNode()
+                .put("type", type)
+                .put("request_id", requestId);
+        ObjectNode body = message.putObject("payload");
+        payload.forEach(body::put);
+
+        Pending request = new Pending(type, System.nanoTime());
+        pending.put(requestId, request);
+        try {
+            socket.sendText(message.toString(), true).get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            Reply reply = request.reply.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            if (reply.ok() && type.endsWith("_start")) {
+                sessionOpen = true;
+            }
+            return reply;
+        } catch (TimeoutException e) {
+            return request.reply(Reply.Outcome.TIMEOUT, null, "No reply within " + timeout.toMillis() + " ms");
+        } catch (ExecutionException e) {
+            return request.reply(Reply.Outcome.DISCONNECTED, null, String.valueOf(e.getCause().getMessage()));
+        } finally {
+            pending.remove(requestId);
+        }
+    }
+
+    /**
+     * Whether the server still has a conversation open on this connection; it ends one by itself
+     * when a survey or intervention reaches its last step.
+     */
+    boolean sessionOpen() {
+        return sessionOpen;
+    }
+
+    void close() {
+        socket.sendClose(WebSocket.NORMAL_CLOSURE, "done")
+                .orTimeout(5, TimeUnit.SECONDS)
+                .exceptionally(e -> {
+                    socket.abort();
+                    return null;
+                });
+    }
+
+    @Override
+    public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+        frame.append(data);
+        if (last) {
+            String text = frame.toString();
+            frame.setLength(0);
+            received(text);
+        }
+        webSocket.request(1);
+        return null;
+    }
+
+    @Override
+    public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+        disconnected("Connection closed: " + statusCode + " " + reason);
+        return null;
+    }
+
+    @Override
+    public void onError(WebSocket webSocket, Throwable error) {
+        disconnected("Connection failed: " + error.getMessage());
+    }
+
+    private void received(String text) {
+        JsonNode message;
+        try {
+            message = objectMapper.readTree(text);
+        } catch (Exception e) {
+            return;
+        }
+        String type = message.path("type").asText();
+        if (type.endsWith("_completed")) {
+            sessionOpen = false;
+        }
+
+        Pending request = pending.get(message.path("request_id").asText());
+        if (request == null) {
+            // Reply to a request already answered, e.g. intervention_completed after the last question
+            return;
+        }
+        if (type.endsWith("_delta")) {
+            request.firstDelta.compareAndSet(0, System.nanoTime());
+        } else if ("error".equals(type)) {
+            request.reply(Reply.Outcome.ERROR, type, message.path("payload").path("code").asText());
+        } else if (ANSWERS.getOrDefault(request.type, Set.of()).contains(type)) {
+            request.reply(Reply.Outcome.OK, type, null);
+        }
+    }
+
+    private void disconnected(String reason) {
+        sessionOpen = false;
+        pending.values().forEach(request -> request.reply(Reply.Outcome.DISCONNECTED, null, reason));
+    }
+
+    private static final class Pending {
+        final String type;
+        final long sentNanos;
+        final AtomicLong firstDelta = new AtomicLong();
+        final CompletableFuture<Reply> reply = new CompletableFuture<>();
+
+        Pending(String type, long sentNanos) {
+            this.type = type;
+            this.sentNanos = sentNanos;
+        }
+
+        Reply reply(Reply.Outcome outcome, String replyType, String error) {
+            long now = System.nanoTime();
+            long firstDeltaNanos = firstDelta.get();
+            Reply result = new Reply(type, outcome, replyType, now - sentNanos,
+                    firstDeltaNanos != 0 ? firstDeltaNanos - sentNanos : -1, error);
+            reply.complete(result);
+            return reply.getNow(result);
+        }
+    }
+}
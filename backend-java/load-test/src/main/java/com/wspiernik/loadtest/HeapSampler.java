@@ -0,0 +1,50 @@
+package com.wspiernik.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Reads the server's used heap from its Prometheus endpoint ({@code jvm_memory_used_bytes}, heap areas).
+ */
+final class HeapSampler {
+
+    private final HttpClient http;
+    private final URI metricsUrl;
+
+    HeapSampler(HttpClient http, URI metricsUrl) {
+        this.http = http;
+        this.metricsUrl = metricsUrl;
+    }
+
+    /**
+     * Used heap in bytes, or -1 when it could not be read.
+     */
+    long usedHeapBytes() {
+        if (metricsUrl == null) {
+            return -1;
+        }
+        try {
+            HttpResponse<String> response = http.send(
+                    HttpRequest.newBuilder(metricsUrl).timeout(Duration.ofSeconds(5)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                return -1;
+            }
+            double used = 0;
+            for (String line : response.body().split("\n")) {
+                if (line.startsWith("jvm_memory_used_bytes{") && line.contains("area=\"heap\"")) {
+                    used += Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+                }
+            }
+            return Math.round(used);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+}
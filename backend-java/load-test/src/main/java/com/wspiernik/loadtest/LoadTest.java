@@ -0,0 +1,267 @@
+package com.wspiernik.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Load generator for the {@code /ws} endpoint: N simulated caregivers, each on its own connection,
+ * go through scripted survey, intervention and support conversations with think time between messages.
+ * Reports latency percentiles per request type, throughput, error rates and the server's heap over time.
+ * Meant to run against the mock-llm profile to find the concurrency ceiling of the dispatch and
+ * persistence path without an LLM server; see the backend README for usage.
+ */
+public final class LoadTest {
+
+    private final LoadTestConfig config;
+    private final List<Script> scripts;
+    private final ObjectMapper objectMapper;
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final Stats stats = new Stats();
+    private final List<Sample> timeline = new ArrayList<>();
+    private final AtomicInteger activeUsers = new AtomicInteger();
+    private final AtomicInteger connectFailures = new AtomicInteger();
+    private final int totalWeight;
+    private long startNanos;
+    private long deadlineNanos;
+
+    private LoadTest(LoadTestConfig config, List<Script> scripts, ObjectMapper objectMapper) {
+        this.config = config;
+        this.scripts = scripts;
+        this.objectMapper = objectMapper;
+        this.totalWeight = scripts.stream().mapToInt(Script::weight).sum();
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = LoadTestConfig.fromArgs(args);
+        ObjectMapper objectMapper = new ObjectMapper();
+        new LoadTest(config, loadScripts(config, objectMapper), objectMapper).run();
+    }
+
+    private static List<Script> loadScripts(LoadTestConfig config, ObjectMapper objectMapper) throws IOException {
+        return loadScripts(config.scripts(), objectMapper);
+    }
+
+    /**
+     * The scripts in the file, or the bundled ones when it is null.
+     */
+    static List<Script> loadScripts(Path file, ObjectMapper objectMapper) throws IOException {
+        TypeReference<List<Script>> type = new TypeReference<>() {
+        };
+        if (file != null) {
+            return objectMapper.readValue(file.toFile(), type);
+        }
+        try (InputStream in = LoadTest.class.getResourceAsStream("/conversations.json")) {
+            return objectMapper.readValue(in, type);
+        }
+    }
+
+    private void run() throws Exception {
+        System.out.printf("Load test: %d caregivers against %s, ramp-up %ds, duration %ds, %d scripts%n",
+                config.users(), config.url(), config.rampUp().toSeconds(), config.duration().toSeconds(), scripts.size());
+
+        startNanos = System.nanoTime();
+        deadlineNanos = startNanos + config.duration().toNanos();
+
+        HeapSampler heap = new HeapSampler(http, config.metricsUrl());
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        reporter.scheduleAtFixedRate(() -> report(heap), 0, config.reportInterval().toMillis(), TimeUnit.MILLISECONDS);
+
+        long spacingNanos = config.rampUp().toNanos() / Math.max(1, config.users());
+        try (ExecutorService caregivers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < config.users(); i++) {
+                int user = i;
+                caregivers.submit(() -> {
+                    TimeUnit.NANOSECONDS.sleep(user * spacingNanos);
+                    caregiver(user);
+                    return null;
+                });
+            }
+        }
+
+        reporter.shutdown();
+        reporter.awaitTermination(10, TimeUnit.SECONDS);
+        report(heap);
+        printSummary();
+        if (config.report() != null) {
+            writeReport();
+        }
+    }
+
+    // =========================================================================
+    // Simulated caregivers
+    // =========================================================================
+
+    private void caregiver(int user) throws InterruptedException {
+        CaregiverClient client;
+        try {
+            client = CaregiverClient.connect(http, config.url(), "lt" + user, objectMapper, Duration.ofSeconds(10));
+        } catch (Exception e) {
+            connectFailures.incrementAndGet();
+            System.err.printf("Caregiver %d could not connect: %s%n", user, e.getMessage());
+            return;
+        }
+
+        activeUsers.incrementAndGet();
+        try {
+            while (running()) {
+                if (!converse(client, pickScript())) {
+                    System.err.printf("Caregiver %d lost its connection%n", user);
+                    return;
+                }
+            }
+        } finally {
+            activeUsers.decrementAndGet();
+            client.close();
+        }
+    }
+
+    /**
+     * Go through one scripted conversation.
+     *
+     * @return false when the connection was lost
+     */
+    private boolean converse(CaregiverClient client, Script script) throws InterruptedException {
+        Map<String, String> opening = script.opening() != null ? Map.of("scenario_description", script.opening()) : Map.of();
+        Reply reply = request(client, script.startType(), opening);
+        if (reply.outcome() == Reply.Outcome.DISCONNECTED) {
+            return false;
+        }
+
+        if (reply.ok()) {
+            for (String text : script.messages()) {
+                think();
+                if (!running() || !client.sessionOpen()) {
+                    break;
+                }
+                reply = request(client, script.messageType(), Map.of("text", text));
+                if (reply.outcome() == Reply.Outcome.DISCONNECTED) {
+                    return false;
+                }
+                if (!reply.ok()) {
+                    break;
+                }
+            }
+            stats.conversationFinished();
+        }
+
+        // Close what the server has not closed by itself, also after failures, so the next start is accepted
+        if (client.sessionOpen()) {
+            think();
+            reply = request(client, script.completeType(), Map.of());
+            return reply.outcome() != Reply.Outcome.DISCONNECTED;
+        }
+        return true;
+    }
+
+    private Reply request(CaregiverClient client, String type, Map<String, String> payload) throws InterruptedException {
+        Reply reply = client.request(type, payload, config.replyTimeout());
+        stats.record(reply);
+        return reply;
+    }
+
+    private Script pickScript() {
+        int roll = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Script script : scripts) {
+            roll -= script.weight();
+            if (roll < 0) {
+                return script;
+            }
+        }
+        return scripts.getLast();
+    }
+
+    private void think() throws InterruptedException {
+        long mean = config.thinkTime().toMillis();
+        if (mean > 0) {
+            Thread.sleep(Math.round(mean * (0.5 + ThreadLocalRandom.current().nextDouble())));
+        }
+    }
+
+    private boolean running() {
+        return System.nanoTime() < deadlineNanos;
+    }
+
+    // =========================================================================
+    // Reporting
+    // =========================================================================
+
+    private synchronized void report(HeapSampler heap) {
+        long elapsed = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos);
+        long requests = stats.requests();
+        Sample previous = timeline.isEmpty() ? null : timeline.getLast();
+        double rate = previous == null || elapsed == previous.elapsedSeconds() ? 0
+                : (requests - previous.requests()) / (double) (elapsed - previous.elapsedSeconds());
+        Sample sample = new Sample(elapsed, activeUsers.get(), requests, stats.failures(), rate, heap.usedHeapBytes());
+        timeline.add(sample);
+        System.out.printf("[%4ds] caregivers %d/%d  req/s %.1f  requests %d  failed %d  heap %s%n",
+                elapsed, sample.activeUsers(), config.users(), rate, requests, sample.failures(), megabytes(sample.heapBytes()));
+    }
+
+    private void printSummary() {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        long requests = stats.requests();
+        System.out.println();
+        System.out.printf("%d requests in %.0f s (%.1f req/s), %d conversations, %d failed (%.2f%%), %d connections refused%n",
+                requests, seconds, requests / seconds, stats.conversations(), stats.failures(),
+                requests == 0 ? 0 : 100.0 * stats.failures() / requests, connectFailures.get());
+        System.out.printf("%-24s %7s %7s %8s %9s %9s %9s %9s %9s %9s%n",
+                "type", "count", "errors", "timeouts", "p50 ms", "p90 ms", "p99 ms", "max ms", "1st p50", "1st p90");
+        List<Stats.Summary> summaries = new ArrayList<>(stats.summaries());
+        summaries.add(stats.overall());
+        for (Stats.Summary s : summaries) {
+            System.out.printf("%-24s %7d %7d %8d %9.1f %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+                    s.type(), s.count(), s.errors(), s.timeouts() + s.disconnects(),
+                    s.p50(), s.p90(), s.p99(), s.max(), s.firstDeltaP50(), s.firstDeltaP90());
+        }
+    }
+
+    private void writeReport() throws IOException {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("config", Map.of(
+                "url", config.url().toString(),
+                "users", config.users(),
+                "rampUpSeconds", config.rampUp().toSeconds(),
+                "durationSeconds", config.duration().toSeconds(),
+                "thinkTimeMillis", config.thinkTime().toMillis()));
+        report.put("requests", stats.requests());
+        report.put("failures", stats.failures());
+        report.put("conversations", stats.conversations());
+        report.put("connectFailures", connectFailures.get());
+        report.put("overall", stats.overall());
+        report.put("byType", stats.summaries());
+        report.put("timeline", timeline);
+        Files.writeString(config.report(), objectMapper.copy()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValueAsString(report));
+        System.out.println("Report written to " + config.report().toAbsolutePath());
+    }
+
+    private static String megabytes(long bytes) {
+        return bytes < 0 ? "n/a" : (bytes / (1024 * 1024)) + " MB";
+    }
+
+    /**
+     * State of the run at one report.
+     */
+    record Sample(long elapsedSeconds, int activeUsers, long requests, long failures, double requestsPerSecond,
+                  long heapBytes) {
+    }
+}
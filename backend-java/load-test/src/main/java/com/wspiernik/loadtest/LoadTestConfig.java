@@ -0,0 +1,83 @@
+package com.wspiernik.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings of a load run, from {@code --name=value} command line arguments.
+ *
+ * @param url            WebSocket endpoint
+ * @param metricsUrl     Prometheus endpoint sampled for server heap; null to skip sampling
+ * @param users          Concurrent caregivers, one connection each
+ * @param rampUp         Time over which the caregivers connect, evenly spaced
+ * @param duration       Length of the run, ramp-up included
+ * @param thinkTime      Mean pause between a reply and the caregiver's next message (randomised +/-50%)
+ * @param replyTimeout   How long a request may wait for its reply before it counts as timed out
+ * @param reportInterval How often progress and heap are reported
+ * @param scripts        Conversation scripts; null for the bundled ones
+ * @param report         File the JSON report is written to; null for none
+ */
+public record LoadTestConfig(
+        URI url,
+        URI metricsUrl,
+        int users,
+        Duration rampUp,
+        Duration duration,
+        Duration thinkTime,
+        Duration replyTimeout,
+        Duration reportInterval,
+        Path scripts,
+        Path report
+) {
+
+    static LoadTestConfig fromArgs(String[] args) {
+        Map<String, String> values = arguments(args);
+        String metrics = values.getOrDefault("metrics-url", "http://localhost:8080/q/metrics");
+        return new LoadTestConfig(
+                URI.create(values.getOrDefault("url", "ws://localhost:8080/ws")),
+                metrics.isBlank() ? null : URI.create(metrics),
+                Integer.parseInt(values.getOrDefault("users", "10")),
+                duration(values.getOrDefault("ramp-up", "10s")),
+                duration(values.getOrDefault("duration", "2m")),
+                duration(values.getOrDefault("think-time", "1s")),
+                duration(values.getOrDefault("reply-timeout", "120s")),
+                duration(values.getOrDefault("report-interval", "10s")),
+                values.containsKey("scripts") ? Path.of(values.get("scripts")) : null,
+                values.containsKey("report") ? Path.of(values.get("report")) : null);
+    }
+
+    /**
+     * The {@code --name=value} arguments by name.
+     */
+    static Map<String, String> arguments(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            int eq = arg.indexOf('=');
+            values.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        return values;
+    }
+
+    /**
+     * Parse durations written like the backend's configuration: 500ms, 30s, 5m, 1h.
+     */
+    static Duration duration(String value) {
+        String v = value.trim();
+        if (v.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(v.substring(0, v.length() - 2)));
+        }
+        long amount = Long.parseLong(v.substring(0, v.length() - 1));
+        return switch (v.charAt(v.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("Unsupported duration: " + value);
+        };
+    }
+}
@@ -0,0 +1,23 @@
+package com.wspiernik.loadtest;
+
+/**
+ * How a request ended.
+ *
+ * @param requestType       Type of the request sent
+ * @param outcome           Whether it was answered
+ * @param replyType         Type of the answering message; null when there was none
+ * @param latencyNanos      Time from sending to the answer, or to giving up
+ * @param firstDeltaNanos   Time to the first streamed fragment; -1 when nothing was streamed
+ * @param error             Error code or reason; null when answered
+ */
+record Reply(String requestType, Outcome outcome, String replyType, long latencyNanos, long firstDeltaNanos,
+             String error) {
+
+    enum Outcome {
+        OK, ERROR, TIMEOUT, DISCONNECTED
+    }
+
+    boolean ok() {
+        return outcome == Outcome.OK;
+    }
+}
@@ -0,0 +1,34 @@
+package com.wspiernik.loadtest;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * One scripted conversation a simulated caregiver goes through.
+ *
+ * @param name     Name shown in logs
+ * @param flow     survey, intervention or support
+ * @param weight   Relative frequency among the scripts
+ * @param opening  Situation description sent with intervention_start; ignored by other flows
+ * @param messages Caregiver messages, sent one per turn
+ */
+public record Script(
+        @JsonProperty("name") String name,
+        @JsonProperty("flow") String flow,
+        @JsonProperty("weight") int weight,
+        @JsonProperty("opening") String opening,
+        @JsonProperty("messages") List<String> messages
+) {
+    public String startType() {
+        return flow + "_start";
+    }
+
+    public String messageType() {
+        return flow + "_message";
+    }
+
+    public String completeType() {
+        return flow + "_complete";
+    }
+}
@@ -0,0 +1,125 @@
+package com.wspiernik.loadtest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latencies and outcomes per request type, plus running totals for progress reports.
+ */
+final class Stats {
+
+    private final Map<String, TypeStats> byType = new ConcurrentSkipListMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong conversations = new AtomicLong();
+
+    void record(Reply reply) {
+        byType.computeIfAbsent(reply.requestType(), type -> new TypeStats()).record(reply);
+        requests.incrementAndGet();
+        if (!reply.ok()) {
+            failures.incrementAndGet();
+        }
+    }
+
+    void conversationFinished() {
+        conversations.incrementAndGet();
+    }
+
+    long requests() {
+        return requests.get();
+    }
+
+    long failures() {
+        return failures.get();
+    }
+
+    long conversations() {
+        return conversations.get();
+    }
+
+    /**
+     * Per-type summaries, in type order.
+     */
+    List<Summary> summaries() {
+        List<Summary> summaries = new ArrayList<>();
+        byType.forEach((type, stats) -> summaries.add(stats.summary(type)));
+        return summaries;
+    }
+
+    /**
+     * Latency percentiles over all answered requests.
+     */
+    Summary overall() {
+        TypeStats all = new TypeStats();
+        byType.values().forEach(all::addAll);
+        return all.summary("all");
+    }
+
+    /**
+     * Summary of one request type; latencies in milliseconds, -1 when nothing was measured.
+     */
+    record Summary(String type, long count, long errors, long timeouts, long disconnects,
+                   double p50, double p90, double p99, double max,
+                   double firstDeltaP50, double firstDeltaP90) {
+    }
+
+    private static final class TypeStats {
+        private final List<Long> latencies = new ArrayList<>();
+        private final List<Long> firstDeltas = new ArrayList<>();
+        private long count;
+        private long errors;
+        private long timeouts;
+        private long disconnects;
+
+        synchronized void record(Reply reply) {
+            count++;
+            switch (reply.outcome()) {
+                case OK -> latencies.add(reply.latencyNanos());
+                case ERROR -> errors++;
+                case TIMEOUT -> timeouts++;
+                case DISCONNECTED -> disconnects++;
+            }
+            if (reply.ok() && reply.firstDeltaNanos() >= 0) {
+                firstDeltas.add(reply.firstDeltaNanos());
+            }
+        }
+
+        synchronized void addAll(TypeStats other) {
+            synchronized (other) {
+                latencies.addAll(other.latencies);
+                firstDeltas.addAll(other.firstDeltas);
+                count += other.count;
+                errors += other.errors;
+                timeouts += other.timeouts;
+                disconnects += other.disconnects;
+            }
+        }
+
+        synchronized Summary summary(String type) {
+            List<Long> sorted = new ArrayList<>(latencies);
+            List<Long> sortedDeltas = new ArrayList<>(firstDeltas);
+            Collections.sort(sorted);
+            Collections.sort(sortedDeltas);
+            return new Summary(type, count, errors, timeouts, disconnects,
+                    percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99), percentile(sorted, 100),
+                    percentile(sortedDeltas, 50), percentile(sortedDeltas, 90));
+        }
+
+        /**
+         * Nearest-rank percentile in milliseconds.
+         */
+        private static double percentile(List<Long> sorted, double p) {
+            if (sorted.isEmpty()) {
+                return -1;
+            }
+            int rank = (int) Math.ceil(p / 100 * sorted.size());
+            long nanos = sorted.get(Math.max(0, rank - 1));
+            return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+        }
+    }
+}
@@ -0,0 +1,248 @@
+package com.wspiernik.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Where a turn's time goes as a conversation grows: runs survey, intervention and support conversations
+ * one at a time, each extended to the requested number of turns, and reports the server's per-stage
+ * turn timings ({@code wspiernik_turn_stage_seconds}) by module and turn number.
+ * The server must run with {@code wspiernik.turn-profiling.enabled} (on in the mock-llm profile) and is best
+ * restarted before each run; the stage means only count turns after the warm-up, the percentiles are the
+ * server's rolling ones. Run it against differently sized databases to see how the stages scale with the
+ * fact table; see the backend README for usage.
+ */
+public final class TurnBenchmark {
+
+    private static final String METRIC = "wspiernik_turn_stage_seconds";
+    private static final List<String> STAGES = List.of("parse", "persist", "facts", "prompt", "llm", "serialize", "send");
+    private static final List<String> TURNS = List.of("start", "1", "2", "3", "4", "5", "6", "7", "8", "9", "10",
+            "11-20", "21-50", "51+", "complete", "-");
+
+    private final URI url;
+    private final URI metricsUrl;
+    private final List<String> flows;
+    private final int conversations;
+    private final int warmup;
+    private final int turns;
+    private final Duration replyTimeout;
+    private final List<Script> scripts;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private int failures;
+
+    private TurnBenchmark(Map<String, String> args) throws IOException {
+        url = URI.create(args.getOrDefault("url", "ws://localhost:8080/ws"));
+        metricsUrl = URI.create(args.getOrDefault("metrics-url", "http://localhost:8080/q/metrics"));
+        flows = List.of(args.getOrDefault("flows", "survey,intervention,support").split(","));
+        conversations = Integer.parseInt(args.getOrDefault("conversations", "20"));
+        warmup = Integer.parseInt(args.getOrDefault("warmup", "3"));
+        turns = Integer.parseInt(args.getOrDefault("turns", "20"));
+        replyTimeout = LoadTestConfig.duration(args.getOrDefault("reply-timeout", "120s"));
+        scripts = LoadTest.loadScripts(args.containsKey("scripts") ? Path.of(args.get("scripts")) : null, objectMapper);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new TurnBenchmark(LoadTestConfig.arguments(args)).run();
+    }
+
+    private void run() throws Exception {
+        System.out.printf("Turn benchmark: %s, %d conversations of up to %d turns per flow (%d warm-up) against %s%n",
+                String.join(",", flows), conversations, turns, warmup, url);
+
+        converseAll(warmup);
+        Map<Key, Series> baseline = scrape();
+        long start = System.nanoTime();
+        converseAll(conversations);
+        // The server records a turn after its reply has been sent
+        Thread.sleep(500);
+        Map<Key, Series> measured = scrape();
+
+        System.out.printf("%nDone in %.0f s, %d failed requests%n", (System.nanoTime() - start) / 1e9, failures);
+        for (String module : modules(measured)) {
+            printModule(module, baseline, measured);
+        }
+    }
+
+    // =========================================================================
+    // Conversations
+    // =========================================================================
+
+    private void converseAll(int count) throws Exception {
+        for (String flow : flows) {
+            List<Script> flowScripts = scripts.stream().filter(s -> s.flow().equals(flow)).toList();
+            if (flowScripts.isEmpty() || count == 0) {
+                continue;
+            }
+            CaregiverClient client = CaregiverClient.connect(http, url, "tb-" + flow, objectMapper, Duration.ofSeconds(10));
+            try {
+                for (int i = 0; i < count; i++) {
+                    converse(client, flowScripts.get(i % flowScripts.size()));
+                }
+            } finally {
+                client.close();
+            }
+        }
+    }
+
+    /**
+     * One conversation of the script, its messages repeated up to the number of turns
+     * or until the server ends the conversation.
+     */
+    private void converse(CaregiverClient client, Script script) throws InterruptedException {
+        Map<String, String> opening = script.opening() != null ? Map.of("scenario_description", script.opening()) : Map.of();
+        if (request(client, script.startType(), opening)) {
+            for (int turn = 0; turn < turns && client.sessionOpen(); turn++) {
+                String text = script.messages().get(turn % script.messages().size());
+                if (!request(client, script.messageType(), Map.of("text", text))) {
+                    break;
+                }
+            }
+        }
+        if (client.sessionOpen()) {
+            request(client, script.completeType(), Map.of());
+        }
+    }
+
+    private boolean request(CaregiverClient client, String type, Map<String, String> payload) throws InterruptedException {
+        Reply reply = client.request(type, payload, replyTimeout);
+        if (reply.outcome() == Reply.Outcome.DISCONNECTED) {
+            throw new IllegalStateException("Connection lost: " + reply.error());
+        }
+        if (!reply.ok()) {
+            failures++;
+            System.err.printf("%s failed: %s %s%n", type, reply.outcome(), reply.error());
+        }
+        return reply.ok();
+    }
+
+    // =========================================================================
+    // Server timings
+    // =========================================================================
+
+    private Map<Key, Series> scrape() throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(
+                HttpRequest.newBuilder(metricsUrl).timeout(Duration.ofSeconds(10)).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IOException("Metrics endpoint answered " + response.statusCode());
+        }
+        Map<Key, Series> series = new HashMap<>();
+        for (String line : response.body().split("\n")) {
+            if (!line.startsWith(METRIC)) {
+                continue;
+            }
+            int open = line.indexOf('{');
+            int close = line.lastIndexOf('}');
+            if (open < 0 || close < open) {
+                continue;
+            }
+            String suffix = line.substring(METRIC.length(), open);
+            Map<String, String> labels = labels(line.substring(open + 1, close));
+            double value = Double.parseDouble(line.substring(close + 1).trim());
+            Series s = series.computeIfAbsent(
+                    new Key(labels.get("module"), labels.get("turn"), labels.get("stage")), k -> new Series());
+            switch (suffix) {
+                case "_count" -> s.count = value;
+                case "_sum" -> s.sum = value;
+                case "" -> s.quantiles.put(labels.get("quantile"), value);
+                default -> {
+                }
+            }
+        }
+        if (series.isEmpty()) {
+            System.err.println("No turn timings on " + metricsUrl + "; is wspiernik.turn-profiling.enabled set?");
+        }
+        return series;
+    }
+
+    private static Map<String, String> labels(String text) {
+        Map<String, String> labels = new HashMap<>();
+        for (String pair : text.split("\",")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                labels.put(pair.substring(0, eq).trim(), pair.substring(eq + 1).replace("\"", "").trim());
+            }
+        }
+        return labels;
+    }
+
+    private static Set<String> modules(Map<Key, Series> series) {
+        Set<String> modules = new LinkedHashSet<>();
+        series.keySet().stream().map(Key::module).sorted().forEach(modules::add);
+        return modules;
+    }
+
+    /**
+     * Mean milliseconds per turn spent in each stage (turns without the stage count as zero),
+     * what is left of the total outside them, and the total's percentiles.
+     */
+    private void printModule(String module, Map<Key, Series> baseline, Map<Key, Series> measured) {
+        System.out.printf("%n%s (mean ms per turn by stage; total percentiles in ms)%n", module);
+        StringBuilder header = new StringBuilder(String.format("%-9s %5s", "turn", "n"));
+        STAGES.forEach(stage -> header.append(String.format(" %9s", stage)));
+        header.append(String.format(" %9s %9s %9s %9s %9s", "other", "mean", "p50", "p90", "p99"));
+        System.out.println(header);
+
+        for (String turn : TURNS) {
+            Series total = measured.get(new Key(module, turn, "total"));
+            if (total == null) {
+                continue;
+            }
+            double count = total.count - count(baseline, new Key(module, turn, "total"));
+            if (count <= 0) {
+                continue;
+            }
+            StringBuilder row = new StringBuilder(String.format("%-9s %5.0f", turn, count));
+            double stages = 0;
+            for (String stage : STAGES) {
+                Key key = new Key(module, turn, stage);
+                double mean = (sum(measured, key) - sum(baseline, key)) / count * 1000;
+                stages += mean;
+                row.append(String.format(" %9.2f", mean));
+            }
+            double mean = (total.sum - sum(baseline, new Key(module, turn, "total"))) / count * 1000;
+            row.append(String.format(" %9.2f %9.2f %9.1f %9.1f %9.1f", mean - stages, mean,
+                    total.quantile("0.5"), total.quantile("0.9"), total.quantile("0.99")));
+            System.out.println(row);
+        }
+    }
+
+    private static double sum(Map<Key, Series> series, Key key) {
+        Series s = series.get(key);
+        return s != null ? s.sum : 0;
+    }
+
+    private static double count(Map<Key, Series> series, Key key) {
+        Series s = series.get(key);
+        return s != null ? s.count : 0;
+    }
+
+    private record Key(String module, String turn, String stage) {
+    }
+
+    /**
+     * One timer as scraped: cumulative count and sum in seconds, and the rolling percentiles.
+     */
+    private static final class Series {
+        double count;
+        double sum;
+        final Map<String, Double> quantiles = new HashMap<>();
+
+        double quantile(String q) {
+            return quantiles.getOrDefault(q, Double.NaN) * 1000;
+        }
+    }
+}
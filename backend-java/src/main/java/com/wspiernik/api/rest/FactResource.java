@@ -1,6 +1,8 @@
 package com.wspiernik.api.rest;
 
 import com.wspiernik.domain.facts.FactRepository;
+import com.wspiernik.infrastructure.persistence.shard.ShardContext;
+import com.wspiernik.infrastructure.persistence.shard.ShardRouter;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
@@ -14,9 +16,16 @@ public class FactResource {
     @Inject
     private FactRepository factRepository;
 
+    @Inject
+    ShardRouter shardRouter;
+
+    /**
+     * 200 when any facts are stored, 204 otherwise; with sharding, {@code ?caregiver=<id>} checks that caregiver's.
+     */
     @HEAD
-    public Response facts() {
-        Response.ResponseBuilder builder = factRepository.hasAnyFacts()
+    public Response facts(@QueryParam("caregiver") String caregiver) {
+        boolean any = ShardContext.call(shardRouter.shardFor(caregiver), factRepository::hasAnyFacts);
+        Response.ResponseBuilder builder = any
             ? Response.ok()
             : Response.noContent();
         return addCorsHeaders(builder).build();
@@ -1,7 +1,10 @@
 package com.wspiernik.api.rest;
 
+import com.wspiernik.infrastructure.llm.LlmCallOptions;
 import com.wspiernik.infrastructure.llm.LlmClient;
-import com.wspiernik.infrastructure.persistence.entity.CrisisScenario;
+import com.wspiernik.infrastructure.llm.LlmPriority;
+import com.wspiernik.infrastructure.llm.LlmTask;
+import com.wspiernik.infrastructure.persistence.repository.CrisisScenarioRepository;
 import io.quarkus.narayana.jta.QuarkusTransaction;
 import jakarta.inject.Inject;
 import jakarta.ws.rs.GET;
@@ -24,6 +27,9 @@ public class HealthResource {
     @Inject
     LlmClient llmClient;
 
+    @Inject
+    CrisisScenarioRepository scenarioRepository;
+
     /**
      * Health check endpoint.
      * Returns status of all components.
@@ -65,7 +71,7 @@ public class HealthResource {
     private ComponentStatus checkDatabase() {
         try {
             long count = QuarkusTransaction.requiringNew().call(() ->
-                    CrisisScenario.count()
+                    scenarioRepository.countScenarios()
             );
             return new ComponentStatus(
                     "SQLite",
@@ -87,7 +93,12 @@ public class HealthResource {
      */
     private ComponentStatus checkLlm() {
         try {
-            String response = llmClient.generate("Respond with 'ok'", "ping");
+            String response = llmClient.generate("Respond with 'ok'", "ping", LlmCallOptions.builder()
+                    .priority(LlmPriority.HEALTH_PROBE)
+                    .callSite("health")
+                    .task(LlmTask.HEALTH_PROBE)
+                    .maxTokens(8)
+                    .build());
             if (response != null && !response.isEmpty()) {
                 return new ComponentStatus(
                         "LLM",
@@ -0,0 +1,65 @@
+package com.wspiernik.api.rest;
+
+import com.wspiernik.infrastructure.llm.LlmProbe;
+import com.wspiernik.infrastructure.llm.SemanticResponseCache;
+import io.smallrye.common.annotation.Blocking;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.WebApplicationException;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+
+import java.util.List;
+
+/**
+ * LLM diagnostics: performance probe of the configured endpoints and semantic cache statistics.
+ * The probe loads the LLM servers; run it before opening to caregivers or when traffic is low.
+ */
+@Path("/api/llm")
+@Produces(MediaType.APPLICATION_JSON)
+@Consumes(MediaType.APPLICATION_JSON)
+public class LlmProbeResource {
+
+    @Inject
+    LlmProbe probe;
+
+    @Inject
+    SemanticResponseCache semanticCache;
+
+    /**
+     * Probe the LLM endpoints with the real prompts at increasing concurrency.
+     * Answers 409 while another probe runs and 400 for an invalid request.
+     *
+     * Usage: POST /api/llm/probe
+     * Body (all optional): {"concurrency": [1, 2, 4, 8], "requestsPerLevel": 16, "maxTokens": 256,
+     *                       "prompts": ["support", "distiller"], "endpoint": "http://localhost:8000"}
+     */
+    @POST
+    @Path("/probe")
+    @Blocking
+    public Uni<LlmProbe.ProbeReport> probe(LlmProbe.ProbeRequest request) {
+        try {
+            return probe.run(request);
+        } catch (IllegalStateException e) {
+            throw new WebApplicationException(e.getMessage(), Response.Status.CONFLICT);
+        } catch (IllegalArgumentException e) {
+            throw new WebApplicationException(e.getMessage(), Response.Status.BAD_REQUEST);
+        }
+    }
+
+    /**
+     * Hit statistics of the semantic response cache, most used first.
+     *
+     * Usage: GET /api/llm/semantic-cache
+     */
+    @GET
+    @Path("/semantic-cache")
+    public List<SemanticResponseCache.EntryStats> semanticCacheStats() {
+        return semanticCache.entries();
+    }
+}
@@ -0,0 +1,52 @@
+package com.wspiernik.api.rest;
+
+import com.wspiernik.domain.conversation.ConversationMessageRepository;
+import com.wspiernik.domain.conversation.ConversationRepository;
+import com.wspiernik.domain.facts.FactRepository;
+import com.wspiernik.infrastructure.persistence.shard.ShardRouter;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.MediaType;
+
+import java.util.List;
+
+/**
+ * Administration across the caregiver databases. Opens every shard in turn, so it is slow with many
+ * caregivers; not for the hot path.
+ */
+@Path("/api/admin/shards")
+@Produces(MediaType.APPLICATION_JSON)
+public class ShardResource {
+
+    @Inject
+    ShardRouter shardRouter;
+
+    @Inject
+    FactRepository factRepository;
+
+    @Inject
+    ConversationRepository conversationRepository;
+
+    @Inject
+    ConversationMessageRepository messageRepository;
+
+    /**
+     * Row counts of the main database and of each caregiver shard.
+     *
+     * Usage: GET /api/admin/shards
+     */
+    @GET
+    public List<ShardStats> shards() {
+        return shardRouter.acrossShards(shard -> QuarkusTransaction.requiringNew().call(() -> new ShardStats(
+                shard != null ? shard : ShardRouter.MAIN,
+                factRepository.countFacts(),
+                conversationRepository.count(),
+                messageRepository.count())));
+    }
+
+    public record ShardStats(String shard, long facts, long conversations, long messages) {
+    }
+}
@@ -1,10 +1,15 @@
 package com.wspiernik.api.websocket;
 
+import com.wspiernik.infrastructure.llm.LlmCancellation;
 import com.wspiernik.infrastructure.llm.dto.LlmMessage;
+import com.wspiernik.infrastructure.persistence.shard.ShardRouter;
 import io.quarkus.websockets.next.WebSocketConnection;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 import org.jboss.logging.Logger;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -26,6 +31,9 @@ public class ConversationSessionManager {
      */
     private final Map<String, ConversationSession> sessions = new ConcurrentHashMap<>();
 
+    @Inject
+    ShardRouter shardRouter;
+
     /**
      * Session data for a conversation.
      */
@@ -33,10 +41,13 @@ public class ConversationSessionManager {
         public String sessionId;
         public String connectionId;  // WebSocket connection ID for async notifications
         public String conversationType; // "survey", "intervention", "support"
+        public String shardKey;  // Caregiver database the session's conversation and facts go to, null for the main one
         public Long conversationId;
         public int currentStep;
         public List<LlmMessage> messageHistory;
         public Map<String, Object> context;
+        public Instant turnDeadline;  // When the client stops waiting for the current turn, null for none
+        private LlmCancellation llmCancellation = new LlmCancellation();
 
         public ConversationSession(String sessionId, String conversationType) {
             this.sessionId = sessionId;
@@ -54,6 +65,32 @@ public class ConversationSessionManager {
             messageHistory.add(new LlmMessage(role, content));
         }
 
+        /**
+         * Start the time budget of a client request; LLM calls made for it fail once it runs out.
+         */
+        public void startTurn(Duration budget) {
+            this.turnDeadline = Instant.now().plus(budget);
+        }
+
+        /**
+         * Signal that aborts this session's LLM calls.
+         */
+        public synchronized LlmCancellation llmCancellation() {
+            return llmCancellation;
+        }
+
+        /**
+         * Abort the LLM calls in flight; calls started afterwards are not affected.
+         */
+        public void cancelLlmCalls(String reason) {
+            LlmCancellation cancelled;
+            synchronized (this) {
+                cancelled = llmCancellation;
+                llmCancellation = new LlmCancellation();
+            }
+            cancelled.cancel(reason);
+        }
+
         /**
          * Get context value.
          */
@@ -82,6 +119,7 @@ public class ConversationSessionManager {
         }
 
         ConversationSession session = new ConversationSession(connectionId, conversationType);
+        session.shardKey = shardRouter.shardOf(connectionId);
         sessions.put(connectionId, session);
         LOG.infof("Started %s session for %s", conversationType, connectionId);
         return session;
@@ -110,6 +148,8 @@ public class ConversationSessionManager {
     public void endSession(WebSocketConnection connection) {
         ConversationSession removed = sessions.remove(connection.id());
         if (removed != null) {
+            // Nobody will read what is still being generated for this session
+            removed.cancelLlmCalls("session ended");
             LOG.infof("Ended %s session for %s", removed.conversationType, connection.id());
         }
     }
@@ -1,5 +1,6 @@
 package com.wspiernik.api.websocket;
 
+import com.wspiernik.api.websocket.ConversationSessionManager.ConversationSession;
 import com.wspiernik.api.websocket.dto.ErrorPayload;
 import com.wspiernik.api.websocket.dto.IncomingMessage;
 import com.wspiernik.api.websocket.handler.InterventionHandler;
@@ -7,6 +8,8 @@ import com.wspiernik.api.websocket.handler.QueryHandler;
 import com.wspiernik.api.websocket.handler.SupportHandler;
 import com.wspiernik.api.websocket.handler.SurveyHandler;
 import io.quarkus.websockets.next.WebSocketConnection;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.jboss.logging.Logger;
@@ -39,18 +42,19 @@ public class MessageDispatcher {
 
     /**
      * Dispatch incoming message to the appropriate handler.
+     * The returned Uni completes once the handler has sent its responses.
      */
-    public void dispatch(IncomingMessage message, WebSocketConnection connection) {
+    public Uni<Void> dispatch(IncomingMessage message, WebSocketConnection connection) {
         String type = message.type();
         LOG.debugf("Dispatching message type: %s from %s", type, connection.id());
 
         if (type == null || type.isBlank()) {
             messageSender.sendError(connection, "Message type is required",
                     ErrorPayload.CODE_PARSE_ERROR, message.requestId());
-            return;
+            return Uni.createFrom().voidItem();
         }
 
-        switch (type) {
+        return switch (type) {
             // Survey messages
             case IncomingMessage.SURVEY_START -> surveyHandler.start(connection, message);
             case IncomingMessage.SURVEY_MESSAGE -> surveyHandler.message(connection, message);
@@ -67,14 +71,36 @@ public class MessageDispatcher {
             case IncomingMessage.SUPPORT_COMPLETE -> supportHandler.complete(connection, message);
 
             // Query messages
-            case IncomingMessage.GET_FACTS -> queryHandler.getFacts(connection, message);
+            case IncomingMessage.GET_FACTS -> {
+                queryHandler.getFacts(connection, message);
+                yield Uni.createFrom().voidItem();
+            }
 
             // Unknown type
             default -> {
                 LOG.warnf("Unknown message type: %s from %s", type, connection.id());
                 messageSender.sendError(connection, "Unknown message type: " + type,
                         ErrorPayload.CODE_UNKNOWN_TYPE, message.requestId());
+                yield Uni.createFrom().voidItem();
             }
+        };
+    }
+
+    /**
+     * Called as a message arrives, before the messages received ahead of it have been processed.
+     * Ending a session aborts the LLM calls of the turn still in progress: nobody will read its answer,
+     * and its slot is freed for the closing message. The ending message itself is processed in order.
+     */
+    public void interrupt(IncomingMessage message, WebSocketConnection connection) {
+        String type = message.type();
+        if (!IncomingMessage.SURVEY_COMPLETE.equals(type) && !IncomingMessage.INTERVENTION_COMPLETE.equals(type)
+                && !IncomingMessage.SUPPORT_COMPLETE.equals(type)) {
+            return;
+        }
+        ConversationSession session = sessionManager.getSession(connection);
+        if (session != null) {
+            // The aborted calls fail on the cancelling thread, and their handlers may block
+            Infrastructure.getDefaultWorkerPool().execute(() -> session.cancelLlmCalls(type));
         }
     }
 
@@ -2,12 +2,17 @@ package com.wspiernik.api.websocket;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wspiernik.api.websocket.dto.MessageDeltaPayload;
 import com.wspiernik.api.websocket.dto.OutgoingMessage;
+import com.wspiernik.infrastructure.metrics.TurnProfiler;
 import io.quarkus.websockets.next.WebSocketConnection;
+import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.jboss.logging.Logger;
 
+import java.util.function.Function;
+
 /**
  * Utility service for sending WebSocket messages.
  * Centralizes JSON serialization and error handling.
@@ -20,19 +25,41 @@ public class MessageSender {
     @Inject
     ObjectMapper objectMapper;
 
+    @Inject
+    TurnProfiler turnProfiler;
+
     /**
      * Send a message to a specific connection.
      */
     public void send(WebSocketConnection connection, OutgoingMessage message) {
         try {
+            long start = System.nanoTime();
             String json = objectMapper.writeValueAsString(message);
+            long serialized = System.nanoTime();
             connection.sendTextAndAwait(json);
+            turnProfiler.record(connection.id(), TurnProfiler.Stage.SERIALIZE, serialized - start);
+            turnProfiler.record(connection.id(), TurnProfiler.Stage.SEND, System.nanoTime() - serialized);
             LOG.debugf("Sent to %s: type=%s", connection.id(), message.type());
         } catch (JsonProcessingException e) {
             LOG.errorf(e, "Failed to serialize message for %s", connection.id());
         }
     }
 
+    /**
+     * Send a message to a specific connection without blocking the calling thread.
+     */
+    public Uni<Void> sendAsync(WebSocketConnection connection, OutgoingMessage message) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(message);
+        } catch (JsonProcessingException e) {
+            LOG.errorf(e, "Failed to serialize message for %s", connection.id());
+            return Uni.createFrom().voidItem();
+        }
+        return connection.sendText(json)
+                .invoke(() -> LOG.tracef("Sent to %s: type=%s", connection.id(), message.type()));
+    }
+
     /**
      * Send an error message to a connection.
      */
@@ -46,4 +73,14 @@ public class MessageSender {
     public void sendError(WebSocketConnection connection, String errorMessage, String code) {
         sendError(connection, errorMessage, code, null);
     }
+
+    /**
+     * Create a listener that forwards streamed response fragments as delta messages of the given type.
+     * A failed delta (e.g. client went away) is logged and does not abort generation.
+     */
+    public Function<String, Uni<Void>> deltaSender(WebSocketConnection connection, String deltaType, String requestId) {
+        return delta -> sendAsync(connection, OutgoingMessage.of(deltaType, new MessageDeltaPayload(delta), requestId))
+                .onFailure().invoke(e -> LOG.debugf("Dropped delta for %s: %s", connection.id(), e.getMessage()))
+                .onFailure().recoverWithNull();
+    }
 }
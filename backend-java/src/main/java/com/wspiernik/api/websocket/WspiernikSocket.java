@@ -5,23 +5,34 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wspiernik.api.websocket.dto.ErrorPayload;
 import com.wspiernik.api.websocket.dto.IncomingMessage;
 import com.wspiernik.api.websocket.dto.OutgoingMessage;
+import com.wspiernik.infrastructure.llm.LlmCancelledException;
+import com.wspiernik.infrastructure.metrics.TurnProfiler;
+import com.wspiernik.infrastructure.persistence.shard.ShardRouter;
+import io.quarkus.websockets.next.InboundProcessingMode;
 import io.quarkus.websockets.next.OnClose;
 import io.quarkus.websockets.next.OnError;
 import io.quarkus.websockets.next.OnOpen;
 import io.quarkus.websockets.next.OnTextMessage;
 import io.quarkus.websockets.next.WebSocket;
 import io.quarkus.websockets.next.WebSocketConnection;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
 import jakarta.inject.Inject;
 import org.jboss.logging.Logger;
 
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Main WebSocket endpoint for Wspiernik application.
  * Handles all real-time communication between frontend and backend.
+ * Messages are received concurrently so that ending a session can abort the answer still being generated;
+ * each connection's messages are still processed one at a time, in arrival order.
  */
-@WebSocket(path = "/ws")
+@WebSocket(path = "/ws", inboundProcessingMode = InboundProcessingMode.CONCURRENT)
 public class WspiernikSocket {
 
     private static final Logger LOG = Logger.getLogger(WspiernikSocket.class);
@@ -31,6 +42,11 @@ public class WspiernikSocket {
      */
     private static final Map<String, WebSocketConnection> connections = new ConcurrentHashMap<>();
 
+    /**
+     * Completes when the connection's last received message has been processed; the next one waits for it.
+     */
+    private final Map<String, CompletableFuture<Void>> lastMessages = new ConcurrentHashMap<>();
+
     @Inject
     ObjectMapper objectMapper;
 
@@ -40,30 +56,81 @@ public class WspiernikSocket {
     @Inject
     WebSocketErrorHandler errorHandler;
 
+    @Inject
+    TurnProfiler turnProfiler;
+
+    @Inject
+    ShardRouter shardRouter;
+
+    /**
+     * With sharding, {@code /ws?caregiver=<id>} picks the caregiver's database for the connection.
+     */
     @OnOpen
     public void onOpen(WebSocketConnection connection) {
         String connectionId = connection.id();
         connections.put(connectionId, connection);
+        shardRouter.opened(connectionId, queryParam(connection.handshakeRequest().query(), "caregiver"));
         LOG.infof("WebSocket opened: %s (total connections: %d)", connectionId, connections.size());
     }
 
+    /**
+     * Runs on the event loop as the message arrives: parses it and, for a message ending the session, aborts
+     * the LLM calls of the turn in progress. Processing then waits for the connection's previous message and
+     * runs on a worker thread; the LLM wait itself does not hold the thread.
+     */
     @OnTextMessage
-    public void onMessage(String message, WebSocketConnection connection) {
+    public Uni<Void> onMessage(String message, WebSocketConnection connection) {
         String connectionId = connection.id();
         LOG.debugf("WebSocket message from %s: %s", connectionId, message);
 
-        String requestId = extractRequestId(message);
-
+        long received = System.nanoTime();
+        IncomingMessage incomingMessage;
+        JsonProcessingException parseError = null;
         try {
-            IncomingMessage incomingMessage = objectMapper.readValue(message, IncomingMessage.class);
-            messageDispatcher.dispatch(incomingMessage, connection);
+            incomingMessage = objectMapper.readValue(message, IncomingMessage.class);
+            messageDispatcher.interrupt(incomingMessage, connection);
         } catch (JsonProcessingException e) {
-            LOG.warnf("Failed to parse message from %s: %s", connectionId, e.getMessage());
-            errorHandler.handleError(connection, e, requestId);
-        } catch (Exception e) {
-            LOG.errorf(e, "Error processing message from %s", connectionId);
-            errorHandler.handleError(connection, e, requestId);
+            incomingMessage = null;
+            parseError = e;
         }
+        long parseNanos = System.nanoTime() - received;
+
+        CompletableFuture<Void> processed = new CompletableFuture<>();
+        CompletableFuture<Void> previous = lastMessages.put(connectionId, processed);
+        IncomingMessage parsed = incomingMessage;
+        JsonProcessingException error = parseError;
+        return Uni.createFrom().completionStage(previous != null ? previous : CompletableFuture.<Void>completedFuture(null))
+                .emitOn(Infrastructure.getDefaultWorkerPool())
+                .chain(() -> process(message, parsed, error, received, parseNanos, connection))
+                .onTermination().invoke(() -> {
+                    lastMessages.remove(connectionId, processed);
+                    processed.complete(null);
+                });
+    }
+
+    private Uni<Void> process(String message, IncomingMessage incomingMessage, JsonProcessingException parseError,
+                              long received, long parseNanos, WebSocketConnection connection) {
+        String connectionId = connection.id();
+        if (parseError != null) {
+            LOG.warnf("Failed to parse message from %s: %s", connectionId, parseError.getMessage());
+            errorHandler.handleError(connection, parseError, extractRequestId(message));
+            return Uni.createFrom().voidItem();
+        }
+        turnProfiler.begin(connectionId, incomingMessage.type(), received);
+        turnProfiler.record(connectionId, TurnProfiler.Stage.PARSE, parseNanos);
+
+        return Uni.createFrom().deferred(() -> messageDispatcher.dispatch(incomingMessage, connection))
+                // The session ended while answering; there is nobody left to reply to
+                .onFailure(LlmCancelledException.class).recoverWithItem(e -> {
+                    LOG.debugf("Abandoned message from %s: %s", connectionId, e.getMessage());
+                    return null;
+                })
+                .onFailure().recoverWithItem(e -> {
+                    LOG.errorf(e, "Error processing message from %s", connectionId);
+                    errorHandler.handleError(connection, e, extractRequestId(message));
+                    return null;
+                })
+                .onTermination().invoke(() -> turnProfiler.end(connectionId));
     }
 
     /**
@@ -87,11 +154,30 @@ public class WspiernikSocket {
         return null;
     }
 
+    /**
+     * Value of a query string parameter, or null.
+     */
+    private static String queryParam(String query, String name) {
+        if (query == null) {
+            return null;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && name.equals(pair.substring(0, eq))) {
+                return URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            }
+        }
+        return null;
+    }
+
     @OnClose
     public void onClose(WebSocketConnection connection) {
         String connectionId = connection.id();
         connections.remove(connectionId);
+        lastMessages.remove(connectionId);
         messageDispatcher.onConnectionClosed(connection);
+        shardRouter.closed(connectionId);
+        turnProfiler.closed(connectionId);
         LOG.infof("WebSocket closed: %s (remaining connections: %d)", connectionId, connections.size());
     }
 
@@ -100,7 +186,10 @@ public class WspiernikSocket {
         String connectionId = connection.id();
         LOG.errorf(error, "WebSocket error for %s", connectionId);
         connections.remove(connectionId);
+        lastMessages.remove(connectionId);
         messageDispatcher.onConnectionClosed(connection);
+        shardRouter.closed(connectionId);
+        turnProfiler.closed(connectionId);
     }
 
     /**
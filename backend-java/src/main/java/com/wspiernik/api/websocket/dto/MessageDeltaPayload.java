@@ -0,0 +1,12 @@
+package com.wspiernik.api.websocket.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Payload for streamed *_delta messages.
+ * Carries the next text fragment of a response that is still being generated;
+ * the complete text follows in the regular message (e.g. support_message).
+ */
+public record MessageDeltaPayload(
+        @JsonProperty("delta") String delta
+) {}
@@ -20,8 +20,10 @@ public record OutgoingMessage(
     public static final String SURVEY_COMPLETED = "survey_completed";
     public static final String INTERVENTION_SCENARIO_MATCHED = "intervention_scenario_matched";
     public static final String INTERVENTION_QUESTION = "intervention_question";
+    public static final String INTERVENTION_QUESTION_DELTA = "intervention_question_delta";
     public static final String INTERVENTION_COMPLETED = "intervention_completed";
     public static final String SUPPORT_MESSAGE = "support_message";
+    public static final String SUPPORT_MESSAGE_DELTA = "support_message_delta";
     public static final String SUPPORT_COMPLETED = "support_completed";
     public static final String FACTS_EXTRACTED = "facts_extracted";
     public static final String FACTS_LIST = "facts_list";
@@ -10,13 +10,16 @@ import com.wspiernik.api.websocket.dto.InterventionScenarioMatchedPayload;
 import com.wspiernik.api.websocket.dto.OutgoingMessage;
 import com.wspiernik.api.websocket.MessageSender;
 import com.wspiernik.domain.intervention.InterventionService;
-import com.wspiernik.domain.intervention.InterventionService.InterventionMessageResult;
-import com.wspiernik.domain.intervention.InterventionService.InterventionStartResult;
+import com.wspiernik.infrastructure.llm.LlmCancelledException;
 import io.quarkus.websockets.next.WebSocketConnection;
+import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import java.time.Duration;
+
 /**
  * Handles intervention WebSocket messages.
  * Task 18: DefaultInterventionHandler - Full implementation
@@ -35,8 +38,12 @@ public class DefaultInterventionHandler implements InterventionHandler {
     @Inject
     InterventionService interventionService;
 
+    /** How long the caregiver waits for an answer before the scripted fallback is used. */
+    @ConfigProperty(name = "wspiernik.llm.deadline.intervention", defaultValue = "60s")
+    Duration turnDeadline;
+
     @Override
-    public void start(WebSocketConnection connection, IncomingMessage message) {
+    public Uni<Void> start(WebSocketConnection connection, IncomingMessage message) {
         LOG.info("Starting intervention for connection: " + connection.id());
 
         // Check if already in a session
@@ -44,7 +51,7 @@ public class DefaultInterventionHandler implements InterventionHandler {
             LOG.warn("Connection already has active session");
             messageSender.sendError(connection, "Masz już aktywną sesję. Zakończ ją przed rozpoczęciem nowej.",
                     ErrorPayload.CODE_INVALID_STATE, message.requestId());
-            return;
+            return Uni.createFrom().voidItem();
         }
 
         // Get scenario description from payload (optional)
@@ -60,45 +67,51 @@ public class DefaultInterventionHandler implements InterventionHandler {
             situationDescription = "ogólna pomoc";  // placeholder for generic intervention
         }
 
-        try {
-            // Create session
-            ConversationSession session = sessionManager.startSession(connection, "intervention");
-
-            // Start intervention via service
-            InterventionStartResult result = interventionService.startIntervention(session, situationDescription);
-
-            // Send scenario matched message if scenario was found
-            if (result.scenarioMatched()) {
-                InterventionScenarioMatchedPayload scenarioPayload = new InterventionScenarioMatchedPayload(
-                        result.scenarioKey(),
-                        result.scenarioName()
-                );
-                messageSender.send(connection, OutgoingMessage.of(
-                        OutgoingMessage.INTERVENTION_SCENARIO_MATCHED, scenarioPayload, message.requestId()));
-            }
-
-            // Send first question
-            InterventionQuestionPayload questionPayload = new InterventionQuestionPayload(
-                    result.firstMessage(),
-                    result.currentStep()
-            );
-
-            messageSender.send(connection, OutgoingMessage.of(
-                    OutgoingMessage.INTERVENTION_QUESTION, questionPayload, message.requestId()));
-
-            LOG.infof("Intervention started, conversation ID: %d, scenario: %s",
-                    result.conversationId(), result.scenarioKey());
-
-        } catch (Exception e) {
-            LOG.errorf(e, "Failed to start intervention");
-            sessionManager.endSession(connection);
-            messageSender.sendError(connection, "Nie udało się rozpocząć interwencji: " + e.getMessage(),
-                    ErrorPayload.CODE_INTERNAL_ERROR, message.requestId());
-        }
+        String description = situationDescription;
+        return Uni.createFrom().deferred(() -> {
+                    // Create session
+                    ConversationSession session = sessionManager.startSession(connection, "intervention");
+                    session.startTurn(turnDeadline);
+
+                    // Start intervention via service
+                    return interventionService.startIntervention(session, description,
+                            messageSender.deltaSender(connection, OutgoingMessage.INTERVENTION_QUESTION_DELTA, message.requestId()));
+                })
+                .invoke(result -> {
+                    // Send scenario matched message if scenario was found
+                    if (result.scenarioMatched()) {
+                        InterventionScenarioMatchedPayload scenarioPayload = new InterventionScenarioMatchedPayload(
+                                result.scenarioKey(),
+                                result.scenarioName()
+                        );
+                        messageSender.send(connection, OutgoingMessage.of(
+                                OutgoingMessage.INTERVENTION_SCENARIO_MATCHED, scenarioPayload, message.requestId()));
+                    }
+
+                    // Send first question
+                    InterventionQuestionPayload questionPayload = new InterventionQuestionPayload(
+                            result.firstMessage(),
+                            result.currentStep()
+                    );
+
+                    messageSender.send(connection, OutgoingMessage.of(
+                            OutgoingMessage.INTERVENTION_QUESTION, questionPayload, message.requestId()));
+
+                    LOG.infof("Intervention started, conversation ID: %d, scenario: %s",
+                            result.conversationId(), result.scenarioKey());
+                })
+                .replaceWithVoid()
+                .onFailure(e -> !(e instanceof LlmCancelledException)).recoverWithItem(e -> {
+                    LOG.errorf(e, "Failed to start intervention");
+                    sessionManager.endSession(connection);
+                    messageSender.sendError(connection, "Nie udało się rozpocząć interwencji: " + e.getMessage(),
+                            ErrorPayload.CODE_INTERNAL_ERROR, message.requestId());
+                    return null;
+                });
     }
 
     @Override
-    public void message(WebSocketConnection connection, IncomingMessage message) {
+    public Uni<Void> message(WebSocketConnection connection, IncomingMessage message) {
         LOG.debugf("Intervention message from %s", connection.id());
 
         // Check session exists
@@ -106,63 +119,66 @@ public class DefaultInterventionHandler implements InterventionHandler {
         if (session == null || !"intervention".equals(session.conversationType)) {
             messageSender.sendError(connection, "Nie masz aktywnej interwencji. Rozpocznij nową interwencję.",
                     ErrorPayload.CODE_INVALID_STATE, message.requestId());
-            return;
+            return Uni.createFrom().voidItem();
         }
 
         String userMessage = message.getText();
         if (userMessage == null || userMessage.isBlank()) {
             messageSender.sendError(connection, "Wiadomość nie może być pusta",
                     ErrorPayload.CODE_VALIDATION_ERROR, message.requestId());
-            return;
+            return Uni.createFrom().voidItem();
         }
 
-        try {
-            // Process message via service
-            InterventionMessageResult result = interventionService.processMessage(session, userMessage);
-
-            if (result.completed()) {
-                // Intervention completed - send completion message
-                InterventionCompletedPayload completedPayload = new InterventionCompletedPayload(
-                        session.conversationId,
-                        "pending" // Facts extraction will be done asynchronously
-                );
-
-                // Send final response first
-                InterventionQuestionPayload questionPayload = new InterventionQuestionPayload(
-                        result.response(),
-                        result.currentStep()
-                );
-                messageSender.send(connection, OutgoingMessage.of(
-                        OutgoingMessage.INTERVENTION_QUESTION, questionPayload, message.requestId()));
-
-                // Then send completion
-                messageSender.send(connection, OutgoingMessage.of(
-                        OutgoingMessage.INTERVENTION_COMPLETED, completedPayload, message.requestId()));
-
-                // End session
-                sessionManager.endSession(connection);
-                LOG.info("Intervention completed for connection: " + connection.id());
-
-            } else {
-                // Send next question
-                InterventionQuestionPayload questionPayload = new InterventionQuestionPayload(
-                        result.response(),
-                        result.currentStep()
-                );
-
-                messageSender.send(connection, OutgoingMessage.of(
-                        OutgoingMessage.INTERVENTION_QUESTION, questionPayload, message.requestId()));
-            }
-
-        } catch (Exception e) {
-            LOG.errorf(e, "Failed to process intervention message");
-            messageSender.sendError(connection, "Błąd przetwarzania wiadomości: " + e.getMessage(),
-                    ErrorPayload.CODE_INTERNAL_ERROR, message.requestId());
-        }
+        // Process message via service
+        session.startTurn(turnDeadline);
+        return Uni.createFrom().deferred(() -> interventionService.processMessage(session, userMessage,
+                        messageSender.deltaSender(connection, OutgoingMessage.INTERVENTION_QUESTION_DELTA, message.requestId())))
+                .invoke(result -> {
+                    if (result.completed()) {
+                        // Intervention completed - send completion message
+                        InterventionCompletedPayload completedPayload = new InterventionCompletedPayload(
+                                session.conversationId,
+                                "pending" // Facts extraction will be done asynchronously
+                        );
+
+                        // Send final response first
+                        InterventionQuestionPayload questionPayload = new InterventionQuestionPayload(
+                                result.response(),
+                                result.currentStep()
+                        );
+                        messageSender.send(connection, OutgoingMessage.of(
+                                OutgoingMessage.INTERVENTION_QUESTION, questionPayload, message.requestId()));
+
+                        // Then send completion
+                        messageSender.send(connection, OutgoingMessage.of(
+                                OutgoingMessage.INTERVENTION_COMPLETED, completedPayload, message.requestId()));
+
+                        // End session
+                        sessionManager.endSession(connection);
+                        LOG.info("Intervention completed for connection: " + connection.id());
+
+                    } else {
+                        // Send next question
+                        InterventionQuestionPayload questionPayload = new InterventionQuestionPayload(
+                                result.response(),
+                                result.currentStep()
+                        );
+
+                        messageSender.send(connection, OutgoingMessage.of(
+                                OutgoingMessage.INTERVENTION_QUESTION, questionPayload, message.requestId()));
+                    }
+                })
+                .replaceWithVoid()
+                .onFailure(e -> !(e instanceof LlmCancelledException)).recoverWithItem(e -> {
+                    LOG.errorf(e, "Failed to process intervention message");
+                    messageSender.sendError(connection, "Błąd przetwarzania wiadomości: " + e.getMessage(),
+                            ErrorPayload.CODE_INTERNAL_ERROR, message.requestId());
+                    return null;
+                });
     }
 
     @Override
-    public void complete(WebSocketConnection connection, IncomingMessage message) {
+    public Uni<Void> complete(WebSocketConnection connection, IncomingMessage message) {
         LOG.info("Manual intervention complete request from: " + connection.id());
 
         // Check session exists
@@ -170,7 +186,7 @@ public class DefaultInterventionHandler implements InterventionHandler {
         if (session == null || !"intervention".equals(session.conversationType)) {
             messageSender.sendError(connection, "Nie masz aktywnej interwencji do zakończenia",
                     ErrorPayload.CODE_INVALID_STATE, message.requestId());
-            return;
+            return Uni.createFrom().voidItem();
         }
 
         // End session (user requested early termination)
@@ -187,5 +203,6 @@ public class DefaultInterventionHandler implements InterventionHandler {
                 OutgoingMessage.INTERVENTION_COMPLETED, payload, message.requestId()));
 
         LOG.info("Intervention manually completed for connection: " + connection.id());
+        return Uni.createFrom().voidItem();
     }
 }
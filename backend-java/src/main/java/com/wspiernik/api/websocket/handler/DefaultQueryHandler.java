@@ -7,6 +7,9 @@ import com.wspiernik.api.websocket.dto.IncomingMessage;
 import com.wspiernik.api.websocket.dto.OutgoingMessage;
 import com.wspiernik.domain.facts.Fact;
 import com.wspiernik.domain.facts.FactRepository;
+import com.wspiernik.infrastructure.metrics.TurnProfiler;
+import com.wspiernik.infrastructure.persistence.shard.ShardContext;
+import com.wspiernik.infrastructure.persistence.shard.ShardRouter;
 import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.quarkus.websockets.next.WebSocketConnection;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -30,23 +33,30 @@ public class DefaultQueryHandler implements QueryHandler {
     @Inject
     FactRepository factRepository;
 
+    @Inject
+    TurnProfiler turnProfiler;
+
+    @Inject
+    ShardRouter shardRouter;
+
     @Override
     public void getFacts(WebSocketConnection connection, IncomingMessage message) {
         LOG.debugf("Getting facts, limit: %d", message.getLimit());
 
         int limit = message.getLimit();
 
-        // Use QuarkusTransaction for database access in WebSocket context
-        FactsListPayload payload = QuarkusTransaction.requiringNew().call(() -> {
+        // Use QuarkusTransaction for database access in WebSocket context, on the caregiver's shard
+        String shard = shardRouter.shardOf(connection.id());
+        FactsListPayload payload = turnProfiler.time(connection.id(), TurnProfiler.Stage.FACTS, () -> ShardContext.call(shard, () -> QuarkusTransaction.requiringNew().call(() -> {
             List<Fact> facts = factRepository.findAllFacts();
-            long totalCount = factRepository.count();
+            long totalCount = factRepository.countFacts();
 
             List<FactDto> factDtos = facts.stream()
                     .map(FactDto::from)
                     .toList();
 
             return new FactsListPayload(factDtos, totalCount);
-        });
+        })));
 
         messageSender.send(connection, OutgoingMessage.of(
                 OutgoingMessage.FACTS_LIST, payload, message.requestId()));
@@ -9,14 +9,16 @@ import com.wspiernik.api.websocket.dto.SupportCompletedPayload;
 import com.wspiernik.api.websocket.dto.SupportMessagePayload;
 import com.wspiernik.api.websocket.MessageSender;
 import com.wspiernik.domain.support.SupportService;
-import com.wspiernik.domain.support.SupportService.SupportCompleteResult;
-import com.wspiernik.domain.support.SupportService.SupportMessageResult;
-import com.wspiernik.domain.support.SupportService.SupportStartResult;
+import com.wspiernik.infrastructure.llm.LlmCancelledException;
 import io.quarkus.websockets.next.WebSocketConnection;
+import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import java.time.Duration;
+
 /**
  * Handles support WebSocket messages.
  * Task 21: DefaultSupportHandler - Full implementation
@@ -35,8 +37,12 @@ public class DefaultSupportHandler implements SupportHandler {
     @Inject
     SupportService supportService;
 
+    /** How long the caregiver waits for an answer before the scripted fallback is used. */
+    @ConfigProperty(name = "wspiernik.llm.deadline.support", defaultValue = "90s")
+    Duration turnDeadline;
+
     @Override
-    public void start(WebSocketConnection connection, IncomingMessage message) {
+    public Uni<Void> start(WebSocketConnection connection, IncomingMessage message) {
         LOG.info("Starting support session for connection: " + connection.id());
 
         // Check if already in a session
@@ -44,37 +50,42 @@ public class DefaultSupportHandler implements SupportHandler {
             LOG.warn("Connection already has active session");
             messageSender.sendError(connection, "Masz już aktywną sesję. Zakończ ją przed rozpoczęciem nowej.",
                     ErrorPayload.CODE_INVALID_STATE, message.requestId());
-            return;
+            return Uni.createFrom().voidItem();
         }
 
-        try {
-            // Create session
-            ConversationSession session = sessionManager.startSession(connection, "support");
-
-            // Get initial message if provided
-            String initialMessage = message.getText();
-
-            // Start support via service
-            SupportStartResult result = supportService.startSupport(session, initialMessage);
-
-            // Send greeting/response
-            SupportMessagePayload payload = new SupportMessagePayload(result.greeting());
-
-            messageSender.send(connection, OutgoingMessage.of(
-                    OutgoingMessage.SUPPORT_MESSAGE, payload, message.requestId()));
-
-            LOG.infof("Support session started, conversation ID: %d", result.conversationId());
-
-        } catch (Exception e) {
-            LOG.errorf(e, "Failed to start support session");
-            sessionManager.endSession(connection);
-            messageSender.sendError(connection, "Nie udało się rozpocząć sesji wsparcia: " + e.getMessage(),
-                    ErrorPayload.CODE_INTERNAL_ERROR, message.requestId());
-        }
+        return Uni.createFrom().deferred(() -> {
+                    // Create session
+                    ConversationSession session = sessionManager.startSession(connection, "support");
+                    session.startTurn(turnDeadline);
+
+                    // Get initial message if provided
+                    String initialMessage = message.getText();
+
+                    // Start support via service
+                    return supportService.startSupport(session, initialMessage,
+                            messageSender.deltaSender(connection, OutgoingMessage.SUPPORT_MESSAGE_DELTA, message.requestId()));
+                })
+                .invoke(result -> {
+                    // Send greeting/response
+                    SupportMessagePayload payload = new SupportMessagePayload(result.greeting());
+
+                    messageSender.send(connection, OutgoingMessage.of(
+                            OutgoingMessage.SUPPORT_MESSAGE, payload, message.requestId()));
+
+                    LOG.infof("Support session started, conversation ID: %d", result.conversationId());
+                })
+                .replaceWithVoid()
+                .onFailure(e -> !(e instanceof LlmCancelledException)).recoverWithItem(e -> {
+                    LOG.errorf(e, "Failed to start support session");
+                    sessionManager.endSession(connection);
+                    messageSender.sendError(connection, "Nie udało się rozpocząć sesji wsparcia: " + e.getMessage(),
+                            ErrorPayload.CODE_INTERNAL_ERROR, message.requestId());
+                    return null;
+                });
     }
 
     @Override
-    public void message(WebSocketConnection connection, IncomingMessage message) {
+    public Uni<Void> message(WebSocketConnection connection, IncomingMessage message) {
         LOG.debugf("Support message from %s", connection.id());
 
         // Check session exists
@@ -82,50 +93,53 @@ public class DefaultSupportHandler implements SupportHandler {
         if (session == null || !"support".equals(session.conversationType)) {
             messageSender.sendError(connection, "Nie masz aktywnej sesji wsparcia. Rozpocznij nową sesję.",
                     ErrorPayload.CODE_INVALID_STATE, message.requestId());
-            return;
+            return Uni.createFrom().voidItem();
         }
 
         String userMessage = message.getText();
         if (userMessage == null || userMessage.isBlank()) {
             messageSender.sendError(connection, "Wiadomość nie może być pusta",
                     ErrorPayload.CODE_VALIDATION_ERROR, message.requestId());
-            return;
+            return Uni.createFrom().voidItem();
         }
 
-        try {
-            // Process message via service
-            SupportMessageResult result = supportService.processMessage(session, userMessage);
-
-            // Send response
-            SupportMessagePayload payload = new SupportMessagePayload(result.response());
-
-            messageSender.send(connection, OutgoingMessage.of(
-                    OutgoingMessage.SUPPORT_MESSAGE, payload, message.requestId()));
-
-            if (result.completed()) {
-                // Support completed - send completion message
-                SupportCompletedPayload completedPayload = new SupportCompletedPayload(
-                        session.conversationId,
-                        "pending"
-                );
-                supportService.completeIntervention(session);
-                messageSender.send(connection, OutgoingMessage.of(
-                        OutgoingMessage.SUPPORT_COMPLETED, completedPayload, message.requestId()));
-
-                // End session
-                sessionManager.endSession(connection);
-                LOG.info("Support session completed for connection: " + connection.id());
-            }
-
-        } catch (Exception e) {
-            LOG.errorf(e, "Failed to process support message");
-            messageSender.sendError(connection, "Błąd przetwarzania wiadomości: " + e.getMessage(),
-                    ErrorPayload.CODE_INTERNAL_ERROR, message.requestId());
-        }
+        // Process message via service
+        session.startTurn(turnDeadline);
+        return Uni.createFrom().deferred(() -> supportService.processMessage(session, userMessage,
+                        messageSender.deltaSender(connection, OutgoingMessage.SUPPORT_MESSAGE_DELTA, message.requestId())))
+                .invoke(result -> {
+                    // Send response
+                    SupportMessagePayload payload = new SupportMessagePayload(result.response());
+
+                    messageSender.send(connection, OutgoingMessage.of(
+                            OutgoingMessage.SUPPORT_MESSAGE, payload, message.requestId()));
+
+                    if (result.completed()) {
+                        // Support completed - send completion message
+                        SupportCompletedPayload completedPayload = new SupportCompletedPayload(
+                                session.conversationId,
+                                "pending"
+                        );
+                        supportService.completeIntervention(session);
+                        messageSender.send(connection, OutgoingMessage.of(
+                                OutgoingMessage.SUPPORT_COMPLETED, completedPayload, message.requestId()));
+
+                        // End session
+                        sessionManager.endSession(connection);
+                        LOG.info("Support session completed for connection: " + connection.id());
+                    }
+                })
+                .replaceWithVoid()
+                .onFailure(e -> !(e instanceof LlmCancelledException)).recoverWithItem(e -> {
+                    LOG.errorf(e, "Failed to process support message");
+                    messageSender.sendError(connection, "Błąd przetwarzania wiadomości: " + e.getMessage(),
+                            ErrorPayload.CODE_INTERNAL_ERROR, message.requestId());
+                    return null;
+                });
     }
 
     @Override
-    public void complete(WebSocketConnection connection, IncomingMessage message) {
+    public Uni<Void> complete(WebSocketConnection connection, IncomingMessage message) {
         LOG.info("Support complete request from: " + connection.id());
 
         // Check session exists
@@ -133,34 +147,37 @@ public class DefaultSupportHandler implements SupportHandler {
         if (session == null || !"support".equals(session.conversationType)) {
             messageSender.sendError(connection, "Nie masz aktywnej sesji wsparcia do zakończenia",
                     ErrorPayload.CODE_INVALID_STATE, message.requestId());
-            return;
+            return Uni.createFrom().voidItem();
         }
 
-        try {
-            // Complete support via service
-            SupportCompleteResult result = supportService.completeSupport(session);
-
-            // Send farewell message
-            SupportMessagePayload farewellPayload = new SupportMessagePayload(result.farewell());
-            messageSender.send(connection, OutgoingMessage.of(
-                    OutgoingMessage.SUPPORT_MESSAGE, farewellPayload, message.requestId()));
-
-            // Send completion acknowledgment
-            SupportCompletedPayload completedPayload = new SupportCompletedPayload(
-                    result.conversationId(),
-                    "pending"
-            );
-            messageSender.send(connection, OutgoingMessage.of(
-                    OutgoingMessage.SUPPORT_COMPLETED, completedPayload, message.requestId()));
-
-            // End session
-            sessionManager.endSession(connection);
-            LOG.info("Support session completed for connection: " + connection.id());
-
-        } catch (Exception e) {
-            LOG.errorf(e, "Failed to complete support session");
-            messageSender.sendError(connection, "Błąd zakończenia sesji: " + e.getMessage(),
-                    ErrorPayload.CODE_INTERNAL_ERROR, message.requestId());
-        }
+        session.startTurn(turnDeadline);
+
+        // Complete support via service
+        return Uni.createFrom().deferred(() -> supportService.completeSupport(session))
+                .invoke(result -> {
+                    // Send farewell message
+                    SupportMessagePayload farewellPayload = new SupportMessagePayload(result.farewell());
+                    messageSender.send(connection, OutgoingMessage.of(
+                            OutgoingMessage.SUPPORT_MESSAGE, farewellPayload, message.requestId()));
+
+                    // Send completion acknowledgment
+                    SupportCompletedPayload completedPayload = new SupportCompletedPayload(
+                            result.conversationId(),
+                            "pending"
+                    );
+                    messageSender.send(connection, OutgoingMessage.of(
+                            OutgoingMessage.SUPPORT_COMPLETED, completedPayload, message.requestId()));
+
+                    // End session
+                    sessionManager.endSession(connection);
+                    LOG.info("Support session completed for connection: " + connection.id());
+                })
+                .replaceWithVoid()
+                .onFailure(e -> !(e instanceof LlmCancelledException)).recoverWithItem(e -> {
+                    LOG.errorf(e, "Failed to complete support session");
+                    messageSender.sendError(connection, "Błąd zakończenia sesji: " + e.getMessage(),
+                            ErrorPayload.CODE_INTERNAL_ERROR, message.requestId());
+                    return null;
+                });
     }
 }
@@ -9,13 +9,16 @@ import com.wspiernik.api.websocket.dto.SurveyCompletedPayload;
 import com.wspiernik.api.websocket.dto.SurveyQuestionPayload;
 import com.wspiernik.api.websocket.MessageSender;
 import com.wspiernik.domain.survey.SurveyService;
-import com.wspiernik.domain.survey.SurveyService.SurveyMessageResult;
-import com.wspiernik.domain.survey.SurveyService.SurveyStartResult;
+import com.wspiernik.infrastructure.llm.LlmCancelledException;
 import io.quarkus.websockets.next.WebSocketConnection;
+import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import java.time.Duration;
+
 /**
  * Handles survey WebSocket messages.
  * Routes to SurveyService for business logic.
@@ -34,8 +37,12 @@ public class DefaultSurveyHandler implements SurveyHandler {
     @Inject
     SurveyService surveyService;
 
+    /** How long the caregiver waits for an answer before the scripted fallback is used. */
+    @ConfigProperty(name = "wspiernik.llm.deadline.survey", defaultValue = "45s")
+    Duration turnDeadline;
+
     @Override
-    public void start(WebSocketConnection connection, IncomingMessage message) {
+    public Uni<Void> start(WebSocketConnection connection, IncomingMessage message) {
         LOG.info("Starting survey for connection: " + connection.id());
 
         // Check if already in a session
@@ -43,37 +50,41 @@ public class DefaultSurveyHandler implements SurveyHandler {
             LOG.warn("Connection already has active session");
             messageSender.sendError(connection, "Masz już aktywną sesję. Zakończ ją przed rozpoczęciem nowej.",
                     ErrorPayload.CODE_INVALID_STATE, message.requestId());
-            return;
+            return Uni.createFrom().voidItem();
         }
 
-        try {
-            // Create session
-            ConversationSession session = sessionManager.startSession(connection, "survey");
-
-            // Start survey via service
-            SurveyStartResult result = surveyService.startSurvey(session);
-
-            // Send first question
-            SurveyQuestionPayload payload = new SurveyQuestionPayload(
-                    result.question(),
-                    result.currentStep().getOrder()
-            );
-
-            messageSender.send(connection, OutgoingMessage.of(
-                    OutgoingMessage.SURVEY_QUESTION, payload, message.requestId()));
-
-            LOG.infof("Survey started, conversation ID: %d", result.conversationId());
-
-        } catch (Exception e) {
-            LOG.errorf(e, "Failed to start survey");
-            sessionManager.endSession(connection);
-            messageSender.sendError(connection, "Nie udało się rozpocząć ankiety: " + e.getMessage(),
-                    ErrorPayload.CODE_INTERNAL_ERROR, message.requestId());
-        }
+        return Uni.createFrom().deferred(() -> {
+                    // Create session
+                    ConversationSession session = sessionManager.startSession(connection, "survey");
+                    session.startTurn(turnDeadline);
+
+                    // Start survey via service
+                    return surveyService.startSurvey(session);
+                })
+                .invoke(result -> {
+                    // Send first question
+                    SurveyQuestionPayload payload = new SurveyQuestionPayload(
+                            result.question(),
+                            result.currentStep().getOrder()
+                    );
+
+                    messageSender.send(connection, OutgoingMessage.of(
+                            OutgoingMessage.SURVEY_QUESTION, payload, message.requestId()));
+
+                    LOG.infof("Survey started, conversation ID: %d", result.conversationId());
+                })
+                .replaceWithVoid()
+                .onFailure(e -> !(e instanceof LlmCancelledException)).recoverWithItem(e -> {
+                    LOG.errorf(e, "Failed to start survey");
+                    sessionManager.endSession(connection);
+                    messageSender.sendError(connection, "Nie udało się rozpocząć ankiety: " + e.getMessage(),
+                            ErrorPayload.CODE_INTERNAL_ERROR, message.requestId());
+                    return null;
+                });
     }
 
     @Override
-    public void message(WebSocketConnection connection, IncomingMessage message) {
+    public Uni<Void> message(WebSocketConnection connection, IncomingMessage message) {
         LOG.debugf("Survey message from %s: %s", connection.id(), message.getContent());
 
         // Check session exists
@@ -81,54 +92,56 @@ public class DefaultSurveyHandler implements SurveyHandler {
         if (session == null || !"survey".equals(session.conversationType)) {
             messageSender.sendError(connection, "Nie masz aktywnej ankiety. Rozpocznij nową ankietę.",
                     ErrorPayload.CODE_INVALID_STATE, message.requestId());
-            return;
+            return Uni.createFrom().voidItem();
         }
 
         String userMessage = message.getContent();
         if (userMessage == null || userMessage.isBlank()) {
             messageSender.sendError(connection, "Wiadomość nie może być pusta",
                     ErrorPayload.CODE_VALIDATION_ERROR, message.requestId());
-            return;
+            return Uni.createFrom().voidItem();
         }
 
-        try {
-            // Process message via service
-            SurveyMessageResult result = surveyService.processMessage(session, userMessage);
-
-            if (result.completed()) {
-                // Survey completed - send completion message
-                SurveyCompletedPayload payload = new SurveyCompletedPayload(
-                        null, // Profile ID could be added later
-                        0     // Facts saved count - will be populated by fact extraction
-                );
-
-                messageSender.send(connection, OutgoingMessage.of(
-                        OutgoingMessage.SURVEY_COMPLETED, payload, message.requestId()));
-
-                // End session
-                sessionManager.endSession(connection);
-                LOG.info("Survey completed for connection: " + connection.id());
-
-            } else {
-                // Send next question
-                SurveyQuestionPayload payload = new SurveyQuestionPayload(
-                        result.response(),
-                        result.currentStep() != null ? result.currentStep().getOrder() : 0
-                );
-
-                messageSender.send(connection, OutgoingMessage.of(
-                        OutgoingMessage.SURVEY_QUESTION, payload, message.requestId()));
-            }
-
-        } catch (Exception e) {
-            LOG.errorf(e, "Failed to process survey message");
-            messageSender.sendError(connection, "Błąd przetwarzania wiadomości: " + e.getMessage(),
-                    ErrorPayload.CODE_INTERNAL_ERROR, message.requestId());
-        }
+        // Process message via service
+        session.startTurn(turnDeadline);
+        return Uni.createFrom().deferred(() -> surveyService.processMessage(session, userMessage))
+                .invoke(result -> {
+                    if (result.completed()) {
+                        // Survey completed - send completion message
+                        SurveyCompletedPayload payload = new SurveyCompletedPayload(
+                                null, // Profile ID could be added later
+                                0     // Facts saved count - will be populated by fact extraction
+                        );
+
+                        messageSender.send(connection, OutgoingMessage.of(
+                                OutgoingMessage.SURVEY_COMPLETED, payload, message.requestId()));
+
+                        // End session
+                        sessionManager.endSession(connection);
+                        LOG.info("Survey completed for connection: " + connection.id());
+
+                    } else {
+                        // Send next question
+                        SurveyQuestionPayload payload = new SurveyQuestionPayload(
+                                result.response(),
+                                result.currentStep() != null ? result.currentStep().getOrder() : 0
+                        );
+
+                        messageSender.send(connection, OutgoingMessage.of(
+                                OutgoingMessage.SURVEY_QUESTION, payload, message.requestId()));
+                    }
+                })
+                .replaceWithVoid()
+                .onFailure(e -> !(e instanceof LlmCancelledException)).recoverWithItem(e -> {
+                    LOG.errorf(e, "Failed to process survey message");
+                    messageSender.sendError(connection, "Błąd przetwarzania wiadomości: " + e.getMessage(),
+                            ErrorPayload.CODE_INTERNAL_ERROR, message.requestId());
+                    return null;
+                });
     }
 
     @Override
-    public void complete(WebSocketConnection connection, IncomingMessage message) {
+    public Uni<Void> complete(WebSocketConnection connection, IncomingMessage message) {
         LOG.info("Manual survey complete request from: " + connection.id());
 
         // Check session exists
@@ -136,7 +149,7 @@ public class DefaultSurveyHandler implements SurveyHandler {
         if (session == null || !"survey".equals(session.conversationType)) {
             messageSender.sendError(connection, "Nie masz aktywnej ankiety do zakończenia",
                     ErrorPayload.CODE_INVALID_STATE, message.requestId());
-            return;
+            return Uni.createFrom().voidItem();
         }
 
         // End session (user requested early termination)
@@ -148,5 +161,6 @@ public class DefaultSurveyHandler implements SurveyHandler {
                 OutgoingMessage.SURVEY_COMPLETED, payload, message.requestId()));
 
         LOG.info("Survey manually completed for connection: " + connection.id());
+        return Uni.createFrom().voidItem();
     }
 }
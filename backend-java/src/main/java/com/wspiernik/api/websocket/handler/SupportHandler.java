@@ -2,6 +2,7 @@ package com.wspiernik.api.websocket.handler;
 
 import com.wspiernik.api.websocket.dto.IncomingMessage;
 import io.quarkus.websockets.next.WebSocketConnection;
+import io.smallrye.mutiny.Uni;
 
 /**
  * Handler interface for support-related WebSocket messages.
@@ -12,15 +13,15 @@ public interface SupportHandler {
     /**
      * Start a new support session.
      */
-    void start(WebSocketConnection connection, IncomingMessage message);
+    Uni<Void> start(WebSocketConnection connection, IncomingMessage message);
 
     /**
      * Process a support message (user's message).
      */
-    void message(WebSocketConnection connection, IncomingMessage message);
+    Uni<Void> message(WebSocketConnection connection, IncomingMessage message);
 
     /**
      * Complete the support session.
      */
-    void complete(WebSocketConnection connection, IncomingMessage message);
+    Uni<Void> complete(WebSocketConnection connection, IncomingMessage message);
 }
@@ -2,6 +2,7 @@ package com.wspiernik.api.websocket.handler;
 
 import com.wspiernik.api.websocket.dto.IncomingMessage;
 import io.quarkus.websockets.next.WebSocketConnection;
+import io.smallrye.mutiny.Uni;
 
 /**
  * Handler interface for survey-related WebSocket messages.
@@ -12,15 +13,15 @@ public interface SurveyHandler {
     /**
      * Start a new survey session.
      */
-    void start(WebSocketConnection connection, IncomingMessage message);
+    Uni<Void> start(WebSocketConnection connection, IncomingMessage message);
 
     /**
      * Process a survey message (user's answer).
      */
-    void message(WebSocketConnection connection, IncomingMessage message);
+    Uni<Void> message(WebSocketConnection connection, IncomingMessage message);
 
     /**
      * Complete the survey session.
      */
-    void complete(WebSocketConnection connection, IncomingMessage message);
+    Uni<Void> complete(WebSocketConnection connection, IncomingMessage message);
 }
@@ -18,7 +18,8 @@ import java.util.Optional;
 
 /**
  * Entity representing a conversation session.
- * Stores the full transcript and metadata for survey, intervention, or support sessions.
+ * Stores the metadata for survey, intervention, or support sessions; the transcript is kept
+ * message by message in {@link ConversationMessage}.
  */
 @Entity
 @Table(name = "conversations")
@@ -31,6 +32,10 @@ public class Conversation extends PanacheEntityBase {
     @Column(name = "conversation_type")
     public String conversationType; // "survey", "intervention", "support"
 
+    /**
+     * Legacy whole-transcript JSON, moved to {@link ConversationMessage} rows and cleared by
+     * {@code TranscriptMigration}; no longer written.
+     */
     @Column(name = "raw_transcript", columnDefinition = "TEXT")
     @Convert(converter = JsonToLlmMessageListConverter.class)
     public List<LlmMessage> rawTranscript;
@@ -41,10 +46,6 @@ public class Conversation extends PanacheEntityBase {
     @Column(name = "ended_at")
     public LocalDateTime endedAt;
 
-    void addMessage(LlmMessage message) {
-        rawTranscript.add(message);
-    }
-
     public static Optional<Conversation> findById(Long id) {
         return find("id", id).firstResultOptional();
     }
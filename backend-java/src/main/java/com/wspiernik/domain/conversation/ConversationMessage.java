@@ -0,0 +1,57 @@
+package com.wspiernik.domain.conversation;
+
+import com.wspiernik.infrastructure.llm.dto.LlmMessage;
+import io.quarkus.hibernate.orm.panache.PanacheEntityBase;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * One message of a conversation transcript, appended as its own row.
+ * {@code seq} orders the messages within the conversation.
+ */
+@Entity
+@Table(name = "conversation_messages", indexes = {
+        @Index(name = "idx_conversation_messages_conversation_seq", columnList = "conversation_id, seq", unique = true)
+})
+public class ConversationMessage extends PanacheEntityBase {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    public Long id;
+
+    @Column(name = "conversation_id", nullable = false)
+    public Long conversationId;
+
+    @Column(name = "seq", nullable = false)
+    public int seq;
+
+    @Column(name = "role")
+    public String role; // "system", "user", "assistant"
+
+    @Column(name = "content", columnDefinition = "TEXT")
+    public String content;
+
+    @Column(name = "created_at")
+    public LocalDateTime createdAt;
+
+    public static ConversationMessage of(long conversationId, int seq, LlmMessage message, LocalDateTime createdAt) {
+        ConversationMessage row = new ConversationMessage();
+        row.conversationId = conversationId;
+        row.seq = seq;
+        row.role = message.role();
+        row.content = message.content();
+        row.createdAt = createdAt;
+        return row;
+    }
+
+    public LlmMessage toLlmMessage() {
+        return new LlmMessage(role, content);
+    }
+}
@@ -0,0 +1,41 @@
+package com.wspiernik.domain.conversation;
+
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+/**
+ * Repository for the per-message conversation transcript.
+ */
+@ApplicationScoped
+public class ConversationMessageRepository implements PanacheRepository<ConversationMessage> {
+
+    /**
+     * Append a message after the conversation's last one in a single INSERT;
+     * the next seq comes from the (conversation_id, seq) index.
+     */
+    public void append(long conversationId, String role, String content, LocalDateTime createdAt) {
+        getEntityManager().createNativeQuery("""
+                        INSERT INTO conversation_messages (conversation_id, seq, role, content, created_at)
+                        SELECT ?1, COALESCE(MAX(seq), -1) + 1, ?2, ?3, ?4
+                        FROM conversation_messages WHERE conversation_id = ?1""")
+                .setParameter(1, conversationId)
+                .setParameter(2, role)
+                .setParameter(3, content)
+                .setParameter(4, createdAt)
+                .executeUpdate();
+    }
+
+    /**
+     * The conversation's messages in order, read as they are consumed; use within a transaction.
+     */
+    public Stream<ConversationMessage> streamByConversationId(long conversationId) {
+        return find("conversationId = ?1 ORDER BY seq", conversationId).stream();
+    }
+
+    public long countByConversationId(long conversationId) {
+        return count("conversationId", conversationId);
+    }
+}
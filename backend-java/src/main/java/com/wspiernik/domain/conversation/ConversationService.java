@@ -1,11 +1,15 @@
 package com.wspiernik.domain.conversation;
 
 import com.wspiernik.infrastructure.llm.dto.LlmMessage;
+import com.wspiernik.infrastructure.persistence.DatabaseWriter;
+import com.wspiernik.infrastructure.persistence.shard.ShardContext;
 import io.quarkus.narayana.jta.QuarkusTransaction;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
 
 @ApplicationScoped
 public class ConversationService {
@@ -13,21 +17,45 @@ public class ConversationService {
     @Inject
     ConversationRepository conversationRepository;
 
-    public long startNew(final String conversationType) {
-        return QuarkusTransaction.requiringNew().call(() -> {
+    @Inject
+    ConversationMessageRepository messageRepository;
+
+    @Inject
+    DatabaseWriter databaseWriter;
+
+    /**
+     * Create the conversation record in a shard (null for the main database); waits for the commit,
+     * since callers need its id.
+     */
+    public long startNew(final String shard, final String conversationType) {
+        return databaseWriter.call(shard, () -> {
             Conversation conversation = new Conversation();
             conversation.conversationType = conversationType;
             conversation.startedAt = LocalDateTime.now();
             conversationRepository.persist(conversation);
             return conversation.id;
-        });
+        }).join();
     }
 
-    public void addMessage(final long conversationId, final LlmMessage llmMessage) {
-        QuarkusTransaction.requiringNew().run(() -> {
-            Conversation conversation = conversationRepository.findById(conversationId);
-            conversation.addMessage(llmMessage);
-            conversationRepository.persist(conversation);
-        });
+    /**
+     * Append a message to the conversation's transcript; one INSERT, whatever the transcript's length.
+     * Written behind: returns once queued, in order with the conversation's other writes.
+     */
+    public void addMessage(final String shard, final long conversationId, final LlmMessage llmMessage) {
+        LocalDateTime now = LocalDateTime.now();
+        databaseWriter.execute(shard, () ->
+                messageRepository.append(conversationId, llmMessage.role(), llmMessage.content(), now));
+    }
+
+    /**
+     * The conversation's transcript in order, read row by row once queued messages are committed.
+     */
+    public List<LlmMessage> loadTranscript(final String shard, final long conversationId) {
+        databaseWriter.flush(shard).join();
+        return ShardContext.call(shard, () -> QuarkusTransaction.requiringNew().call(() -> {
+            try (Stream<ConversationMessage> rows = messageRepository.streamByConversationId(conversationId)) {
+                return rows.map(ConversationMessage::toLlmMessage).toList();
+            }
+        }));
     }
 }
@@ -8,5 +8,6 @@ public record ConversationCompletedEvent(
         Long conversationId,
         String conversationType,
         String rawTranscript,
-        String webSocketConnectionId  // For async notification back to client
+        String webSocketConnectionId,  // For async notification back to client
+        String shardKey  // Caregiver database of the conversation, null for the main one
 ) {}
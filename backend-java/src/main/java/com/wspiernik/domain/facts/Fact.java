@@ -12,7 +12,10 @@ import java.util.List;
  * Facts are structured pieces of health information (symptoms, medications, events, etc.).
  */
 @Entity
-@Table(name = "facts")
+@Table(name = "facts", indexes = {
+        @Index(name = "idx_facts_created_at", columnList = "created_at"),
+        @Index(name = "idx_facts_conversation_id", columnList = "conversation_id")
+})
 public class Fact extends PanacheEntityBase {
 
     @Id
@@ -1,8 +1,13 @@
 package com.wspiernik.domain.facts;
 
+import com.wspiernik.infrastructure.persistence.JsonToStringListConverter;
+import com.wspiernik.infrastructure.persistence.ReadPool;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 
 /**
@@ -11,6 +16,11 @@ import java.util.List;
 @ApplicationScoped
 public class FactRepository implements PanacheRepository<Fact> {
 
+    private static final JsonToStringListConverter TAGS = new JsonToStringListConverter();
+
+    @Inject
+    ReadPool readPool;
+
     /**
      * Find facts by conversation ID.
      */
@@ -19,16 +29,41 @@ public class FactRepository implements PanacheRepository<Fact> {
     }
 
     /**
-     * Find all facts (no limit).
+     * Find all facts (no limit), from the read pool when enabled.
      */
     public List<Fact> findAllFacts() {
+        if (readPool.enabled()) {
+            return readPool.list("""
+                    SELECT id, conversation_id, fact_type, fact_value, severity, extracted_at, created_at
+                    FROM facts ORDER BY created_at DESC""", FactRepository::fromRow);
+        }
         return find("ORDER BY createdAt DESC").list();
     }
 
+    /**
+     * Number of facts, from the read pool when enabled.
+     */
+    public long countFacts() {
+        return readPool.enabled() ? readPool.count("SELECT COUNT(*) FROM facts") : count();
+    }
+
     /**
      * Check if any facts exist.
      */
     public boolean hasAnyFacts() {
-        return count() > 0;
+        return countFacts() > 0;
+    }
+
+    private static Fact fromRow(ResultSet row) throws SQLException {
+        Fact fact = new Fact();
+        fact.id = row.getLong("id");
+        long conversationId = row.getLong("conversation_id");
+        fact.conversationId = row.wasNull() ? null : conversationId;
+        fact.tags = TAGS.convertToEntityAttribute(row.getString("fact_type"));
+        fact.factValue = row.getString("fact_value");
+        fact.severity = ReadPool.integer(row, "severity");
+        fact.extractedAt = ReadPool.timestamp(row, "extracted_at");
+        fact.createdAt = ReadPool.timestamp(row, "created_at");
+        return fact;
     }
 }
@@ -5,6 +5,8 @@ import com.wspiernik.api.websocket.dto.OutgoingMessage;
 import com.wspiernik.domain.events.ConversationCompletedEvent;
 import com.wspiernik.domain.events.FactsExtractedEvent;
 import com.wspiernik.domain.conversation.ConversationRepository;
+import com.wspiernik.infrastructure.persistence.DatabaseWriter;
+import com.wspiernik.infrastructure.persistence.shard.ShardContext;
 import io.quarkus.narayana.jta.QuarkusTransaction;
 import io.quarkus.websockets.next.WebSocketConnection;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -37,6 +39,9 @@ public class FactsDistillerService {
     @Inject
     ConversationRepository conversationRepository;
 
+    @Inject
+    DatabaseWriter databaseWriter;
+
     @Inject
     WspiernikSocket wspiernikSocket;
 
@@ -48,6 +53,11 @@ public class FactsDistillerService {
      * Triggers facts extraction, persistence, and client notification.
      */
     public void onConversationCompleted(@ObservesAsync ConversationCompletedEvent event) {
+        // Reads and writes below go to the caregiver's shard
+        ShardContext.run(event.shardKey(), () -> distill(event));
+    }
+
+    private void distill(ConversationCompletedEvent event) {
         LOG.infof("Facts Distiller processing conversation %d (%s)",
                 event.conversationId(), event.conversationType());
 
@@ -120,7 +130,7 @@ public class FactsDistillerService {
     }
 
     /**
-     * Save extracted facts to database.
+     * Save extracted facts to database, waiting for the commit so the notification carries their ids.
      */
     private List<Fact> saveFacts(Long conversationId, List<ExtractedFact> extracted) {
         if (extracted.isEmpty()) {
@@ -128,7 +138,7 @@ public class FactsDistillerService {
             return List.of();
         }
 
-        return QuarkusTransaction.requiringNew().call(() -> {
+        return databaseWriter.call(() -> {
             List<Fact> saved = new ArrayList<>();
             LocalDateTime now = LocalDateTime.now();
 
@@ -146,7 +156,7 @@ public class FactsDistillerService {
             }
 
             return saved;
-        });
+        }).join();
     }
 
     /**
@@ -2,13 +2,18 @@ package com.wspiernik.domain.facts;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wspiernik.infrastructure.llm.LlmCallOptions;
 import com.wspiernik.infrastructure.llm.LlmClient;
+import com.wspiernik.infrastructure.llm.LlmPriority;
+import com.wspiernik.infrastructure.llm.LlmTask;
 import com.wspiernik.infrastructure.llm.PromptTemplates;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
 import java.text.Normalizer;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
@@ -35,6 +40,9 @@ public class FactsExtractor {
     @Inject
     ObjectMapper objectMapper;
 
+    @ConfigProperty(name = "wspiernik.llm.deadline.facts-distillation", defaultValue = "10m")
+    Duration deadline;
+
     /**
      * Extract new facts from a conversation transcript.
      *
@@ -55,7 +63,13 @@ public class FactsExtractor {
 
             // Call LLM to extract facts
             LOG.debug("Calling LLM for facts extraction " + prompt);
-            String response = llmClient.generate("", prompt);
+            String response = llmClient.generate("", prompt, LlmCallOptions.builder()
+                    .priority(LlmPriority.FACTS_DISTILLATION)
+                    .callSite("distiller")
+                    .task(LlmTask.FACTS_EXTRACTION)
+                    .timeout(deadline)
+                    .temperature(0.1)   // JSON output, no creativity wanted
+                    .build());
 
             // Parse JSON response
             List<ExtractedFact> extracted = parseFactsJson(response);
@@ -74,8 +88,9 @@ public class FactsExtractor {
 
     /**
      * Parse JSON response from LLM into ExtractedFact objects.
+     * Package-private for the benchmarks.
      */
-    private List<ExtractedFact> parseFactsJson(String response) {
+    List<ExtractedFact> parseFactsJson(String response) {
 
         LOG.debug("Parsing facts JSON from LLM response: \n" + response);
         if (response == null || response.isBlank()) {
@@ -123,8 +138,9 @@ public class FactsExtractor {
 
     /**
      * Extract JSON array from LLM response (may contain extra text).
+     * Package-private for the benchmarks.
      */
-    private List<String> extractJsons(String response) {
+    List<String> extractJsons(String response) {
 
         Matcher matcher = JSON_ARRAY_PATTERN.matcher(response);
         List<String> facts = new LinkedList<>();
@@ -6,11 +6,20 @@ import com.wspiernik.domain.events.ConversationCompletedEvent;
 import com.wspiernik.domain.facts.Fact;
 import com.wspiernik.domain.facts.FactRepository;
 import com.wspiernik.domain.intervention.ScenarioMatchingService.MatchResult;
+import com.wspiernik.infrastructure.llm.CompletionMarkerFilter;
+import com.wspiernik.infrastructure.llm.LlmCallOptions;
+import com.wspiernik.infrastructure.llm.LlmCancelledException;
 import com.wspiernik.infrastructure.llm.LlmClient;
+import com.wspiernik.infrastructure.llm.LlmPriority;
+import com.wspiernik.infrastructure.llm.LlmTask;
 import com.wspiernik.infrastructure.llm.PromptTemplates;
 import com.wspiernik.infrastructure.llm.dto.LlmMessage;
+import com.wspiernik.infrastructure.metrics.TurnProfiler;
+import com.wspiernik.infrastructure.metrics.TurnProfiler.Stage;
 import com.wspiernik.infrastructure.persistence.entity.CrisisScenario;
+import com.wspiernik.infrastructure.persistence.shard.ShardContext;
 import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
@@ -18,6 +27,7 @@ import org.jboss.logging.Logger;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -28,9 +38,24 @@ import java.util.stream.Collectors;
 public class InterventionService {
 
     private static final Logger LOG = Logger.getLogger(InterventionService.class);
+    // Scenario prompts ask for the marker followed by a summary, so turns are not cut at it
+    private static final LlmCallOptions TURN_OPTIONS = LlmCallOptions.builder()
+            .priority(LlmPriority.INTERVENTION)
+            .callSite("intervention")
+            .maxTokens(768)
+            .build();
 
     private static final String INTERVENTION_STATE_KEY = "interventionState";
     private static final String INTERVENTION_COMPLETE_MARKER = "INTERVENTION_COMPLETE";
+    // The summary ends the intervention anyway, so generation may simply stop at the marker
+    private static final LlmCallOptions SUMMARY_OPTIONS = LlmCallOptions.builder()
+            .priority(LlmPriority.INTERVENTION)
+            .callSite("intervention")
+            .task(LlmTask.SUMMARY)
+            .maxTokens(1024)
+            .temperature(0.3)
+            .stop(INTERVENTION_COMPLETE_MARKER)
+            .build();
 
     @Inject
     ScenarioMatchingService scenarioMatchingService;
@@ -50,6 +75,9 @@ public class InterventionService {
     @Inject
     Event<ConversationCompletedEvent> conversationCompletedEvent;
 
+    @Inject
+    TurnProfiler turnProfiler;
+
     /**
      * Start a new intervention session.
      * Attempts to match the situation description to a crisis scenario.
@@ -57,7 +85,8 @@ public class InterventionService {
     private static final String GENERIC_HELP_MARKER = "ogólna pomoc";
     private static final String GREETING_MESSAGE = "Jak mogę Ci dziś pomóc? Opisz sytuację, a postaram się Ci doradzić.";
 
-    public InterventionStartResult startIntervention(ConversationSession session, String situationDescription) {
+    public Uni<InterventionStartResult> startIntervention(ConversationSession session, String situationDescription,
+                                                          Function<String, Uni<Void>> onDelta) {
         LOG.infof("Starting intervention for situation: %s", situationDescription);
 
         // Check if this is a generic start without specific situation
@@ -73,17 +102,23 @@ public class InterventionService {
         state.setSituationDescription(isGenericStart ? null : situationDescription);
 
         // Create conversation record
-        Long conversationId = conversationService.startNew(matchResult.matched() ? matchResult.scenario().scenarioKey : null);
+        Long conversationId = turnProfiler.time(session.connectionId, Stage.PERSIST,
+                () -> conversationService.startNew(session.shardKey, matchResult.matched() ? matchResult.scenario().scenarioKey : null));
         state.setConversationId(conversationId);
         session.conversationId = conversationId;
 
-        String firstMessage;
+        Uni<String> firstMessage;
 
         if (isGenericStart) {
             // Generic start - just greeting, no LLM call
             state.initializeAsGeneric(null);
             LOG.info("Generic start - sending greeting");
-            firstMessage = GREETING_MESSAGE;
+            firstMessage = Uni.createFrom().item(GREETING_MESSAGE);
+
+            // Let the server evaluate the prompt while the caregiver is typing
+            llmClient.prewarm(List.of(new LlmMessage("system", systemPrompt(state, session)),
+                            new LlmMessage("assistant", GREETING_MESSAGE)), llmOptions(session, TURN_OPTIONS))
+                    .subscribe().with(ignored -> { });
 
         } else if (matchResult.matched()) {
             // Initialize with matched scenario
@@ -94,7 +129,7 @@ public class InterventionService {
             LOG.infof("Matched scenario: %s", scenario.scenarioKey);
 
             // Generate first question using LLM with scenario context
-            firstMessage = generateScenarioResponse(state, session, situationDescription);
+            firstMessage = generateScenarioResponse(state, session, situationDescription, onDelta);
 
         } else {
             // Generic intervention with situation description
@@ -103,39 +138,44 @@ public class InterventionService {
             LOG.info("No scenario matched, using generic intervention");
 
             // Generate generic intervention response
-            firstMessage = generateGenericResponse(state, session, situationDescription);
+            firstMessage = generateGenericResponse(state, session, situationDescription, onDelta);
         }
 
-        // Store state in session
-        session.setContextValue(INTERVENTION_STATE_KEY, state);
-        session.addMessage("assistant", firstMessage);
-        conversationService.addMessage(conversationId,new LlmMessage("assistant", firstMessage));
-
-        return new InterventionStartResult(
-                conversationId,
-                matchResult.matched(),
-                state.getScenarioKey(),
-                state.getScenarioName(),
-                firstMessage,
-                state.getCurrentQuestionIndex()
-        );
+        return firstMessage.map(message -> {
+            // Store state in session
+            session.setContextValue(INTERVENTION_STATE_KEY, state);
+            session.addMessage("assistant", message);
+            saveMessage(session, conversationId, new LlmMessage("assistant", message));
+
+            return new InterventionStartResult(
+                    conversationId,
+                    matchResult.matched(),
+                    state.getScenarioKey(),
+                    state.getScenarioName(),
+                    message,
+                    state.getCurrentQuestionIndex()
+            );
+        });
     }
 
     /**
      * Process user's response during intervention.
+     *
+     * @param onDelta Receives response fragments while they are generated (may be null)
      */
-    public InterventionMessageResult processMessage(ConversationSession session, String userMessage) {
+    public Uni<InterventionMessageResult> processMessage(ConversationSession session, String userMessage,
+                                                         Function<String, Uni<Void>> onDelta) {
         InterventionState state = session.getContextValue(INTERVENTION_STATE_KEY);
 
         if (state == null) {
             LOG.warn("No intervention state found in session");
-            return InterventionMessageResult.error("Nie znaleziono aktywnej interwencji");
+            return Uni.createFrom().item(InterventionMessageResult.error("Nie znaleziono aktywnej interwencji"));
         }
 
         // Add user message to history
         session.addMessage("user", userMessage);
         var conversationId = state.getConversationId();
-        conversationService.addMessage(conversationId, new LlmMessage("user", userMessage));
+        saveMessage(session, conversationId, new LlmMessage("user", userMessage));
 
         // Store response for current question
         state.addResponse(userMessage);
@@ -145,12 +185,12 @@ public class InterventionService {
             state.setSituationDescription(userMessage);
         }
 
-        String response;
+        Uni<String> response;
 
         if (state.isGenericIntervention()) {
             // For generic intervention, always use LLM
             LOG.debug("Generic intervention - generating response");
-            response = generateGenericResponse(state, session, state.getSituationDescription());
+            response = generateGenericResponse(state, session, state.getSituationDescription(), onDelta);
         } else {
             // For scenario-based intervention
             state.moveToNextQuestion();
@@ -159,42 +199,42 @@ public class InterventionService {
             if (state.hasMoreQuestions()) {
                 // Generate next question with LLM
                 LOG.debug("Generic intervention - asking another question");
-                response = generateScenarioResponse(state, session, userMessage);
+                response = generateScenarioResponse(state, session, userMessage, onDelta);
             } else {
                 // All questions answered, generate summary
                 LOG.debug("Generic intervention - no more questions, generating summary");
-                response = generateSummary(state, session);
+                response = generateSummary(state, session, onDelta);
                 state.setCompleted(true);
             }
         }
 
-        // Check if LLM signaled completion
-        if (response.contains(INTERVENTION_COMPLETE_MARKER)) {
-            state.setCompleted(true);
-            response = response.replace(INTERVENTION_COMPLETE_MARKER, "").trim();
-        }
+        return response.map(generated -> {
+            String text = generated;
 
-        session.addMessage("assistant", response);
-        conversationService.addMessage(conversationId, new LlmMessage("assistant", response));
+            // Check if LLM signaled completion
+            if (text.contains(INTERVENTION_COMPLETE_MARKER)) {
+                state.setCompleted(true);
+                text = text.replace(INTERVENTION_COMPLETE_MARKER, "").trim();
+            }
+
+            session.addMessage("assistant", text);
+            saveMessage(session, conversationId, new LlmMessage("assistant", text));
 
-        return new InterventionMessageResult(
-                response,
-                state.getCurrentQuestionIndex(),
-                state.isCompleted()
-        );
+            return new InterventionMessageResult(
+                    text,
+                    state.getCurrentQuestionIndex(),
+                    state.isCompleted()
+            );
+        });
     }
 
     /**
      * Generate response using scenario's system prompt.
      */
-    private String generateScenarioResponse(InterventionState state, ConversationSession session, String contextMessage) {
-        CrisisScenario scenario = state.getScenario();
-
-        // Get profile and facts
-        List<Fact> facts = getFacts();
-
+    private Uni<String> generateScenarioResponse(InterventionState state, ConversationSession session, String contextMessage,
+                                                 Function<String, Uni<Void>> onDelta) {
         // Build system prompt from scenario
-        String systemPrompt = promptTemplates.buildInterventionPrompt(facts, scenario);
+        String systemPrompt = systemPrompt(state, session);
 
         List<LlmMessage> messages = new ArrayList<>();
         messages.add(new LlmMessage("system", systemPrompt));
@@ -210,43 +250,39 @@ public class InterventionService {
                             "Zadaj je w naturalny sposób, biorąc pod uwagę kontekst rozmowy.]"));
         }
 
-        try {
-            return llmClient.generateWithHistory(messages);
-        } catch (Exception e) {
-            LOG.errorf(e, "Failed to generate scenario response, using fallback");
-            return currentQuestion != null ? currentQuestion : "Proszę opisz sytuację bardziej szczegółowo.";
-        }
+        return callLlm(session, messages, TURN_OPTIONS, onDelta)
+                .onFailure(e -> !(e instanceof LlmCancelledException)).recoverWithItem(e -> {
+                    LOG.errorf(e, "Failed to generate scenario response, using fallback");
+                    return currentQuestion != null ? currentQuestion : "Proszę opisz sytuację bardziej szczegółowo.";
+                });
     }
 
     /**
      * Generate response for generic intervention.
      */
-    private String generateGenericResponse(InterventionState state, ConversationSession session, String contextMessage) {
-
-        List<Fact> facts = getFacts();
-
+    private Uni<String> generateGenericResponse(InterventionState state, ConversationSession session, String contextMessage,
+                                                Function<String, Uni<Void>> onDelta) {
         // Build generic intervention prompt
-        String systemPrompt = promptTemplates.buildGenericInterventionPrompt(facts, state.getSituationDescription());
+        String systemPrompt = systemPrompt(state, session);
 
         List<LlmMessage> messages = new ArrayList<>();
         messages.add(new LlmMessage("system", systemPrompt));
         messages.addAll(session.messageHistory);
 
-        try {
-            return llmClient.generateWithHistory(messages);
-        } catch (Exception e) {
-            LOG.errorf(e, "Failed to generate generic response, using fallback");
-            return "Proszę opisz dokładniej co się dzieje z podopiecznym.";
-        }
+        return callLlm(session, messages, TURN_OPTIONS, onDelta)
+                .onFailure(e -> !(e instanceof LlmCancelledException)).recoverWithItem(e -> {
+                    LOG.errorf(e, "Failed to generate generic response, using fallback");
+                    return "Proszę opisz dokładniej co się dzieje z podopiecznym.";
+                });
     }
 
     /**
      * Generate final summary for the intervention.
      */
-    private String generateSummary(InterventionState state, ConversationSession session) {
+    private Uni<String> generateSummary(InterventionState state, ConversationSession session, Function<String, Uni<Void>> onDelta) {
         String summary = state.buildSummary();
 
-        List<Fact> facts = getFacts();
+        List<Fact> facts = turnProfiler.time(session.connectionId, Stage.FACTS, () -> getFacts(session));
 
         String systemPrompt = """
                 Jesteś asystentem podsumowującym interwencję kryzysową.
@@ -264,16 +300,12 @@ public class InterventionService {
         messages.add(new LlmMessage("system", systemPrompt));
         messages.add(new LlmMessage("user", "Podsumuj poniższą interwencję:\n\n" + summary));
 
-        try {
-            String response = llmClient.generateWithHistory(messages);;
-
-            notifyAboutCompletion(state, session, summary);
-
-            return response;
-        } catch (Exception e) {
-            LOG.errorf(e, "Failed to generate summary");
-            return "Interwencja zakończona. " + summary + "\n\nINTERVENTION_COMPLETE";
-        }
+        return callLlm(session, messages, SUMMARY_OPTIONS, onDelta)
+                .invoke(() -> notifyAboutCompletion(state, session, summary))
+                .onFailure(e -> !(e instanceof LlmCancelledException)).recoverWithItem(e -> {
+                    LOG.errorf(e, "Failed to generate summary");
+                    return "Interwencja zakończona. " + summary + "\n\nINTERVENTION_COMPLETE";
+                });
     }
 
     public void completeIntervention(InterventionState state, ConversationSession session) {
@@ -286,13 +318,60 @@ public class InterventionService {
 
     }
 
+    /**
+     * System prompt for the session, rendered on first use and then kept unchanged so every
+     * turn shares the same prefix and the LLM server can reuse its prompt cache.
+     */
+    private String systemPrompt(InterventionState state, ConversationSession session) {
+        if (state.getSystemPrompt() == null) {
+            List<Fact> facts = turnProfiler.time(session.connectionId, Stage.FACTS, () -> getFacts(session));
+            state.setSystemPrompt(turnProfiler.time(session.connectionId, Stage.PROMPT, () -> state.isGenericIntervention()
+                    ? promptTemplates.buildGenericInterventionPrompt(facts, state.getSituationDescription())
+                    : promptTemplates.buildInterventionPrompt(facts, state.getScenario())));
+        }
+        return state.getSystemPrompt();
+    }
+
+    /**
+     * The call site's LLM options for the session; the affinity key keeps its turns on one server slot,
+     * and the calls end with the current turn's deadline or the session.
+     */
+    private LlmCallOptions llmOptions(ConversationSession session, LlmCallOptions callSite) {
+        return callSite.toBuilder()
+                .affinityKey(session.connectionId)
+                .deadline(session.turnDeadline)
+                .cancellation(session.llmCancellation())
+                .build();
+    }
+
+    /**
+     * Call the LLM, streaming fragments to onDelta when a listener is present.
+     * The completion marker is stripped from streamed fragments; the full response still contains it
+     * unless the call site stops generation at it.
+     */
+    private Uni<String> callLlm(ConversationSession session, List<LlmMessage> messages, LlmCallOptions callSite,
+                                Function<String, Uni<Void>> onDelta) {
+        Uni<String> call = onDelta == null
+                ? llmClient.generateAsync(messages, llmOptions(session, callSite))
+                : llmClient.generateStreamingAsync(messages, llmOptions(session, callSite),
+                        new CompletionMarkerFilter(INTERVENTION_COMPLETE_MARKER, onDelta));
+        return turnProfiler.timeAsync(session.connectionId, Stage.LLM, call);
+    }
+
+    /**
+     * Save a message to the session's conversation record.
+     */
+    private void saveMessage(ConversationSession session, Long conversationId, LlmMessage message) {
+        turnProfiler.time(session.connectionId, Stage.PERSIST, () -> conversationService.addMessage(session.shardKey, conversationId, message));
+    }
+
     /**
      * Get recent facts.
      */
-    private List<Fact> getFacts() {
-        return QuarkusTransaction.requiringNew().call(() ->
+    private List<Fact> getFacts(ConversationSession session) {
+        return ShardContext.call(session.shardKey, () -> QuarkusTransaction.requiringNew().call(() ->
                 factRepository.findAllFacts()
-        );
+        ));
     }
 
     public void completeIntervention(ConversationSession session) {
@@ -306,7 +385,8 @@ public class InterventionService {
                 state.getConversationId(),
                 "intervention",
                 session.messageHistory.stream().map(LlmMessage::toString).collect(Collectors.joining(",")),
-                session.connectionId
+                session.connectionId,
+                session.shardKey
         ));
 
     }
@@ -21,6 +21,7 @@ public class InterventionState {
     private Long conversationId;
     private boolean completed;
     private boolean isGenericIntervention;
+    private String systemPrompt; // rendered once per session so the LLM can reuse its prompt cache
 
     public InterventionState() {
         this.currentQuestionIndex = 0;
@@ -61,6 +62,14 @@ public class InterventionState {
         this.situationDescription = situationDescription;
     }
 
+    public String getSystemPrompt() {
+        return systemPrompt;
+    }
+
+    public void setSystemPrompt(String systemPrompt) {
+        this.systemPrompt = systemPrompt;
+    }
+
     public int getCurrentQuestionIndex() {
         return currentQuestionIndex;
     }
@@ -58,14 +58,29 @@ public class ScenarioMatchingService {
             return MatchResult.noMatch();
         }
 
-        String normalizedInput = normalizeText(userInput);
-        LOG.debugf("Matching scenario for input: %s", normalizedInput);
-
         // Get all scenarios from database
         List<CrisisScenario> scenarios = QuarkusTransaction.requiringNew().call(() ->
                 scenarioRepository.findAllScenarios()
         );
 
+        return matchScenario(userInput, scenarios);
+    }
+
+    /**
+     * Match user input against the given scenarios, without touching the database.
+     *
+     * @param userInput The user's description of the situation
+     * @param scenarios Scenarios to choose from
+     * @return MatchResult with the best matching scenario or noMatch if none matched
+     */
+    public MatchResult matchScenario(String userInput, List<CrisisScenario> scenarios) {
+        if (userInput == null || userInput.isBlank()) {
+            return MatchResult.noMatch();
+        }
+
+        String normalizedInput = normalizeText(userInput);
+        LOG.debugf("Matching scenario for input: %s", normalizedInput);
+
         MatchResult bestMatch = MatchResult.noMatch();
 
         for (CrisisScenario scenario : scenarios) {
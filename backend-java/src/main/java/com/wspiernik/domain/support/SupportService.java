@@ -6,12 +6,22 @@ import com.wspiernik.domain.events.ConversationCompletedEvent;
 import com.wspiernik.domain.facts.Fact;
 import com.wspiernik.domain.facts.FactRepository;
 import com.wspiernik.domain.intervention.InterventionState;
+import com.wspiernik.infrastructure.llm.CompletionMarkerFilter;
+import com.wspiernik.infrastructure.llm.LlmCallOptions;
+import com.wspiernik.infrastructure.llm.LlmCancelledException;
 import com.wspiernik.infrastructure.llm.LlmClient;
+import com.wspiernik.infrastructure.llm.LlmPriority;
+import com.wspiernik.infrastructure.llm.LlmTask;
 import com.wspiernik.infrastructure.llm.PromptTemplates;
+import com.wspiernik.infrastructure.llm.SemanticResponseCache;
 import com.wspiernik.infrastructure.llm.dto.LlmMessage;
 import com.wspiernik.domain.conversation.Conversation;
 import com.wspiernik.domain.conversation.ConversationRepository;
+import com.wspiernik.infrastructure.metrics.TurnProfiler;
+import com.wspiernik.infrastructure.metrics.TurnProfiler.Stage;
+import com.wspiernik.infrastructure.persistence.shard.ShardContext;
 import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
@@ -19,6 +29,8 @@ import org.jboss.logging.Logger;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -29,9 +41,28 @@ import java.util.stream.Collectors;
 public class SupportService {
 
     private static final Logger LOG = Logger.getLogger(SupportService.class);
+    private static final LlmCallOptions GREETING_OPTIONS = LlmCallOptions.builder()
+            .priority(LlmPriority.CONVERSATION)
+            .callSite("support")
+            .maxTokens(256)
+            .build();
+    private static final LlmCallOptions FAREWELL_OPTIONS = LlmCallOptions.builder()
+            .priority(LlmPriority.CONVERSATION)
+            .callSite("support")
+            .task(LlmTask.FAREWELL)
+            .maxTokens(192)
+            .build();
 
     private static final String SUPPORT_STATE_KEY = "supportState";
     private static final String SUPPORT_COMPLETE_MARKER = "SUPPORT_COMPLETE";
+    private static final String SEMANTIC_CACHE_MODE = "support:";
+    // The marker closes the answer, so nothing generated after it is ever shown
+    private static final LlmCallOptions RESPONSE_OPTIONS = LlmCallOptions.builder()
+            .priority(LlmPriority.CONVERSATION)
+            .callSite("support")
+            .maxTokens(768)
+            .endMarker(SUPPORT_COMPLETE_MARKER)
+            .build();
 
     @Inject
     LlmClient llmClient;
@@ -39,6 +70,9 @@ public class SupportService {
     @Inject
     PromptTemplates promptTemplates;
 
+    @Inject
+    SemanticResponseCache semanticCache;
+
     @Inject
     ConversationService conversationService;
 
@@ -48,113 +82,127 @@ public class SupportService {
     @Inject
     Event<ConversationCompletedEvent> conversationCompletedEvent;
 
+    @Inject
+    TurnProfiler turnProfiler;
+
     /**
      * Start a new support session.
+     *
+     * @param onDelta Receives response fragments while they are generated (may be null)
      */
-    public SupportStartResult startSupport(ConversationSession session, String initialMessage) {
+    public Uni<SupportStartResult> startSupport(ConversationSession session, String initialMessage,
+                                                Function<String, Uni<Void>> onDelta) {
         LOG.info("Starting support session");
 
         // Create support state
         SupportState state = new SupportState();
 
         // Create conversation record
-        Long conversationId = conversationService.startNew("support");
+        Long conversationId = turnProfiler.time(session.connectionId, Stage.PERSIST,
+                () -> conversationService.startNew(session.shardKey, "support"));
 
         state.setConversationId(conversationId);
         session.conversationId = conversationId;
         session.setContextValue(SUPPORT_STATE_KEY, state);
 
         // Generate welcome/initial response
-        String response;
+        Uni<String> response;
         if (initialMessage != null && !initialMessage.isBlank()) {
             // User sent initial message with start
             session.addMessage("user", initialMessage);
             state.incrementMessageCount();
-            response = generateResponse(state, session);
+            response = generateResponse(state, session, onDelta);
         } else {
             // Generate greeting
-            response = generateGreeting(state, session);
+            response = generateGreeting(state, session, onDelta);
         }
 
-        session.addMessage("assistant", response);
-        conversationService.addMessage(conversationId, new LlmMessage("assistant", response));
-        state.incrementMessageCount();
+        return response.map(text -> {
+            session.addMessage("assistant", text);
+            saveMessage(session, conversationId, new LlmMessage("assistant", text));
+            state.incrementMessageCount();
 
-        return new SupportStartResult(conversationId, response);
+            return new SupportStartResult(conversationId, text);
+        });
     }
 
     /**
      * Process user's message during support conversation.
+     *
+     * @param onDelta Receives response fragments while they are generated (may be null)
      */
-    public SupportMessageResult processMessage(ConversationSession session, String userMessage) {
+    public Uni<SupportMessageResult> processMessage(ConversationSession session, String userMessage,
+                                                    Function<String, Uni<Void>> onDelta) {
         SupportState state = session.getContextValue(SUPPORT_STATE_KEY);
 
         if (state == null) {
             LOG.warn("No support state found in session");
-            return SupportMessageResult.error("Nie znaleziono aktywnej sesji wsparcia");
+            return Uni.createFrom().item(SupportMessageResult.error("Nie znaleziono aktywnej sesji wsparcia"));
         }
 
         // Add user message to history
         session.addMessage("user", userMessage);
-        conversationService.addMessage(state.getConversationId(), new LlmMessage("user", userMessage));
+        saveMessage(session, state.getConversationId(), new LlmMessage("user", userMessage));
         state.incrementMessageCount();
 
         // Generate response
-        String response = generateResponse(state, session);
+        return generateResponse(state, session, onDelta).map(generated -> {
+            String response = generated;
 
-        // Check if LLM signaled completion
-        if (response.contains(SUPPORT_COMPLETE_MARKER)) {
-            state.setCompleted(true);
-            response = response.replace(SUPPORT_COMPLETE_MARKER, "").trim();
-        }
+            // Check if LLM signaled completion
+            if (response.contains(SUPPORT_COMPLETE_MARKER)) {
+                state.setCompleted(true);
+                response = response.replace(SUPPORT_COMPLETE_MARKER, "").trim();
+            }
 
-        session.addMessage("assistant", response);
-        conversationService.addMessage(state.getConversationId(), new LlmMessage("assistant", response));
-        state.incrementMessageCount();
+            session.addMessage("assistant", response);
+            saveMessage(session, state.getConversationId(), new LlmMessage("assistant", response));
+            state.incrementMessageCount();
 
-        // Check if we should suggest ending
-        boolean suggestEnd = state.shouldOfferSummary() && !state.isCompleted();
+            // Check if we should suggest ending
+            boolean suggestEnd = state.shouldOfferSummary() && !state.isCompleted();
 
-        return new SupportMessageResult(response, state.isCompleted(), suggestEnd);
+            return new SupportMessageResult(response, state.isCompleted(), suggestEnd);
+        });
     }
 
     /**
      * Complete the support session.
      */
-    public SupportCompleteResult completeSupport(ConversationSession session) {
+    public Uni<SupportCompleteResult> completeSupport(ConversationSession session) {
         SupportState state = session.getContextValue(SUPPORT_STATE_KEY);
 
         if (state == null) {
-            return new SupportCompleteResult(null, "Nie znaleziono aktywnej sesji");
+            return Uni.createFrom().item(new SupportCompleteResult(null, "Nie znaleziono aktywnej sesji"));
         }
 
         state.setCompleted(true);
 
         // Generate farewell message
-        String farewell = generateFarewell(state, session);
-        session.addMessage("assistant", farewell);
-
-        // Update conversation end time
-        String transcript = buildTranscript(session);
-
-        // Fire event for facts extraction
-        conversationCompletedEvent.fireAsync(new ConversationCompletedEvent(
-                state.getConversationId(),
-                "support",
-                transcript,
-                session.connectionId
-        ));
-
-        return new SupportCompleteResult(state.getConversationId(), farewell);
+        return generateFarewell(state, session).map(farewell -> {
+            session.addMessage("assistant", farewell);
+
+            // Update conversation end time
+            String transcript = buildTranscript(session);
+
+            // Fire event for facts extraction
+            conversationCompletedEvent.fireAsync(new ConversationCompletedEvent(
+                    state.getConversationId(),
+                    "support",
+                    transcript,
+                    session.connectionId,
+                    session.shardKey
+            ));
+
+            return new SupportCompleteResult(state.getConversationId(), farewell);
+        });
     }
 
     /**
      * Generate greeting message.
      */
-    private String generateGreeting(SupportState state, ConversationSession session) {
-        List<Fact> facts = getFacts();
-
-        String systemPrompt = promptTemplates.buildSupportPrompt(facts);
+    private Uni<String> generateGreeting(SupportState state, ConversationSession session, Function<String, Uni<Void>> onDelta) {
+        String systemPrompt = systemPrompt(state, session);
 
         List<LlmMessage> messages = new ArrayList<>();
         messages.add(new LlmMessage("system", systemPrompt));
@@ -162,21 +210,32 @@ public class SupportService {
                 "[INSTRUKCJA: Przywitaj się ciepło z opiekunem i zapytaj jak się czuje. " +
                         "Bądź empatyczny i otwarty na rozmowę.]"));
 
-        try {
-            return llmClient.generateWithHistory(messages);
-        } catch (Exception e) {
-            LOG.errorf(e, "Failed to generate greeting");
-            return "Cześć! Jestem tu, żeby Cię wesprzeć. Jak się dzisiaj czujesz?";
+        return callLlm(session, messages, GREETING_OPTIONS, onDelta)
+                .onFailure(e -> !(e instanceof LlmCancelledException)).recoverWithItem(e -> {
+                    LOG.errorf(e, "Failed to generate greeting");
+                    return "Cześć! Jestem tu, żeby Cię wesprzeć. Jak się dzisiaj czujesz?";
+                });
+    }
+
+    /**
+     * System prompt for the session, rendered on first use and then kept unchanged so every
+     * turn shares the same prefix and the LLM server can reuse its prompt cache.
+     * Facts learned meanwhile are picked up by the next session.
+     */
+    private String systemPrompt(SupportState state, ConversationSession session) {
+        if (state.getSystemPrompt() == null) {
+            List<Fact> facts = turnProfiler.time(session.connectionId, Stage.FACTS, () -> getFacts(session));
+            state.setSystemPrompt(turnProfiler.time(session.connectionId, Stage.PROMPT,
+                    () -> promptTemplates.buildSupportPrompt(facts)));
         }
+        return state.getSystemPrompt();
     }
 
     /**
      * Generate response to user message.
      */
-    private String generateResponse(SupportState state, ConversationSession session) {
-        List<Fact> facts = getFacts();
-
-        String systemPrompt = promptTemplates.buildSupportPrompt(facts);
+    private Uni<String> generateResponse(SupportState state, ConversationSession session, Function<String, Uni<Void>> onDelta) {
+        String systemPrompt = systemPrompt(state, session);
 
         List<LlmMessage> messages = new ArrayList<>();
         messages.add(new LlmMessage("system", systemPrompt));
@@ -192,18 +251,40 @@ public class SupportService {
                             "zaproponuj podsumowanie i zakończenie. Powiedz SUPPORT_COMPLETE na końcu.]"));
         }
 
-        try {
-            return llmClient.generateWithHistory(messages);
-        } catch (Exception e) {
-            LOG.errorf(e, "Failed to generate response");
-            return "Rozumiem. Proszę, powiedz mi więcej o tym, co czujesz.";
+        // A caregiver's opening question stands on its own, so a similar earlier one may be answered alike.
+        // Answers are shared across caregivers, so only those written without any caregiver's facts are kept.
+        Uni<String> response = openingQuestion(session)
+                .map(question -> {
+                    String template = promptTemplates.buildSupportPrompt(List.of());
+                    return semanticCache.get(SEMANTIC_CACHE_MODE + template, question, systemPrompt.equals(template),
+                            () -> callLlm(session, messages, RESPONSE_OPTIONS, onDelta),
+                            onDelta == null ? null : new CompletionMarkerFilter(SUPPORT_COMPLETE_MARKER, onDelta));
+                })
+                .orElseGet(() -> callLlm(session, messages, RESPONSE_OPTIONS, onDelta));
+
+        return response
+                .onFailure(e -> !(e instanceof LlmCancelledException)).recoverWithItem(e -> {
+                    LOG.errorf(e, "Failed to generate response");
+                    return "Rozumiem. Proszę, powiedz mi więcej o tym, co czujesz.";
+                });
+    }
+
+    /**
+     * The caregiver's message when it is their first in the session, if the semantic cache is on.
+     */
+    private Optional<String> openingQuestion(ConversationSession session) {
+        if (!semanticCache.isEnabled() || session.messageHistory.isEmpty()) {
+            return Optional.empty();
         }
+        LlmMessage last = session.messageHistory.get(session.messageHistory.size() - 1);
+        long userMessages = session.messageHistory.stream().filter(m -> "user".equals(m.role())).count();
+        return "user".equals(last.role()) && userMessages == 1 ? Optional.of(last.content()) : Optional.empty();
     }
 
     /**
      * Generate farewell message.
      */
-    private String generateFarewell(SupportState state, ConversationSession session) {
+    private Uni<String> generateFarewell(SupportState state, ConversationSession session) {
         String systemPrompt = """
                 Jesteś wspierającym asystentem dla opiekuna. Rozmowa dobiega końca.
                 Podsumuj krótko rozmowę, doceń wysiłek opiekuna i życz mu siły.
@@ -214,13 +295,46 @@ public class SupportService {
         messages.add(new LlmMessage("system", systemPrompt));
         messages.add(new LlmMessage("user", "[INSTRUKCJA: Pożegnaj się ciepło z opiekunem.]"));
 
-        try {
-            return llmClient.generateWithHistory(messages);
-        } catch (Exception e) {
-            LOG.errorf(e, "Failed to generate farewell");
-            return "Dziękuję za rozmowę. Pamiętaj, że robisz wspaniałą pracę jako opiekun. " +
-                    "Jestem tu dla Ciebie, kiedy będziesz potrzebować wsparcia.";
-        }
+        // Fixed prompt - the same farewell suits every caregiver
+        return turnProfiler.timeAsync(session.connectionId, Stage.LLM,
+                        llmClient.generateAsync(messages, llmOptions(session, FAREWELL_OPTIONS).cached()))
+                .onFailure(e -> !(e instanceof LlmCancelledException)).recoverWithItem(e -> {
+                    LOG.errorf(e, "Failed to generate farewell");
+                    return "Dziękuję za rozmowę. Pamiętaj, że robisz wspaniałą pracę jako opiekun. " +
+                            "Jestem tu dla Ciebie, kiedy będziesz potrzebować wsparcia.";
+                });
+    }
+
+    /**
+     * The call site's LLM options for the session; the affinity key keeps its turns on one server slot,
+     * and the calls end with the current turn's deadline or the session.
+     */
+    private LlmCallOptions llmOptions(ConversationSession session, LlmCallOptions callSite) {
+        return callSite.toBuilder()
+                .affinityKey(session.connectionId)
+                .deadline(session.turnDeadline)
+                .cancellation(session.llmCancellation())
+                .build();
+    }
+
+    /**
+     * Call the LLM, streaming fragments to onDelta when a listener is present.
+     * The completion marker is stripped from streamed fragments; the full response still contains it.
+     */
+    private Uni<String> callLlm(ConversationSession session, List<LlmMessage> messages, LlmCallOptions callSite,
+                                Function<String, Uni<Void>> onDelta) {
+        Uni<String> call = onDelta == null
+                ? llmClient.generateAsync(messages, llmOptions(session, callSite))
+                : llmClient.generateStreamingAsync(messages, llmOptions(session, callSite),
+                        new CompletionMarkerFilter(SUPPORT_COMPLETE_MARKER, onDelta));
+        return turnProfiler.timeAsync(session.connectionId, Stage.LLM, call);
+    }
+
+    /**
+     * Save a message to the session's conversation record.
+     */
+    private void saveMessage(ConversationSession session, Long conversationId, LlmMessage message) {
+        turnProfiler.time(session.connectionId, Stage.PERSIST, () -> conversationService.addMessage(session.shardKey, conversationId, message));
     }
 
     /**
@@ -238,10 +352,10 @@ public class SupportService {
     /**
      * Get recent facts.
      */
-    private List<Fact> getFacts() {
-        return QuarkusTransaction.requiringNew().call(() ->
+    private List<Fact> getFacts(ConversationSession session) {
+        return ShardContext.call(session.shardKey, () -> QuarkusTransaction.requiringNew().call(() ->
                 factRepository.findAllFacts()
-        );
+        ));
     }
 
     public void completeIntervention(ConversationSession session) {
@@ -255,7 +369,8 @@ public class SupportService {
                 state.getConversationId(),
                 "support",
                 session.messageHistory.stream().map(LlmMessage::toString).collect(Collectors.joining(",")),
-                session.connectionId
+                session.connectionId,
+                session.shardKey
         ));
     }
 
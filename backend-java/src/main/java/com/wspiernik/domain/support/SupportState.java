@@ -14,6 +14,7 @@ public class SupportState {
     private Integer stressLevel; // 1-10, assessed during conversation
     private String identifiedNeeds; // JSON array of identified needs
     private boolean completed;
+    private String systemPrompt; // rendered once per session so the LLM can reuse its prompt cache
 
     public SupportState() {
         this.messageCount = 0;
@@ -41,6 +42,14 @@ public class SupportState {
         return startedAt;
     }
 
+    public String getSystemPrompt() {
+        return systemPrompt;
+    }
+
+    public void setSystemPrompt(String systemPrompt) {
+        this.systemPrompt = systemPrompt;
+    }
+
     public Integer getStressLevel() {
         return stressLevel;
     }
@@ -6,11 +6,18 @@ import com.wspiernik.domain.events.ConversationCompletedEvent;
 import com.wspiernik.domain.facts.Fact;
 import com.wspiernik.domain.facts.FactRepository;
 import com.wspiernik.domain.facts.FactsDistillerService;
+import com.wspiernik.infrastructure.llm.LlmCallOptions;
+import com.wspiernik.infrastructure.llm.LlmCancelledException;
 import com.wspiernik.infrastructure.llm.LlmClient;
+import com.wspiernik.infrastructure.llm.LlmPriority;
+import com.wspiernik.infrastructure.llm.LlmTask;
 import com.wspiernik.infrastructure.llm.dto.LlmMessage;
+import com.wspiernik.infrastructure.metrics.TurnProfiler;
+import com.wspiernik.infrastructure.metrics.TurnProfiler.Stage;
+import com.wspiernik.infrastructure.persistence.DatabaseWriter;
 import com.wspiernik.domain.conversation.Conversation;
 import com.wspiernik.domain.conversation.ConversationRepository;
-import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.smallrye.mutiny.Uni;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
@@ -27,6 +34,19 @@ import java.util.List;
 public class SurveyService {
 
     private static final Logger LOG = Logger.getLogger(SurveyService.class);
+    // Questions are 1-2 sentences; the confirmation also repeats the collected answers
+    private static final LlmCallOptions QUESTION_OPTIONS = LlmCallOptions.builder()
+            .priority(LlmPriority.CONVERSATION)
+            .callSite("survey")
+            .task(LlmTask.SURVEY_QUESTION)
+            .maxTokens(160)
+            .build();
+    private static final LlmCallOptions CONFIRMATION_OPTIONS = LlmCallOptions.builder()
+            .priority(LlmPriority.CONVERSATION)
+            .callSite("survey")
+            .task(LlmTask.CONFIRMATION)
+            .maxTokens(512)
+            .build();
 
     private static final String SURVEY_STATE_KEY = "surveyState";
 
@@ -39,45 +59,52 @@ public class SurveyService {
     @Inject
     FactRepository factRepository;
 
+    @Inject
+    DatabaseWriter databaseWriter;
+
     @Inject
     Event<ConversationCompletedEvent> conversationCompletedEvent;
 
+    @Inject
+    TurnProfiler turnProfiler;
+
     /**
      * Start a new survey session.
      * Creates conversation record and returns initial question.
      */
-    public SurveyStartResult startSurvey(ConversationSession session) {
+    public Uni<SurveyStartResult> startSurvey(ConversationSession session) {
         LOG.info("Starting new survey");
 
         // Create survey state
         SurveyState state = new SurveyState();
 
         // Create conversation record in database
-        Long conversationId = conversationService.startNew("survey");
+        Long conversationId = turnProfiler.time(session.connectionId, Stage.PERSIST,
+                () -> conversationService.startNew(session.shardKey, "survey"));
 
         state.setConversationId(conversationId);
         session.conversationId = conversationId;
         session.setContextValue(SURVEY_STATE_KEY, state);
 
         // Generate first question using LLM
-        String firstQuestion = generateQuestion(state, session.messageHistory);
+        return generateQuestion(state, session).map(firstQuestion -> {
+            // Add assistant message to history
+            session.addMessage("assistant", firstQuestion);
+            saveMessage(session, conversationId, new LlmMessage("assistant", firstQuestion));
 
-        // Add assistant message to history
-        session.addMessage("assistant", firstQuestion);
-        conversationService.addMessage(conversationId, new LlmMessage("assistant", firstQuestion));
-
-        return new SurveyStartResult(conversationId, firstQuestion, state.getCurrentStep());
+            return new SurveyStartResult(conversationId, firstQuestion, state.getCurrentStep());
+        });
     }
 
     /**
      * Process user's response and generate next question.
      */
-    public SurveyMessageResult processMessage(ConversationSession session, String userMessage) {
+    public Uni<SurveyMessageResult> processMessage(ConversationSession session, String userMessage) {
         SurveyState state = session.getContextValue(SURVEY_STATE_KEY);
 
         if (state == null) {
             LOG.warn("No survey state found in session");
-            return SurveyMessageResult.error("Nie znaleziono aktywnej ankiety");
+            return Uni.createFrom().item(SurveyMessageResult.error("Nie znaleziono aktywnej ankiety"));
         }
 
         // Add user message to history
@@ -87,30 +114,32 @@ public class SurveyService {
         state.addResponse(state.getCurrentStep(), userMessage);
 
         // Move to next step
-        saveNewFacts(state);
+        turnProfiler.time(session.connectionId, Stage.PERSIST, () -> saveNewFacts(session, state));
         state.moveToNextStep();
         // Check if we need to show confirmation
         if (state.getCurrentStep().isConfirmation()) {
             String summary = state.buildSummary();
-            String confirmationMessage = generateConfirmationMessage(summary, session.messageHistory);
-            session.addMessage("assistant", confirmationMessage);
-            conversationService.addMessage(state.getConversationId(), new LlmMessage("assistant", confirmationMessage));
-            state.setAwaitingConfirmation(true);
-            return new SurveyMessageResult(confirmationMessage, state.getCurrentStep(), false);
+            return generateConfirmationMessage(summary, session).map(confirmationMessage -> {
+                session.addMessage("assistant", confirmationMessage);
+                saveMessage(session, state.getConversationId(), new LlmMessage("assistant", confirmationMessage));
+                state.setAwaitingConfirmation(true);
+                return new SurveyMessageResult(confirmationMessage, state.getCurrentStep(), false);
+            });
         }
 
         // Generate next question
-        String nextQuestion = generateQuestion(state, session.messageHistory);
-        session.addMessage("assistant", nextQuestion);
-        conversationService.addMessage(state.getConversationId(), new LlmMessage("assistant", nextQuestion));
+        return generateQuestion(state, session).map(nextQuestion -> {
+            session.addMessage("assistant", nextQuestion);
+            saveMessage(session, state.getConversationId(), new LlmMessage("assistant", nextQuestion));
 
-        return new SurveyMessageResult(nextQuestion, state.getCurrentStep(), false);
+            return new SurveyMessageResult(nextQuestion, state.getCurrentStep(), false);
+        });
     }
 
     /**
      * Handle confirmation step response.
      */
-    private SurveyMessageResult handleConfirmation(ConversationSession session, SurveyState state, String userMessage) {
+    private Uni<SurveyMessageResult> handleConfirmation(ConversationSession session, SurveyState state, String userMessage) {
         String lowerMessage = userMessage.toLowerCase().trim();
 
         // Check for confirmation
@@ -119,8 +148,11 @@ public class SurveyService {
             lowerMessage.contains("dobrze")) {
 
 
-            // Save profile
-            saveNewFacts(state);
+            // Save profile; the facts distiller reads it, so wait until all answers are committed
+            turnProfiler.time(session.connectionId, Stage.PERSIST, () -> {
+                saveNewFacts(session, state);
+                databaseWriter.flush(session.shardKey).join();
+            });
 
             // Move to completed
             state.moveToNextStep();
@@ -131,15 +163,16 @@ public class SurveyService {
                     state.getConversationId(),
                     "survey",
                     transcript,
-                    session.connectionId
+                    session.connectionId,
+                    session.shardKey
             ));
 
             String completionMessage = "Dziękuję! Twój profil został zapisany. " +
                     "Teraz będę mógł lepiej Ci pomagać w opiece nad podopiecznym.";
             session.addMessage("assistant", completionMessage);
-            conversationService.addMessage(state.getConversationId(), new LlmMessage("assistant", completionMessage));
+            saveMessage(session, state.getConversationId(), new LlmMessage("assistant", completionMessage));
 
-            return new SurveyMessageResult(completionMessage, state.getCurrentStep(), true);
+            return Uni.createFrom().item(new SurveyMessageResult(completionMessage, state.getCurrentStep(), true));
         }
 
         // Check for correction request
@@ -151,92 +184,105 @@ public class SurveyService {
             state.getResponses().clear();
             state.setAwaitingConfirmation(false);
 
-            String retryMessage = "Rozumiem. Zacznijmy od początku. " +
-                    generateQuestion(state, session.messageHistory);
-            session.addMessage("assistant", retryMessage);
-            conversationService.addMessage(state.getConversationId(), new LlmMessage("assistant", retryMessage));
+            return generateQuestion(state, session).map(question -> {
+                String retryMessage = "Rozumiem. Zacznijmy od początku. " + question;
+                session.addMessage("assistant", retryMessage);
+                saveMessage(session, state.getConversationId(), new LlmMessage("assistant", retryMessage));
 
-            return new SurveyMessageResult(retryMessage, state.getCurrentStep(), false);
+                return new SurveyMessageResult(retryMessage, state.getCurrentStep(), false);
+            });
         }
 
         // Unclear response, ask again
         String clarifyMessage = "Przepraszam, nie zrozumiałem. " +
                 "Czy dane są poprawne? Odpowiedz 'tak' aby potwierdzić lub 'nie' aby wprowadzić poprawki.";
         session.addMessage("assistant", clarifyMessage);
-        conversationService.addMessage(state.getConversationId(), new LlmMessage("assistant", clarifyMessage));
+        saveMessage(session, state.getConversationId(), new LlmMessage("assistant", clarifyMessage));
 
-        return new SurveyMessageResult(clarifyMessage, state.getCurrentStep(), false);
+        return Uni.createFrom().item(new SurveyMessageResult(clarifyMessage, state.getCurrentStep(), false));
     }
 
-    private void saveNewFacts(final SurveyState state) {
-
-        QuarkusTransaction.requiringNew().run(() -> {
-            var newFact = new Fact();
-            newFact.conversationId = state.getConversationId();
-
-            switch (state.getCurrentStep()) {
-                case WARD_AGE -> {
-                    newFact.tags = List.of("age", "ward");
-                    newFact.factValue = "Wiek " + state.getWardAge();
-                    factRepository.persist(newFact);
-                }
-                case WARD_CONDITIONS -> {
-                    newFact.tags = List.of("conditions", "ward");
-                    newFact.factValue = "Dolegliwości " + state.getWardConditions();
-                    factRepository.persist(newFact);
-                }
-                case WARD_MEDICATIONS -> {
-                    newFact.tags = List.of("medications", "ward");
-                    newFact.factValue = "Leki " + state.getWardMedications();
-                    factRepository.persist(newFact);
-                }
-                case WARD_MOBILITY -> {
-                    newFact.tags = List.of("mobility", "ward");
-                    newFact.factValue = "Mobilność " + state.getWardMobility();
-                    factRepository.persist(newFact);
-                }
-                case WARD_OTHER -> {
-                    newFact.tags = List.of("other", "ward");
-                    newFact.factValue = "Dodatkowe " + state.getWardOther();
-                    factRepository.persist(newFact);
-                }
-                case CONFIRMATION -> {
-                }
-                case COMPLETED -> {
-                }
-                default -> {
-                }
+    /**
+     * Queue the fact for the answer to the current step; written behind, so the next question need not wait.
+     * The answer is read now, the entity created inside the write, so a retried write persists a fresh one.
+     */
+    private void saveNewFacts(final ConversationSession session, final SurveyState state) {
+        final Long conversationId = state.getConversationId();
+        final List<String> tags;
+        final String factValue;
+
+        switch (state.getCurrentStep()) {
+            case WARD_AGE -> {
+                tags = List.of("age", "ward");
+                factValue = "Wiek " + state.getWardAge();
+            }
+            case WARD_CONDITIONS -> {
+                tags = List.of("conditions", "ward");
+                factValue = "Dolegliwości " + state.getWardConditions();
+            }
+            case WARD_MEDICATIONS -> {
+                tags = List.of("medications", "ward");
+                factValue = "Leki " + state.getWardMedications();
             }
+            case WARD_MOBILITY -> {
+                tags = List.of("mobility", "ward");
+                factValue = "Mobilność " + state.getWardMobility();
+            }
+            case WARD_OTHER -> {
+                tags = List.of("other", "ward");
+                factValue = "Dodatkowe " + state.getWardOther();
+            }
+            default -> {
+                return;
+            }
+        }
+        databaseWriter.execute(session.shardKey, () -> {
+            var newFact = new Fact();
+            newFact.conversationId = conversationId;
+            newFact.tags = tags;
+            newFact.factValue = factValue;
+            factRepository.persist(newFact);
         });
+    }
 
+    /**
+     * Save a message to the session's conversation record.
+     */
+    private void saveMessage(ConversationSession session, Long conversationId, LlmMessage message) {
+        turnProfiler.time(session.connectionId, Stage.PERSIST, () -> conversationService.addMessage(session.shardKey, conversationId, message));
     }
 
     /**
      * Generate a question for the current survey step using LLM.
      */
-    private String generateQuestion(SurveyState state, List<LlmMessage> history) {
-        String systemPrompt = buildSurveySystemPrompt(state);
+    private Uni<String> generateQuestion(SurveyState state, ConversationSession session) {
+        String systemPrompt = turnProfiler.time(session.connectionId, Stage.PROMPT, () -> buildSurveySystemPrompt(state));
 
         List<LlmMessage> messages = new ArrayList<>();
         messages.add(new LlmMessage("system", systemPrompt));
-        messages.addAll(history);
+        messages.addAll(session.messageHistory);
 
         // Add instruction for next question
         String stepInstruction = getStepInstruction(state.getCurrentStep());
         messages.add(new LlmMessage("user", "[INSTRUKCJA SYSTEMU: " + stepInstruction + "]"));
 
-        try {
-            return llmClient.generateWithHistory(messages);
-        } catch (Exception e) {
-            LOG.errorf(e, "Failed to generate survey question, using fallback");
-            return getFallbackQuestion(state.getCurrentStep());
+        // Only the opening question, asked before any answer, is the same prompt for every caregiver
+        LlmCallOptions options = llmOptions(session, QUESTION_OPTIONS);
+        if (session.messageHistory.isEmpty()) {
+            options = options.cached();
         }
+        SurveyStep step = state.getCurrentStep();
+        return turnProfiler.timeAsync(session.connectionId, Stage.LLM, llmClient.generateAsync(messages, options))
+                .onFailure(e -> !(e instanceof LlmCancelledException)).recoverWithItem(e -> {
+                    LOG.errorf(e, "Failed to generate survey question, using fallback");
+                    return getFallbackQuestion(step);
+                });
     }
 
     /**
      * Generate confirmation message using LLM.
      */
-    private String generateConfirmationMessage(String summary, List<LlmMessage> history) {
+    private Uni<String> generateConfirmationMessage(String summary, ConversationSession session) {
         String systemPrompt = """
                 Jesteś asystentem opiekuna osoby starszej. Właśnie zebrałeś informacje o podopiecznym.
                 Przedstaw zebrane dane w przyjazny sposób i poproś o potwierdzenie.
@@ -248,13 +294,23 @@ public class SurveyService {
         messages.add(new LlmMessage("user",
                 "[INSTRUKCJA: Przedstaw poniższe dane i poproś o potwierdzenie]\n\n" + summary));
 
-        try {
-            return llmClient.generateWithHistory(messages);
-        } catch (Exception e) {
-            LOG.errorf(e, "Failed to generate confirmation message, using fallback");
-            return "Oto zebrane informacje:\n\n" + summary +
-                    "\nCzy wszystko się zgadza? Odpowiedz 'tak' aby potwierdzić.";
-        }
+        return turnProfiler.timeAsync(session.connectionId, Stage.LLM,
+                        llmClient.generateAsync(messages, llmOptions(session, CONFIRMATION_OPTIONS)))
+                .onFailure(e -> !(e instanceof LlmCancelledException)).recoverWithItem(e -> {
+                    LOG.errorf(e, "Failed to generate confirmation message, using fallback");
+                    return "Oto zebrane informacje:\n\n" + summary +
+                            "\nCzy wszystko się zgadza? Odpowiedz 'tak' aby potwierdzić.";
+                });
+    }
+
+    /**
+     * The call site's LLM options for the session; the calls end with the current turn's deadline or the session.
+     */
+    private LlmCallOptions llmOptions(ConversationSession session, LlmCallOptions callSite) {
+        return callSite.toBuilder()
+                .deadline(session.turnDeadline)
+                .cancellation(session.llmCancellation())
+                .build();
     }
 
     /**
@@ -0,0 +1,378 @@
+package com.wspiernik.infrastructure.lifecycle;
+
+import com.wspiernik.domain.conversation.Conversation;
+import com.wspiernik.domain.conversation.ConversationMessage;
+import com.wspiernik.domain.conversation.ConversationMessageRepository;
+import com.wspiernik.domain.conversation.ConversationRepository;
+import com.wspiernik.domain.facts.Fact;
+import com.wspiernik.domain.facts.FactRepository;
+import com.wspiernik.infrastructure.llm.dto.LlmMessage;
+import com.wspiernik.infrastructure.persistence.entity.CrisisScenario;
+import com.wspiernik.infrastructure.persistence.repository.CrisisScenarioRepository;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * Fills the facts, conversations (with their conversation_messages) and crisis_scenarios tables with synthetic Polish-language data on startup,
+ * so benchmark and load runs can use a multiple of real data volumes. Off unless
+ * {@code wspiernik.synthetic-data.enabled}. Tables are only topped up to the configured size, so a restart
+ * against the same database adds nothing. Use a separate database file: the synthetic scenarios take
+ * part in scenario matching like real ones.
+ */
+@ApplicationScoped
+public class SyntheticDataGenerator {
+
+    private static final Logger LOG = Logger.getLogger(SyntheticDataGenerator.class);
+
+    private static final List<String> WARDS = List.of(
+            "Pacjentka", "Podopieczny", "Mama", "Tata", "Babcia", "Dziadek", "Teściowa", "Ciocia");
+    private static final List<String> CONDITIONS = List.of(
+            "chorobę Alzheimera", "chorobę Parkinsona", "cukrzycę typu 2", "nadciśnienie", "niewydolność serca",
+            "otępienie naczyniowe", "osteoporozę", "POChP", "depresję", "zwyrodnienie stawów");
+    private static final List<String> DURATIONS = List.of(
+            "kilku miesięcy", "roku", "dwóch lat", "trzech lat", "pięciu lat", "ponad dziesięciu lat");
+    private static final List<String> MEDICATIONS = List.of(
+            "donepezil", "memantynę", "metforminę", "ramipryl", "bisoprolol", "lewodopę", "kwetiapinę",
+            "sertralinę", "witaminę D", "furosemid");
+    private static final List<String> TIMES = List.of(
+            "rano", "wieczorem", "rano i wieczorem", "po obiedzie", "przed snem", "trzy razy dziennie");
+    private static final List<String> ACTIVITIES = List.of(
+            "ubieraniu się", "myciu", "jedzeniu", "chodzeniu po schodach", "wstawaniu z łóżka",
+            "korzystaniu z toalety", "robieniu zakupów", "przyjmowaniu leków");
+    private static final List<String> BEHAVIOURS = List.of(
+            "jest niespokojna wieczorami", "budzi się w nocy i chodzi po mieszkaniu", "szuka zmarłego męża",
+            "odmawia jedzenia", "krzyczy podczas kąpieli", "chowa rzeczy i oskarża o kradzież",
+            "wychodzi z domu bez powiedzenia", "powtarza te same pytania");
+    private static final List<String> PREFERENCES = List.of(
+            "muzyka z lat sześćdziesiątych", "spacer po parku", "oglądanie starych zdjęć", "rozmowa o ogrodzie",
+            "ciepła herbata z miodem", "modlitwa różańcowa", "układanie puzzli", "obecność kota");
+    private static final List<String> CAREGIVER_SITUATIONS = List.of(
+            "pracuje zawodowo na pełen etat", "ma dwoje małych dzieci", "sama choruje na kręgosłup",
+            "nie śpi dobrze od kilku miesięcy", "przeszła na wcześniejszą emeryturę", "dojeżdża 40 km do podopiecznego");
+    private static final List<String> SUPPORT = List.of(
+            "Brat pomaga w weekendy", "Pielęgniarka środowiskowa przychodzi raz w tygodniu",
+            "Sąsiadka zagląda codziennie w południe", "Opiekun nie ma nikogo do pomocy",
+            "Córka przyjeżdża raz w miesiącu", "Podopieczny chodzi dwa razy w tygodniu do dziennego domu opieki");
+    private static final List<String> LIVING = List.of(
+            "Opiekun mieszka z podopiecznym", "Podopieczna mieszka sama na trzecim piętrze bez windy",
+            "Podopieczny mieszka w domu z ogrodem na wsi", "Rodzina mieszka w dwupokojowym mieszkaniu",
+            "Podopieczna przeprowadziła się do córki pół roku temu");
+    private static final List<String> RELATIONS = List.of(
+            "Opiekun jest synem podopiecznego", "Opiekunka jest córką pacjentki", "Opiekunka jest żoną pacjenta",
+            "Opiekun jest wnukiem podopiecznej", "Opiekunka jest synową pacjentki");
+
+    private static final List<String> CAREGIVER_LINES = List.of(
+            "Mama znowu nie spała w nocy i chodziła po mieszkaniu.",
+            "Nie wiem już, jak jej tłumaczyć, że musi brać leki.",
+            "Dzisiaj tata przewrócił się w łazience, ale chyba nic mu nie jest.",
+            "Jestem bardzo zmęczona, brat obiecał pomóc, ale nie przyjechał.",
+            "Od wczoraj babcia nie chce jeść i prawie nie pije.",
+            "Wieczorem dziadek zaczął krzyczeć, że ktoś jest w domu.",
+            "Lekarz zmienił dawkę leku i od tego czasu jest senna.",
+            "Czuję się winna, że czasem tracę cierpliwość.",
+            "Nie poznała mnie dzisiaj rano, pytała, kim jestem.",
+            "Udało nam się wyjść na krótki spacer, była spokojniejsza.",
+            "Boję się zostawić go samego nawet na godzinę.",
+            "Skarży się na ból w kolanie przy wstawaniu.");
+    private static final List<String> ASSISTANT_LINES = List.of(
+            "Rozumiem, że to było dla Ciebie trudne.",
+            "Czy zauważyłaś, o jakiej porze niepokój jest największy?",
+            "To częsty problem przy tej chorobie i nie jest to Twoja wina.",
+            "Czy lekarz proponował leki w innej postaci, na przykład w syropie?",
+            "Dobrze, że nic się nie stało. Czy w łazience są uchwyty i mata antypoślizgowa?",
+            "Masz prawo czuć zmęczenie. Czy ktoś mógłby Cię zmienić choć na kilka godzin?",
+            "Warto zapisywać, ile podopieczny pije w ciągu dnia.",
+            "Spokojny ton głosu i proste zdania często pomagają w takiej sytuacji.",
+            "Jeśli objawy się nasilą, skontaktuj się z lekarzem rodzinnym.",
+            "Jak Ty się dzisiaj czujesz?",
+            "Stała pora posiłków i snu może zmniejszyć niepokój.",
+            "Czy ból pojawił się nagle, czy narasta od kilku dni?");
+
+    private static final List<String> SCENARIO_NAMES = List.of(
+            "Zakrztuszenie", "Omdlenie", "Drgawki", "Zaginięcie", "Agresja", "Wysoka gorączka", "Odwodnienie",
+            "Poparzenie", "Hipoglikemia", "Duszność", "Krwawienie", "Silny ból brzucha");
+    private static final List<String> TRIGGER_KEYWORDS = List.of(
+            "zakrztusił", "zakrztusiła", "nie może przełknąć", "zemdlał", "zemdlała", "stracił przytomność",
+            "drgawki", "trzęsie się", "zgubił się", "nie wrócił do domu", "wyszła z domu", "bije", "krzyczy",
+            "rzuca przedmiotami", "gorączka", "jest rozpalony", "nie pije", "sucha skóra", "poparzył się",
+            "oparzenie", "cukier spadł", "poci się", "nie może złapać tchu", "sinieje", "krwawi", "krew z nosa",
+            "boli brzuch", "wymiotuje");
+    private static final List<String> SCENARIO_QUESTIONS = List.of(
+            "Czy podopieczny jest przytomny?", "Czy oddycha normalnie?", "Od kiedy trwają objawy?",
+            "Czy podopieczny odpowiada na pytania?", "Czy przyjmuje jakieś nowe leki?",
+            "Czy coś podobnego zdarzyło się wcześniej?", "Jaka jest temperatura ciała?",
+            "Czy podopieczny może wstać o własnych siłach?", "Czy widać krwawienie lub obrzęk?",
+            "Czy w pobliżu jest ktoś, kto może pomóc?");
+
+    @Inject
+    FactRepository factRepository;
+
+    @Inject
+    ConversationRepository conversationRepository;
+
+    @Inject
+    ConversationMessageRepository messageRepository;
+
+    @Inject
+    CrisisScenarioRepository scenarioRepository;
+
+    @ConfigProperty(name = "wspiernik.synthetic-data.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "wspiernik.synthetic-data.scale", defaultValue = "1")
+    int scale;
+
+    @ConfigProperty(name = "wspiernik.synthetic-data.facts", defaultValue = "2000")
+    int factsPerScale;
+
+    @ConfigProperty(name = "wspiernik.synthetic-data.conversations", defaultValue = "100")
+    int conversationsPerScale;
+
+    @ConfigProperty(name = "wspiernik.synthetic-data.scenarios", defaultValue = "3")
+    int scenariosPerScale;
+
+    @ConfigProperty(name = "wspiernik.synthetic-data.transcript-exchanges", defaultValue = "8")
+    int transcriptExchanges;
+
+    @ConfigProperty(name = "wspiernik.synthetic-data.tag-weights",
+            defaultValue = "medical_condition=4,daily_functioning=3,behavioral_issues=3,routines_and_preferences=2,"
+                    + "caregiver_situation=2,support_network=1,living_situation=1,relationship_to_patient=1")
+    String tagWeights;
+
+    @ConfigProperty(name = "wspiernik.synthetic-data.severity-rate", defaultValue = "0.3")
+    double severityRate;
+
+    @ConfigProperty(name = "wspiernik.synthetic-data.seed", defaultValue = "42")
+    long seed;
+
+    @ConfigProperty(name = "wspiernik.synthetic-data.batch-size", defaultValue = "2000")
+    int batchSize;
+
+    private Random random;
+    private Map<String, Integer> tags;
+    private int totalTagWeight;
+    private long conversationIds;
+
+    void onStart(@Observes StartupEvent ev) {
+        if (!enabled) {
+            return;
+        }
+        random = new Random(seed);
+        tags = parseWeights(tagWeights);
+        totalTagWeight = tags.values().stream().mapToInt(Integer::intValue).sum();
+
+        LOG.infof("SyntheticDataGenerator: Filling the database to %dx (%d facts, %d conversations, %d scenarios)",
+                scale, (long) factsPerScale * scale, (long) conversationsPerScale * scale, (long) scenariosPerScale * scale);
+        fill("crisis_scenarios", scenarioRepository, (long) scenariosPerScale * scale, this::scenario);
+        fill("conversations", conversationRepository, (long) conversationsPerScale * scale, this::conversation, this::transcript);
+        long conversations = QuarkusTransaction.requiringNew().call(conversationRepository::count);
+        conversationIds = Math.max(1, conversations);
+        fill("facts", factRepository, (long) factsPerScale * scale, this::fact);
+    }
+
+    private <T> void fill(String table, PanacheRepository<T> repository, long target, LongFunction<T> create) {
+        fill(table, repository, target, create, row -> {
+        });
+    }
+
+    /**
+     * Insert rows until the table holds the target count, one transaction per batch.
+     *
+     * @param persisted Called with each row once persisted, to add its dependent rows
+     */
+    private <T> void fill(String table, PanacheRepository<T> repository, long target, LongFunction<T> create,
+                          Consumer<T> persisted) {
+        long existing = QuarkusTransaction.requiringNew().call(repository::count);
+        long missing = target - existing;
+        if (missing <= 0) {
+            LOG.infof("SyntheticDataGenerator: %s already has %d rows, skipping", table, existing);
+            return;
+        }
+
+        long start = System.nanoTime();
+        long created = 0;
+        while (created < missing) {
+            int batch = (int) Math.min(batchSize, missing - created);
+            long first = existing + created;
+            QuarkusTransaction.requiringNew().run(() -> {
+                for (int i = 0; i < batch; i++) {
+                    T row = create.apply(first + i);
+                    repository.persist(row);
+                    persisted.accept(row);
+                }
+                repository.flush();
+                repository.getEntityManager().clear();
+            });
+            created += batch;
+            LOG.debugf("SyntheticDataGenerator: %s %d/%d", table, created, missing);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        LOG.infof("SyntheticDataGenerator: Created %d %s in %.1f s (%.0f rows/s)", missing, table, seconds, missing / seconds);
+    }
+
+    // =========================================================================
+    // Rows
+    // =========================================================================
+
+    private Fact fact(long number) {
+        String tag = pickTag();
+        Fact fact = new Fact();
+        fact.conversationId = 1 + (long) (random.nextDouble() * conversationIds);
+        fact.tags = switch (tag) {
+            case "caregiver_situation", "support_network", "relationship_to_patient" -> List.of(tag, "caregiver");
+            case "living_situation" -> List.of(tag);
+            default -> List.of(tag, "ward");
+        };
+        fact.factValue = factValue(tag);
+        fact.severity = random.nextDouble() < severityRate ? 1 + random.nextInt(10) : null;
+        fact.extractedAt = pastTime();
+        fact.createdAt = fact.extractedAt;
+        return fact;
+    }
+
+    private String factValue(String tag) {
+        String ward = pick(WARDS);
+        return switch (tag) {
+            case "medical_condition" -> random.nextBoolean()
+                    ? ward + " choruje na " + pick(CONDITIONS) + " od " + pick(DURATIONS)
+                    : ward + " przyjmuje " + pick(MEDICATIONS) + " " + pick(TIMES);
+            case "daily_functioning" -> ward + " potrzebuje pomocy przy " + pick(ACTIVITIES);
+            case "behavioral_issues" -> ward + " " + pick(BEHAVIOURS);
+            case "routines_and_preferences" -> "Podopiecznego uspokaja " + pick(PREFERENCES);
+            case "caregiver_situation" -> "Opiekunka " + pick(CAREGIVER_SITUATIONS);
+            case "support_network" -> pick(SUPPORT);
+            case "living_situation" -> pick(LIVING);
+            case "relationship_to_patient" -> pick(RELATIONS);
+            default -> ward + " choruje na " + pick(CONDITIONS);
+        };
+    }
+
+    private Conversation conversation(long number) {
+        int roll = random.nextInt(10);
+        String type = roll < 5 ? "support" : roll < 7 ? "survey" : pick(List.of("fall", "confusion", "chest_pain", ""));
+
+        Conversation conversation = new Conversation();
+        conversation.conversationType = type.isEmpty() ? null : type;
+        conversation.startedAt = pastTime();
+        return conversation;
+    }
+
+    /**
+     * The conversation's messages, and its end time from their number.
+     */
+    private void transcript(Conversation conversation) {
+        // Survey conversations follow the fixed survey steps; the others vary around the configured length
+        int exchanges = "survey".equals(conversation.conversationType) ? 6
+                : Math.max(1, transcriptExchanges / 2 + random.nextInt(Math.max(1, transcriptExchanges + 1)));
+
+        for (int i = 0; i < exchanges; i++) {
+            LocalDateTime at = conversation.startedAt.plusMinutes(2L * i);
+            messageRepository.persist(ConversationMessage.of(conversation.id, 2 * i,
+                    LlmMessage.user(sentences(CAREGIVER_LINES)), at));
+            messageRepository.persist(ConversationMessage.of(conversation.id, 2 * i + 1,
+                    LlmMessage.assistant(sentences(ASSISTANT_LINES)), at.plusMinutes(1)));
+        }
+        conversation.endedAt = conversation.startedAt.plusMinutes(2L + exchanges * 2L);
+    }
+
+    /**
+     * @param number Rows already in the table before this one, which keeps the key unique when topping up
+     */
+    private CrisisScenario scenario(long number) {
+        CrisisScenario scenario = new CrisisScenario();
+        scenario.scenarioKey = "synthetic_" + number;
+        scenario.name = pick(SCENARIO_NAMES);
+        scenario.triggerKeywords = jsonArray(distinct(TRIGGER_KEYWORDS, 4 + random.nextInt(9)));
+        scenario.questionsSequence = jsonArray(distinct(SCENARIO_QUESTIONS, 3 + random.nextInt(5)));
+        scenario.systemPrompt = """
+                Ty jesteś asystentem wspomagającym opiekuna w sytuacji: %s.
+
+                Profil podopiecznego: {profile_json}
+                Znane fakty: {facts_json}
+
+                Zadawaj jedno pytanie na raz, bądź spokojny i konkretny.
+                Po zakończeniu zbierania informacji, powiedz "INTERVENTION_COMPLETE" i przedstaw podsumowanie.
+                """.formatted(scenario.name.toLowerCase()).trim();
+        scenario.createdAt = LocalDateTime.now();
+        return scenario;
+    }
+
+    // =========================================================================
+    // Helpers
+    // =========================================================================
+
+    /**
+     * One to three sentences from the pool.
+     */
+    private String sentences(List<String> pool) {
+        int count = 1 + random.nextInt(3);
+        StringBuilder sb = new StringBuilder(pick(pool));
+        for (int i = 1; i < count; i++) {
+            sb.append(' ').append(pick(pool));
+        }
+        return sb.toString();
+    }
+
+    private List<String> distinct(List<String> pool, int count) {
+        List<String> shuffled = new ArrayList<>(pool);
+        Collections.shuffle(shuffled, random);
+        return shuffled.subList(0, Math.min(count, shuffled.size()));
+    }
+
+    private String jsonArray(List<String> values) {
+        return "[\"" + String.join("\", \"", values) + "\"]";
+    }
+
+    private String pickTag() {
+        int roll = random.nextInt(totalTagWeight);
+        for (Map.Entry<String, Integer> entry : tags.entrySet()) {
+            roll -= entry.getValue();
+            if (roll < 0) {
+                return entry.getKey();
+            }
+        }
+        return tags.keySet().iterator().next();
+    }
+
+    private <T> T pick(List<T> values) {
+        return values.get(random.nextInt(values.size()));
+    }
+
+    /**
+     * A moment within the past year.
+     */
+    private LocalDateTime pastTime() {
+        return LocalDateTime.now().minusMinutes(random.nextInt(365 * 24 * 60));
+    }
+
+    private static Map<String, Integer> parseWeights(String weights) {
+        Map<String, Integer> parsed = new LinkedHashMap<>();
+        for (String entry : weights.split(",")) {
+            String[] parts = entry.trim().split("=");
+            int weight = parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1;
+            if (weight > 0) {
+                parsed.put(parts[0].trim(), weight);
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("wspiernik.synthetic-data.tag-weights has no positive weight: " + weights);
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,122 @@
+package com.wspiernik.infrastructure.lifecycle;
+
+import com.wspiernik.domain.conversation.ConversationMessage;
+import com.wspiernik.domain.conversation.ConversationMessageRepository;
+import com.wspiernik.domain.conversation.ConversationRepository;
+import com.wspiernik.infrastructure.llm.dto.LlmMessage;
+import com.wspiernik.infrastructure.persistence.DatabaseWriter;
+import com.wspiernik.infrastructure.persistence.JsonToLlmMessageListConverter;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves transcripts stored as a JSON blob in {@code conversations.raw_transcript} into
+ * {@code conversation_messages} rows, a few conversations per write through the {@link DatabaseWriter},
+ * so live writes keep their turn. Migrated blobs are cleared; once none are left the job does nothing.
+ * A blob that fails to parse is logged and left in place.
+ */
+@ApplicationScoped
+public class TranscriptMigration {
+
+    private static final Logger LOG = Logger.getLogger(TranscriptMigration.class);
+    private static final JsonToLlmMessageListConverter CONVERTER = new JsonToLlmMessageListConverter();
+
+    @Inject
+    ConversationRepository conversationRepository;
+
+    @Inject
+    ConversationMessageRepository messageRepository;
+
+    @Inject
+    DatabaseWriter databaseWriter;
+
+    @ConfigProperty(name = "wspiernik.transcript-migration.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "wspiernik.transcript-migration.batch-size", defaultValue = "50")
+    int batchSize;
+
+    private volatile boolean done;
+    private long lastId;
+    private long migrated;
+
+    @Scheduled(every = "${wspiernik.transcript-migration.interval:5s}", delayed = "10s",
+            concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void migrateBatch() {
+        if (!enabled || done) {
+            return;
+        }
+        Batch batch = databaseWriter.call(this::migrateNext).join();
+        if (batch == null) {
+            done = true;
+            if (migrated > 0) {
+                LOG.infof("TranscriptMigration: Moved %d transcripts to conversation_messages", migrated);
+            }
+            return;
+        }
+        lastId = batch.lastId();
+        migrated += batch.migrated();
+        LOG.debugf("TranscriptMigration: Migrated up to conversation %d", lastId);
+    }
+
+    /**
+     * Migrate the next batch of conversations after {@code lastId}.
+     *
+     * @return The batch, null when none are left
+     */
+    private Batch migrateNext() {
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = conversationRepository.getEntityManager().createNativeQuery("""
+                        SELECT id, raw_transcript FROM conversations
+                        WHERE id > ?1 AND raw_transcript IS NOT NULL AND raw_transcript <> '[]'
+                        ORDER BY id LIMIT ?2""")
+                .setParameter(1, lastId)
+                .setParameter(2, batchSize)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return null;
+        }
+
+        List<Long> ids = rows.stream().map(row -> ((Number) row[0]).longValue()).toList();
+        Map<Long, LocalDateTime> startedAt = new HashMap<>();
+        conversationRepository.getEntityManager()
+                .createQuery("SELECT c.id, c.startedAt FROM Conversation c WHERE c.id IN ?1", Object[].class)
+                .setParameter(1, ids)
+                .getResultList()
+                .forEach(row -> startedAt.put((Long) row[0], (LocalDateTime) row[1]));
+
+        int count = 0;
+        for (Object[] row : rows) {
+            long id = ((Number) row[0]).longValue();
+            List<LlmMessage> transcript;
+            try {
+                transcript = CONVERTER.convertToEntityAttribute((String) row[1]);
+            } catch (IllegalArgumentException e) {
+                LOG.warnf("TranscriptMigration: Skipping conversation %d, transcript is not valid JSON: %s", id, e.getMessage());
+                continue;
+            }
+            // Messages appended since the upgrade stay after the legacy ones
+            int first = messageRepository.countByConversationId(id) > 0 ? -transcript.size() : 0;
+            for (int i = 0; i < transcript.size(); i++) {
+                messageRepository.persist(ConversationMessage.of(id, first + i, transcript.get(i), startedAt.get(id)));
+            }
+            conversationRepository.getEntityManager()
+                    .createNativeQuery("UPDATE conversations SET raw_transcript = NULL WHERE id = ?1")
+                    .setParameter(1, id)
+                    .executeUpdate();
+            count++;
+        }
+        return new Batch(ids.get(ids.size() - 1), count);
+    }
+
+    private record Batch(long lastId, int migrated) {
+    }
+}
@@ -1,8 +1,13 @@
 package com.wspiernik.infrastructure.llm;
 
+import com.wspiernik.infrastructure.llm.dto.EmbeddingRequest;
+import com.wspiernik.infrastructure.llm.dto.EmbeddingResponse;
 import com.wspiernik.infrastructure.llm.dto.LlmRequest;
 import com.wspiernik.infrastructure.llm.dto.LlmResponse;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
 import jakarta.ws.rs.Consumes;
+import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
@@ -19,6 +24,8 @@ public interface BielnikApi {
 
     /**
      * Send a chat completion request to the LLM.
+     * Non-blocking: the HTTP exchange runs on the event loop and
+     * cancelling the subscription aborts the request.
      *
      * @param request The chat completion request
      * @return The LLM response with generated content
@@ -27,5 +34,41 @@ public interface BielnikApi {
     @Path("/chat/completions")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    LlmResponse chatCompletion(LlmRequest request);
+    Uni<LlmResponse> chatCompletion(LlmRequest request);
+
+    /**
+     * Send a streaming chat completion request ({@code stream: true}).
+     * Each item is the raw {@code data} field of one Server-Sent Event,
+     * i.e. a JSON chunk or the terminating {@code [DONE]} marker.
+     *
+     * @param request The chat completion request with stream enabled
+     * @return Stream of SSE data payloads
+     */
+    @POST
+    @Path("/chat/completions")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.SERVER_SENT_EVENTS)
+    Multi<String> chatCompletionStream(LlmRequest request);
+
+    /**
+     * List the models served by the endpoint. Used as a cheap liveness probe.
+     *
+     * @return Raw JSON model list
+     */
+    @GET
+    @Path("/models")
+    @Produces(MediaType.APPLICATION_JSON)
+    Uni<String> models();
+
+    /**
+     * Embed a text with the endpoint's embedding model.
+     *
+     * @param request The embedding request
+     * @return The embedding vector(s)
+     */
+    @POST
+    @Path("/embeddings")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    Uni<EmbeddingResponse> embeddings(EmbeddingRequest request);
 }
@@ -1,17 +1,21 @@
 package com.wspiernik.infrastructure.llm;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wspiernik.infrastructure.llm.dto.LlmMessage;
 import com.wspiernik.infrastructure.llm.dto.LlmRequest;
 import com.wspiernik.infrastructure.llm.dto.LlmResponse;
+import com.wspiernik.infrastructure.llm.dto.LlmStreamChunk;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
-import org.eclipse.microprofile.rest.client.inject.RestClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * Implementation of LlmClient using Bielnik LLM via REST API.
@@ -22,11 +26,30 @@ public class BielnikClient implements LlmClient {
 
     private static final Logger LOG = LoggerFactory.getLogger(BielnikClient.class);
     private static final String MODULE = "LLM";
-    private static final String ERROR_MESSAGE = "Przepraszam, wystąpił problem z generowaniem odpowiedzi. Proszę spróbować ponownie.";
 
     @Inject
-    @RestClient
-    BielnikApi bielnikApi;
+    LlmEndpointPool endpointPool;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @Inject
+    LlmScheduler scheduler;
+
+    @Inject
+    LlmContextBudget contextBudget;
+
+    @Inject
+    LlmResponseCache responseCache;
+
+    @Inject
+    LlmCircuitBreaker circuitBreaker;
+
+    @Inject
+    LlmModelRouter modelRouter;
+
+    @Inject
+    LlmTelemetry telemetry;
 
     @ConfigProperty(name = "wspiernik.llm.model", defaultValue = "bielik")
     String model;
@@ -37,61 +60,242 @@ public class BielnikClient implements LlmClient {
     @ConfigProperty(name = "wspiernik.llm.max-tokens", defaultValue = "2048")
     int maxTokens;
 
+    @ConfigProperty(name = "wspiernik.llm.cache-prompt", defaultValue = "true")
+    boolean cachePrompt;
+
+    @ConfigProperty(name = "wspiernik.llm.prewarm", defaultValue = "true")
+    boolean prewarm;
+
     @Override
-    public String generate(String systemPrompt, String userMessage) {
-        List<LlmMessage> messages = new ArrayList<>();
-        messages.add(LlmMessage.system(systemPrompt));
-        messages.add(LlmMessage.user(userMessage));
+    public Uni<String> generateAsync(List<LlmMessage> messages, LlmCallOptions options) {
+        LOG.debug("Sending request to LLM with {} messages, priority {}", messages.size(), options.priority());
 
-        return generateWithHistory(messages);
+        LlmContextBudget.Fitted prompt = contextBudget.fit(messages, maxTokens(options));
+        return responseCache.get(prompt.messages(), prompt.maxTokens(), options, () -> Uni.createFrom().deferred(() -> {
+                    LlmTelemetry.Call metrics = telemetry.start(options, prompt.promptTokens());
+                    return modelRouter.call(options.task(),
+                                    taskModel -> taskModelCall(taskModel, options, metrics, route ->
+                                            complete(route, prompt, options, taskModel.model(), metrics)),
+                                    () -> circuitBreaker.guard(permit -> scheduler.admit(options.priority(), () -> {
+                                        metrics.admitted();
+                                        return permit.run(() -> call(options, route ->
+                                                complete(route, prompt, options, model, metrics)));
+                                    })))
+                            .map(this::extractContent)
+                            .map(content -> cutAfterMarker(content, options.endMarker()))
+                            .invoke(metrics::succeeded)
+                            .onFailure().invoke(metrics::failed)
+                            .onCancellation().invoke(metrics::cancelled);
+                }))
+                .onFailure(e -> !(e instanceof LlmException))
+                .transform(e -> new LlmException("Error calling LLM API: " + e.getMessage(), e))
+                .onFailure().invoke(e -> LOG.error(e.getMessage()))
+                .plug(options::bound)
+                // Hand the result back on a worker thread so callers can persist without offloading
+                .emitOn(Infrastructure.getDefaultWorkerPool());
     }
 
     @Override
-    public String generateWithContext(String systemPrompt, String userMessage, List<LlmMessage> history) {
-        List<LlmMessage> messages = new ArrayList<>();
-        messages.add(LlmMessage.system(systemPrompt));
+    public Uni<String> generateStreamingAsync(List<LlmMessage> messages, LlmCallOptions options,
+                                              Function<String, Uni<Void>> onDelta) {
+        return LlmClient.super.generateStreamingAsync(messages, options, onDelta)
+                .plug(options::bound)
+                .emitOn(Infrastructure.getDefaultWorkerPool());
+    }
 
-        if (history != null && !history.isEmpty()) {
-            messages.addAll(history);
+    @Override
+    public Multi<String> streamAsync(List<LlmMessage> messages, LlmCallOptions options) {
+        LOG.debug("Sending streaming request to LLM with {} messages, priority {}", messages.size(), options.priority());
+
+        LlmContextBudget.Fitted prompt = contextBudget.fit(messages, maxTokens(options));
+        return Multi.createFrom().deferred(() -> {
+            LlmTelemetry.Call metrics = telemetry.start(options, prompt.promptTokens());
+            return modelRouter.stream(options.task(),
+                            taskModel -> taskModelStream(taskModel, options, metrics, route ->
+                                    open(route, prompt, options, taskModel.model(), metrics)),
+                            () -> circuitBreaker.guardStream(permit -> scheduler.admitStream(options.priority(), () -> {
+                                metrics.admitted();
+                                return permit.runStream(() -> endpointPool.stream(options.affinityKey(), route ->
+                                        open(route, prompt, options, model, metrics)));
+                            })))
+                    .map(data -> parseDelta(data, metrics))
+                    .filter(delta -> !delta.isEmpty())
+                    .plug(deltas -> options.endMarker() != null ? streamUntilMarker(deltas, options.endMarker()) : deltas)
+                    .invoke(metrics::received)
+                    .onFailure(e -> !(e instanceof LlmException))
+                    .transform(e -> new LlmException("Error streaming from LLM API: " + e.getMessage(), e))
+                    .onFailure().invoke(e -> LOG.error(e.getMessage()))
+                    .onFailure().invoke(metrics::failed)
+                    .onCompletion().invoke(metrics::succeeded)
+                    .onCancellation().invoke(metrics::cancelled);
+        }).emitOn(Infrastructure.getDefaultWorkerPool());
+    }
+
+    @Override
+    public Uni<Void> prewarm(List<LlmMessage> messages, LlmCallOptions options) {
+        if (!prewarm) {
+            return Uni.createFrom().voidItem();
         }
+        LOG.debug("Pre-warming LLM prompt cache with {} messages", messages.size());
 
-        messages.add(LlmMessage.user(userMessage));
+        // Trimmed like the real call so the cached prefix matches; a single token is enough
+        // to make the server evaluate and cache the prompt
+        List<LlmMessage> prompt = contextBudget.fit(messages, maxTokens(options)).messages();
+        return scheduler.admit(LlmPriority.PREWARM, () ->
+                        endpointPool.call(options.affinityKey(), route ->
+                                route.api().chatCompletion(buildRequest(prompt, false, route, 1, options, model))))
+                .plug(options::bound)
+                .onFailure().invoke(e -> LOG.debug("LLM pre-warm failed: {}", e.getMessage()))
+                .onFailure().recoverWithNull()
+                .replaceWithVoid();
+    }
 
-        return generateWithHistory(messages);
+    /**
+     * Interactive calls are hedged; background work never spends a second slot.
+     */
+    private <T> Uni<T> call(LlmCallOptions options, Function<LlmEndpointPool.Route, Uni<T>> request) {
+        return options.priority().isBackground()
+                ? endpointPool.call(options.affinityKey(), request)
+                : endpointPool.hedgedCall(options.affinityKey(), request);
     }
 
-    @Override
-    public String generateWithHistory(List<LlmMessage> messages) {
-        LOG.debug("Sending request to LLM with {} messages", messages.size());
+    /**
+     * Call on a task model: its own server when it has one, otherwise a pooled endpoint, without
+     * hedging or affinity (the session's slot caches the default model's prompt). The circuit
+     * breaker only tracks the default model; a failure here falls back to it instead.
+     */
+    private <T> Uni<T> taskModelCall(LlmModelRouter.TaskModel taskModel, LlmCallOptions options,
+                                     LlmTelemetry.Call metrics, Function<LlmEndpointPool.Route, Uni<T>> request) {
+        if (taskModel.endpoint() != null) {
+            return Uni.createFrom().deferred(() -> request.apply(new LlmEndpointPool.Route(taskModel.endpoint(), null)));
+        }
+        return scheduler.admit(options.priority(), () -> {
+            metrics.admitted();
+            return endpointPool.call(null, request);
+        });
+    }
 
-        try {
-            LlmRequest request = LlmRequest.builder()
-                    .model(model)
-                    .messages(messages)
-                    .temperature(temperature)
-                    .maxTokens(maxTokens)
-                    .build();
+    /**
+     * Streaming variant of {@link #taskModelCall}.
+     */
+    private <T> Multi<T> taskModelStream(LlmModelRouter.TaskModel taskModel, LlmCallOptions options,
+                                         LlmTelemetry.Call metrics, Function<LlmEndpointPool.Route, Multi<T>> request) {
+        if (taskModel.endpoint() != null) {
+            return Multi.createFrom().deferred(() -> request.apply(new LlmEndpointPool.Route(taskModel.endpoint(), null)));
+        }
+        return scheduler.admitStream(options.priority(), () -> {
+            metrics.admitted();
+            return endpointPool.stream(null, request);
+        });
+    }
+
+    /**
+     * Send one unstreamed request to the route.
+     */
+    private Uni<LlmResponse> complete(LlmEndpointPool.Route route, LlmContextBudget.Fitted prompt, LlmCallOptions options,
+                                      String model, LlmTelemetry.Call metrics) {
+        metrics.model(model);
+        return route.api().chatCompletion(buildRequest(prompt.messages(), false, route, prompt.maxTokens(), options, model))
+                .invoke(metrics::answered);
+    }
+
+    /**
+     * Open one streamed request to the route.
+     */
+    private Multi<String> open(LlmEndpointPool.Route route, LlmContextBudget.Fitted prompt, LlmCallOptions options,
+                               String model, LlmTelemetry.Call metrics) {
+        metrics.model(model);
+        return route.api().chatCompletionStream(buildRequest(prompt.messages(), true, route, prompt.maxTokens(), options, model));
+    }
+
+    /**
+     * The call site's answer cap, or the configured default.
+     */
+    private int maxTokens(LlmCallOptions options) {
+        return options.maxTokens() != null ? options.maxTokens() : maxTokens;
+    }
 
-            LlmResponse response = bielnikApi.chatCompletion(request);
+    private LlmRequest buildRequest(List<LlmMessage> messages, boolean stream, LlmEndpointPool.Route route,
+                                    int maxTokens, LlmCallOptions options, String model) {
+        return LlmRequest.builder()
+                .model(model)
+                .messages(messages)
+                .temperature(options.temperature() != null ? options.temperature() : temperature)
+                .maxTokens(maxTokens)
+                .stop(options.stop())
+                .stream(stream)
+                .cachePrompt(cachePrompt)
+                .slotId(route.slot())
+                .build();
+    }
 
-            if (response == null) {
-                LOG.error("LLM returned null response");
-                return ERROR_MESSAGE;
-            }
+    /**
+     * Pass deltas on until the end marker has been generated, then complete. Completing cancels
+     * the upstream subscription, which aborts the HTTP stream so the server stops generating.
+     * The marker itself is passed on; anything generated after it in the same delta is dropped.
+     */
+    static Multi<String> streamUntilMarker(Multi<String> deltas, String marker) {
+        return Multi.createFrom().deferred(() -> {
+            StringBuilder generated = new StringBuilder();
+            return deltas
+                    .onItem().transformToIterable(delta -> {
+                        // The marker may straddle two deltas
+                        int from = Math.max(0, generated.length() - marker.length() + 1);
+                        generated.append(delta);
+                        int pos = generated.indexOf(marker, from);
+                        if (pos < 0) {
+                            return List.of(delta);
+                        }
+                        int overshoot = generated.length() - (pos + marker.length());
+                        // Empty deltas were filtered out, so an empty one signals the end
+                        return List.of(delta.substring(0, delta.length() - overshoot), "");
+                    })
+                    .select().first(delta -> !delta.isEmpty());
+        });
+    }
 
-            String content = response.getContent();
+    /**
+     * Drop what was generated after the end marker, for responses that were not streamed.
+     */
+    static String cutAfterMarker(String content, String marker) {
+        int pos = marker != null ? content.indexOf(marker) : -1;
+        return pos < 0 ? content : content.substring(0, pos + marker.length());
+    }
 
-            if (content == null || content.isBlank()) {
-                LOG.error("LLM returned empty content");
-                return ERROR_MESSAGE;
-            }
+    /**
+     * Get the generated content or fail when the LLM returned nothing usable.
+     */
+    private String extractContent(LlmResponse response) {
+        if (response == null) {
+            throw new LlmException(LlmException.Reason.EMPTY_RESPONSE, "LLM returned null response");
+        }
 
-            LOG.debug("LLM response received: {} characters", content.length());
-            return content;
+        String content = response.getContent();
 
+        if (content == null || content.isBlank()) {
+            throw new LlmException(LlmException.Reason.EMPTY_RESPONSE, "LLM returned empty content");
+        }
+
+        LOG.debug("LLM response received: {} characters", content.length());
+        return content;
+    }
+
+    /**
+     * Parse a single SSE data payload into its content delta, or an empty string when it carries none.
+     * The usage report in the final chunk goes to the call's metrics.
+     */
+    private String parseDelta(String data, LlmTelemetry.Call metrics) {
+        if (data == null || data.isBlank() || LlmStreamChunk.DONE.equals(data.trim())) {
+            return "";
+        }
+        try {
+            LlmStreamChunk chunk = objectMapper.readValue(data, LlmStreamChunk.class);
+            metrics.usage(chunk.usage());
+            String delta = chunk.getDeltaContent();
+            return delta != null ? delta : "";
         } catch (Exception e) {
-            LOG.error("Error calling LLM API: %s", e.getMessage(), e);
-            return ERROR_MESSAGE;
+            LOG.warn("Skipping unparseable LLM stream chunk: {}", data);
+            return "";
         }
     }
 }
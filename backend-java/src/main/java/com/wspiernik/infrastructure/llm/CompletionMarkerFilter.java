@@ -0,0 +1,51 @@
+package com.wspiernik.infrastructure.llm;
+
+import io.smallrye.mutiny.Uni;
+
+import java.util.function.Function;
+
+/**
+ * Delta listener that hides a completion marker (e.g. SUPPORT_COMPLETE) from streamed output.
+ * Text that could be the beginning of the marker is held back until the next delta
+ * disambiguates it, so a marker split across chunks never reaches the client.
+ */
+public class CompletionMarkerFilter implements Function<String, Uni<Void>> {
+
+    private final String marker;
+    private final Function<String, Uni<Void>> downstream;
+    private final StringBuilder pending = new StringBuilder();
+
+    public CompletionMarkerFilter(String marker, Function<String, Uni<Void>> downstream) {
+        this.marker = marker;
+        this.downstream = downstream;
+    }
+
+    @Override
+    public Uni<Void> apply(String delta) {
+        pending.append(delta);
+
+        int markerPos;
+        while ((markerPos = pending.indexOf(marker)) >= 0) {
+            pending.delete(markerPos, markerPos + marker.length());
+        }
+
+        int keep = partialMarkerSuffixLength();
+        String ready = pending.substring(0, pending.length() - keep);
+        pending.delete(0, pending.length() - keep);
+
+        return ready.isEmpty() ? Uni.createFrom().voidItem() : downstream.apply(ready);
+    }
+
+    /**
+     * Length of the longest suffix of pending text that is a prefix of the marker.
+     */
+    private int partialMarkerSuffixLength() {
+        int max = Math.min(marker.length() - 1, pending.length());
+        for (int len = max; len > 0; len--) {
+            if (marker.startsWith(pending.substring(pending.length() - len))) {
+                return len;
+            }
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,195 @@
+package com.wspiernik.infrastructure.llm;
+
+import io.smallrye.mutiny.Uni;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Per-call settings passed alongside the messages to {@link LlmClient}.
+ *
+ * @param priority     Admission priority
+ * @param task         What the call is for; selects the model (see {@link LlmModelRouter})
+ * @param callSite     Module making the call (survey, support, ...), tags its metrics
+ * @param affinityKey  Calls sharing a key (e.g. one conversation) go to the same server and slot,
+ *                     so the server can reuse the cached prompt prefix; null for no affinity
+ * @param cacheable    Whether an identical earlier response may be reused (see {@link LlmResponseCache})
+ * @param deadline     When the caller stops waiting; the call, queueing included, fails after it. Null for none
+ * @param cancellation Signal that aborts the call when the session ends; null for none
+ * @param maxTokens    Cap on generated tokens; null for {@code wspiernik.llm.max-tokens}
+ * @param temperature  Sampling temperature; null for {@code wspiernik.llm.temperature}
+ * @param stop         Sequences that end generation; the server drops the matched one from the answer
+ * @param endMarker    Marker that ends the answer but stays in it, so the caller can still detect it;
+ *                     generation is cut as soon as it is produced. Null for none
+ */
+public record LlmCallOptions(
+        LlmPriority priority,
+        LlmTask task,
+        String callSite,
+        String affinityKey,
+        boolean cacheable,
+        Instant deadline,
+        LlmCancellation cancellation,
+        Integer maxTokens,
+        Double temperature,
+        List<String> stop,
+        String endMarker
+) {
+    public static final LlmCallOptions DEFAULT = builder().build();
+
+    /**
+     * Options with the given priority and defaults for everything else.
+     */
+    public static LlmCallOptions of(LlmPriority priority) {
+        return builder().priority(priority).build();
+    }
+
+    /**
+     * Copy of these options bound to the given affinity key.
+     */
+    public LlmCallOptions withAffinityKey(String affinityKey) {
+        return toBuilder().affinityKey(affinityKey).build();
+    }
+
+    /**
+     * Copy of these options that allows serving the call from the response cache.
+     */
+    public LlmCallOptions cached() {
+        return toBuilder().cacheable(true).build();
+    }
+
+    /**
+     * The call, failing once the deadline passes or the cancellation fires. Either way the
+     * subscription is cancelled, which dequeues the call or aborts its HTTP request.
+     */
+    public <T> Uni<T> bound(Uni<T> call) {
+        Uni<T> bounded = call;
+        if (deadline != null) {
+            bounded = Uni.createFrom().deferred(() -> {
+                Duration remaining = Duration.between(Instant.now(), deadline);
+                if (remaining.isNegative() || remaining.isZero()) {
+                    return Uni.createFrom().failure(new LlmException(LlmException.Reason.TIMEOUT,
+                            "LLM deadline passed before the call started"));
+                }
+                return call.ifNoItem().after(remaining)
+                        .failWith(() -> new LlmException(LlmException.Reason.TIMEOUT,
+                                "LLM deadline exceeded after " + remaining.toMillis() + " ms"));
+            });
+        }
+        if (cancellation != null) {
+            bounded = cancellation.guard(bounded);
+        }
+        return bounded;
+    }
+
+    /**
+     * Builder initialised with these options.
+     */
+    public Builder toBuilder() {
+        return builder()
+                .priority(priority)
+                .task(task)
+                .callSite(callSite)
+                .affinityKey(affinityKey)
+                .cacheable(cacheable)
+                .deadline(deadline)
+                .cancellation(cancellation)
+                .maxTokens(maxTokens)
+                .temperature(temperature)
+                .stop(stop)
+                .endMarker(endMarker);
+    }
+
+    /**
+     * Builder for creating LlmCallOptions instances.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private LlmPriority priority = LlmPriority.CONVERSATION;
+        private LlmTask task = LlmTask.DIALOGUE;
+        private String callSite = "other";
+        private String affinityKey;
+        private boolean cacheable;
+        private Instant deadline;
+        private LlmCancellation cancellation;
+        private Integer maxTokens;
+        private Double temperature;
+        private List<String> stop = List.of();
+        private String endMarker;
+
+        public Builder priority(LlmPriority priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        public Builder task(LlmTask task) {
+            this.task = task;
+            return this;
+        }
+
+        public Builder callSite(String callSite) {
+            this.callSite = callSite;
+            return this;
+        }
+
+        public Builder affinityKey(String affinityKey) {
+            this.affinityKey = affinityKey;
+            return this;
+        }
+
+        public Builder cacheable(boolean cacheable) {
+            this.cacheable = cacheable;
+            return this;
+        }
+
+        public Builder deadline(Instant deadline) {
+            this.deadline = deadline;
+            return this;
+        }
+
+        /**
+         * Deadline the given time from now.
+         */
+        public Builder timeout(Duration timeout) {
+            return deadline(Instant.now().plus(timeout));
+        }
+
+        public Builder cancellation(LlmCancellation cancellation) {
+            this.cancellation = cancellation;
+            return this;
+        }
+
+        public Builder maxTokens(Integer maxTokens) {
+            this.maxTokens = maxTokens;
+            return this;
+        }
+
+        public Builder temperature(Double temperature) {
+            this.temperature = temperature;
+            return this;
+        }
+
+        public Builder stop(List<String> stop) {
+            this.stop = stop != null ? List.copyOf(stop) : List.of();
+            return this;
+        }
+
+        public Builder stop(String... stop) {
+            return stop(List.of(stop));
+        }
+
+        public Builder endMarker(String endMarker) {
+            this.endMarker = endMarker;
+            return this;
+        }
+
+        public LlmCallOptions build() {
+            return new LlmCallOptions(priority, task, callSite, affinityKey, cacheable, deadline, cancellation,
+                    maxTokens, temperature, stop, endMarker);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.wspiernik.infrastructure.llm;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Cancellation signal shared by the LLM calls of one session.
+ * Cancelling it aborts the calls in flight - including the HTTP request, which frees the
+ * server slot for other users - and fails them with {@link LlmCancelledException}.
+ */
+public class LlmCancellation {
+
+    private final CompletableFuture<String> cancelled = new CompletableFuture<>();
+
+    /**
+     * Cancel every call guarded by this signal, now and in the future.
+     */
+    public void cancel(String reason) {
+        cancelled.complete(reason);
+    }
+
+    public boolean isCancelled() {
+        return cancelled.isDone();
+    }
+
+    /**
+     * The call, cancelled and failed with {@link LlmCancelledException} as soon as this signal fires.
+     */
+    public <T> Uni<T> guard(Uni<T> call) {
+        return Uni.createFrom().deferred(() -> {
+            if (isCancelled()) {
+                return Uni.createFrom().failure(new LlmCancelledException("LLM call cancelled: " + cancelled.join()));
+            }
+            // A copy per subscriber, so dropping the listener does not complete the shared future
+            CompletableFuture<String> whenCancelled = cancelled.copy();
+            return Uni.createFrom().<T>emitter(emitter -> {
+                Cancellable running = call.subscribe().with(emitter::complete, emitter::fail);
+                whenCancelled.thenAccept(reason -> {
+                    running.cancel();
+                    emitter.fail(new LlmCancelledException("LLM call cancelled: " + reason));
+                });
+                emitter.onTermination(() -> {
+                    whenCancelled.cancel(false);
+                    running.cancel();
+                });
+            });
+        });
+    }
+}
@@ -0,0 +1,14 @@
+package com.wspiernik.infrastructure.llm;
+
+/**
+ * Raised when an LLM call is abandoned because nobody is waiting for it any more
+ * (the connection closed or the session ended).
+ * Unlike other {@link LlmException}s there is no one to show a fallback to, so callers
+ * should let it propagate instead of recovering.
+ */
+public class LlmCancelledException extends LlmException {
+
+    public LlmCancelledException(String message) {
+        super(Reason.CANCELLED, message);
+    }
+}
@@ -0,0 +1,170 @@
+package com.wspiernik.infrastructure.llm;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wspiernik.infrastructure.llm.dto.LlmMessage;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * File of recorded LLM exchanges ({@code wspiernik.llm.cassette.path}), one JSON object per line,
+ * written by {@link RecordingLlmClient} and served back by {@link ReplayLlmClient}.
+ * Exchanges are keyed by a SHA-256 of the task, generation options and whitespace-normalised
+ * messages; a key recorded several times is replayed round-robin.
+ */
+@ApplicationScoped
+public class LlmCassette {
+
+    private static final Logger LOG = Logger.getLogger(LlmCassette.class);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "wspiernik.llm.cassette.path", defaultValue = "llm-cassette.jsonl")
+    Path path;
+
+    private BufferedWriter writer;
+
+    private final Map<String, Track> byKey = new LinkedHashMap<>();
+    private final Map<LlmTask, Track> byTask = new LinkedHashMap<>();
+
+    /**
+     * Append an exchange to the file.
+     */
+    public synchronized void record(Entry entry) {
+        try {
+            if (writer == null) {
+                writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                LOG.infof("Recording LLM exchanges to %s", path.toAbsolutePath());
+            }
+            writer.write(objectMapper.writeValueAsString(entry));
+            writer.newLine();
+            writer.flush();
+        } catch (IOException e) {
+            LOG.errorf(e, "Failed to record LLM exchange to %s", path);
+        }
+    }
+
+    /**
+     * Read every recorded exchange into memory for replay.
+     */
+    public synchronized void load() {
+        if (!Files.exists(path)) {
+            throw new IllegalStateException("LLM cassette " + path.toAbsolutePath() + " does not exist");
+        }
+        try {
+            for (String line : Files.readAllLines(path, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                Entry entry = objectMapper.readValue(line, Entry.class);
+                byKey.computeIfAbsent(entry.key(), k -> new Track()).entries.add(entry);
+                byTask.computeIfAbsent(entry.task(), t -> new Track()).entries.add(entry);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read LLM cassette " + path, e);
+        }
+        LOG.infof("Loaded %d distinct LLM exchanges from %s", byKey.size(), path.toAbsolutePath());
+    }
+
+    /**
+     * Next recording for exactly this request.
+     */
+    public synchronized Optional<Entry> find(String key) {
+        return Optional.ofNullable(byKey.get(key)).map(Track::next);
+    }
+
+    /**
+     * Next recording of any request of the task, for prompts that differ between runs.
+     */
+    public synchronized Optional<Entry> findForTask(LlmTask task) {
+        return Optional.ofNullable(byTask.get(task)).map(Track::next);
+    }
+
+    /**
+     * Key identifying a request: what would change the answer, not the per-session plumbing.
+     */
+    public String key(List<LlmMessage> messages, LlmCallOptions options) {
+        MessageDigest digest = sha256();
+        update(digest, options.task().name());
+        update(digest, String.valueOf(options.maxTokens()));
+        update(digest, String.valueOf(options.temperature()));
+        update(digest, String.join("\u0001", options.stop()));
+        update(digest, String.valueOf(options.endMarker()));
+        for (LlmMessage message : messages) {
+            update(digest, message.role());
+            update(digest, message.content() == null ? "" : WHITESPACE.matcher(message.content().strip()).replaceAll(" "));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    @PreDestroy
+    synchronized void close() {
+        if (writer != null) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                LOG.warnf("Failed to close LLM cassette %s: %s", path, e.getMessage());
+            }
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * One recorded exchange.
+     *
+     * @param key          Request key, see {@link #key}
+     * @param task         Task of the request, for replaying unmatched requests
+     * @param callSite     Module that made the call
+     * @param response     Complete answer
+     * @param latencyMs    Time until the answer was complete
+     * @param firstTokenMs Time until the first streamed fragment; null for unstreamed calls
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Entry(String key, LlmTask task, String callSite, String response, long latencyMs, Long firstTokenMs) {
+    }
+
+    private static final class Track {
+        private final List<Entry> entries = new ArrayList<>();
+        private final AtomicInteger next = new AtomicInteger();
+
+        Entry next() {
+            return entries.get(Math.floorMod(next.getAndIncrement(), entries.size()));
+        }
+    }
+}
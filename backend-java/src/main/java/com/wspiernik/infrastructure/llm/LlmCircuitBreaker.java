@@ -0,0 +1,262 @@
+package com.wspiernik.infrastructure.llm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker in front of the LLM servers.
+ * Outcomes of the last {@code window} calls are kept; a call counts as failed when it errors, exceeds
+ * {@code timeout} (a stalled server never answers, so this bounds how long a caregiver can hang) or
+ * succeeds slower than {@code slow-call-threshold}. Once the failure ratio reaches {@code failure-ratio}
+ * the breaker opens and calls fail immediately with {@link LlmException}, which the services turn into
+ * their scripted fallbacks. After {@code delay} a single trial call is let through; its outcome closes
+ * or reopens the breaker.
+ */
+@ApplicationScoped
+public class LlmCircuitBreaker {
+
+    private static final Logger LOG = Logger.getLogger(LlmCircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "wspiernik.llm.circuit-breaker.enabled", defaultValue = "true")
+    boolean enabled;
+
+    @ConfigProperty(name = "wspiernik.llm.circuit-breaker.window", defaultValue = "10")
+    int window;
+
+    @ConfigProperty(name = "wspiernik.llm.circuit-breaker.min-calls", defaultValue = "5")
+    int minCalls;
+
+    @ConfigProperty(name = "wspiernik.llm.circuit-breaker.failure-ratio", defaultValue = "0.5")
+    double failureRatio;
+
+    @ConfigProperty(name = "wspiernik.llm.circuit-breaker.slow-call-threshold", defaultValue = "60s")
+    Duration slowCallThreshold;
+
+    @ConfigProperty(name = "wspiernik.llm.circuit-breaker.timeout", defaultValue = "120s")
+    Duration timeout;
+
+    @ConfigProperty(name = "wspiernik.llm.circuit-breaker.delay", defaultValue = "30s")
+    Duration delay;
+
+    private boolean[] outcomes;
+    private int recorded;
+    private int next;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    private Counter rejected;
+
+    @PostConstruct
+    void init() {
+        outcomes = new boolean[window];
+        rejected = Counter.builder("wspiernik.llm.circuit-breaker.rejected")
+                .description("LLM calls failed fast because the circuit breaker was open")
+                .register(registry);
+        Gauge.builder("wspiernik.llm.circuit-breaker.state", this, b -> b.state().ordinal())
+                .description("Circuit breaker state: 0 closed, 1 open, 2 half-open")
+                .register(registry);
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    /**
+     * Run the call unless the breaker is open, recording its outcome.
+     * The breaker is asked before the call waits for a slot: {@code admit} queues it and runs the request
+     * through the given {@link Permit}, so an open breaker rejects without queueing, a half-open one queues
+     * a single trial, and the time spent waiting does not count against the server.
+     */
+    public <T> Uni<T> guard(Function<Permit, Uni<T>> admit) {
+        if (!enabled) {
+            return Uni.createFrom().deferred(() -> admit.apply(new Permit(false)));
+        }
+        return Uni.createFrom().deferred(() -> {
+            if (!tryAcquire()) {
+                rejected.increment();
+                return Uni.createFrom().failure(new LlmException(LlmException.Reason.CIRCUIT_OPEN, "LLM circuit breaker is open"));
+            }
+            Permit permit = new Permit(true);
+            // A call dropped while queued gives its trial back
+            return admit.apply(permit).onTermination().invoke(permit::cancelled);
+        });
+    }
+
+    /**
+     * Streaming variant of {@link #guard}.
+     */
+    public <T> Multi<T> guardStream(Function<Permit, Multi<T>> admit) {
+        if (!enabled) {
+            return Multi.createFrom().deferred(() -> admit.apply(new Permit(false)));
+        }
+        return Multi.createFrom().deferred(() -> {
+            if (!tryAcquire()) {
+                rejected.increment();
+                return Multi.createFrom().failure(new LlmException(LlmException.Reason.CIRCUIT_OPEN, "LLM circuit breaker is open"));
+            }
+            Permit permit = new Permit(true);
+            return admit.apply(permit).onTermination().invoke(permit::cancelled);
+        });
+    }
+
+    private synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < delay.toNanos()) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return false;
+            }
+            trialInFlight = true;
+        }
+        return true;
+    }
+
+    private synchronized void record(boolean failed) {
+        if (state == State.HALF_OPEN) {
+            if (failed) {
+                open("trial call failed");
+            } else {
+                state = State.CLOSED;
+                recorded = next = failures = 0;
+                LOG.info("LLM circuit breaker closed");
+            }
+            return;
+        }
+        if (recorded == window) {
+            if (outcomes[next]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[next] = failed;
+        if (failed) {
+            failures++;
+        }
+        next = (next + 1) % window;
+
+        if (state == State.CLOSED && recorded >= minCalls && failures >= failureRatio * recorded) {
+            open(failures + " of the last " + recorded + " calls failed or were slow");
+        }
+    }
+
+    private void open(String reason) {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        LOG.warnf("LLM circuit breaker opened: %s, retrying in %s", reason, delay);
+    }
+
+    private synchronized void releaseTrial() {
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    /**
+     * Leave to make one call, given before it is queued; only the first outcome of the call counts.
+     */
+    public final class Permit {
+        private final boolean recording;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private long start;
+
+        private Permit(boolean recording) {
+            this.recording = recording;
+        }
+
+        /**
+         * Make the request once it has its slot, timing it out and recording its outcome.
+         */
+        public <T> Uni<T> run(Supplier<Uni<T>> call) {
+            if (!recording) {
+                return Uni.createFrom().deferred(call::get);
+            }
+            return Uni.createFrom().deferred(() -> {
+                start = System.nanoTime();
+                return call.get()
+                        .ifNoItem().after(timeout).failWith(() -> new LlmException(LlmException.Reason.TIMEOUT, "LLM call timed out after " + timeout))
+                        .invoke(this::succeeded)
+                        .onFailure().invoke(this::failed)
+                        .onCancellation().invoke(this::cancelled);
+            });
+        }
+
+        /**
+         * Streaming variant of {@link #run}. The timeout applies to the gap between chunks
+         * and the latency recorded is the time to the first chunk.
+         */
+        public <T> Multi<T> runStream(Supplier<Multi<T>> call) {
+            if (!recording) {
+                return Multi.createFrom().deferred(call::get);
+            }
+            return Multi.createFrom().deferred(() -> {
+                start = System.nanoTime();
+                return call.get()
+                        .ifNoItem().after(timeout).failWith(() -> new LlmException(LlmException.Reason.TIMEOUT, "LLM stream stalled for " + timeout))
+                        .invoke(this::succeeded)
+                        .onFailure().invoke(this::failed)
+                        .onCompletion().invoke(this::succeeded)
+                        .onCancellation().invoke(this::cancelled);
+            });
+        }
+
+        private void succeeded() {
+            if (done.compareAndSet(false, true)) {
+                long elapsed = System.nanoTime() - start;
+                record(elapsed > slowCallThreshold.toNanos());
+                if (elapsed > slowCallThreshold.toNanos()) {
+                    LOG.debugf("Slow LLM call: %d ms", TimeUnit.NANOSECONDS.toMillis(elapsed));
+                }
+            }
+        }
+
+        private void failed(Throwable failure) {
+            if (done.compareAndSet(false, true)) {
+                // A rejected request (4xx) says nothing about the servers' health
+                boolean clientError = failure instanceof WebApplicationException wae
+                        && wae.getResponse().getStatus() < 500;
+                if (clientError) {
+                    releaseTrial();
+                } else {
+                    record(true);
+                }
+            }
+        }
+
+        private void cancelled() {
+            if (done.compareAndSet(false, true)) {
+                releaseTrial();
+            }
+        }
+    }
+}
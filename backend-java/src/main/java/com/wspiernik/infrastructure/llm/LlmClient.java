@@ -1,15 +1,94 @@
 package com.wspiernik.infrastructure.llm;
 
 import com.wspiernik.infrastructure.llm.dto.LlmMessage;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Interface for LLM (Large Language Model) client operations.
  * Abstracts the communication with the underlying LLM service.
+ *
+ * The asynchronous methods are the primary contract: they never park the caller's thread
+ * and deliver results on a worker thread, so continuations may perform blocking work
+ * (e.g. persistence). Failures are signalled with {@link LlmException}.
+ * The synchronous methods are conveniences for callers already running on a worker thread.
+ * {@link LlmCallOptions} carry per-call settings such as the admission priority.
+ * The Uni-returning methods honour the options' deadline and cancellation signal; a raw
+ * {@link #streamAsync} stream is bounded only by cancelling its subscription.
  */
 public interface LlmClient {
 
+    /**
+     * Generate a response from a complete message list without blocking.
+     *
+     * @param messages The full list of messages including system, user, and assistant messages
+     * @param options  Per-call settings
+     * @return The assistant's response content
+     */
+    Uni<String> generateAsync(List<LlmMessage> messages, LlmCallOptions options);
+
+    /**
+     * Generate a response from a complete message list with default options.
+     */
+    default Uni<String> generateAsync(List<LlmMessage> messages) {
+        return generateAsync(messages, LlmCallOptions.DEFAULT);
+    }
+
+    /**
+     * Generate a response from a complete message list, emitting content deltas as they arrive.
+     * Implementations without streaming support emit the whole response as a single delta.
+     *
+     * @param messages The full list of messages including system, user, and assistant messages
+     * @param options  Per-call settings
+     * @return Stream of generated text fragments, in order
+     */
+    default Multi<String> streamAsync(List<LlmMessage> messages, LlmCallOptions options) {
+        return generateAsync(messages, options).toMulti();
+    }
+
+    /**
+     * Generate a response while forwarding each delta to a listener, without blocking.
+     * The next delta is requested only after the listener's Uni completes, which preserves
+     * ordering and gives natural backpressure towards slow clients.
+     *
+     * @param messages The full list of messages including system, user, and assistant messages
+     * @param options  Per-call settings
+     * @param onDelta  Listener receiving generated fragments, in order
+     * @return The complete assistant's response content
+     */
+    default Uni<String> generateStreamingAsync(List<LlmMessage> messages, LlmCallOptions options,
+                                               Function<String, Uni<Void>> onDelta) {
+        return streamAsync(messages, options)
+                .onItem().call(delta -> onDelta.apply(delta))
+                .collect().with(Collectors.joining())
+                // listener completions may resume on the event loop
+                .emitOn(Infrastructure.getDefaultWorkerPool())
+                .map(content -> {
+                    if (content.isBlank()) {
+                        throw new LlmException(LlmException.Reason.EMPTY_RESPONSE, "LLM stream returned empty content");
+                    }
+                    return content;
+                });
+    }
+
+    /**
+     * Ask the server to evaluate and cache a prompt prefix ahead of the first real call,
+     * as background work. Failures are ignored.
+     * Implementations without a prompt cache do nothing.
+     *
+     * @param messages Prefix that the following calls with the same affinity key will start with
+     * @param options  Per-call settings; the affinity key selects the server to warm
+     */
+    default Uni<Void> prewarm(List<LlmMessage> messages, LlmCallOptions options) {
+        return Uni.createFrom().voidItem();
+    }
+
     /**
      * Generate a response using system prompt and user message.
      *
@@ -17,7 +96,16 @@ public interface LlmClient {
      * @param userMessage  The user's message
      * @return The assistant's response content
      */
-    String generate(String systemPrompt, String userMessage);
+    default String generate(String systemPrompt, String userMessage) {
+        return generate(systemPrompt, userMessage, LlmCallOptions.DEFAULT);
+    }
+
+    /**
+     * Generate a response using system prompt and user message with the given options.
+     */
+    default String generate(String systemPrompt, String userMessage, LlmCallOptions options) {
+        return generateWithHistory(List.of(LlmMessage.system(systemPrompt), LlmMessage.user(userMessage)), options);
+    }
 
     /**
      * Generate a response with conversation history context.
@@ -27,13 +115,33 @@ public interface LlmClient {
      * @param history      Previous conversation history
      * @return The assistant's response content
      */
-    String generateWithContext(String systemPrompt, String userMessage, List<LlmMessage> history);
+    default String generateWithContext(String systemPrompt, String userMessage, List<LlmMessage> history) {
+        List<LlmMessage> messages = new ArrayList<>();
+        messages.add(LlmMessage.system(systemPrompt));
+
+        if (history != null && !history.isEmpty()) {
+            messages.addAll(history);
+        }
+
+        messages.add(LlmMessage.user(userMessage));
+
+        return generateWithHistory(messages);
+    }
 
     /**
-     * Generate a response from a complete message list.
+     * Generate a response from a complete message list, blocking until it is available.
      *
      * @param messages The full list of messages including system, user, and assistant messages
      * @return The assistant's response content
      */
-    String generateWithHistory(List<LlmMessage> messages);
+    default String generateWithHistory(List<LlmMessage> messages) {
+        return generateWithHistory(messages, LlmCallOptions.DEFAULT);
+    }
+
+    /**
+     * Generate a response from a complete message list with the given options, blocking until it is available.
+     */
+    default String generateWithHistory(List<LlmMessage> messages, LlmCallOptions options) {
+        return generateAsync(messages, options).await().indefinitely();
+    }
 }
@@ -0,0 +1,141 @@
+package com.wspiernik.infrastructure.llm;
+
+import com.wspiernik.infrastructure.llm.dto.LlmMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps a chat prompt within the model's context window ({@code wspiernik.llm.context-window}).
+ * Room for the answer is reserved first; the prompt gets the rest. When the history does not fit,
+ * the middle of the conversation is dropped while pinning the leading system prompt, the first
+ * user message (which usually states the caregiver's problem) and the final message, then keeping
+ * as many of the most recent messages as fit, capped at {@code wspiernik.llm.max-history-turns}.
+ * If even the pinned messages overflow, the answer reserve shrinks instead, down to a floor.
+ */
+@ApplicationScoped
+public class LlmContextBudget {
+
+    private static final Logger LOG = Logger.getLogger(LlmContextBudget.class);
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "wspiernik.llm.context-window", defaultValue = "8192")
+    int contextWindow;
+
+    @ConfigProperty(name = "wspiernik.llm.max-history-turns", defaultValue = "20")
+    int maxHistoryTurns;
+
+    @ConfigProperty(name = "wspiernik.llm.min-answer-tokens", defaultValue = "256")
+    int minAnswerTokens;
+
+    private DistributionSummary promptTokens;
+    private Counter trimmedByTurns;
+    private Counter trimmedByTokens;
+    private Counter answerShrunk;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("wspiernik.llm.context.window.tokens", () -> contextWindow)
+                .description("Configured LLM context window")
+                .baseUnit("tokens")
+                .register(registry);
+        promptTokens = DistributionSummary.builder("wspiernik.llm.context.prompt.tokens")
+                .description("Estimated prompt tokens sent to the LLM after trimming")
+                .baseUnit("tokens")
+                .register(registry);
+        trimmedByTurns = trimmedCounter("turns");
+        trimmedByTokens = trimmedCounter("tokens");
+        answerShrunk = Counter.builder("wspiernik.llm.context.answer.shrunk")
+                .description("Calls whose answer reserve was reduced because the pinned prompt did not fit")
+                .register(registry);
+    }
+
+    /**
+     * Trim the messages to the budget left after reserving {@code maxTokens} for the answer.
+     */
+    public Fitted fit(List<LlmMessage> messages, int maxTokens) {
+        int budget = contextWindow - maxTokens;
+
+        // Pinned: leading system messages, the first message after them and the final one
+        int head = 0;
+        while (head < messages.size() && "system".equals(messages.get(head).role())) {
+            head++;
+        }
+        int pinnedHead = Math.min(head + 1, messages.size());
+        int tailStart = Math.max(pinnedHead, messages.size() - 1);
+
+        int used = TokenEstimator.REPLY_PRIMING;
+        for (int i = 0; i < pinnedHead; i++) {
+            used += TokenEstimator.estimate(messages.get(i));
+        }
+        for (int i = tailStart; i < messages.size(); i++) {
+            used += TokenEstimator.estimate(messages.get(i));
+        }
+
+        // Fill backwards from the most recent message
+        int maxMessages = maxHistoryTurns > 0 ? maxHistoryTurns * 2 : Integer.MAX_VALUE;
+        int keepFrom = tailStart;
+        while (keepFrom > pinnedHead && tailStart - keepFrom < maxMessages) {
+            int cost = TokenEstimator.estimate(messages.get(keepFrom - 1));
+            if (used + cost > budget) {
+                break;
+            }
+            used += cost;
+            keepFrom--;
+        }
+        // Chat templates require alternating roles across the gap
+        if (keepFrom > pinnedHead && keepFrom < tailStart
+                && messages.get(keepFrom).role().equals(messages.get(pinnedHead - 1).role())) {
+            used -= TokenEstimator.estimate(messages.get(keepFrom));
+            keepFrom++;
+        }
+
+        int dropped = keepFrom - pinnedHead;
+        List<LlmMessage> kept = messages;
+        if (dropped > 0) {
+            kept = new ArrayList<>(messages.size() - dropped);
+            kept.addAll(messages.subList(0, pinnedHead));
+            kept.addAll(messages.subList(keepFrom, messages.size()));
+
+            boolean byTurns = tailStart - keepFrom >= maxMessages;
+            (byTurns ? trimmedByTurns : trimmedByTokens).increment(dropped);
+            LOG.debugf("LLM context trimmed: dropped %d of %d messages (%s limit), ~%d prompt tokens",
+                    dropped, messages.size(), byTurns ? "turns" : "token", used);
+        }
+
+        int answerTokens = maxTokens;
+        if (used > budget) {
+            answerTokens = Math.max(minAnswerTokens, contextWindow - used);
+            answerShrunk.increment();
+            LOG.warnf("LLM prompt of ~%d tokens leaves no room for a %d token answer, using %d",
+                    used, maxTokens, answerTokens);
+        }
+
+        promptTokens.record(used);
+        return new Fitted(kept, used, answerTokens);
+    }
+
+    private Counter trimmedCounter(String limit) {
+        return Counter.builder("wspiernik.llm.context.trimmed.messages")
+                .description("History messages dropped to fit the LLM context window")
+                .tag("limit", limit)
+                .register(registry);
+    }
+
+    /**
+     * Messages to send, their estimated size and the answer token limit to request.
+     */
+    public record Fitted(List<LlmMessage> messages, int promptTokens, int maxTokens) {
+    }
+}
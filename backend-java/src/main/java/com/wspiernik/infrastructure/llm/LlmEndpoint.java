@@ -0,0 +1,119 @@
+package com.wspiernik.infrastructure.llm;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One OpenAI-compatible inference server in the {@link LlmEndpointPool}, with its live statistics.
+ * Latency and error rate are exponentially weighted moving averages, so a recovering node
+ * regains traffic gradually instead of being flooded.
+ */
+public class LlmEndpoint {
+
+    private static final double ALPHA = 0.2;
+    private static final double INITIAL_LATENCY_MS = 1000;
+
+    private final String url;
+    private final BielnikApi api;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger slotCursor = new AtomicInteger();
+
+    private double latencyEwmaMs = INITIAL_LATENCY_MS;
+    private double errorRate;
+    private int consecutiveFailures;
+    private boolean ejected;
+
+    LlmEndpoint(String url, BielnikApi api) {
+        this.url = url;
+        this.api = api;
+    }
+
+    public String url() {
+        return url;
+    }
+
+    BielnikApi api() {
+        return api;
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public synchronized double latencyEwmaMs() {
+        return latencyEwmaMs;
+    }
+
+    public synchronized double errorRate() {
+        return errorRate;
+    }
+
+    public synchronized boolean isEjected() {
+        return ejected;
+    }
+
+    /**
+     * Load score used for routing; lower is better.
+     * Expected wait grows with outstanding requests, slowness and recent errors.
+     */
+    synchronized double score() {
+        return latencyEwmaMs * (inFlight.get() + 1) * (1 + 4 * errorRate);
+    }
+
+    /**
+     * Next server slot in round-robin order, for pinning a new session.
+     */
+    int nextSlot(int slots) {
+        return Math.floorMod(slotCursor.getAndIncrement(), slots);
+    }
+
+    void started() {
+        inFlight.incrementAndGet();
+    }
+
+    void finished() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Record a successful call; for streams the latency is the time to the first chunk.
+     */
+    synchronized void succeeded(long latencyMs) {
+        latencyEwmaMs = ALPHA * latencyMs + (1 - ALPHA) * latencyEwmaMs;
+        errorRate = (1 - ALPHA) * errorRate;
+        consecutiveFailures = 0;
+    }
+
+    /**
+     * Record a call abandoned after the given time, e.g. one that lost to a hedged duplicate.
+     * The time is only a lower bound of the real latency, so it can raise the average but never lower it.
+     */
+    synchronized void abandoned(long elapsedMs) {
+        if (elapsedMs > latencyEwmaMs) {
+            latencyEwmaMs = ALPHA * elapsedMs + (1 - ALPHA) * latencyEwmaMs;
+        }
+    }
+
+    /**
+     * Record a failed call; ejects the endpoint once it fails the given number of times in a row.
+     *
+     * @return true if this failure ejected the endpoint
+     */
+    synchronized boolean failed(int ejectAfterFailures) {
+        errorRate = ALPHA + (1 - ALPHA) * errorRate;
+        consecutiveFailures++;
+        if (!ejected && consecutiveFailures >= ejectAfterFailures) {
+            ejected = true;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Put the endpoint back into rotation after a successful probe.
+     */
+    synchronized void reinstate() {
+        ejected = false;
+        consecutiveFailures = 0;
+        errorRate = errorRate / 2;
+    }
+}
@@ -0,0 +1,341 @@
+package com.wspiernik.infrastructure.llm;
+
+import io.quarkus.rest.client.reactive.QuarkusRestClientBuilder;
+import io.quarkus.scheduler.Scheduled;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Pool of OpenAI-compatible LLM endpoints ({@code wspiernik.llm.endpoints}).
+ * Each request goes to the better of two randomly picked healthy endpoints (power of two choices),
+ * scored by outstanding requests, latency EWMA and error rate. Endpoints failing repeatedly are
+ * ejected and brought back once a periodic probe of {@code /v1/models} succeeds.
+ * Calls with an affinity key stick to the endpoint (and optionally the server slot) chosen for
+ * the key's first call, so llama.cpp-style servers can reuse the session's cached prompt prefix.
+ * Hedged calls still unanswered after the running p95 latency are duplicated to another endpoint
+ * with a free slot, and the first answer wins.
+ */
+@ApplicationScoped
+public class LlmEndpointPool {
+
+    private static final Logger LOG = Logger.getLogger(LlmEndpointPool.class);
+    private static final int MAX_AFFINITIES = 1024;
+    private static final int LATENCY_SAMPLES = 200;
+    private static final int MIN_LATENCY_SAMPLES = 20;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "wspiernik.llm.base-url")
+    String baseUrl;
+
+    @ConfigProperty(name = "wspiernik.llm.endpoints")
+    Optional<List<String>> endpointUrls;
+
+    @ConfigProperty(name = "wspiernik.llm.parallel-slots", defaultValue = "1")
+    int parallelSlots;
+
+    @ConfigProperty(name = "wspiernik.llm.pin-slots", defaultValue = "false")
+    boolean pinSlots;
+
+    @ConfigProperty(name = "wspiernik.llm.eject-after-failures", defaultValue = "3")
+    int ejectAfterFailures;
+
+    @ConfigProperty(name = "wspiernik.llm.probe-timeout", defaultValue = "5s")
+    Duration probeTimeout;
+
+    @ConfigProperty(name = "wspiernik.llm.hedging.enabled", defaultValue = "true")
+    boolean hedging;
+
+    @ConfigProperty(name = "wspiernik.llm.hedging.min-delay", defaultValue = "2s")
+    Duration hedgeMinDelay;
+
+    @ConfigProperty(name = "quarkus.rest-client.bielnik-api.connect-timeout", defaultValue = "10000")
+    long connectTimeoutMs;
+
+    @ConfigProperty(name = "quarkus.rest-client.bielnik-api.read-timeout", defaultValue = "600000")
+    long readTimeoutMs;
+
+    private List<LlmEndpoint> endpoints;
+
+    /** Recent successful call latencies in ms, for the hedging delay. */
+    private final long[] latencies = new long[LATENCY_SAMPLES];
+    private int latencyCount;
+    private int latencyNext;
+
+    private Counter hedges;
+    private Counter hedgeWins;
+
+    /** Affinity key -> route, least recently used first. */
+    private final Map<String, Route> affinities = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Route> eldest) {
+            return size() > MAX_AFFINITIES;
+        }
+    };
+
+    @PostConstruct
+    void init() {
+        List<String> urls = endpointUrls.filter(list -> !list.isEmpty()).orElse(List.of(baseUrl));
+        endpoints = urls.stream()
+                .map(String::trim)
+                .map(url -> new LlmEndpoint(url, buildClient(url)))
+                .toList();
+        hedges = Counter.builder("wspiernik.llm.hedged.requests")
+                .description("Duplicate LLM requests sent because the first one exceeded the p95 latency")
+                .register(registry);
+        hedgeWins = Counter.builder("wspiernik.llm.hedged.wins")
+                .description("Hedged LLM requests answered before the original")
+                .register(registry);
+        LOG.infof("LLM endpoint pool: %s", urls);
+    }
+
+    /**
+     * Number of configured endpoints, healthy or not.
+     */
+    public int size() {
+        return endpoints.size();
+    }
+
+    /**
+     * The configured endpoints with their live statistics.
+     */
+    public List<LlmEndpoint> endpoints() {
+        return endpoints;
+    }
+
+    /**
+     * Send a request to the best available endpoint, or the one bound to the affinity key.
+     */
+    public <T> Uni<T> call(String affinityKey, Function<Route, Uni<T>> request) {
+        return Uni.createFrom().deferred(() -> attempt(route(affinityKey), request));
+    }
+
+    /**
+     * Like {@link #call}, but if no answer arrives within the running p95 latency a duplicate goes
+     * to another endpoint with a free slot; whichever answers first wins and the other is cancelled.
+     * Only the original's failure fails the call.
+     * The duplicate bypasses {@link LlmScheduler}, which is why it only goes to an idle slot.
+     */
+    public <T> Uni<T> hedgedCall(String affinityKey, Function<Route, Uni<T>> request) {
+        return Uni.createFrom().deferred(() -> {
+            Route route = route(affinityKey);
+            Uni<T> primary = attempt(route, request);
+            Duration delay = hedgeDelay();
+            if (delay == null) {
+                return primary;
+            }
+            Uni<T> hedge = Uni.createFrom().voidItem()
+                    .onItem().delayIt().by(delay)
+                    .onItem().transformToUni(ignored -> {
+                        LlmEndpoint alternative = idleAlternative(route.endpoint());
+                        if (alternative == null) {
+                            return Uni.createFrom().<T>nothing();
+                        }
+                        hedges.increment();
+                        LOG.debugf("LLM call to %s exceeded %d ms, hedging to %s",
+                                route.endpoint().url(), delay.toMillis(), alternative.url());
+                        return attempt(new Route(alternative, null), request)
+                                .invoke(() -> hedgeWins.increment())
+                                // A failed duplicate must not fail the call the original may still answer
+                                .onFailure().recoverWithUni(Uni.createFrom().nothing());
+                    });
+            // any() reports a failure wrapped in CompletionException; callers look for the cause
+            return Uni.combine().any().of(primary, hedge)
+                    .onFailure(CompletionException.class).transform(Throwable::getCause);
+        });
+    }
+
+    /**
+     * Send a streaming request to the best available endpoint.
+     * The endpoint counts as busy until the stream terminates.
+     */
+    public <T> Multi<T> stream(String affinityKey, Function<Route, Multi<T>> request) {
+        return Multi.createFrom().deferred(() -> {
+            Route route = route(affinityKey);
+            LlmEndpoint endpoint = route.endpoint();
+            long start = System.nanoTime();
+            AtomicBoolean firstChunk = new AtomicBoolean(true);
+            endpoint.started();
+            return request.apply(route)
+                    .invoke(() -> {
+                        if (firstChunk.compareAndSet(true, false)) {
+                            endpoint.succeeded(elapsedMs(start));
+                        }
+                    })
+                    .onFailure().invoke(e -> recordFailure(endpoint, e))
+                    .onTermination().invoke(endpoint::finished);
+        });
+    }
+
+    private <T> Uni<T> attempt(Route route, Function<Route, Uni<T>> request) {
+        LlmEndpoint endpoint = route.endpoint();
+        long start = System.nanoTime();
+        endpoint.started();
+        return request.apply(route)
+                .invoke(() -> {
+                    long latency = elapsedMs(start);
+                    endpoint.succeeded(latency);
+                    recordLatency(latency);
+                })
+                .onFailure().invoke(e -> recordFailure(endpoint, e))
+                .onCancellation().invoke(() -> endpoint.abandoned(elapsedMs(start)))
+                .onTermination().invoke(endpoint::finished);
+    }
+
+    /**
+     * Running p95 of call latency, at least the configured minimum; null when hedging is off,
+     * there is nowhere to hedge to or too few calls have been seen yet.
+     */
+    private Duration hedgeDelay() {
+        if (!hedging || endpoints.size() < 2) {
+            return null;
+        }
+        long[] sample;
+        synchronized (latencies) {
+            if (latencyCount < MIN_LATENCY_SAMPLES) {
+                return null;
+            }
+            sample = Arrays.copyOf(latencies, latencyCount);
+        }
+        Arrays.sort(sample);
+        long p95 = sample[(int) Math.ceil(sample.length * 0.95) - 1];
+        Duration delay = Duration.ofMillis(p95);
+        return delay.compareTo(hedgeMinDelay) < 0 ? hedgeMinDelay : delay;
+    }
+
+    private void recordLatency(long latencyMs) {
+        synchronized (latencies) {
+            latencies[latencyNext] = latencyMs;
+            latencyNext = (latencyNext + 1) % LATENCY_SAMPLES;
+            latencyCount = Math.min(latencyCount + 1, LATENCY_SAMPLES);
+        }
+    }
+
+    /**
+     * Least loaded healthy endpoint other than the given one that has a free slot.
+     */
+    private LlmEndpoint idleAlternative(LlmEndpoint busy) {
+        return endpoints.stream()
+                .filter(e -> e != busy && !e.isEjected() && e.inFlight() < parallelSlots)
+                .min(Comparator.comparingDouble(LlmEndpoint::score))
+                .orElse(null);
+    }
+
+    /**
+     * Probe ejected endpoints and reinstate the ones that answer again.
+     */
+    @Scheduled(every = "${wspiernik.llm.probe-interval:15s}", concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+    void probeEjected() {
+        for (LlmEndpoint endpoint : endpoints) {
+            if (!endpoint.isEjected()) {
+                continue;
+            }
+            endpoint.api().models()
+                    .ifNoItem().after(probeTimeout).fail()
+                    .subscribe().with(
+                            models -> {
+                                endpoint.reinstate();
+                                LOG.infof("LLM endpoint %s is back in rotation", endpoint.url());
+                            },
+                            e -> LOG.debugf("LLM endpoint %s still unavailable: %s", endpoint.url(), e.getMessage()));
+        }
+    }
+
+    /**
+     * Endpoint (and slot, when pinning) for a call. A key keeps its route until the endpoint is ejected.
+     */
+    Route route(String affinityKey) {
+        if (affinityKey == null) {
+            return new Route(select(), null);
+        }
+        synchronized (affinities) {
+            Route route = affinities.get(affinityKey);
+            if (route == null || route.endpoint().isEjected()) {
+                LlmEndpoint endpoint = select();
+                route = new Route(endpoint, pinSlots ? endpoint.nextSlot(parallelSlots) : null);
+                affinities.put(affinityKey, route);
+            }
+            return route;
+        }
+    }
+
+    /**
+     * Power of two choices over healthy endpoints. When every endpoint is ejected
+     * the least bad one is used rather than failing outright.
+     */
+    LlmEndpoint select() {
+        List<LlmEndpoint> healthy = endpoints.stream().filter(e -> !e.isEjected()).toList();
+        List<LlmEndpoint> candidates = healthy.isEmpty() ? endpoints : healthy;
+
+        int n = candidates.size();
+        if (n == 1) {
+            return candidates.get(0);
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int i = random.nextInt(n);
+        int j = random.nextInt(n - 1);
+        if (j >= i) {
+            j++;
+        }
+        LlmEndpoint a = candidates.get(i);
+        LlmEndpoint b = candidates.get(j);
+        return a.score() <= b.score() ? a : b;
+    }
+
+    private void recordFailure(LlmEndpoint endpoint, Throwable failure) {
+        // A rejected request (4xx) says nothing about the node's health
+        if (failure instanceof WebApplicationException wae && wae.getResponse().getStatus() < 500) {
+            return;
+        }
+        if (endpoint.failed(ejectAfterFailures)) {
+            LOG.warnf("LLM endpoint %s ejected after %d consecutive failures: %s",
+                    endpoint.url(), ejectAfterFailures, failure.getMessage());
+        }
+    }
+
+    private BielnikApi buildClient(String url) {
+        return QuarkusRestClientBuilder.newBuilder()
+                .baseUri(URI.create(url))
+                .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+                .readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS)
+                .build(BielnikApi.class);
+    }
+
+    /**
+     * Where a call goes: the endpoint and, when slots are pinned, the server slot id.
+     */
+    public record Route(LlmEndpoint endpoint, Integer slot) {
+
+        public BielnikApi api() {
+            return endpoint.api();
+        }
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
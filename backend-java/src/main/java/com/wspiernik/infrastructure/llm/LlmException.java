@@ -0,0 +1,36 @@
+package com.wspiernik.infrastructure.llm;
+
+/**
+ * Raised when the LLM backend fails to produce a usable response
+ * (transport error, empty content, unparseable payload).
+ * Callers are expected to recover with a module-specific fallback.
+ */
+public class LlmException extends RuntimeException {
+
+    /**
+     * Failures raised by this application rather than by the transport, for telemetry.
+     */
+    public enum Reason {
+        TIMEOUT, CIRCUIT_OPEN, EMPTY_RESPONSE, CANCELLED, OTHER
+    }
+
+    private final Reason reason;
+
+    public LlmException(String message) {
+        this(Reason.OTHER, message);
+    }
+
+    public LlmException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public LlmException(String message, Throwable cause) {
+        super(message, cause);
+        this.reason = Reason.OTHER;
+    }
+
+    public Reason reason() {
+        return reason;
+    }
+}
@@ -0,0 +1,142 @@
+package com.wspiernik.infrastructure.llm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.rest.client.reactive.QuarkusRestClientBuilder;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.Config;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.net.URI;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Maps {@link LlmTask}s to models. A task with {@code wspiernik.llm.task.<key>.model} set runs on
+ * that model - on the pooled endpoints, or on its own server when {@code .endpoint} is set too.
+ * Unmapped tasks use {@code wspiernik.llm.model}. A failed task model call falls back to the
+ * default model; a stream only falls back when it failed before its first item.
+ */
+@ApplicationScoped
+public class LlmModelRouter {
+
+    private static final Logger LOG = Logger.getLogger(LlmModelRouter.class);
+    private static final String TASK_PREFIX = "wspiernik.llm.task.";
+
+    @Inject
+    Config config;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "wspiernik.llm.model", defaultValue = "bielik")
+    String defaultModel;
+
+    @ConfigProperty(name = "quarkus.rest-client.bielnik-api.connect-timeout", defaultValue = "10000")
+    long connectTimeoutMs;
+
+    @ConfigProperty(name = "quarkus.rest-client.bielnik-api.read-timeout", defaultValue = "600000")
+    long readTimeoutMs;
+
+    private final Map<LlmTask, TaskModel> taskModels = new EnumMap<>(LlmTask.class);
+    private final Map<LlmTask, Counter> fallbacks = new EnumMap<>(LlmTask.class);
+
+    @PostConstruct
+    void init() {
+        // Tasks sharing a dedicated server share its client
+        Map<String, LlmEndpoint> dedicated = new HashMap<>();
+        for (LlmTask task : LlmTask.values()) {
+            String prefix = TASK_PREFIX + task.configKey();
+            Optional<String> model = config.getOptionalValue(prefix + ".model", String.class)
+                    .filter(m -> !m.isBlank() && !m.equals(defaultModel));
+            if (model.isEmpty()) {
+                continue;
+            }
+            LlmEndpoint endpoint = config.getOptionalValue(prefix + ".endpoint", String.class)
+                    .map(String::trim)
+                    .map(url -> dedicated.computeIfAbsent(url, u -> new LlmEndpoint(u, buildClient(u))))
+                    .orElse(null);
+            taskModels.put(task, new TaskModel(model.get(), endpoint));
+            fallbacks.put(task, Counter.builder("wspiernik.llm.routing.fallbacks")
+                    .description("Task model calls that failed and were retried on the default model")
+                    .tag("task", task.configKey())
+                    .register(registry));
+            LOG.infof("LLM task %s runs on %s%s", task.configKey(), model.get(),
+                    endpoint != null ? " at " + endpoint.url() : "");
+        }
+    }
+
+    /**
+     * Model the task's calls are sent to first.
+     */
+    public String modelFor(LlmTask task) {
+        TaskModel taskModel = taskModels.get(task);
+        return taskModel != null ? taskModel.model() : defaultModel;
+    }
+
+    /**
+     * Run the call on the task's model, or on the default model when the task has none or its model fails.
+     */
+    public <T> Uni<T> call(LlmTask task, Function<TaskModel, Uni<T>> onTaskModel, Supplier<Uni<T>> onDefault) {
+        TaskModel taskModel = taskModels.get(task);
+        if (taskModel == null) {
+            return onDefault.get();
+        }
+        return Uni.createFrom().deferred(() -> onTaskModel.apply(taskModel))
+                .onFailure().recoverWithUni(e -> {
+                    fellBack(task, taskModel, e);
+                    return onDefault.get();
+                });
+    }
+
+    /**
+     * Streaming variant of {@link #call}. Items already passed on cannot be taken back,
+     * so a stream failing midway fails instead of falling back.
+     */
+    public <T> Multi<T> stream(LlmTask task, Function<TaskModel, Multi<T>> onTaskModel, Supplier<Multi<T>> onDefault) {
+        TaskModel taskModel = taskModels.get(task);
+        if (taskModel == null) {
+            return onDefault.get();
+        }
+        return Multi.createFrom().deferred(() -> {
+            AtomicBoolean started = new AtomicBoolean();
+            return onTaskModel.apply(taskModel)
+                    .invoke(() -> started.set(true))
+                    .onFailure(e -> !started.get()).recoverWithMulti(e -> {
+                        fellBack(task, taskModel, e);
+                        return onDefault.get();
+                    });
+        });
+    }
+
+    private void fellBack(LlmTask task, TaskModel taskModel, Throwable failure) {
+        fallbacks.get(task).increment();
+        LOG.warnf("LLM task %s failed on %s, falling back to %s: %s",
+                task.configKey(), taskModel.model(), defaultModel, failure.getMessage());
+    }
+
+    private BielnikApi buildClient(String url) {
+        return QuarkusRestClientBuilder.newBuilder()
+                .baseUri(URI.create(url))
+                .connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS)
+                .readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS)
+                .build(BielnikApi.class);
+    }
+
+    /**
+     * Model serving a task and, when it has its own server, that server; null to use the pool.
+     */
+    public record TaskModel(String model, LlmEndpoint endpoint) {
+    }
+}
@@ -0,0 +1,36 @@
+package com.wspiernik.infrastructure.llm;
+
+/**
+ * Admission priority of an LLM call, highest first.
+ * Calls of a higher class are always admitted before waiting calls of a lower class.
+ */
+public enum LlmPriority {
+
+    /** Crisis intervention turn - a caregiver is waiting in an emergency. */
+    INTERVENTION(false),
+
+    /** Interactive survey and support conversation turns. */
+    CONVERSATION(false),
+
+    /** Facts extraction after a conversation has ended. */
+    FACTS_DISTILLATION(true),
+
+    /** Speculative prompt cache warm-up at session start. */
+    PREWARM(true),
+
+    /** Health check ping. */
+    HEALTH_PROBE(true);
+
+    private final boolean background;
+
+    LlmPriority(boolean background) {
+        this.background = background;
+    }
+
+    /**
+     * Background calls never use the slots reserved for interactive traffic.
+     */
+    public boolean isBackground() {
+        return background;
+    }
+}
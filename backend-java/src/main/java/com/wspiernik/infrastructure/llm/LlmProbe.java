@@ -0,0 +1,358 @@
+package com.wspiernik.infrastructure.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wspiernik.domain.facts.Fact;
+import com.wspiernik.infrastructure.llm.dto.LlmMessage;
+import com.wspiernik.infrastructure.llm.dto.LlmRequest;
+import com.wspiernik.infrastructure.llm.dto.LlmStreamChunk;
+import com.wspiernik.infrastructure.persistence.entity.CrisisScenario;
+import com.wspiernik.infrastructure.persistence.repository.CrisisScenarioRepository;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Performance probe of the configured LLM endpoints, for comparing models, quantizations and hardware.
+ * Sends a fixed suite of real prompts (survey, support, intervention, facts distiller, built by
+ * {@link PromptTemplates} from sample facts) to each endpoint at increasing concurrency and reports
+ * time to first token, latency percentiles, generation speed and where aggregate throughput stops growing.
+ * Requests go straight to the endpoint, past the scheduler and slot limits, so the server's own
+ * capacity shows; live traffic on the same endpoints competes with the probe.
+ */
+@ApplicationScoped
+public class LlmProbe {
+
+    private static final Logger LOG = Logger.getLogger(LlmProbe.class);
+
+    private static final List<Integer> DEFAULT_CONCURRENCY = List.of(1, 2, 4, 8);
+    private static final List<String> PROMPTS = List.of("survey", "support", "intervention", "distiller");
+    private static final String TRANSCRIPT = """
+            Caregiver: Mama od tygodnia źle śpi i w nocy chodzi po mieszkaniu.
+            Ward: Rozumiem. Czy coś się zmieniło w jej codziennym rytmie?
+            Caregiver: Lekarz zmienił jej leki na nadciśnienie, a ja wróciłam do pracy na pełen etat.
+            Ward: To dużo zmian naraz. Kto jest z mamą, kiedy jesteś w pracy?
+            Caregiver: Sąsiadka zagląda w południe, ale wieczorem jestem sama i jestem bardzo zmęczona.
+            """;
+
+    @Inject
+    LlmEndpointPool endpointPool;
+
+    @Inject
+    PromptTemplates promptTemplates;
+
+    @Inject
+    CrisisScenarioRepository scenarioRepository;
+
+    @Inject
+    ObjectMapper objectMapper;
+
+    @ConfigProperty(name = "wspiernik.llm.model", defaultValue = "bielik")
+    String model;
+
+    @ConfigProperty(name = "wspiernik.llm.temperature", defaultValue = "0.7")
+    double temperature;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    /**
+     * Probe the endpoints; one probe runs at a time. Builds the prompt suite with a blocking database read.
+     *
+     * @throws IllegalArgumentException for an unknown endpoint or prompt, or no valid concurrency level
+     * @throws IllegalStateException    when a probe is already running
+     */
+    public Uni<ProbeReport> run(ProbeRequest request) {
+        Settings settings = Settings.of(request);
+        List<LlmEndpoint> endpoints = endpointPool.endpoints().stream()
+                .filter(e -> settings.endpoint() == null || e.url().equals(settings.endpoint()))
+                .toList();
+        if (endpoints.isEmpty()) {
+            throw new IllegalArgumentException("No configured LLM endpoint " + settings.endpoint());
+        }
+        List<ProbePrompt> suite = suite(settings.prompts());
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("An LLM probe is already running");
+        }
+        LOG.infof("LLM probe: %s at concurrency %s, %d requests per level", endpoints.stream().map(LlmEndpoint::url).toList(),
+                settings.concurrency(), settings.requestsPerLevel());
+
+        return Multi.createFrom().iterable(endpoints)
+                .onItem().transformToUniAndConcatenate(endpoint -> probe(endpoint, suite, settings))
+                .collect().asList()
+                .map(ProbeReport::new)
+                .onTermination().invoke(() -> running.set(false));
+    }
+
+    private Uni<EndpointReport> probe(LlmEndpoint endpoint, List<ProbePrompt> suite, Settings settings) {
+        return Multi.createFrom().iterable(settings.concurrency())
+                .onItem().transformToUniAndConcatenate(level -> level(endpoint, suite, settings, level))
+                .collect().asList()
+                .map(levels -> new EndpointReport(endpoint.url(), model, levels, plateau(levels, settings.plateauGain())));
+    }
+
+    /**
+     * Send the level's requests, cycling through the suite, with at most the given number in flight.
+     */
+    private Uni<LevelReport> level(LlmEndpoint endpoint, List<ProbePrompt> suite, Settings settings, int concurrency) {
+        return Uni.createFrom().deferred(() -> {
+            long start = System.nanoTime();
+            return Multi.createFrom().range(0, settings.requestsPerLevel())
+                    .onItem().transformToUni(i -> send(endpoint.api(), suite.get(i % suite.size()), settings))
+                    .merge(concurrency)
+                    .collect().asList()
+                    .map(samples -> LevelReport.of(concurrency, samples, System.nanoTime() - start))
+                    .invoke(report -> LOG.infof("LLM probe %s x%d: %.1f tokens/s, TTFT p50 %.0f ms, latency p90 %.0f ms, %d errors",
+                            endpoint.url(), concurrency, report.tokensPerSecond(), report.ttftP50Ms(),
+                            report.latencyP90Ms(), report.errors()));
+        });
+    }
+
+    /**
+     * One streamed request; failures become failed samples so the level carries on.
+     */
+    private Uni<Sample> send(BielnikApi api, ProbePrompt prompt, Settings settings) {
+        return Uni.createFrom().deferred(() -> {
+            long start = System.nanoTime();
+            AtomicLong firstToken = new AtomicLong();
+            AtomicInteger reportedTokens = new AtomicInteger(-1);
+            StringBuilder text = new StringBuilder();
+            LlmRequest request = LlmRequest.builder()
+                    .model(model)
+                    .messages(prompt.messages())
+                    .temperature(temperature)
+                    .maxTokens(settings.maxTokens())
+                    .stream(true)
+                    .cachePrompt(settings.cachePrompt())
+                    .build();
+            return api.chatCompletionStream(request)
+                    .map(data -> delta(data, reportedTokens))
+                    .filter(delta -> !delta.isEmpty())
+                    .invoke(delta -> {
+                        firstToken.compareAndSet(0, System.nanoTime());
+                        text.append(delta);
+                    })
+                    .collect().with(Collectors.counting())
+                    .ifNoItem().after(settings.timeout()).fail()
+                    .map(ignored -> {
+                        int tokens = reportedTokens.get() >= 0 ? reportedTokens.get() : TokenEstimator.estimate(text.toString());
+                        long end = System.nanoTime();
+                        return new Sample(prompt.name(), firstToken.get() == 0 ? -1 : firstToken.get() - start,
+                                end - start, firstToken.get() == 0 ? 0 : end - firstToken.get(), tokens, null);
+                    })
+                    .onFailure().recoverWithItem(e -> new Sample(prompt.name(), -1, System.nanoTime() - start, 0, 0,
+                            String.valueOf(e.getMessage())));
+        });
+    }
+
+    /**
+     * Content of one SSE data payload; the usage report in the final chunk is kept aside.
+     */
+    private String delta(String data, AtomicInteger reportedTokens) {
+        if (data == null || data.isBlank() || LlmStreamChunk.DONE.equals(data.trim())) {
+            return "";
+        }
+        try {
+            LlmStreamChunk chunk = objectMapper.readValue(data, LlmStreamChunk.class);
+            if (chunk.usage() != null) {
+                reportedTokens.set(chunk.usage().completionTokens());
+            }
+            String delta = chunk.getDeltaContent();
+            return delta != null ? delta : "";
+        } catch (Exception e) {
+            return "";
+        }
+    }
+
+    /**
+     * Lowest concurrency beyond which more parallel requests add less than the given share of throughput;
+     * null when throughput was still growing at the highest level probed.
+     */
+    static Integer plateau(List<LevelReport> levels, double minGain) {
+        for (int i = 0; i + 1 < levels.size(); i++) {
+            if (levels.get(i + 1).tokensPerSecond() < levels.get(i).tokensPerSecond() * (1 + minGain)) {
+                return levels.get(i).concurrency();
+            }
+        }
+        return null;
+    }
+
+    // =========================================================================
+    // Prompt suite
+    // =========================================================================
+
+    /**
+     * The selected prompts as the modules send them, built from fixed sample facts so runs stay comparable.
+     */
+    private List<ProbePrompt> suite(List<String> names) {
+        List<Fact> facts = sampleFacts();
+        List<ProbePrompt> suite = new ArrayList<>();
+        for (String name : names) {
+            suite.add(switch (name) {
+                case "survey" -> new ProbePrompt(name, List.of(
+                        LlmMessage.system(promptTemplates.buildSurveyPrompt()),
+                        LlmMessage.user("Dzień dobry, chcę zarejestrować podopiecznego. Mama ma 78 lat.")));
+                case "support" -> new ProbePrompt(name, List.of(
+                        LlmMessage.system(promptTemplates.buildSupportPrompt(facts)),
+                        LlmMessage.user("Jestem wykończona, mama znowu nie spała całą noc i nie wiem, jak dalej dawać radę.")));
+                case "intervention" -> new ProbePrompt(name, List.of(
+                        LlmMessage.system(interventionPrompt(facts)),
+                        LlmMessage.user("Mama przewróciła się w łazience i nie może wstać.")));
+                case "distiller" -> new ProbePrompt(name, List.of(
+                        LlmMessage.system(""),
+                        LlmMessage.user(promptTemplates.buildFactsDistillerPrompt(TRANSCRIPT, facts))));
+                default -> throw new IllegalArgumentException("Unknown probe prompt " + name + ", expected one of " + PROMPTS);
+            });
+        }
+        return suite;
+    }
+
+    /**
+     * The seeded fall scenario's prompt, or the generic one when it is missing.
+     */
+    private String interventionPrompt(List<Fact> facts) {
+        CrisisScenario scenario = QuarkusTransaction.requiringNew().call(() ->
+                scenarioRepository.findByScenarioKey("fall").orElse(null));
+        return scenario != null
+                ? promptTemplates.buildInterventionPrompt(facts, scenario)
+                : promptTemplates.buildGenericInterventionPrompt(facts, "Mama przewróciła się w łazience");
+    }
+
+    private static List<Fact> sampleFacts() {
+        List<Fact> facts = new ArrayList<>();
+        facts.add(sampleFact(List.of("relationship_to_patient", "caregiver"), "Opiekunka jest córką pacjentki", null));
+        facts.add(sampleFact(List.of("medical_condition", "ward"), "Pacjentka choruje na Alzheimera od trzech lat", 6));
+        facts.add(sampleFact(List.of("medical_condition", "ward"), "Pacjentka przyjmuje leki na nadciśnienie rano i wieczorem", null));
+        facts.add(sampleFact(List.of("behavioral_issues", "ward"), "Pacjentka jest niespokojna wieczorami", 4));
+        facts.add(sampleFact(List.of("daily_functioning", "ward"), "Pacjentka potrzebuje pomocy przy myciu", null));
+        facts.add(sampleFact(List.of("caregiver_situation", "caregiver"), "Opiekunka pracuje zawodowo na pełen etat", null));
+        facts.add(sampleFact(List.of("support_network", "caregiver"), "Sąsiadka zagląda codziennie w południe", null));
+        facts.add(sampleFact(List.of("living_situation"), "Opiekunka mieszka z pacjentką", null));
+        return facts;
+    }
+
+    private static Fact sampleFact(List<String> tags, String value, Integer severity) {
+        Fact fact = new Fact();
+        fact.tags = tags;
+        fact.factValue = value;
+        fact.severity = severity;
+        fact.createdAt = LocalDateTime.of(2025, 1, 1, 12, 0);
+        fact.extractedAt = fact.createdAt;
+        return fact;
+    }
+
+    // =========================================================================
+    // Request and results
+    // =========================================================================
+
+    /**
+     * What to probe; every field is optional.
+     *
+     * @param endpoint         URL of one configured endpoint; all of them when null
+     * @param concurrency      Parallel requests per level, in the order probed (default 1, 2, 4, 8)
+     * @param requestsPerLevel Requests sent per level (default twice the highest concurrency, at least 8)
+     * @param maxTokens        Answer cap per request (default 256)
+     * @param prompts          Subset of survey, support, intervention, distiller (default all)
+     * @param cachePrompt      Let the server reuse cached prompt prefixes (default false, so every request
+     *                         evaluates its prompt)
+     * @param timeoutSeconds   Per-request timeout (default 300)
+     * @param plateauGain      Smallest throughput gain from one level to the next that still counts as
+     *                         growth (default 0.1)
+     */
+    public record ProbeRequest(String endpoint, List<Integer> concurrency, Integer requestsPerLevel, Integer maxTokens,
+                               List<String> prompts, Boolean cachePrompt, Integer timeoutSeconds, Double plateauGain) {
+    }
+
+    private record Settings(String endpoint, List<Integer> concurrency, int requestsPerLevel, int maxTokens,
+                            List<String> prompts, boolean cachePrompt, Duration timeout, double plateauGain) {
+
+        static Settings of(ProbeRequest request) {
+            ProbeRequest r = request != null ? request : new ProbeRequest(null, null, null, null, null, null, null, null);
+            List<Integer> concurrency = r.concurrency() != null && !r.concurrency().isEmpty()
+                    ? r.concurrency().stream().filter(c -> c > 0).toList() : DEFAULT_CONCURRENCY;
+            if (concurrency.isEmpty()) {
+                throw new IllegalArgumentException("Concurrency levels must be positive");
+            }
+            int highest = concurrency.stream().mapToInt(Integer::intValue).max().orElse(1);
+            return new Settings(
+                    r.endpoint(),
+                    concurrency,
+                    r.requestsPerLevel() != null ? Math.max(1, r.requestsPerLevel()) : Math.max(8, 2 * highest),
+                    r.maxTokens() != null ? r.maxTokens() : 256,
+                    r.prompts() != null && !r.prompts().isEmpty() ? r.prompts() : PROMPTS,
+                    Boolean.TRUE.equals(r.cachePrompt()),
+                    Duration.ofSeconds(r.timeoutSeconds() != null ? r.timeoutSeconds() : 300),
+                    r.plateauGain() != null ? r.plateauGain() : 0.1);
+        }
+    }
+
+    private record ProbePrompt(String name, List<LlmMessage> messages) {
+    }
+
+    /**
+     * One request: times in nanoseconds (-1 time to first token when nothing was generated).
+     */
+    private record Sample(String prompt, long ttftNanos, long latencyNanos, long generationNanos, int tokens,
+                          String error) {
+
+        boolean ok() {
+            return error == null;
+        }
+    }
+
+    public record ProbeReport(List<EndpointReport> endpoints) {
+    }
+
+    /**
+     * @param plateauConcurrency Concurrency where throughput stops growing; null when it still grew at the last level
+     */
+    public record EndpointReport(String url, String model, List<LevelReport> levels, Integer plateauConcurrency) {
+    }
+
+    /**
+     * Results of one concurrency level. Throughput counts generated tokens of successful requests over the
+     * level's wall time; generation speed is the mean per-request rate after the first token.
+     */
+    public record LevelReport(int concurrency, int requests, int errors, String firstError,
+                              double ttftP50Ms, double ttftP90Ms, double ttftP99Ms,
+                              double latencyP50Ms, double latencyP90Ms, double latencyP99Ms,
+                              double tokensPerSecond, double generationTokensPerSecond, double requestsPerSecond) {
+
+        static LevelReport of(int concurrency, List<Sample> samples, long wallNanos) {
+            List<Sample> ok = samples.stream().filter(Sample::ok).toList();
+            List<Long> ttft = ok.stream().map(Sample::ttftNanos).filter(t -> t >= 0).sorted().toList();
+            List<Long> latency = ok.stream().map(Sample::latencyNanos).sorted().toList();
+            double wallSeconds = wallNanos / 1e9;
+            long tokens = ok.stream().mapToLong(Sample::tokens).sum();
+            double generation = ok.stream()
+                    .filter(s -> s.generationNanos() > 0 && s.tokens() > 1)
+                    .mapToDouble(s -> (s.tokens() - 1) / (s.generationNanos() / 1e9))
+                    .average().orElse(0);
+            return new LevelReport(concurrency, samples.size(), samples.size() - ok.size(),
+                    samples.stream().filter(s -> !s.ok()).map(Sample::error).findFirst().orElse(null),
+                    percentileMs(ttft, 0.5), percentileMs(ttft, 0.9), percentileMs(ttft, 0.99),
+                    percentileMs(latency, 0.5), percentileMs(latency, 0.9), percentileMs(latency, 0.99),
+                    tokens / wallSeconds, generation, ok.size() / wallSeconds);
+        }
+
+        private static double percentileMs(List<Long> sortedNanos, double p) {
+            if (sortedNanos.isEmpty()) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sortedNanos.size()) - 1;
+            return TimeUnit.NANOSECONDS.toMicros(sortedNanos.get(Math.max(0, index))) / 1000.0;
+        }
+    }
+}
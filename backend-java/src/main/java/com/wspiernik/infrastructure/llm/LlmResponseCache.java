@@ -0,0 +1,91 @@
+package com.wspiernik.infrastructure.llm;
+
+import com.wspiernik.infrastructure.llm.dto.LlmMessage;
+import io.quarkus.cache.Cache;
+import io.quarkus.cache.CacheName;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Exact-match cache of LLM responses, for prompts that repeat byte for byte across sessions
+ * (the first survey question, fixed farewells and confirmations).
+ * The key is a SHA-256 of model, sampling settings, stop sequences and the whitespace-normalised messages.
+ * Backed by the Caffeine cache {@code llm-responses}: size-bounded W-TinyLFU eviction, TTL and
+ * hit/miss metrics are configured under {@code quarkus.cache.caffeine."llm-responses"}.
+ * Concurrent identical misses share one LLM call; failures are never cached.
+ */
+@ApplicationScoped
+public class LlmResponseCache {
+
+    private static final Logger LOG = Logger.getLogger(LlmResponseCache.class);
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    @Inject
+    @CacheName("llm-responses")
+    Cache cache;
+
+    @Inject
+    LlmModelRouter modelRouter;
+
+    @ConfigProperty(name = "wspiernik.llm.temperature", defaultValue = "0.7")
+    double temperature;
+
+    /**
+     * Return the cached response for the prompt, or make the call and cache its result.
+     * Calls not marked cacheable, and crisis intervention turns, always go to the LLM.
+     */
+    public Uni<String> get(List<LlmMessage> messages, int maxTokens, LlmCallOptions options,
+                           Supplier<Uni<String>> call) {
+        if (!options.cacheable() || options.priority() == LlmPriority.INTERVENTION) {
+            return call.get();
+        }
+        String key = key(messages, maxTokens, options);
+        return cache.getAsync(key, k -> {
+            LOG.debugf("LLM response cache miss: %s", k);
+            return call.get();
+        });
+    }
+
+    private String key(List<LlmMessage> messages, int maxTokens, LlmCallOptions options) {
+        MessageDigest digest = sha256();
+        update(digest, modelRouter.modelFor(options.task()));
+        update(digest, Double.toString(options.temperature() != null ? options.temperature() : temperature));
+        update(digest, Integer.toString(maxTokens));
+        update(digest, String.join("\u0001", options.stop()));
+        update(digest, String.valueOf(options.endMarker()));
+        for (LlmMessage message : messages) {
+            update(digest, message.role());
+            update(digest, normalize(message.content()));
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static String normalize(String content) {
+        return content == null ? "" : WHITESPACE.matcher(content.strip()).replaceAll(" ");
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(value.getBytes(StandardCharsets.UTF_8));
+        // Separator so that ("ab", "c") and ("a", "bc") hash differently
+        digest.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
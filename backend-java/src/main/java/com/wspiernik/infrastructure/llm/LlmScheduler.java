@@ -0,0 +1,185 @@
+package com.wspiernik.infrastructure.llm;
+
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Admission control for calls to the LLM server.
+ * At most {@code parallel-slots} calls per pooled endpoint run at once, matching the servers' parallel decoding slots;
+ * everything else waits in a queue ordered by {@link LlmPriority} (FIFO within a class).
+ * Background classes only start when a slot is free beyond the ones reserved for interactive calls.
+ * A running call is never preempted, so the reserve is what keeps crisis latency flat under background load.
+ */
+@ApplicationScoped
+public class LlmScheduler {
+
+    private static final Logger LOG = Logger.getLogger(LlmScheduler.class);
+
+    @Inject
+    LlmEndpointPool endpointPool;
+
+    @ConfigProperty(name = "wspiernik.llm.parallel-slots", defaultValue = "1")
+    int parallelSlots;
+
+    @ConfigProperty(name = "wspiernik.llm.interactive-reserved-slots", defaultValue = "0")
+    int interactiveReservedSlots;
+
+    private final PriorityQueue<Ticket> waiting = new PriorityQueue<>(
+            Comparator.comparing((Ticket t) -> t.priority).thenComparingLong(t -> t.sequence));
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private int running;
+
+    @PostConstruct
+    void init() {
+        if (parallelSlots < 1) {
+            throw new IllegalStateException("wspiernik.llm.parallel-slots must be at least 1");
+        }
+        LOG.infof("LLM scheduler: %d slot(s), %d reserved for interactive calls",
+                capacity(), Math.min(interactiveReservedSlots, capacity() - 1));
+    }
+
+    /**
+     * Run the call once a slot is available for the given priority.
+     * The slot is released when the call terminates or the subscriber cancels.
+     */
+    public <T> Uni<T> admit(LlmPriority priority, Supplier<Uni<T>> call) {
+        return acquire(priority).onItem().transformToUni(permit ->
+                Uni.createFrom().deferred(call::get)
+                        .onTermination().invoke(permit::release));
+    }
+
+    /**
+     * Streaming variant of {@link #admit}; the slot is held until the stream terminates.
+     */
+    public <T> Multi<T> admitStream(LlmPriority priority, Supplier<Multi<T>> call) {
+        return acquire(priority).onItem().transformToMulti(permit ->
+                Multi.createFrom().deferred(call::get)
+                        .onTermination().invoke(permit::release));
+    }
+
+    /**
+     * Number of calls waiting for a slot.
+     */
+    public synchronized int queueDepth() {
+        return waiting.size();
+    }
+
+    /**
+     * Number of calls currently holding a slot.
+     */
+    public synchronized int runningCalls() {
+        return running;
+    }
+
+    private Uni<Permit> acquire(LlmPriority priority) {
+        return Uni.createFrom().deferred(() -> {
+            Ticket ticket = new Ticket(priority, sequence.getAndIncrement());
+            return Uni.createFrom().<Permit>emitter(emitter -> enqueue(ticket, emitter))
+                    .onCancellation().invoke(() -> cancel(ticket));
+        });
+    }
+
+    private void enqueue(Ticket ticket, UniEmitter<? super Permit> emitter) {
+        boolean admitted;
+        synchronized (this) {
+            if (ticket.cancelled) {
+                return;
+            }
+            ticket.emitter = emitter;
+            Ticket head = waiting.peek();
+            boolean aheadOfQueue = head == null || head.priority.compareTo(ticket.priority) > 0;
+            admitted = aheadOfQueue && hasFreeSlot(ticket.priority);
+            if (admitted) {
+                running++;
+                ticket.granted = true;
+            } else {
+                waiting.add(ticket);
+                LOG.debugf("LLM call queued: priority=%s, queue depth=%d", ticket.priority, waiting.size());
+            }
+        }
+
+        if (admitted) {
+            emitter.complete(ticket.permit);
+        }
+    }
+
+    private void cancel(Ticket ticket) {
+        boolean holdsSlot;
+        synchronized (this) {
+            ticket.cancelled = true;
+            waiting.remove(ticket);
+            holdsSlot = ticket.granted;
+        }
+        // Granted concurrently with the cancellation - hand the slot on
+        if (holdsSlot) {
+            ticket.permit.release();
+        }
+    }
+
+    private boolean hasFreeSlot(LlmPriority priority) {
+        int limit = priority.isBackground()
+                ? Math.max(1, capacity() - interactiveReservedSlots)
+                : capacity();
+        return running < limit;
+    }
+
+    private int capacity() {
+        return parallelSlots * endpointPool.size();
+    }
+
+    private void release() {
+        Ticket next;
+        synchronized (this) {
+            running--;
+            next = waiting.peek();
+            if (next == null || !hasFreeSlot(next.priority)) {
+                return;
+            }
+            waiting.poll();
+            running++;
+            next.granted = true;
+        }
+        next.emitter.complete(next.permit);
+    }
+
+    /**
+     * A held slot; releasing it more than once has no effect.
+     */
+    private final class Permit {
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                LlmScheduler.this.release();
+            }
+        }
+    }
+
+    private final class Ticket {
+        final LlmPriority priority;
+        final long sequence;
+        final Permit permit = new Permit();
+        UniEmitter<? super Permit> emitter;
+        boolean granted;
+        boolean cancelled;
+
+        Ticket(LlmPriority priority, long sequence) {
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.wspiernik.infrastructure.llm;
+
+/**
+ * What an LLM call is for. {@link LlmModelRouter} maps task classes to models, so short
+ * well-specified tasks can run on a small fast model while dialogue stays on Bielik 11B.
+ * Configured per task under {@code wspiernik.llm.task.<config-key>}.
+ */
+public enum LlmTask {
+
+    /** Open-ended support and intervention turns. */
+    DIALOGUE("dialogue"),
+
+    /** Phrasing the next survey question. */
+    SURVEY_QUESTION("survey-question"),
+
+    /** Presenting collected survey answers for confirmation. */
+    CONFIRMATION("confirmation"),
+
+    /** Short closing message of a session. */
+    FAREWELL("farewell"),
+
+    /** Final summary of a crisis intervention. */
+    SUMMARY("summary"),
+
+    /** Facts extraction from a finished conversation transcript. */
+    FACTS_EXTRACTION("facts-extraction"),
+
+    /** Health check ping. */
+    HEALTH_PROBE("health-probe");
+
+    private final String configKey;
+
+    LlmTask(String configKey) {
+        this.configKey = configKey;
+    }
+
+    public String configKey() {
+        return configKey;
+    }
+}
@@ -0,0 +1,199 @@
+package com.wspiernik.infrastructure.llm;
+
+import com.wspiernik.infrastructure.llm.dto.LlmResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.ProcessingException;
+import jakarta.ws.rs.WebApplicationException;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-call LLM metrics for capacity planning, tagged by call site and model:
+ * latency by outcome, queue wait for a slot, time to first token (streamed calls),
+ * prompt and completion tokens, generation speed and errors by cause.
+ * Token counts come from the server's usage report and are estimated when it sends none.
+ * Calls answered from a response cache are not recorded.
+ */
+@ApplicationScoped
+public class LlmTelemetry {
+
+    @Inject
+    MeterRegistry registry;
+
+    @Inject
+    LlmModelRouter modelRouter;
+
+    /**
+     * Start measuring a call about to be made.
+     *
+     * @param promptTokens Estimated size of the prompt sent, used when the server reports no usage
+     */
+    public Call start(LlmCallOptions options, int promptTokens) {
+        return new Call(options.callSite(), modelRouter.modelFor(options.task()), promptTokens);
+    }
+
+    /**
+     * Measurements of one logical call; hedged duplicates and fallbacks count towards it.
+     */
+    public final class Call {
+
+        private final String callSite;
+        private final int estimatedPromptTokens;
+        private final long startNanos = System.nanoTime();
+        private final AtomicInteger estimatedCompletionTokens = new AtomicInteger();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private volatile String model;
+        private volatile long admittedNanos;
+        private volatile long firstTokenNanos;
+        private volatile LlmResponse.Usage usage;
+
+        private Call(String callSite, String model, int estimatedPromptTokens) {
+            this.callSite = callSite;
+            this.model = model;
+            this.estimatedPromptTokens = estimatedPromptTokens;
+        }
+
+        /**
+         * The model a request is being sent to; the last one set is the one that answered.
+         */
+        public void model(String model) {
+            this.model = model;
+        }
+
+        /**
+         * A slot was granted; the time since the start was spent queueing.
+         */
+        public void admitted() {
+            admittedNanos = System.nanoTime();
+            Timer.builder("wspiernik.llm.queue.wait")
+                    .description("Time LLM calls waited for a free server slot")
+                    .tags(tags())
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(admittedNanos - startNanos, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * A streamed fragment arrived.
+         */
+        public void received(String delta) {
+            if (firstTokenNanos == 0) {
+                firstTokenNanos = System.nanoTime();
+                Timer.builder("wspiernik.llm.time.to.first.token")
+                        .description("Time from the start of a streamed LLM call to its first fragment")
+                        .tags(tags())
+                        .publishPercentileHistogram()
+                        .register(registry)
+                        .record(firstTokenNanos - startNanos, TimeUnit.NANOSECONDS);
+            }
+            estimatedCompletionTokens.addAndGet(TokenEstimator.estimate(delta));
+        }
+
+        /**
+         * A complete, unstreamed answer arrived.
+         */
+        public void answered(LlmResponse response) {
+            usage(response.usage());
+            estimatedCompletionTokens.set(TokenEstimator.estimate(response.getContent()));
+        }
+
+        /**
+         * Token usage reported by the server.
+         */
+        public void usage(LlmResponse.Usage usage) {
+            if (usage != null) {
+                this.usage = usage;
+            }
+        }
+
+        public void succeeded() {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            long endNanos = System.nanoTime();
+            recordLatency("success", endNanos);
+
+            int promptTokens = usage != null ? usage.promptTokens() : estimatedPromptTokens;
+            int completionTokens = usage != null ? usage.completionTokens() : estimatedCompletionTokens.get();
+            tokens("prompt").record(promptTokens);
+            tokens("completion").record(completionTokens);
+
+            // Unstreamed calls have no first token, so their speed includes prompt processing
+            long generationStart = firstTokenNanos != 0 ? firstTokenNanos : admittedNanos != 0 ? admittedNanos : startNanos;
+            double seconds = (endNanos - generationStart) / 1e9;
+            if (completionTokens > 0 && seconds > 0) {
+                DistributionSummary.builder("wspiernik.llm.tokens.per.second")
+                        .description("LLM generation speed in completion tokens per second")
+                        .tags(tags())
+                        .register(registry)
+                        .record(completionTokens / seconds);
+            }
+        }
+
+        public void failed(Throwable failure) {
+            if (!finished.compareAndSet(false, true)) {
+                return;
+            }
+            recordLatency("error", System.nanoTime());
+            Counter.builder("wspiernik.llm.errors")
+                    .description("Failed LLM calls by cause")
+                    .tags(tags().and("cause", cause(failure)))
+                    .register(registry)
+                    .increment();
+        }
+
+        /**
+         * The caller stopped waiting: the deadline passed or the session ended.
+         */
+        public void cancelled() {
+            if (finished.compareAndSet(false, true)) {
+                recordLatency("cancelled", System.nanoTime());
+            }
+        }
+
+        private void recordLatency(String outcome, long endNanos) {
+            Timer.builder("wspiernik.llm.call.duration")
+                    .description("End-to-end LLM call latency, queueing included")
+                    .tags(tags().and("outcome", outcome))
+                    .publishPercentileHistogram()
+                    .register(registry)
+                    .record(endNanos - startNanos, TimeUnit.NANOSECONDS);
+        }
+
+        private DistributionSummary tokens(String type) {
+            return DistributionSummary.builder("wspiernik.llm.tokens")
+                    .description("Tokens per LLM call")
+                    .baseUnit("tokens")
+                    .tags(tags().and("type", type))
+                    .register(registry);
+        }
+
+        private Tags tags() {
+            return Tags.of("call_site", callSite, "model", model);
+        }
+    }
+
+    private static String cause(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof LlmException llm && llm.reason() != LlmException.Reason.OTHER) {
+                return llm.reason().name().toLowerCase();
+            }
+            if (t instanceof WebApplicationException wae) {
+                return wae.getResponse().getStatus() >= 500 ? "server_error" : "client_error";
+            }
+            if (t instanceof ProcessingException || t instanceof IOException) {
+                return "transport";
+            }
+        }
+        return "other";
+    }
+}
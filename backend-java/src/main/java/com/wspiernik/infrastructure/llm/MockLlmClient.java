@@ -1,53 +1,408 @@
 package com.wspiernik.infrastructure.llm;
 
 import com.wspiernik.infrastructure.llm.dto.LlmMessage;
+import com.wspiernik.infrastructure.llm.dto.LlmResponse;
 import io.quarkus.arc.profile.IfBuildProfile;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.smallrye.mutiny.subscription.UniEmitter;
+import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Alternative;
+import jakarta.inject.Inject;
+import jakarta.ws.rs.WebApplicationException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
- * Mock LLM client for development/testing when no real LLM is available.
- * Activated with: quarkus.profile=mock-llm or -Dquarkus.profile=mock-llm
- *
- * To use: add to application.properties:
- *   %dev.quarkus.arc.selected-alternatives=com.wspiernik.infrastructure.llm.MockLlmClient
+ * Mock LLM client for development and for capacity and resilience testing when no real LLM is available.
+ * Answers are keyword-matched canned texts (a JSON fact list for facts extraction), delivered like a server would:
+ * <ul>
+ *   <li>prompt processing takes a latency drawn from a fixed, lognormal or percentile distribution,</li>
+ *   <li>generation then takes time proportional to the answer length at {@code tokens-per-second},</li>
+ *   <li>at most {@code slots} calls are served at once, the rest queue in arrival order,</li>
+ *   <li>a fraction of calls stall, fail with a 5xx, answer empty or, on the facts path, return truncated JSON.</li>
+ * </ul>
+ * Calls are recorded in the regular LLM metrics. The defaults answer instantly without faults.
+ * Activated with: quarkus.profile=mock-llm or -Dquarkus.profile=mock-llm, and always in tests
  */
 @Alternative
 @ApplicationScoped
-@IfBuildProfile("mock-llm")
+@IfBuildProfile(anyOf = {"mock-llm", "test"})
 public class MockLlmClient implements LlmClient {
 
     private static final Logger LOG = Logger.getLogger(MockLlmClient.class);
 
-    @Override
-    public String generate(String systemPrompt, String userMessage) {
-        LOG.infof("MockLLM - System: %s...", systemPrompt.substring(0, Math.min(50, systemPrompt.length())));
-        LOG.infof("MockLLM - User: %s", userMessage);
+    private static final String FILLER = " Pamiętaj, że nie jesteś w tym sam i możesz prosić innych o pomoc.";
+
+    /**
+     * Facts reported when the transcript mentions the keyword.
+     */
+    private static final Map<String, String> FACTS = new LinkedHashMap<>();
 
-        return generateMockResponse(userMessage);
+    static {
+        FACTS.put("alzheimer", "{\"tags\":[\"medical_condition\",\"ward\"],\"value\":\"Podopieczny choruje na Alzheimera\"}");
+        FACTS.put("cukrzyc", "{\"tags\":[\"medical_condition\",\"ward\"],\"value\":\"Podopieczny choruje na cukrzycę\"}");
+        FACTS.put("lek", "{\"tags\":[\"medical_condition\",\"ward\"],\"value\":\"Podopieczny przyjmuje leki na stałe\"}");
+        FACTS.put("upad", "{\"tags\":[\"daily_functioning\",\"ward\"],\"value\":\"Podopieczny upada\"}");
+        FACTS.put("mieszka", "{\"tags\":[\"living_situation\"],\"value\":\"Opiekun mieszka z podopiecznym\"}");
+        FACTS.put("zmęcz", "{\"tags\":[\"caregiver_situation\",\"caregiver\"],\"value\":\"Opiekun jest zmęczony opieką\"}");
+    }
+
+    @Inject
+    LlmTelemetry telemetry;
+
+    @ConfigProperty(name = "wspiernik.llm.mock.latency.distribution", defaultValue = "fixed")
+    String latencyDistribution;
+
+    @ConfigProperty(name = "wspiernik.llm.mock.latency.fixed", defaultValue = "0ms")
+    Duration fixedLatency;
+
+    @ConfigProperty(name = "wspiernik.llm.mock.latency.median", defaultValue = "800ms")
+    Duration medianLatency;
+
+    @ConfigProperty(name = "wspiernik.llm.mock.latency.sigma", defaultValue = "0.5")
+    double latencySigma;
+
+    @ConfigProperty(name = "wspiernik.llm.mock.latency.percentiles", defaultValue = "50=600,90=1500,99=4000")
+    List<String> latencyPercentiles;
+
+    @ConfigProperty(name = "wspiernik.llm.mock.tokens-per-second", defaultValue = "0")
+    double tokensPerSecond;
+
+    @ConfigProperty(name = "wspiernik.llm.mock.answer-tokens", defaultValue = "0")
+    int answerTokens;
+
+    @ConfigProperty(name = "wspiernik.llm.mock.slots", defaultValue = "0")
+    int slots;
+
+    @ConfigProperty(name = "wspiernik.llm.mock.fault.timeout-rate", defaultValue = "0")
+    double timeoutRate;
+
+    @ConfigProperty(name = "wspiernik.llm.mock.fault.timeout-after", defaultValue = "120s")
+    Duration timeoutAfter;
+
+    @ConfigProperty(name = "wspiernik.llm.mock.fault.server-error-rate", defaultValue = "0")
+    double serverErrorRate;
+
+    @ConfigProperty(name = "wspiernik.llm.mock.fault.empty-rate", defaultValue = "0")
+    double emptyRate;
+
+    @ConfigProperty(name = "wspiernik.llm.mock.fault.invalid-json-rate", defaultValue = "0")
+    double invalidJsonRate;
+
+    /**
+     * {percentile, milliseconds} pairs in ascending order.
+     */
+    private double[][] percentiles;
+
+    private final Deque<Slot> waiting = new ArrayDeque<>();
+
+    private int busy;
+
+    @PostConstruct
+    void init() {
+        if (!List.of("fixed", "lognormal", "percentiles").contains(latencyDistribution)) {
+            throw new IllegalStateException("wspiernik.llm.mock.latency.distribution must be fixed, lognormal or percentiles");
+        }
+        percentiles = latencyPercentiles.stream()
+                .map(point -> point.trim().split("="))
+                .map(point -> new double[]{Double.parseDouble(point[0]), Double.parseDouble(point[1])})
+                .sorted(Comparator.comparingDouble(point -> point[0]))
+                .toArray(double[][]::new);
+        LOG.infof("Mock LLM: %s latency, %s tokens/s, %s slot(s), faults: timeout=%.3f 5xx=%.3f empty=%.3f invalid-json=%.3f",
+                latencyDistribution, tokensPerSecond > 0 ? tokensPerSecond : "unlimited",
+                slots > 0 ? slots : "unlimited", timeoutRate, serverErrorRate, emptyRate, invalidJsonRate);
+    }
+
+    @Override
+    public Uni<String> generateAsync(List<LlmMessage> messages, LlmCallOptions options) {
+        return Uni.createFrom().deferred(() -> {
+                    Simulation simulation = simulate(messages, options);
+                    LlmTelemetry.Call metrics = telemetry.start(options, simulation.promptTokens());
+                    return inSlot(() -> {
+                                metrics.admitted();
+                                return promptProcessed(simulation)
+                                        .chain(() -> after(generationMillis(simulation.answer()), simulation.answer()));
+                            })
+                            .map(answer -> {
+                                if (answer.isBlank()) {
+                                    throw new LlmException(LlmException.Reason.EMPTY_RESPONSE, "LLM returned empty content");
+                                }
+                                return answer;
+                            })
+                            .invoke(answer -> {
+                                metrics.usage(simulation.usage());
+                                metrics.succeeded();
+                            })
+                            .onFailure().invoke(metrics::failed)
+                            .onCancellation().invoke(metrics::cancelled);
+                })
+                .plug(options::bound)
+                .emitOn(Infrastructure.getDefaultWorkerPool());
     }
 
     @Override
-    public String generateWithContext(String systemPrompt, String userMessage, List<LlmMessage> history) {
-        LOG.infof("MockLLM - With %d history messages", history != null ? history.size() : 0);
-        return generate(systemPrompt, userMessage);
+    public Multi<String> streamAsync(List<LlmMessage> messages, LlmCallOptions options) {
+        return Multi.createFrom().deferred(() -> {
+            Simulation simulation = simulate(messages, options);
+            LlmTelemetry.Call metrics = telemetry.start(options, simulation.promptTokens());
+            return inSlotStream(() -> {
+                        metrics.admitted();
+                        return promptProcessed(simulation).onItem().transformToMulti(ignored ->
+                                Multi.createFrom().iterable(words(simulation.answer()))
+                                        .onItem().transformToUniAndConcatenate(word -> after(generationMillis(word), word)));
+                    })
+                    .invoke(metrics::received)
+                    .onFailure().invoke(metrics::failed)
+                    .onCompletion().invoke(() -> {
+                        metrics.usage(simulation.usage());
+                        metrics.succeeded();
+                    })
+                    .onCancellation().invoke(metrics::cancelled);
+        }).emitOn(Infrastructure.getDefaultWorkerPool());
     }
 
     @Override
-    public String generateWithHistory(List<LlmMessage> messages) {
-        String lastUserMessage = messages.stream()
+    public Uni<String> generateStreamingAsync(List<LlmMessage> messages, LlmCallOptions options,
+                                              Function<String, Uni<Void>> onDelta) {
+        return LlmClient.super.generateStreamingAsync(messages, options, onDelta)
+                .plug(options::bound);
+    }
+
+    /**
+     * Decide up front how the call will go: the answer, the prompt latency and any fault.
+     */
+    private Simulation simulate(List<LlmMessage> messages, LlmCallOptions options) {
+        boolean facts = options.task() == LlmTask.FACTS_EXTRACTION;
+        String answer = facts ? generateMockFacts(messages) : pad(generateMockResponse(lastUserMessage(messages)), options);
+
+        double roll = ThreadLocalRandom.current().nextDouble();
+        Fault fault = roll < timeoutRate ? Fault.TIMEOUT
+                : roll < timeoutRate + serverErrorRate ? Fault.SERVER_ERROR
+                : roll < timeoutRate + serverErrorRate + emptyRate ? Fault.EMPTY
+                : Fault.NONE;
+        if (fault == Fault.EMPTY) {
+            answer = "";
+        } else if (facts && ThreadLocalRandom.current().nextDouble() < invalidJsonRate) {
+            // Cut off mid-array, like an answer hitting the token cap
+            answer = answer.substring(0, answer.length() / 2);
+        }
+        if (fault != Fault.NONE) {
+            LOG.debugf("MockLLM - Injecting %s into %s call", fault, options.task());
+        }
+        return new Simulation(answer, TokenEstimator.estimate(messages), sampleLatencyMillis(), fault);
+    }
+
+    /**
+     * Completes once the prompt is processed, or fails with the injected fault.
+     * A stalled call holds its slot until {@code timeout-after}, unless the caller's deadline passes first.
+     */
+    private Uni<Void> promptProcessed(Simulation simulation) {
+        return switch (simulation.fault()) {
+            case TIMEOUT -> after(timeoutAfter.toMillis(), (Void) null).onItem().failWith(() ->
+                    new LlmException(LlmException.Reason.TIMEOUT, "Simulated LLM stall of " + timeoutAfter.toMillis() + " ms"));
+            case SERVER_ERROR -> after(simulation.latencyMillis(), (Void) null).onItem().failWith(() ->
+                    new LlmException("Simulated LLM server error", new WebApplicationException(503)));
+            default -> after(simulation.latencyMillis(), (Void) null);
+        };
+    }
+
+    private long sampleLatencyMillis() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return switch (latencyDistribution) {
+            case "lognormal" -> Math.round(medianLatency.toMillis() * Math.exp(latencySigma * random.nextGaussian()));
+            case "percentiles" -> Math.round(percentile(random.nextDouble() * 100));
+            default -> fixedLatency.toMillis();
+        };
+    }
+
+    /**
+     * Latency at the given percentile, interpolated linearly between the configured points
+     * and clamped to the lowest and highest of them.
+     */
+    private double percentile(double p) {
+        if (p <= percentiles[0][0]) {
+            return percentiles[0][1];
+        }
+        for (int i = 1; i < percentiles.length; i++) {
+            double[] low = percentiles[i - 1];
+            double[] high = percentiles[i];
+            if (p <= high[0]) {
+                return low[1] + (high[1] - low[1]) * (p - low[0]) / (high[0] - low[0]);
+            }
+        }
+        return percentiles[percentiles.length - 1][1];
+    }
+
+    private long generationMillis(String text) {
+        return tokensPerSecond > 0 ? Math.round(TokenEstimator.estimate(text) * 1000 / tokensPerSecond) : 0;
+    }
+
+    /**
+     * The item after the given delay, or right away when there is none.
+     */
+    private static <T> Uni<T> after(long millis, T item) {
+        Uni<T> uni = Uni.createFrom().item(item);
+        return millis > 0 ? uni.onItem().delayIt().by(Duration.ofMillis(millis)) : uni;
+    }
+
+    /**
+     * Lengthen the answer to {@code answer-tokens}, within the call's token cap, so generation
+     * time and payload size match real answers.
+     */
+    private String pad(String answer, LlmCallOptions options) {
+        int target = options.maxTokens() != null ? Math.min(answerTokens, options.maxTokens()) : answerTokens;
+        StringBuilder padded = new StringBuilder(answer);
+        while (TokenEstimator.estimate(padded.toString()) < target) {
+            padded.append(FILLER);
+        }
+        return padded.toString();
+    }
+
+    /**
+     * Streamed fragments: one word each, with the whitespace that follows it.
+     */
+    private static List<String> words(String answer) {
+        return answer.isEmpty() ? List.of() : Arrays.asList(answer.split("(?<=\\s)(?=\\S)"));
+    }
+
+    // =========================================================================
+    // Parallel slots
+    // =========================================================================
+
+    private <T> Uni<T> inSlot(Supplier<Uni<T>> work) {
+        return acquireSlot().onItem().transformToUni(slot ->
+                Uni.createFrom().deferred(work::get).onTermination().invoke(slot::release));
+    }
+
+    private <T> Multi<T> inSlotStream(Supplier<Multi<T>> work) {
+        return acquireSlot().onItem().transformToMulti(slot ->
+                Multi.createFrom().deferred(work::get).onTermination().invoke(slot::release));
+    }
+
+    private Uni<Slot> acquireSlot() {
+        return Uni.createFrom().deferred(() -> {
+            Slot slot = new Slot();
+            return Uni.createFrom().<Slot>emitter(emitter -> enqueue(slot, emitter))
+                    .onCancellation().invoke(() -> abandon(slot));
+        });
+    }
+
+    private void enqueue(Slot slot, UniEmitter<? super Slot> emitter) {
+        synchronized (this) {
+            if (slot.cancelled) {
+                return;
+            }
+            slot.emitter = emitter;
+            if (slots > 0 && busy >= slots) {
+                waiting.add(slot);
+                LOG.debugf("MockLLM - Call queued, queue depth=%d", waiting.size());
+                return;
+            }
+            busy++;
+            slot.granted = true;
+        }
+        emitter.complete(slot);
+    }
+
+    private void abandon(Slot slot) {
+        boolean holdsSlot;
+        synchronized (this) {
+            slot.cancelled = true;
+            waiting.remove(slot);
+            holdsSlot = slot.granted;
+        }
+        if (holdsSlot) {
+            slot.release();
+        }
+    }
+
+    private void releaseSlot() {
+        Slot next;
+        synchronized (this) {
+            busy--;
+            next = waiting.poll();
+            if (next == null) {
+                return;
+            }
+            busy++;
+            next.granted = true;
+        }
+        next.emitter.complete(next);
+    }
+
+    private final class Slot {
+        private final AtomicBoolean released = new AtomicBoolean();
+        UniEmitter<? super Slot> emitter;
+        boolean granted;
+        boolean cancelled;
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                releaseSlot();
+            }
+        }
+    }
+
+    private enum Fault {
+        NONE, TIMEOUT, SERVER_ERROR, EMPTY
+    }
+
+    /**
+     * The planned course of one call.
+     */
+    private record Simulation(String answer, int promptTokens, long latencyMillis, Fault fault) {
+
+        LlmResponse.Usage usage() {
+            int completionTokens = TokenEstimator.estimate(answer);
+            return new LlmResponse.Usage(promptTokens, completionTokens, promptTokens + completionTokens);
+        }
+    }
+
+    // =========================================================================
+    // Canned answers
+    // =========================================================================
+
+    private static String lastUserMessage(List<LlmMessage> messages) {
+        return messages.stream()
                 .filter(m -> "user".equals(m.role()))
                 .reduce((a, b) -> b)
                 .map(LlmMessage::content)
                 .orElse("(no user message)");
+    }
 
-        return generateMockResponse(lastUserMessage);
+    /**
+     * JSON array of the facts whose keywords the transcript mentions.
+     */
+    private static String generateMockFacts(List<LlmMessage> messages) {
+        String prompt = lastUserMessage(messages);
+        // Only the transcript part of the distiller prompt; its examples mention every keyword
+        int start = prompt.indexOf("Rozmowa:");
+        int end = prompt.indexOf("Znane fakty:");
+        String transcript = (start >= 0 && end > start ? prompt.substring(start, end) : prompt).toLowerCase();
+        return FACTS.entrySet().stream()
+                .filter(fact -> transcript.contains(fact.getKey()))
+                .map(Map.Entry::getValue)
+                .collect(Collectors.joining(",", "[", "]"));
     }
 
-    private String generateMockResponse(String userMessage) {
+    private static String generateMockResponse(String userMessage) {
         String lowerMessage = userMessage.toLowerCase();
 
         // Survey responses
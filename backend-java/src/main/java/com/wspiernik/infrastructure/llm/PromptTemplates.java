@@ -219,7 +219,7 @@ public class PromptTemplates {
 
         return GENERIC_INTERVENTION_PROMPT_TEMPLATE
                 .replace("{facts_context}", factsContext)
-                .replace("{situation_description}", situationDescription);
+                .replace("{situation_description}", situationDescription != null ? situationDescription : "");
     }
 
     /**
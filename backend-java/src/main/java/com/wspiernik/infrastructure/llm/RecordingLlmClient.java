@@ -0,0 +1,88 @@
+package com.wspiernik.infrastructure.llm;
+
+import com.wspiernik.infrastructure.llm.dto.LlmMessage;
+import io.quarkus.arc.profile.IfBuildProfile;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Alternative;
+import jakarta.inject.Inject;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Passes every call to {@link BielnikClient} and records the answer with its latency in the
+ * {@link LlmCassette}, for later offline runs with {@link ReplayLlmClient}.
+ * Failed and cancelled calls are not recorded.
+ * Activated with: -Dquarkus.profile=llm-record
+ */
+@Alternative
+@ApplicationScoped
+@IfBuildProfile("llm-record")
+public class RecordingLlmClient implements LlmClient {
+
+    @Inject
+    BielnikClient delegate;
+
+    @Inject
+    LlmCassette cassette;
+
+    @Override
+    public Uni<String> generateAsync(List<LlmMessage> messages, LlmCallOptions options) {
+        return Uni.createFrom().deferred(() -> {
+            long start = System.nanoTime();
+            return delegate.generateAsync(messages, options)
+                    .invoke(response -> record(messages, options, response, start, 0));
+        });
+    }
+
+    @Override
+    public Multi<String> streamAsync(List<LlmMessage> messages, LlmCallOptions options) {
+        return Multi.createFrom().deferred(() -> {
+            long start = System.nanoTime();
+            AtomicLong firstToken = new AtomicLong();
+            StringBuilder response = new StringBuilder();
+            return delegate.streamAsync(messages, options)
+                    .invoke(delta -> {
+                        firstToken.compareAndSet(0, System.nanoTime());
+                        response.append(delta);
+                    })
+                    .onCompletion().invoke(() ->
+                            record(messages, options, response.toString(), start, firstToken.get()));
+        });
+    }
+
+    @Override
+    public Uni<String> generateStreamingAsync(List<LlmMessage> messages, LlmCallOptions options,
+                                              Function<String, Uni<Void>> onDelta) {
+        // Through the delegate's own method, which also enforces the deadline
+        return Uni.createFrom().deferred(() -> {
+            long start = System.nanoTime();
+            AtomicLong firstToken = new AtomicLong();
+            return delegate.generateStreamingAsync(messages, options, delta -> {
+                        firstToken.compareAndSet(0, System.nanoTime());
+                        return onDelta.apply(delta);
+                    })
+                    .invoke(response -> record(messages, options, response, start, firstToken.get()));
+        });
+    }
+
+    @Override
+    public Uni<Void> prewarm(List<LlmMessage> messages, LlmCallOptions options) {
+        return delegate.prewarm(messages, options);
+    }
+
+    private void record(List<LlmMessage> messages, LlmCallOptions options, String response,
+                        long startNanos, long firstTokenNanos) {
+        cassette.record(new LlmCassette.Entry(
+                cassette.key(messages, options),
+                options.task(),
+                options.callSite(),
+                response,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos),
+                firstTokenNanos != 0 ? TimeUnit.NANOSECONDS.toMillis(firstTokenNanos - startNanos) : null));
+    }
+}
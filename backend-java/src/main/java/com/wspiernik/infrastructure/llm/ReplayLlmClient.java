@@ -0,0 +1,111 @@
+package com.wspiernik.infrastructure.llm;
+
+import com.wspiernik.infrastructure.llm.dto.LlmMessage;
+import io.quarkus.arc.profile.IfBuildProfile;
+import io.smallrye.mutiny.Multi;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Alternative;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * Serves answers recorded by {@link RecordingLlmClient} from the {@link LlmCassette}, so the
+ * WebSocket and database path can be load tested offline with realistic answer sizes.
+ * With {@code simulate-latency} the recorded time to first token and total latency are reproduced
+ * (scaled by {@code latency-factor}); streamed answers are split into fragments spread over that time.
+ * Requests never recorded get another answer recorded for the same task, or fail with {@code on-miss=fail}.
+ * Activated with: -Dquarkus.profile=llm-replay
+ */
+@Alternative
+@ApplicationScoped
+@IfBuildProfile("llm-replay")
+public class ReplayLlmClient implements LlmClient {
+
+    private static final Logger LOG = Logger.getLogger(ReplayLlmClient.class);
+    private static final int FRAGMENT_CHARS = 16;
+
+    @Inject
+    LlmCassette cassette;
+
+    @ConfigProperty(name = "wspiernik.llm.cassette.simulate-latency", defaultValue = "true")
+    boolean simulateLatency;
+
+    @ConfigProperty(name = "wspiernik.llm.cassette.latency-factor", defaultValue = "1.0")
+    double latencyFactor;
+
+    @ConfigProperty(name = "wspiernik.llm.cassette.on-miss", defaultValue = "task")
+    String onMiss;
+
+    @PostConstruct
+    void init() {
+        cassette.load();
+    }
+
+    @Override
+    public Uni<String> generateAsync(List<LlmMessage> messages, LlmCallOptions options) {
+        return Uni.createFrom().deferred(() -> {
+                    LlmCassette.Entry entry = lookup(messages, options);
+                    return after(entry.latencyMs(), entry.response());
+                })
+                .plug(options::bound)
+                .emitOn(Infrastructure.getDefaultWorkerPool());
+    }
+
+    @Override
+    public Multi<String> streamAsync(List<LlmMessage> messages, LlmCallOptions options) {
+        return Multi.createFrom().deferred(() -> {
+            LlmCassette.Entry entry = lookup(messages, options);
+            List<String> fragments = fragments(entry.response());
+            long firstTokenMs = entry.firstTokenMs() != null ? entry.firstTokenMs() : entry.latencyMs();
+            long gapMs = (entry.latencyMs() - firstTokenMs) / Math.max(1, fragments.size() - 1);
+            return Multi.createFrom().range(0, fragments.size())
+                    .onItem().transformToUniAndConcatenate(i -> after(i == 0 ? firstTokenMs : gapMs, fragments.get(i)));
+        }).emitOn(Infrastructure.getDefaultWorkerPool());
+    }
+
+    @Override
+    public Uni<String> generateStreamingAsync(List<LlmMessage> messages, LlmCallOptions options,
+                                              Function<String, Uni<Void>> onDelta) {
+        return LlmClient.super.generateStreamingAsync(messages, options, onDelta)
+                .plug(options::bound);
+    }
+
+    private LlmCassette.Entry lookup(List<LlmMessage> messages, LlmCallOptions options) {
+        return cassette.find(cassette.key(messages, options))
+                .or(() -> {
+                    if ("fail".equals(onMiss)) {
+                        return Optional.empty();
+                    }
+                    LOG.debugf("No recording for this %s request, replaying another one", options.task());
+                    return cassette.findForTask(options.task());
+                })
+                .orElseThrow(() -> new LlmException("No recorded LLM answer for this " + options.task() + " request"));
+    }
+
+    /**
+     * The item after the recorded delay, scaled, or right away when latency is not simulated.
+     */
+    private <T> Uni<T> after(long recordedMs, T item) {
+        long millis = simulateLatency ? Math.round(recordedMs * latencyFactor) : 0;
+        Uni<T> uni = Uni.createFrom().item(item);
+        return millis > 0 ? uni.onItem().delayIt().by(Duration.ofMillis(millis)) : uni;
+    }
+
+    private static List<String> fragments(String response) {
+        List<String> fragments = new ArrayList<>();
+        for (int i = 0; i < response.length(); i += FRAGMENT_CHARS) {
+            fragments.add(response.substring(i, Math.min(response.length(), i + FRAGMENT_CHARS)));
+        }
+        return fragments;
+    }
+}
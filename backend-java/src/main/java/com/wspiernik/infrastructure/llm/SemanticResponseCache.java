@@ -0,0 +1,267 @@
+package com.wspiernik.infrastructure.llm;
+
+import com.wspiernik.infrastructure.llm.dto.EmbeddingRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.rest.client.reactive.QuarkusRestClientBuilder;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Semantic cache of answers to caregivers' standalone questions ("jak uspokoić mamę wieczorem").
+ * The question is embedded through an OpenAI-compatible {@code /v1/embeddings} endpoint and
+ * compared by cosine similarity with earlier questions asked under the same scope (e.g. the
+ * conversation mode and its prompt template). Only answers the caller marks as shareable are
+ * stored, so nothing written for one caregiver's context is served to another.
+ * Above {@code wspiernik.llm.semantic-cache.threshold} the earlier answer is reused.
+ * The index is an exact in-memory scan, which is fast enough for a few thousand entries;
+ * entries expire after a TTL and the least recently used one is evicted when full.
+ * If the embedding endpoint is unavailable the answer is simply generated.
+ */
+@ApplicationScoped
+public class SemanticResponseCache {
+
+    private static final Logger LOG = Logger.getLogger(SemanticResponseCache.class);
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "wspiernik.llm.semantic-cache.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "wspiernik.llm.base-url")
+    String baseUrl;
+
+    @ConfigProperty(name = "wspiernik.llm.semantic-cache.embedding-url")
+    Optional<String> embeddingUrl;
+
+    @ConfigProperty(name = "wspiernik.llm.semantic-cache.embedding-model", defaultValue = "embedding")
+    String embeddingModel;
+
+    @ConfigProperty(name = "wspiernik.llm.semantic-cache.embedding-timeout", defaultValue = "2s")
+    Duration embeddingTimeout;
+
+    @ConfigProperty(name = "wspiernik.llm.semantic-cache.threshold", defaultValue = "0.92")
+    double threshold;
+
+    @ConfigProperty(name = "wspiernik.llm.semantic-cache.max-entries", defaultValue = "500")
+    int maxEntries;
+
+    @ConfigProperty(name = "wspiernik.llm.semantic-cache.ttl", defaultValue = "24H")
+    Duration ttl;
+
+    private BielnikApi embeddingApi;
+    private final List<Entry> entries = new ArrayList<>();
+
+    private Counter hits;
+    private Counter misses;
+    private Counter errors;
+    private DistributionSummary similarity;
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        String url = embeddingUrl.orElse(baseUrl);
+        embeddingApi = QuarkusRestClientBuilder.newBuilder()
+                .baseUri(URI.create(url))
+                .build(BielnikApi.class);
+
+        hits = lookupCounter("hit");
+        misses = lookupCounter("miss");
+        errors = lookupCounter("error");
+        similarity = DistributionSummary.builder("wspiernik.llm.semantic-cache.similarity")
+                .description("Cosine similarity of the nearest cached question, for tuning the threshold")
+                .register(registry);
+        Gauge.builder("wspiernik.llm.semantic-cache.entries", this, SemanticResponseCache::size)
+                .description("Answers held in the semantic cache")
+                .register(registry);
+        LOG.infof("Semantic response cache enabled: embeddings from %s, threshold %.2f", url, threshold);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Reuse the answer to a similar earlier question in the scope, or generate a new one and, if shareable,
+     * remember it. A reused answer is passed to onHit (may be null) first, e.g. to stream it as a single delta.
+     * The result is delivered on a worker thread either way.
+     */
+    public Uni<String> get(String scope, String question, boolean shareable, Supplier<Uni<String>> generate,
+                           Function<String, Uni<Void>> onHit) {
+        if (!enabled) {
+            return generate.get();
+        }
+        UUID scopeId = UUID.nameUUIDFromBytes(scope.getBytes(StandardCharsets.UTF_8));
+
+        return embed(question)
+                .onItem().transformToUni(vector -> {
+                    if (vector == null) {
+                        return generate.get();
+                    }
+                    Entry match = nearest(scopeId, vector);
+                    if (match != null) {
+                        return onHit != null
+                                ? onHit.apply(match.answer).replaceWith(match.answer)
+                                : Uni.createFrom().item(match.answer);
+                    }
+                    if (!shareable) {
+                        return generate.get();
+                    }
+                    return generate.get()
+                            .invoke(text -> store(new Entry(scopeId, question, vector, text)));
+                })
+                .emitOn(Infrastructure.getDefaultWorkerPool());
+    }
+
+    /**
+     * Hit statistics of the cached entries, most used first.
+     */
+    public List<EntryStats> entries() {
+        synchronized (entries) {
+            return entries.stream()
+                    .map(e -> new EntryStats(e.question, e.hits, e.createdAt, e.lastUsedAt))
+                    .sorted(Comparator.comparingLong(EntryStats::hits).reversed())
+                    .toList();
+        }
+    }
+
+    private int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    /**
+     * Normalised embedding of the text, or null when the embedding endpoint fails.
+     */
+    private Uni<float[]> embed(String text) {
+        return embeddingApi.embeddings(new EmbeddingRequest(embeddingModel, text))
+                .ifNoItem().after(embeddingTimeout).fail()
+                .map(response -> normalize(response.getVector()))
+                .onFailure().recoverWithItem(e -> {
+                    errors.increment();
+                    LOG.warnf("Embedding failed, skipping semantic cache: %s", e.getMessage());
+                    return null;
+                });
+    }
+
+    private Entry nearest(UUID scopeId, float[] vector) {
+        Instant now = Instant.now();
+        Entry best = null;
+        double bestSimilarity = -1;
+        synchronized (entries) {
+            entries.removeIf(e -> e.createdAt.plus(ttl).isBefore(now));
+            for (Entry entry : entries) {
+                if (!entry.scopeId.equals(scopeId) || entry.vector.length != vector.length) {
+                    continue;
+                }
+                double s = dot(entry.vector, vector);
+                if (s > bestSimilarity) {
+                    bestSimilarity = s;
+                    best = entry;
+                }
+            }
+            if (best != null) {
+                similarity.record(bestSimilarity);
+            }
+            if (best == null || bestSimilarity < threshold) {
+                misses.increment();
+                return null;
+            }
+            best.hits++;
+            best.lastUsedAt = now;
+        }
+        hits.increment();
+        LOG.debugf("Semantic cache hit (similarity %.3f, %d hits): %s", bestSimilarity, best.hits, best.question);
+        return best;
+    }
+
+    private void store(Entry entry) {
+        if (entry.answer == null || entry.answer.isBlank()) {
+            return;
+        }
+        synchronized (entries) {
+            if (entries.size() >= maxEntries) {
+                entries.stream()
+                        .min(Comparator.comparing((Entry e) -> e.lastUsedAt))
+                        .ifPresent(entries::remove);
+            }
+            entries.add(entry);
+        }
+    }
+
+    private Counter lookupCounter(String result) {
+        return Counter.builder("wspiernik.llm.semantic-cache.lookups")
+                .description("Semantic cache lookups by outcome")
+                .tag("result", result)
+                .register(registry);
+    }
+
+    private static float[] normalize(float[] vector) {
+        if (vector == null || vector.length == 0) {
+            return null;
+        }
+        double norm = Math.sqrt(dot(vector, vector));
+        if (norm == 0) {
+            return null;
+        }
+        float[] unit = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            unit[i] = (float) (vector[i] / norm);
+        }
+        return unit;
+    }
+
+    private static double dot(float[] a, float[] b) {
+        double sum = 0;
+        for (int i = 0; i < a.length; i++) {
+            sum += a[i] * b[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Usage of one cached answer.
+     */
+    public record EntryStats(String question, long hits, Instant createdAt, Instant lastUsedAt) {
+    }
+
+    private static final class Entry {
+        final UUID scopeId;
+        final String question;
+        final float[] vector;
+        final String answer;
+        final Instant createdAt = Instant.now();
+        Instant lastUsedAt = createdAt;
+        long hits;
+
+        Entry(UUID scopeId, String question, float[] vector, String answer) {
+            this.scopeId = scopeId;
+            this.question = question;
+            this.vector = vector;
+            this.answer = answer;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.wspiernik.infrastructure.llm;
+
+import com.wspiernik.infrastructure.llm.dto.LlmMessage;
+
+import java.util.List;
+
+/**
+ * Cheap token count approximation for Bielik-style SentencePiece vocabularies, without loading a tokenizer.
+ * Polish words split into more pieces than English ones - roughly one token per three letters -
+ * and letters with diacritics (ą, ę, ś, ż...) often cost a piece of their own. Punctuation and
+ * symbols count as one token each. Errs on the high side so a trimmed prompt still fits.
+ */
+public final class TokenEstimator {
+
+    private static final int CHARS_PER_TOKEN = 3;
+
+    /** Role markers and separators the chat template adds around every message. */
+    static final int MESSAGE_OVERHEAD = 4;
+
+    /** Tokens priming the assistant's reply. */
+    static final int REPLY_PRIMING = 3;
+
+    private TokenEstimator() {
+    }
+
+    /**
+     * Estimated tokens of a whole chat prompt.
+     */
+    public static int estimate(List<LlmMessage> messages) {
+        int tokens = REPLY_PRIMING;
+        for (LlmMessage message : messages) {
+            tokens += estimate(message);
+        }
+        return tokens;
+    }
+
+    /**
+     * Estimated tokens of one message including the chat template overhead.
+     */
+    public static int estimate(LlmMessage message) {
+        return MESSAGE_OVERHEAD + estimate(message.content());
+    }
+
+    /**
+     * Estimated tokens of plain text.
+     */
+    public static int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int tokens = 0;
+        int i = 0;
+        int length = text.length();
+        while (i < length) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (Character.isLetterOrDigit(c)) {
+                int start = i;
+                int diacritics = 0;
+                while (i < length && Character.isLetterOrDigit(text.charAt(i))) {
+                    if (text.charAt(i) > 127) {
+                        diacritics++;
+                    }
+                    i++;
+                }
+                tokens += (i - start + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN + (diacritics + 1) / 2;
+            } else {
+                tokens++;
+                i++;
+            }
+        }
+        return tokens;
+    }
+}
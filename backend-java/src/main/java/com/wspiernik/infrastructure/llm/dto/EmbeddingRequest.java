@@ -0,0 +1,13 @@
+package com.wspiernik.infrastructure.llm.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Request for the embeddings endpoint.
+ * Compatible with OpenAI API format.
+ */
+public record EmbeddingRequest(
+        @JsonProperty("model") String model,
+        @JsonProperty("input") String input
+) {
+}
@@ -0,0 +1,38 @@
+package com.wspiernik.infrastructure.llm.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Response from the embeddings endpoint.
+ * Compatible with OpenAI API format.
+ */
+public record EmbeddingResponse(
+        @JsonProperty("model") String model,
+        @JsonProperty("data") List<Embedding> data
+) {
+    /**
+     * Vector of the first input, or null when the response has none.
+     */
+    public float[] getVector() {
+        if (data == null || data.isEmpty() || data.get(0).embedding() == null) {
+            return null;
+        }
+        List<Double> values = data.get(0).embedding();
+        float[] vector = new float[values.size()];
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = values.get(i).floatValue();
+        }
+        return vector;
+    }
+
+    /**
+     * One embedded input.
+     */
+    public record Embedding(
+            @JsonProperty("index") int index,
+            @JsonProperty("embedding") List<Double> embedding
+    ) {
+    }
+}
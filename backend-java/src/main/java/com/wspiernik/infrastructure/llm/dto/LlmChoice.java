@@ -5,10 +5,12 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 /**
  * Represents a choice in the LLM response.
  * Compatible with OpenAI API format.
+ * Full responses carry {@code message}, streamed chunks carry {@code delta}.
  */
 public record LlmChoice(
         @JsonProperty("index") int index,
         @JsonProperty("message") LlmMessage message,
+        @JsonProperty("delta") LlmMessage delta,
         @JsonProperty("finish_reason") String finishReason
 ) {
 }
@@ -1,5 +1,6 @@
 package com.wspiernik.infrastructure.llm.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.List;
@@ -8,12 +9,24 @@ import java.util.List;
  * Request payload for LLM chat completions API.
  * Compatible with OpenAI API format.
  */
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public record LlmRequest(
         @JsonProperty("model") String model,
         @JsonProperty("messages") List<LlmMessage> messages,
         @JsonProperty("temperature") double temperature,
-        @JsonProperty("max_tokens") int maxTokens
+        @JsonProperty("max_tokens") int maxTokens,
+        @JsonProperty("stop") List<String> stop,   // generation ends at the first of these, which is not returned
+        @JsonProperty("stream") Boolean stream,   // true = Server-Sent Events with deltas
+        @JsonProperty("stream_options") StreamOptions streamOptions,   // ask for token usage in the final chunk
+        @JsonProperty("cache_prompt") Boolean cachePrompt,   // llama.cpp: reuse the slot's KV cache for the common prefix
+        @JsonProperty("id_slot") Integer slotId   // llama.cpp: pin the request to a server slot
 ) {
+    /**
+     * Streaming options; usage makes the server report token counts as the stream ends.
+     */
+    public record StreamOptions(@JsonProperty("include_usage") boolean includeUsage) {
+    }
+
     /**
      * Builder for creating LlmRequest instances.
      */
@@ -26,6 +39,11 @@ public record LlmRequest(
         private List<LlmMessage> messages;
         private double temperature = 0.7;
         private int maxTokens = 2048;
+        private List<String> stop;
+        private Boolean stream;
+        private StreamOptions streamOptions;
+        private Boolean cachePrompt;
+        private Integer slotId;
 
         public Builder model(String model) {
             this.model = model;
@@ -47,8 +65,29 @@ public record LlmRequest(
             return this;
         }
 
+        public Builder stop(List<String> stop) {
+            this.stop = stop == null || stop.isEmpty() ? null : stop;
+            return this;
+        }
+
+        public Builder stream(boolean stream) {
+            this.stream = stream ? Boolean.TRUE : null;
+            this.streamOptions = stream ? new StreamOptions(true) : null;
+            return this;
+        }
+
+        public Builder cachePrompt(boolean cachePrompt) {
+            this.cachePrompt = cachePrompt ? Boolean.TRUE : null;
+            return this;
+        }
+
+        public Builder slotId(Integer slotId) {
+            this.slotId = slotId;
+            return this;
+        }
+
         public LlmRequest build() {
-            return new LlmRequest(model, messages, temperature, maxTokens);
+            return new LlmRequest(model, messages, temperature, maxTokens, stop, stream, streamOptions, cachePrompt, slotId);
         }
     }
 }
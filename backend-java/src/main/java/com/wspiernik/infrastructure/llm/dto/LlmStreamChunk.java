@@ -0,0 +1,35 @@
+package com.wspiernik.infrastructure.llm.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Single Server-Sent Event chunk of a streamed chat completion.
+ * Compatible with OpenAI API format ({@code object = "chat.completion.chunk"}).
+ */
+public record LlmStreamChunk(
+        @JsonProperty("id") String id,
+        @JsonProperty("object") String object,
+        @JsonProperty("created") long created,
+        @JsonProperty("model") String model,
+        @JsonProperty("choices") List<LlmChoice> choices,
+        @JsonProperty("usage") LlmResponse.Usage usage   // final chunk only, when requested via stream_options
+) {
+    /**
+     * Marker sent as the last SSE data line by OpenAI-compatible servers.
+     */
+    public static final String DONE = "[DONE]";
+
+    /**
+     * Get the content delta of the first choice.
+     * Returns null for role-only or finish chunks.
+     */
+    public String getDeltaContent() {
+        if (choices == null || choices.isEmpty()) {
+            return null;
+        }
+        LlmMessage delta = choices.get(0).delta();
+        return delta != null ? delta.content() : null;
+    }
+}
@@ -0,0 +1,191 @@
+package com.wspiernik.infrastructure.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.smallrye.mutiny.Uni;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Per-stage timing of WebSocket turns, to see where a turn's time goes as conversations and the fact table grow.
+ * A turn runs from receiving a message until its handler has sent the replies; the code doing the work reports
+ * its stage, keyed by connection. Recorded as {@code wspiernik.turn.stage} timers tagged by module, turn number
+ * and stage, with {@code total} for the whole turn. Streamed fragments are sent while the LLM generates,
+ * so they count towards {@code llm}; {@code serialize} and {@code send} cover the complete replies.
+ * {@code persist} includes the commit only for writes the turn waits for (starting a conversation); transcript
+ * messages and survey answers are written behind, so for them it is the time to queue the write, and their
+ * commit shows in {@code wspiernik.persistence.write.latency}.
+ * Off unless {@code wspiernik.turn-profiling.enabled}: the per-turn tags are meant for benchmark runs.
+ */
+@ApplicationScoped
+public class TurnProfiler {
+
+    public enum Stage {
+        PARSE, PERSIST, FACTS, PROMPT, LLM, SERIALIZE, SEND
+    }
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "wspiernik.turn-profiling.enabled", defaultValue = "false")
+    boolean enabled;
+
+    private final Map<String, Connection> connections = new ConcurrentHashMap<>();
+
+    /**
+     * A message arrived and its turn starts.
+     *
+     * @param startNanos When the message was received, before parsing
+     */
+    public void begin(String connectionId, String messageType, long startNanos) {
+        if (enabled && messageType != null) {
+            connections.computeIfAbsent(connectionId, id -> new Connection()).begin(messageType, startNanos);
+        }
+    }
+
+    /**
+     * Add time already measured to a stage of the connection's current turn.
+     */
+    public void record(String connectionId, Stage stage, long nanos) {
+        Trace trace = current(connectionId);
+        if (trace != null) {
+            trace.add(stage, nanos);
+        }
+    }
+
+    public <T> T time(String connectionId, Stage stage, Supplier<T> work) {
+        Trace trace = current(connectionId);
+        if (trace == null) {
+            return work.get();
+        }
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            trace.add(stage, System.nanoTime() - start);
+        }
+    }
+
+    public void time(String connectionId, Stage stage, Runnable work) {
+        time(connectionId, stage, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * The call, with the time from subscription to its outcome added to the stage.
+     */
+    public <T> Uni<T> timeAsync(String connectionId, Stage stage, Uni<T> call) {
+        Trace trace = current(connectionId);
+        if (trace == null) {
+            return call;
+        }
+        return Uni.createFrom().deferred(() -> {
+            long start = System.nanoTime();
+            return call.onTermination().invoke(() -> trace.add(stage, System.nanoTime() - start));
+        });
+    }
+
+    /**
+     * The handler is done with the connection's current turn; record its stages.
+     */
+    public void end(String connectionId) {
+        Connection connection = connections.get(connectionId);
+        Trace trace = connection != null ? connection.current : null;
+        if (trace == null || !trace.finished.compareAndSet(false, true)) {
+            return;
+        }
+        for (Stage stage : Stage.values()) {
+            if (trace.recorded(stage)) {
+                timer(trace, stage.name().toLowerCase()).record(trace.stageNanos.get(stage.ordinal()), TimeUnit.NANOSECONDS);
+            }
+        }
+        timer(trace, "total").record(System.nanoTime() - trace.startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void closed(String connectionId) {
+        connections.remove(connectionId);
+    }
+
+    private Trace current(String connectionId) {
+        if (!enabled) {
+            return null;
+        }
+        Connection connection = connections.get(connectionId);
+        return connection != null ? connection.current : null;
+    }
+
+    private Timer timer(Trace trace, String stage) {
+        return Timer.builder("wspiernik.turn.stage")
+                .description("Time spent per stage of a WebSocket turn")
+                .tags("module", trace.module, "turn", trace.turn, "stage", stage)
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(registry);
+    }
+
+    /**
+     * Turn label: start, message number within the conversation (bucketed past 10) or complete.
+     */
+    private static String turnLabel(int message) {
+        if (message <= 10) {
+            return String.valueOf(message);
+        }
+        return message <= 20 ? "11-20" : message <= 50 ? "21-50" : "51+";
+    }
+
+    private static final class Connection {
+        private int messages;
+        private volatile Trace current;
+
+        synchronized void begin(String messageType, long startNanos) {
+            int separator = messageType.indexOf('_');
+            String module = separator > 0 ? messageType.substring(0, separator) : messageType;
+            String turn;
+            if (messageType.endsWith("_start")) {
+                messages = 0;
+                turn = "start";
+            } else if (messageType.endsWith("_message")) {
+                turn = turnLabel(++messages);
+            } else if (messageType.endsWith("_complete")) {
+                turn = "complete";
+            } else {
+                module = "query";
+                turn = "-";
+            }
+            current = new Trace(module, turn, startNanos);
+        }
+    }
+
+    private static final class Trace {
+        final String module;
+        final String turn;
+        final long startNanos;
+        final AtomicLongArray stageNanos = new AtomicLongArray(Stage.values().length);
+        final AtomicLongArray stageCounts = new AtomicLongArray(Stage.values().length);
+        final AtomicBoolean finished = new AtomicBoolean();
+
+        Trace(String module, String turn, long startNanos) {
+            this.module = module;
+            this.turn = turn;
+            this.startNanos = startNanos;
+        }
+
+        void add(Stage stage, long nanos) {
+            stageNanos.addAndGet(stage.ordinal(), nanos);
+            stageCounts.incrementAndGet(stage.ordinal());
+        }
+
+        boolean recorded(Stage stage) {
+            return stageCounts.get(stage.ordinal()) > 0;
+        }
+    }
+}
@@ -0,0 +1,288 @@
+package com.wspiernik.infrastructure.persistence;
+
+import com.wspiernik.infrastructure.persistence.shard.ShardContext;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.ShutdownEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * The single writer to the database. Services submit writes to a bounded queue and one thread runs them
+ * in order, as many as have arrived within {@code max-delay} sharing one transaction, so SQLite's one
+ * connection does one commit per group instead of one per write. Each write gets a future completed once
+ * its transaction commits; callers that need the result or durability wait for it, the others carry on.
+ * When a group fails, its writes are retried one transaction each, so only the failing write fails: a write
+ * may therefore run twice and must create its entities inside the supplier, never capture one built outside.
+ * With sharding ({@code sharded} profile) each write belongs to a shard and {@code lanes} writer threads
+ * commit in parallel, a shard always going to the same lane so its writes stay in order.
+ */
+@ApplicationScoped
+public class DatabaseWriter {
+
+    private static final Logger LOG = Logger.getLogger(DatabaseWriter.class);
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "wspiernik.persistence.writer.queue-capacity", defaultValue = "10000")
+    int queueCapacity;
+
+    @ConfigProperty(name = "wspiernik.persistence.writer.max-batch", defaultValue = "200")
+    int maxBatch;
+
+    @ConfigProperty(name = "wspiernik.persistence.writer.max-delay", defaultValue = "2ms")
+    Duration maxDelay;
+
+    @ConfigProperty(name = "wspiernik.persistence.writer.enqueue-timeout", defaultValue = "5s")
+    Duration enqueueTimeout;
+
+    @ConfigProperty(name = "wspiernik.persistence.writer.lanes", defaultValue = "1")
+    int laneCount;
+
+    private List<Lane> lanes;
+    private volatile boolean running = true;
+
+    private Timer commitDuration;
+    private Timer writeLatency;
+    private DistributionSummary groupSize;
+    private Counter failures;
+
+    @PostConstruct
+    void init() {
+        lanes = new ArrayList<>(laneCount);
+        Gauge.builder("wspiernik.persistence.write.queue.depth", this, DatabaseWriter::queued)
+                .description("Writes waiting for the database writer")
+                .register(registry);
+        commitDuration = Timer.builder("wspiernik.persistence.commit.duration")
+                .description("Time to run and commit one group of writes")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+        writeLatency = Timer.builder("wspiernik.persistence.write.latency")
+                .description("Time from submitting a write until its transaction committed")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(registry);
+        groupSize = DistributionSummary.builder("wspiernik.persistence.commit.writes")
+                .description("Writes committed together in one transaction")
+                .register(registry);
+        failures = Counter.builder("wspiernik.persistence.write.failures")
+                .description("Writes whose transaction failed")
+                .register(registry);
+        for (int i = 0; i < laneCount; i++) {
+            Lane lane = new Lane(new ArrayBlockingQueue<>(queueCapacity));
+            String name = laneCount == 1 ? "wspiernik-db-writer" : "wspiernik-db-writer-" + i;
+            lane.thread = Thread.ofPlatform().name(name).daemon().start(() -> drain(lane.queue));
+            lanes.add(lane);
+        }
+    }
+
+    /**
+     * Queue a write to the shard of the calling thread ({@link ShardContext}); the future completes when
+     * it is committed.
+     */
+    public CompletableFuture<Void> execute(Runnable write) {
+        return execute(ShardContext.current(), write);
+    }
+
+    /**
+     * Queue a write to a shard, null for the main database.
+     */
+    public CompletableFuture<Void> execute(String shard, Runnable write) {
+        return call(shard, () -> {
+            write.run();
+            return null;
+        });
+    }
+
+    /**
+     * Queue a write returning a value, such as a generated id, to the shard of the calling thread.
+     */
+    public <T> CompletableFuture<T> call(Supplier<T> write) {
+        return call(ShardContext.current(), write);
+    }
+
+    /**
+     * Queue a write returning a value to a shard, null for the main database; the future completes when
+     * it is committed. Fails with {@link IllegalStateException} when the queue stays full for the enqueue timeout.
+     */
+    public <T> CompletableFuture<T> call(String shard, Supplier<T> write) {
+        Write<T> entry = new Write<>(shard, write);
+        try {
+            BlockingQueue<Write<?>> queue = lanes.get(shard == null ? 0 : Math.floorMod(shard.hashCode(), laneCount)).queue;
+            if (!running || !queue.offer(entry, enqueueTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                failures.increment();
+                entry.future.completeExceptionally(new IllegalStateException(
+                        running ? "Database write queue is full" : "Database writer is shut down"));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            entry.future.completeExceptionally(e);
+        }
+        return entry.future;
+    }
+
+    /**
+     * Completes once every write queued before it to the calling thread's shard is committed,
+     * for reads that must see them.
+     */
+    public CompletableFuture<Void> flush() {
+        return flush(ShardContext.current());
+    }
+
+    /**
+     * Completes once every write queued before it to a shard is committed.
+     */
+    public CompletableFuture<Void> flush(String shard) {
+        return execute(shard, () -> {
+        });
+    }
+
+    /**
+     * Stop taking writes and commit the ones still queued.
+     */
+    void onStop(@Observes ShutdownEvent ev) {
+        running = false;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        try {
+            for (Lane lane : lanes) {
+                lane.thread.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (queued() > 0) {
+            LOG.warnf("DatabaseWriter: %d writes were not committed before shutdown", queued());
+        }
+    }
+
+    private int queued() {
+        int queued = 0;
+        for (Lane lane : lanes) {
+            queued += lane.queue.size();
+        }
+        return queued;
+    }
+
+    private void drain(BlockingQueue<Write<?>> queue) {
+        List<Write<?>> group = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Write<?> first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                long deadline = System.nanoTime() + maxDelay.toNanos();
+                while (group.size() < maxBatch) {
+                    Write<?> next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    group.add(next);
+                }
+                commitByShard(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                LOG.errorf(e, "DatabaseWriter: Unexpected failure");
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    /**
+     * One transaction per shard in the group; each shard is a separate database.
+     */
+    private void commitByShard(List<Write<?>> group) {
+        if (group.stream().allMatch(write -> write.shard == null)) {
+            commit(group);
+            return;
+        }
+        Map<String, List<Write<?>>> byShard = new LinkedHashMap<>();
+        for (Write<?> write : group) {
+            byShard.computeIfAbsent(write.shard, shard -> new ArrayList<>()).add(write);
+        }
+        byShard.values().forEach(this::commit);
+    }
+
+    private void commit(List<Write<?>> group) {
+        long start = System.nanoTime();
+        try {
+            List<Object> results = ShardContext.call(group.get(0).shard, () -> QuarkusTransaction.requiringNew().call(() -> {
+                List<Object> values = new ArrayList<>(group.size());
+                for (Write<?> write : group) {
+                    values.add(write.work.get());
+                }
+                return values;
+            }));
+            commitDuration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            groupSize.record(group.size());
+            for (int i = 0; i < group.size(); i++) {
+                complete(group.get(i), results.get(i));
+            }
+        } catch (RuntimeException e) {
+            if (group.size() == 1) {
+                fail(group.get(0), e);
+                return;
+            }
+            LOG.debugf("DatabaseWriter: Group of %d writes failed, retrying one by one: %s", group.size(), e.getMessage());
+            for (Write<?> write : group) {
+                commit(List.of(write));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void complete(Write<T> write, Object result) {
+        writeLatency.record(System.nanoTime() - write.submittedNanos, TimeUnit.NANOSECONDS);
+        write.future.complete((T) result);
+    }
+
+    private void fail(Write<?> write, RuntimeException e) {
+        failures.increment();
+        LOG.errorf(e, "DatabaseWriter: Write failed");
+        write.future.completeExceptionally(e);
+    }
+
+    private static final class Lane {
+        final BlockingQueue<Write<?>> queue;
+        Thread thread;
+
+        Lane(BlockingQueue<Write<?>> queue) {
+            this.queue = queue;
+        }
+    }
+
+    private static final class Write<T> {
+        final String shard;
+        final Supplier<T> work;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        final long submittedNanos = System.nanoTime();
+
+        Write(String shard, Supplier<T> work) {
+            this.shard = shard;
+            this.work = work;
+        }
+    }
+}
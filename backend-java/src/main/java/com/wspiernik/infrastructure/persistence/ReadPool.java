@@ -0,0 +1,94 @@
+package com.wspiernik.infrastructure.persistence;
+
+import com.wspiernik.infrastructure.persistence.shard.ShardContext;
+import io.agroal.api.AgroalDataSource;
+import io.quarkus.agroal.DataSource;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import jakarta.persistence.PersistenceException;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read-only connections to the database, separate from the single writer connection Hibernate uses.
+ * With SQLite in WAL mode (the {@code sqlite-wal} profile) readers no longer queue behind writes, so
+ * repositories send their hot read queries here when {@code wspiernik.persistence.read-pool.enabled}.
+ * Rows are mapped to detached entities; reads do not see writes still queued in the {@link DatabaseWriter}.
+ */
+@ApplicationScoped
+public class ReadPool {
+
+    @ConfigProperty(name = "wspiernik.persistence.read-pool.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @Inject
+    @DataSource("read")
+    Instance<AgroalDataSource> dataSource;
+
+    /**
+     * Map the current row of a result set.
+     */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet row) throws SQLException;
+    }
+
+    /**
+     * Whether reads go here: the pool only covers the main database, shards are read through Hibernate.
+     */
+    public boolean enabled() {
+        return enabled && ShardContext.current() == null;
+    }
+
+    public <T> List<T> list(String sql, RowMapper<T> mapper, Object... params) {
+        try (Connection connection = dataSource.get().getConnection();
+             PreparedStatement statement = prepare(connection, sql, params);
+             ResultSet rows = statement.executeQuery()) {
+            List<T> result = new ArrayList<>();
+            while (rows.next()) {
+                result.add(mapper.map(rows));
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new PersistenceException("Read query failed: " + sql, e);
+        }
+    }
+
+    public long count(String sql, Object... params) {
+        List<Long> result = list(sql, row -> row.getLong(1), params);
+        return result.isEmpty() ? 0 : result.get(0);
+    }
+
+    /**
+     * A timestamp column as written by Hibernate, or null.
+     */
+    public static LocalDateTime timestamp(ResultSet row, String column) throws SQLException {
+        Timestamp value = row.getTimestamp(column);
+        return value != null ? value.toLocalDateTime() : null;
+    }
+
+    /**
+     * A nullable integer column.
+     */
+    public static Integer integer(ResultSet row, String column) throws SQLException {
+        int value = row.getInt(column);
+        return row.wasNull() ? null : value;
+    }
+
+    private static PreparedStatement prepare(Connection connection, String sql, Object[] params) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        for (int i = 0; i < params.length; i++) {
+            statement.setObject(i + 1, params[i]);
+        }
+        return statement;
+    }
+}
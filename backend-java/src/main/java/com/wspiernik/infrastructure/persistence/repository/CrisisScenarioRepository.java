@@ -1,9 +1,13 @@
 package com.wspiernik.infrastructure.persistence.repository;
 
+import com.wspiernik.infrastructure.persistence.ReadPool;
 import com.wspiernik.infrastructure.persistence.entity.CrisisScenario;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,6 +17,9 @@ import java.util.Optional;
 @ApplicationScoped
 public class CrisisScenarioRepository implements PanacheRepository<CrisisScenario> {
 
+    @Inject
+    ReadPool readPool;
+
     /**
      * Find scenario by key (fall, confusion, chest_pain).
      */
@@ -28,16 +35,40 @@ public class CrisisScenarioRepository implements PanacheRepository<CrisisScenari
     }
 
     /**
-     * Get all scenarios.
+     * Get all scenarios, from the read pool when enabled.
      */
     public List<CrisisScenario> findAllScenarios() {
+        if (readPool.enabled()) {
+            return readPool.list("""
+                    SELECT id, scenario_key, name, trigger_keywords, questions_sequence, system_prompt, created_at
+                    FROM crisis_scenarios""", CrisisScenarioRepository::fromRow);
+        }
         return listAll();
     }
 
+    /**
+     * Number of scenarios, from the read pool when enabled.
+     */
+    public long countScenarios() {
+        return readPool.enabled() ? readPool.count("SELECT COUNT(*) FROM crisis_scenarios") : count();
+    }
+
     /**
      * Check if any scenarios exist.
      */
     public boolean hasAnyScenarios() {
-        return count() > 0;
+        return countScenarios() > 0;
+    }
+
+    private static CrisisScenario fromRow(ResultSet row) throws SQLException {
+        CrisisScenario scenario = new CrisisScenario();
+        scenario.id = row.getLong("id");
+        scenario.scenarioKey = row.getString("scenario_key");
+        scenario.name = row.getString("name");
+        scenario.triggerKeywords = row.getString("trigger_keywords");
+        scenario.questionsSequence = row.getString("questions_sequence");
+        scenario.systemPrompt = row.getString("system_prompt");
+        scenario.createdAt = ReadPool.timestamp(row, "created_at");
+        return scenario;
     }
 }
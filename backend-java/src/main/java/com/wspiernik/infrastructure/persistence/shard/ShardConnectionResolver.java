@@ -0,0 +1,283 @@
+package com.wspiernik.infrastructure.persistence.shard;
+
+import io.agroal.api.AgroalDataSource;
+import io.agroal.api.configuration.supplier.AgroalDataSourceConfigurationSupplier;
+import io.agroal.narayana.NarayanaTransactionIntegration;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+import io.quarkus.hibernate.orm.runtime.customized.QuarkusConnectionProvider;
+import io.quarkus.hibernate.orm.runtime.tenant.TenantConnectionResolver;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Priority;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.PersistenceException;
+import jakarta.transaction.TransactionManager;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Connections for each tenant: the main datasource for the main database, and for a shard a small pool on
+ * its SQLite file, opened on first use after creating the schema if the file is new. At most
+ * {@code wspiernik.sharding.max-open} shard pools stay open; the least recently used idle one is closed
+ * to make room and reopened when its caregiver comes back. A pool is pinned from before a connection is
+ * taken from it until Hibernate hands the connection back, so it is never closed under a caller.
+ */
+@ApplicationScoped
+@PersistenceUnitExtension
+public class ShardConnectionResolver implements TenantConnectionResolver {
+
+    private static final Logger LOG = Logger.getLogger(ShardConnectionResolver.class);
+    private static final String SCHEMA = "META-INF/shard-schema.sql";
+
+    @Inject
+    AgroalDataSource mainDataSource;
+
+    @Inject
+    TransactionManager transactionManager;
+
+    @Inject
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    @Inject
+    ShardRouter router;
+
+    @Inject
+    MeterRegistry registry;
+
+    @ConfigProperty(name = "wspiernik.sharding.max-open", defaultValue = "64")
+    int maxOpen;
+
+    @ConfigProperty(name = "wspiernik.sharding.url-options",
+            defaultValue = "journal_mode=WAL&synchronous=NORMAL&busy_timeout=5000")
+    String urlOptions;
+
+    @ConfigProperty(name = "wspiernik.sharding.idle-timeout", defaultValue = "5m")
+    Duration idleTimeout;
+
+    private Map<String, OpenShard> pools;
+    private List<String> schema;
+
+    @PostConstruct
+    void init() {
+        schema = loadSchema();
+        pools = new LinkedHashMap<>(16, 0.75f, true);
+        Gauge.builder("wspiernik.persistence.shards.open", this, resolver -> resolver.openShards())
+                .description("Shard databases with an open connection pool")
+                .register(registry);
+    }
+
+    /**
+     * Hibernate does not generate the schema with database multitenancy; create the main database's
+     * before the data initializer seeds it.
+     */
+    void onStart(@Observes @Priority(1) StartupEvent ev) {
+        if (!router.enabled()) {
+            return;
+        }
+        try (Connection connection = mainDataSource.getConnection()) {
+            applySchema(connection);
+        } catch (SQLException e) {
+            throw new PersistenceException("Could not create the main database schema", e);
+        }
+    }
+
+    void onStop(@Observes ShutdownEvent ev) {
+        synchronized (this) {
+            pools.values().forEach(shard -> shard.pool.close());
+            pools.clear();
+        }
+    }
+
+    @Override
+    public ConnectionProvider resolve(String tenantId) {
+        if (ShardRouter.MAIN.equals(tenantId)) {
+            return new QuarkusConnectionProvider(mainDataSource);
+        }
+        return new ShardConnectionProvider(this, tenantId);
+    }
+
+    synchronized int openShards() {
+        return pools.size();
+    }
+
+    /**
+     * The pool of a shard, opened (and its schema created) if it is not open, and pinned until
+     * {@link #unpin}. Waiting for a connection happens after, outside the lock.
+     */
+    synchronized AgroalDataSource pin(String shard) {
+        OpenShard open = pools.get(shard);
+        if (open == null) {
+            open = new OpenShard(open(shard));
+            pools.put(shard, open);
+        }
+        open.users++;
+        evictIdle();
+        return open.pool;
+    }
+
+    synchronized void unpin(String shard) {
+        OpenShard open = pools.get(shard);
+        if (open != null) {
+            open.users--;
+        }
+    }
+
+    private AgroalDataSource open(String shard) {
+        Path file = router.file(shard);
+        String url = "jdbc:sqlite:" + file + (urlOptions.isBlank() ? "" : "?" + urlOptions);
+        try {
+            Files.createDirectories(file.toAbsolutePath().getParent());
+            try (Connection connection = DriverManager.getConnection(url)) {
+                applySchema(connection);
+            }
+            LOG.debugf("Opened shard %s", shard);
+            return AgroalDataSource.from(new AgroalDataSourceConfigurationSupplier()
+                    .metricsEnabled(true)
+                    .connectionPoolConfiguration(pool -> pool
+                            .minSize(0)
+                            // One writer per SQLite file, as for the main database
+                            .maxSize(1)
+                            .acquisitionTimeout(Duration.ofSeconds(30))
+                            .reapTimeout(idleTimeout)
+                            .transactionIntegration(new NarayanaTransactionIntegration(
+                                    transactionManager, transactionSynchronizationRegistry))
+                            .connectionFactoryConfiguration(factory -> factory
+                                    .jdbcUrl(url)
+                                    .connectionProviderClassName("org.sqlite.JDBC"))));
+        } catch (IOException | SQLException e) {
+            throw new PersistenceException("Could not open shard " + shard, e);
+        }
+    }
+
+    /**
+     * Close least recently used pools beyond the limit. A pinned pool, or one whose connection is still
+     * enlisted in a transaction after Hibernate released it, stays open until idle at a later eviction.
+     */
+    private void evictIdle() {
+        var iterator = pools.entrySet().iterator();
+        while (pools.size() > maxOpen && iterator.hasNext()) {
+            var entry = iterator.next();
+            OpenShard open = entry.getValue();
+            if (open.users == 0 && open.pool.getMetrics().activeCount() == 0) {
+                iterator.remove();
+                open.pool.close();
+                LOG.debugf("Closed idle shard %s", entry.getKey());
+            }
+        }
+    }
+
+    private void applySchema(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String sql : schema) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    private static List<String> loadSchema() {
+        try (InputStream in = Thread.currentThread().getContextClassLoader().getResourceAsStream(SCHEMA)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing " + SCHEMA);
+            }
+            List<String> statements = new ArrayList<>();
+            for (String sql : new String(in.readAllBytes(), StandardCharsets.UTF_8).split(";")) {
+                String statement = sql.lines()
+                        .filter(line -> !line.strip().startsWith("--"))
+                        .reduce("", (a, b) -> a + "\n" + b)
+                        .strip();
+                if (!statement.isEmpty()) {
+                    statements.add(statement);
+                }
+            }
+            return statements;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * An open shard pool and the connections taken from it that Hibernate has not handed back yet.
+     * Guarded by the resolver.
+     */
+    private static final class OpenShard {
+        final AgroalDataSource pool;
+        int users;
+
+        OpenShard(AgroalDataSource pool) {
+            this.pool = pool;
+        }
+    }
+
+    /**
+     * Connections of one shard. Looks the pool up on each request, so a pool closed by eviction is
+     * reopened transparently; the pool stays pinned while the connection is out.
+     */
+    private static final class ShardConnectionProvider implements ConnectionProvider {
+
+        private final ShardConnectionResolver resolver;
+        private final String shard;
+
+        ShardConnectionProvider(ShardConnectionResolver resolver, String shard) {
+            this.resolver = resolver;
+            this.shard = shard;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            AgroalDataSource pool = resolver.pin(shard);
+            try {
+                return pool.getConnection();
+            } catch (SQLException | RuntimeException e) {
+                resolver.unpin(shard);
+                throw e;
+            }
+        }
+
+        @Override
+        public void closeConnection(Connection connection) throws SQLException {
+            try {
+                connection.close();
+            } finally {
+                resolver.unpin(shard);
+            }
+        }
+
+        @Override
+        public boolean supportsAggressiveRelease() {
+            return false;
+        }
+
+        @Override
+        public boolean isUnwrappableAs(Class<?> type) {
+            return false;
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> type) {
+            throw new UnsupportedOperationException("Cannot unwrap the connection provider of shard " + shard);
+        }
+    }
+}
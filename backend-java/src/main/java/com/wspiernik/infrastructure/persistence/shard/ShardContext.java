@@ -0,0 +1,44 @@
+package com.wspiernik.infrastructure.persistence.shard;
+
+import java.util.function.Supplier;
+
+/**
+ * The shard the current thread's database work goes to, read by Hibernate when a transaction opens its session.
+ * Set it around the whole transaction; null means the main database. Work handed to another thread carries
+ * its shard explicitly (see {@code DatabaseWriter}).
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    /**
+     * Shard key of the current thread, null for the main database.
+     */
+    public static String current() {
+        return CURRENT.get();
+    }
+
+    public static <T> T call(String shard, Supplier<T> work) {
+        String previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    public static void run(String shard, Runnable work) {
+        call(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,119 @@
+package com.wspiernik.infrastructure.persistence.shard;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Routes each caregiver's conversations and facts to its own SQLite file, {@code <directory>/<caregiver>.db},
+ * so writes of different caregivers do not wait for one another. The caregiver comes from the WebSocket URL
+ * ({@code /ws?caregiver=<id>}) and is kept per connection; without one, or with sharding off, work goes
+ * to the main database, which also holds the shared crisis scenarios. Off unless
+ * {@code wspiernik.sharding.enabled} (the {@code sharded} profile). The key only picks a file: it is not
+ * authentication.
+ */
+@ApplicationScoped
+public class ShardRouter {
+
+    /**
+     * Name of the main database as a tenant and in listings; {@code KEY} never matches it, so no caregiver
+     * can be routed to the main database by choosing it as their id.
+     */
+    public static final String MAIN = "<main>";
+
+    private static final Logger LOG = Logger.getLogger(ShardRouter.class);
+    private static final Pattern KEY = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final String SUFFIX = ".db";
+
+    @ConfigProperty(name = "wspiernik.sharding.enabled", defaultValue = "false")
+    boolean enabled;
+
+    @ConfigProperty(name = "wspiernik.sharding.directory", defaultValue = "shards")
+    Path directory;
+
+    private final Map<String, String> connections = new ConcurrentHashMap<>();
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    /**
+     * Remember the caregiver of a new connection; an invalid or missing id means the main database.
+     */
+    public void opened(String connectionId, String caregiverId) {
+        if (!enabled || caregiverId == null || caregiverId.isBlank()) {
+            return;
+        }
+        if (!KEY.matcher(caregiverId).matches()) {
+            LOG.warnf("Ignoring invalid caregiver id on connection %s", connectionId);
+            return;
+        }
+        connections.put(connectionId, caregiverId);
+    }
+
+    public void closed(String connectionId) {
+        connections.remove(connectionId);
+    }
+
+    /**
+     * Shard of a connection, null for the main database.
+     */
+    public String shardOf(String connectionId) {
+        return connectionId != null ? connections.get(connectionId) : null;
+    }
+
+    /**
+     * Validated shard key for a caregiver id from a request, null for the main database.
+     */
+    public String shardFor(String caregiverId) {
+        return enabled && caregiverId != null && KEY.matcher(caregiverId).matches() ? caregiverId : null;
+    }
+
+    public Path file(String shard) {
+        return directory.resolve(shard + SUFFIX);
+    }
+
+    /**
+     * Shards that have a database file, in name order.
+     */
+    public List<String> shards() {
+        if (!enabled || !Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.endsWith(SUFFIX))
+                    .map(name -> name.substring(0, name.length() - SUFFIX.length()))
+                    .filter(key -> KEY.matcher(key).matches())
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Run a query against the main database and then every shard, one at a time, each in its own context.
+     * The query gets the shard key (null for the main database) and opens its own transaction.
+     */
+    public <T> List<T> acrossShards(Function<String, T> query) {
+        List<T> results = new ArrayList<>();
+        results.add(ShardContext.call(null, () -> query.apply(null)));
+        for (String shard : shards()) {
+            results.add(ShardContext.call(shard, () -> query.apply(shard)));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,25 @@
+package com.wspiernik.infrastructure.persistence.shard;
+
+import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+import io.quarkus.hibernate.orm.runtime.tenant.TenantResolver;
+import jakarta.enterprise.context.ApplicationScoped;
+
+/**
+ * Tenant of a Hibernate session: the {@link ShardContext} of the thread opening it.
+ * Only consulted with {@code quarkus.hibernate-orm.multitenant=DATABASE} (the {@code sharded} profile).
+ */
+@ApplicationScoped
+@PersistenceUnitExtension
+public class ShardTenantResolver implements TenantResolver {
+
+    @Override
+    public String getDefaultTenantId() {
+        return ShardRouter.MAIN;
+    }
+
+    @Override
+    public String resolveTenantId() {
+        String shard = ShardContext.current();
+        return shard != null ? shard : ShardRouter.MAIN;
+    }
+}
@@ -0,0 +1,39 @@
+-- Schema of a caregiver shard (and of the main database in the sharded profile, where Hibernate does not
+-- generate it). Applied whenever a shard is opened, so keep every statement idempotent and in step with the entities.
+CREATE TABLE IF NOT EXISTS conversations (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    conversation_type VARCHAR(255),
+    raw_transcript TEXT,
+    started_at TIMESTAMP,
+    ended_at TIMESTAMP
+);
+CREATE TABLE IF NOT EXISTS conversation_messages (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    conversation_id BIGINT NOT NULL,
+    seq INTEGER NOT NULL,
+    role VARCHAR(255),
+    content TEXT,
+    created_at TIMESTAMP
+);
+CREATE UNIQUE INDEX IF NOT EXISTS idx_conversation_messages_conversation_seq
+    ON conversation_messages (conversation_id, seq);
+CREATE TABLE IF NOT EXISTS facts (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    conversation_id BIGINT,
+    fact_type VARCHAR(255),
+    fact_value TEXT,
+    severity INTEGER,
+    extracted_at TIMESTAMP,
+    created_at TIMESTAMP
+);
+CREATE INDEX IF NOT EXISTS idx_facts_created_at ON facts (created_at);
+CREATE INDEX IF NOT EXISTS idx_facts_conversation_id ON facts (conversation_id);
+CREATE TABLE IF NOT EXISTS crisis_scenarios (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    scenario_key VARCHAR(255) UNIQUE,
+    name VARCHAR(255),
+    trigger_keywords TEXT,
+    questions_sequence TEXT,
+    system_prompt TEXT,
+    created_at TIMESTAMP
+);
@@ -0,0 +1,335 @@
+package com.wspiernik.api.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * In-process turn benchmark: starts the application with the mock LLM at a fixed latency and turn profiling on,
+ * runs survey, intervention and support conversations one at a time over {@code /ws}, each extended to the
+ * requested number of turns, and prints the per-stage timings ({@code wspiernik.turn.stage}) by module and turn
+ * number. Stage means only count turns after the warm-up; the percentiles are the registry's rolling ones.
+ * The fact table is filled by {@link com.wspiernik.infrastructure.lifecycle.SyntheticDataGenerator} to the
+ * given scale, in a database file of its own per scale, so runs at several scales show how the stages grow.
+ * Skipped unless {@code -Dturn-benchmark=true}; see the backend README for the options.
+ */
+@QuarkusTest
+@TestProfile(TurnBenchmarkTest.Benchmark.class)
+@EnabledIfSystemProperty(named = "turn-benchmark", matches = "true")
+class TurnBenchmarkTest {
+
+    private static final List<String> STAGES = List.of("parse", "persist", "facts", "prompt", "llm", "serialize", "send");
+    private static final List<String> TURNS = List.of("start", "1", "2", "3", "4", "5", "6", "7", "8", "9", "10",
+            "11-20", "21-50", "51+", "complete", "-");
+
+    /**
+     * Outgoing message types that answer each request type.
+     */
+    private static final Map<String, Set<String>> ANSWERS = Map.of(
+            "survey_start", Set.of("survey_question"),
+            "survey_message", Set.of("survey_question", "survey_completed"),
+            "survey_complete", Set.of("survey_completed"),
+            "intervention_start", Set.of("intervention_question"),
+            "intervention_message", Set.of("intervention_question"),
+            "intervention_complete", Set.of("intervention_completed"),
+            "support_start", Set.of("support_message"),
+            "support_message", Set.of("support_message"),
+            "support_complete", Set.of("support_completed"));
+
+    private static final Map<String, Script> SCRIPTS = Map.of(
+            "survey", new Script(null, List.of(
+                    "Opiekuję się mamą, ma 82 lata.",
+                    "Ma Alzheimera od trzech lat i nadciśnienie.",
+                    "Bierze leki na ciśnienie rano i wieczorem, do tego donepezil.",
+                    "Chodzi z balkonikiem, po schodach już nie schodzi.",
+                    "Mieszkamy razem, brat pomaga w weekendy.",
+                    "Wieczorami jest niespokojna, uspokaja ją muzyka z lat sześćdziesiątych.")),
+            "intervention", new Script("Mama się przewróciła w łazience i nie może wstać.", List.of(
+                    "Jest przytomna, mówi do mnie.",
+                    "Boli ją biodro, krzyczy jak próbuję ją podnieść.",
+                    "Nie krwawi, ale noga jest dziwnie wykręcona.",
+                    "Zadzwoniłam po karetkę, mają być za 15 minut.")),
+            "support", new Script(null, List.of(
+                    "Jestem bardzo zmęczona, mama znowu nie spała w nocy.",
+                    "Brat obiecał pomóc, ale nie przyjechał.",
+                    "Czuję się winna, że czasem tracę cierpliwość.",
+                    "Nie wiem, jak jej tłumaczyć, że musi brać leki.",
+                    "Udało nam się wyjść na krótki spacer, była spokojniejsza.")));
+
+    /**
+     * Mock LLM latency, fact table scale and database file from the {@code turn-benchmark.*} properties.
+     * A property given on the command line under its own name (e.g. a lognormal latency) is left to it.
+     */
+    public static class Benchmark implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            String scale = System.getProperty("turn-benchmark.scale", "1");
+            Map<String, String> overrides = new HashMap<>();
+            overrides.put("wspiernik.turn-profiling.enabled", "true");
+            overrides.put("wspiernik.llm.mock.latency.distribution", "fixed");
+            overrides.put("wspiernik.llm.mock.latency.fixed", System.getProperty("turn-benchmark.llm-latency", "50ms"));
+            overrides.put("wspiernik.synthetic-data.enabled", "true");
+            overrides.put("wspiernik.synthetic-data.scale", scale);
+            overrides.put("quarkus.datasource.jdbc.url", "jdbc:sqlite:target/turn-benchmark-" + scale + "x.db");
+            overrides.keySet().removeIf(key -> System.getProperty(key) != null);
+            return overrides;
+        }
+    }
+
+    @TestHTTPResource("/ws")
+    URI url;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<String> flows = List.of(System.getProperty("turn-benchmark.flows", "survey,intervention,support").split(","));
+    private final int conversations = Integer.getInteger("turn-benchmark.conversations", 10);
+    private final int warmup = Integer.getInteger("turn-benchmark.warmup", 2);
+    private final int turns = Integer.getInteger("turn-benchmark.turns", 20);
+    private final long replyTimeoutSeconds = Integer.getInteger("turn-benchmark.reply-timeout", 60);
+    private int failures;
+
+    @Test
+    void turnStages() throws Exception {
+        System.out.printf("Turn benchmark: %s, %d conversations of up to %d turns per flow (%d warm-up)%n",
+                String.join(",", flows), conversations, turns, warmup);
+
+        converseAll(warmup);
+        Map<Key, Series> baseline = snapshot();
+        long start = System.nanoTime();
+        converseAll(conversations);
+        // A turn is recorded after its reply has been sent
+        Thread.sleep(500);
+        Map<Key, Series> measured = snapshot();
+
+        System.out.printf("%nDone in %.0f s, %d failed requests%n", (System.nanoTime() - start) / 1e9, failures);
+        Set<String> modules = new TreeSet<>();
+        measured.keySet().forEach(key -> modules.add(key.module()));
+        for (String module : modules) {
+            printModule(module, baseline, measured);
+        }
+        assertFalse(measured.isEmpty(), "No turn timings recorded");
+    }
+
+    // =========================================================================
+    // Conversations
+    // =========================================================================
+
+    private void converseAll(int count) throws Exception {
+        for (String flow : flows) {
+            Script script = SCRIPTS.get(flow);
+            if (script == null || count == 0) {
+                continue;
+            }
+            Client client = new Client(flow);
+            try {
+                for (int i = 0; i < count; i++) {
+                    converse(client, flow, script);
+                }
+            } finally {
+                client.close();
+            }
+        }
+    }
+
+    /**
+     * One conversation of the script, its messages repeated up to the number of turns
+     * or until the server ends the conversation.
+     */
+    private void converse(Client client, String flow, Script script) throws InterruptedException {
+        Map<String, String> opening = script.opening() != null ? Map.of("scenario_description", script.opening()) : Map.of();
+        if (client.request(flow + "_start", opening)) {
+            for (int turn = 0; turn < turns && client.sessionOpen; turn++) {
+                String text = script.messages().get(turn % script.messages().size());
+                if (!client.request(flow + "_message", Map.of("text", text))) {
+                    break;
+                }
+            }
+        }
+        if (client.sessionOpen) {
+            client.request(flow + "_complete", Map.of());
+        }
+    }
+
+    private record Script(String opening, List<String> messages) {
+    }
+
+    /**
+     * One caregiver's connection; a request blocks until the reply carrying its request_id,
+     * streamed {@code *_delta} fragments are skipped.
+     */
+    private final class Client implements WebSocket.Listener {
+
+        private final String id;
+        private final BlockingQueue<JsonNode> received = new LinkedBlockingQueue<>();
+        private final StringBuilder frame = new StringBuilder();
+        private final WebSocket socket;
+        private long sequence;
+        volatile boolean sessionOpen;
+
+        Client(String id) throws Exception {
+            this.id = id;
+            URI ws = URI.create(url.toString().replaceFirst("^http", "ws"));
+            socket = HttpClient.newHttpClient().newWebSocketBuilder().buildAsync(ws, this).get(10, TimeUnit.SECONDS);
+        }
+
+        boolean request(String type, Map<String, String> payload) throws InterruptedException {
+            String requestId = id + "-" + ++sequence;
+            ObjectNode message = objectMapper.createObjectNode()
+                    .put("type", type)
+                    .put("request_id", requestId);
+            ObjectNode body = message.putObject("payload");
+            payload.forEach(body::put);
+            socket.sendText(message.toString(), true);
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(replyTimeoutSeconds);
+            while (true) {
+                JsonNode reply = received.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (reply == null) {
+                    return failed(type, "no reply within " + replyTimeoutSeconds + " s");
+                }
+                String replyType = reply.path("type").asText();
+                if (!requestId.equals(reply.path("request_id").asText()) || replyType.endsWith("_delta")) {
+                    continue;
+                }
+                if ("error".equals(replyType)) {
+                    return failed(type, reply.path("payload").path("code").asText());
+                }
+                if (ANSWERS.getOrDefault(type, Set.of()).contains(replyType)) {
+                    if (type.endsWith("_start")) {
+                        sessionOpen = true;
+                    }
+                    if ("intervention_message".equals(type)) {
+                        // The last question is followed by intervention_completed; wait for it briefly so the
+                        // next request does not hit the ended session
+                        received.poll(50, TimeUnit.MILLISECONDS);
+                    }
+                    return true;
+                }
+            }
+        }
+
+        private boolean failed(String type, String error) {
+            failures++;
+            System.err.printf("%s failed: %s%n", type, error);
+            return false;
+        }
+
+        void close() {
+            socket.sendClose(WebSocket.NORMAL_CLOSURE, "done");
+        }
+
+        @Override
+        public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+            frame.append(data);
+            if (last) {
+                try {
+                    JsonNode message = objectMapper.readTree(frame.toString());
+                    if (message.path("type").asText().endsWith("_completed")) {
+                        sessionOpen = false;
+                    }
+                    received.add(message);
+                } catch (Exception e) {
+                    // Not JSON; nothing waits for it
+                }
+                frame.setLength(0);
+            }
+            webSocket.request(1);
+            return null;
+        }
+    }
+
+    // =========================================================================
+    // Timings
+    // =========================================================================
+
+    private Map<Key, Series> snapshot() {
+        Map<Key, Series> series = new HashMap<>();
+        for (Timer timer : registry.find("wspiernik.turn.stage").timers()) {
+            Map<Double, Double> percentiles = new HashMap<>();
+            for (ValueAtPercentile value : timer.takeSnapshot().percentileValues()) {
+                percentiles.put(value.percentile(), value.value(TimeUnit.MILLISECONDS));
+            }
+            series.put(new Key(timer.getId().getTag("module"), timer.getId().getTag("turn"), timer.getId().getTag("stage")),
+                    new Series(timer.count(), timer.totalTime(TimeUnit.MILLISECONDS), percentiles));
+        }
+        return series;
+    }
+
+    /**
+     * Mean milliseconds per turn spent in each stage (turns without the stage count as zero),
+     * what is left of the total outside them, and the total's percentiles.
+     */
+    private static void printModule(String module, Map<Key, Series> baseline, Map<Key, Series> measured) {
+        System.out.printf("%n%s (mean ms per turn by stage; total percentiles in ms)%n", module);
+        StringBuilder header = new StringBuilder(String.format("%-9s %5s", "turn", "n"));
+        STAGES.forEach(stage -> header.append(String.format(" %9s", stage)));
+        header.append(String.format(" %9s %9s %9s %9s %9s", "other", "mean", "p50", "p90", "p99"));
+        System.out.println(header);
+
+        for (String turn : TURNS) {
+            Key totalKey = new Key(module, turn, "total");
+            Series total = measured.get(totalKey);
+            if (total == null) {
+                continue;
+            }
+            double count = total.count() - baseline.getOrDefault(totalKey, Series.NONE).count();
+            if (count <= 0) {
+                continue;
+            }
+            StringBuilder row = new StringBuilder(String.format("%-9s %5.0f", turn, count));
+            double stages = 0;
+            for (String stage : STAGES) {
+                Key key = new Key(module, turn, stage);
+                double mean = (measured.getOrDefault(key, Series.NONE).millis()
+                        - baseline.getOrDefault(key, Series.NONE).millis()) / count;
+                stages += mean;
+                row.append(String.format(" %9.2f", mean));
+            }
+            double mean = (total.millis() - baseline.getOrDefault(totalKey, Series.NONE).millis()) / count;
+            row.append(String.format(" %9.2f %9.2f %9.1f %9.1f %9.1f", mean - stages, mean,
+                    total.percentile(0.5), total.percentile(0.9), total.percentile(0.99)));
+            System.out.println(row);
+        }
+    }
+
+    private record Key(String module, String turn, String stage) {
+    }
+
+    /**
+     * One timer: cumulative count and time, and the rolling percentiles in milliseconds.
+     */
+    private record Series(double count, double millis, Map<Double, Double> percentiles) {
+        static final Series NONE = new Series(0, 0, Map.of());
+
+        double percentile(double p) {
+            return percentiles.getOrDefault(p, Double.NaN);
+        }
+    }
+}
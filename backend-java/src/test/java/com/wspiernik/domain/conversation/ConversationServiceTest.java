@@ -0,0 +1,57 @@
+package com.wspiernik.domain.conversation;
+
+import com.wspiernik.infrastructure.llm.dto.LlmMessage;
+import com.wspiernik.infrastructure.persistence.DatabaseWriter;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@QuarkusTest
+class ConversationServiceTest {
+
+    @Inject
+    ConversationService conversationService;
+
+    @Inject
+    ConversationMessageRepository messageRepository;
+
+    @Inject
+    DatabaseWriter databaseWriter;
+
+    @Test
+    void transcriptIncludesMessagesStillQueuedInOrder() {
+        long conversationId = conversationService.startNew(null, "support");
+        List<LlmMessage> messages = List.of(
+                new LlmMessage("assistant", "Cześć! Jak się dzisiaj czujesz?"),
+                new LlmMessage("user", "Jestem zmęczona."),
+                new LlmMessage("assistant", "Rozumiem. Co najbardziej Cię męczy?"));
+        messages.forEach(message -> conversationService.addMessage(null, conversationId, message));
+
+        assertEquals(messages, conversationService.loadTranscript(null, conversationId));
+    }
+
+    @Test
+    void migratedLegacyMessagesComeBeforeLaterOnes() {
+        long conversationId = conversationService.startNew(null, "support");
+        LlmMessage appended = new LlmMessage("user", "Wróciłam po przerwie.");
+        conversationService.addMessage(null, conversationId, appended);
+
+        // The migration gives a legacy transcript negative seqs when messages were appended since the upgrade
+        LlmMessage legacyFirst = new LlmMessage("assistant", "Cześć!");
+        LlmMessage legacySecond = new LlmMessage("user", "Mama nie śpi po nocach.");
+        databaseWriter.execute(() -> {
+            messageRepository.persist(ConversationMessage.of(conversationId, -1, legacySecond, LocalDateTime.now()));
+            messageRepository.persist(ConversationMessage.of(conversationId, -2, legacyFirst, LocalDateTime.now()));
+        }).join();
+        LlmMessage reply = new LlmMessage("assistant", "Dobrze, że jesteś.");
+        conversationService.addMessage(null, conversationId, reply);
+
+        assertEquals(List.of(legacyFirst, legacySecond, appended, reply),
+                conversationService.loadTranscript(null, conversationId));
+    }
+}
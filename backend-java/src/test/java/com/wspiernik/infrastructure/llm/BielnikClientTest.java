@@ -0,0 +1,55 @@
+package com.wspiernik.infrastructure.llm;
+
+import io.smallrye.mutiny.Multi;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BielnikClientTest {
+
+    private static final String MARKER = "SUPPORT_COMPLETE";
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    @Test
+    void streamEndsWithDeltaCompletingMarker() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        Multi<String> deltas = Multi.createFrom().items("Trzymaj się. ", "SUPPORT_", "COMPLETE i jeszcze", " więcej")
+                .onCancellation().invoke(() -> cancelled.set(true));
+
+        List<String> received = BielnikClient.streamUntilMarker(deltas, MARKER)
+                .collect().asList().await().atMost(TIMEOUT);
+
+        assertEquals(List.of("Trzymaj się. ", "SUPPORT_", "COMPLETE"), received);
+        assertTrue(cancelled.get(), "upstream was not cancelled after the marker");
+    }
+
+    @Test
+    void textAfterMarkerInSameDeltaIsDropped() {
+        List<String> received = BielnikClient.streamUntilMarker(
+                        Multi.createFrom().items("Do usłyszenia. SUPPORT_COMPLETE Jeszcze coś", "dalej"), MARKER)
+                .collect().asList().await().atMost(TIMEOUT);
+
+        assertEquals(List.of("Do usłyszenia. SUPPORT_COMPLETE"), received);
+    }
+
+    @Test
+    void streamWithoutMarkerPassesThrough() {
+        List<String> received = BielnikClient.streamUntilMarker(
+                        Multi.createFrom().items("SUPPORT", " nie jest ", "COMPLETE"), MARKER)
+                .collect().asList().await().atMost(TIMEOUT);
+
+        assertEquals(List.of("SUPPORT", " nie jest ", "COMPLETE"), received);
+    }
+
+    @Test
+    void responseIsCutAfterMarker() {
+        assertEquals("Dobrze. SUPPORT_COMPLETE", BielnikClient.cutAfterMarker("Dobrze. SUPPORT_COMPLETE ciąg dalszy", MARKER));
+        assertEquals("Bez znacznika", BielnikClient.cutAfterMarker("Bez znacznika", MARKER));
+        assertEquals("Bez znacznika", BielnikClient.cutAfterMarker("Bez znacznika", null));
+    }
+}
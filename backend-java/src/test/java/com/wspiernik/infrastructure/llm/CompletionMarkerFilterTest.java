@@ -0,0 +1,54 @@
+package com.wspiernik.infrastructure.llm;
+
+import io.smallrye.mutiny.Uni;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CompletionMarkerFilterTest {
+
+    private static final String MARKER = "SUPPORT_COMPLETE";
+
+    private final List<String> sent = new ArrayList<>();
+    private final CompletionMarkerFilter filter = new CompletionMarkerFilter(MARKER, delta -> {
+        sent.add(delta);
+        return Uni.createFrom().voidItem();
+    });
+
+    @Test
+    void markerInOneDeltaIsRemoved() {
+        send("Trzymaj się. SUPPORT_COMPLETE");
+
+        assertEquals("Trzymaj się. ", String.join("", sent));
+    }
+
+    @Test
+    void markerSplitAcrossDeltasNeverReachesClient() {
+        send("Trzymaj się. SUP", "PORT_", "COMPLETE");
+
+        assertEquals(List.of("Trzymaj się. "), sent);
+    }
+
+    @Test
+    void heldBackPrefixIsReleasedWhenItIsNotTheMarker() {
+        send("Wynik: SUP", "ER, dziękuję");
+
+        assertEquals(List.of("Wynik: ", "SUPER, dziękuję"), sent);
+    }
+
+    @Test
+    void textWithoutMarkerPassesUnchanged() {
+        send("Jak się ", "dziś czujesz?");
+
+        assertEquals(List.of("Jak się ", "dziś czujesz?"), sent);
+    }
+
+    private void send(String... deltas) {
+        for (String delta : deltas) {
+            filter.apply(delta).await().indefinitely();
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.wspiernik.infrastructure.llm;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.arc.ClientProxy;
+import io.quarkus.test.common.http.TestHTTPResource;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ending a session over the WebSocket aborts the LLM call still answering its last message.
+ */
+@QuarkusTest
+@TestProfile(LlmCancellationTest.OneSlot.class)
+class LlmCancellationTest {
+
+    public static class OneSlot implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("wspiernik.llm.mock.slots", "1");
+        }
+    }
+
+    @TestHTTPResource("/ws")
+    URI url;
+
+    @Inject
+    MockLlmClient llmClient;
+
+    @Inject
+    MeterRegistry registry;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final BlockingQueue<JsonNode> received = new LinkedBlockingQueue<>();
+    private final List<JsonNode> all = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void answerInstantly() {
+        mock().fixedLatency = Duration.ZERO;
+    }
+
+    @Test
+    void supportCompleteCancelsAnswerInFlight() throws Exception {
+        WebSocket socket = connect();
+        send(socket, "support_start", "start", Map.of());
+        assertEquals("support_message", reply("start").path("type").asText());
+
+        // The answer holds the only slot far longer than the test waits
+        mock().fixedLatency = Duration.ofMinutes(5);
+        double admitted = count("wspiernik.llm.queue.wait");
+        send(socket, "support_message", "slow", Map.of("text", "Jestem bardzo zmęczona."));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (count("wspiernik.llm.queue.wait") == admitted && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(count("wspiernik.llm.queue.wait") > admitted, "The answer never got its slot");
+
+        mock().fixedLatency = Duration.ZERO;
+        send(socket, "support_complete", "complete", Map.of());
+
+        // The farewell needs the slot, so it only comes once the stalled answer let go of it
+        assertEquals("support_message", reply("complete").path("type").asText());
+        assertEquals("support_completed", reply("complete").path("type").asText());
+        Timer cancelled = registry.find("wspiernik.llm.call.duration").tag("outcome", "cancelled").timer();
+        assertNotNull(cancelled);
+        assertEquals(1, cancelled.count());
+        // An abandoned message gets no reply, not even an error
+        assertTrue(all.stream().noneMatch(message -> "slow".equals(message.path("request_id").asText())));
+        socket.sendClose(WebSocket.NORMAL_CLOSURE, "done");
+    }
+
+    private MockLlmClient mock() {
+        return ClientProxy.unwrap(llmClient);
+    }
+
+    private double count(String timer) {
+        return registry.find(timer).timers().stream().mapToDouble(Timer::count).sum();
+    }
+
+    private WebSocket connect() throws Exception {
+        URI ws = URI.create(url.toString().replaceFirst("^http", "ws"));
+        return HttpClient.newHttpClient().newWebSocketBuilder().buildAsync(ws, new WebSocket.Listener() {
+            private final StringBuilder frame = new StringBuilder();
+
+            @Override
+            public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+                frame.append(data);
+                if (last) {
+                    try {
+                        JsonNode message = objectMapper.readTree(frame.toString());
+                        all.add(message);
+                        received.add(message);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                    frame.setLength(0);
+                }
+                webSocket.request(1);
+                return null;
+            }
+        }).get(10, TimeUnit.SECONDS);
+    }
+
+    private void send(WebSocket socket, String type, String requestId, Map<String, String> payload) throws Exception {
+        var message = objectMapper.createObjectNode().put("type", type).put("request_id", requestId);
+        var body = message.putObject("payload");
+        payload.forEach(body::put);
+        socket.sendText(message.toString(), true).get(10, TimeUnit.SECONDS);
+    }
+
+    /**
+     * The next complete message answering the request, skipping streamed fragments.
+     */
+    private JsonNode reply(String requestId) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            JsonNode message = received.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (message != null && requestId.equals(message.path("request_id").asText())
+                    && !message.path("type").asText().endsWith("_delta")) {
+                return message;
+            }
+        }
+        throw new AssertionError("No reply to " + requestId);
+    }
+}
@@ -0,0 +1,99 @@
+package com.wspiernik.infrastructure.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+class LlmCircuitBreakerTest {
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final List<Throwable> failures = new ArrayList<>();
+
+    @Test
+    void openBreakerRejectsBeforeQueueing() {
+        LlmCircuitBreaker breaker = breaker(Duration.ofMinutes(1));
+        tripOpen(breaker);
+        queued.set(0);
+
+        subscribe(breaker, Uni.createFrom().item("answer"));
+
+        assertEquals(0, queued.get());
+        assertInstanceOf(LlmException.class, failures.get(failures.size() - 1));
+        assertEquals(LlmException.Reason.CIRCUIT_OPEN, ((LlmException) failures.get(failures.size() - 1)).reason());
+    }
+
+    @Test
+    void halfOpenBreakerQueuesASingleTrial() {
+        LlmCircuitBreaker breaker = breaker(Duration.ZERO);
+        tripOpen(breaker);
+        queued.set(0);
+
+        CompletableFuture<String> trial = new CompletableFuture<>();
+        subscribe(breaker, Uni.createFrom().completionStage(trial));
+        subscribe(breaker, Uni.createFrom().item("answer"));
+
+        assertEquals(1, queued.get());
+        assertEquals(LlmCircuitBreaker.State.HALF_OPEN, breaker.state());
+
+        trial.complete("answer");
+        assertEquals(LlmCircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void trialDroppedWhileQueuedIsGivenBack() {
+        LlmCircuitBreaker breaker = breaker(Duration.ZERO);
+        tripOpen(breaker);
+        queued.set(0);
+
+        // The trial waits for a slot that never comes, then its caller gives up
+        Cancellable waiting = breaker.guard(permit -> {
+            queued.incrementAndGet();
+            return Uni.createFrom().<String>nothing();
+        }).subscribe().with(item -> { }, failures::add);
+        waiting.cancel();
+        subscribe(breaker, Uni.createFrom().item("answer"));
+
+        assertEquals(2, queued.get());
+        assertEquals(LlmCircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    private LlmCircuitBreaker breaker(Duration delay) {
+        LlmCircuitBreaker breaker = new LlmCircuitBreaker();
+        breaker.registry = new SimpleMeterRegistry();
+        breaker.enabled = true;
+        breaker.window = 4;
+        breaker.minCalls = 2;
+        breaker.failureRatio = 0.5;
+        breaker.slowCallThreshold = Duration.ofMinutes(1);
+        breaker.timeout = Duration.ofMinutes(1);
+        breaker.delay = delay;
+        breaker.init();
+        return breaker;
+    }
+
+    private void tripOpen(LlmCircuitBreaker breaker) {
+        subscribe(breaker, Uni.createFrom().failure(new LlmException("server down")));
+        subscribe(breaker, Uni.createFrom().failure(new LlmException("server down")));
+        assertEquals(LlmCircuitBreaker.State.OPEN, breaker.state());
+    }
+
+    /**
+     * Runs the request through the breaker as BielnikClient does, counting calls that reach the queue.
+     */
+    private void subscribe(LlmCircuitBreaker breaker, Uni<String> request) {
+        breaker.guard(permit -> {
+            queued.incrementAndGet();
+            return permit.run(() -> request);
+        }).subscribe().with(item -> { }, failures::add);
+    }
+}
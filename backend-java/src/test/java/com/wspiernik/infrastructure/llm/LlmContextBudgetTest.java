@@ -0,0 +1,93 @@
+package com.wspiernik.infrastructure.llm;
+
+import com.wspiernik.infrastructure.llm.dto.LlmMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class LlmContextBudgetTest {
+
+    private static final String TEXT = "Podopieczny źle spał i rano nie chciał zjeść śniadania. ".repeat(5);
+    private static final int ANSWER = 200;
+
+    private static final LlmMessage SYSTEM = LlmMessage.system(TEXT);
+    private static final LlmMessage U1 = LlmMessage.user(TEXT);
+    private static final LlmMessage A1 = LlmMessage.assistant(TEXT);
+    private static final LlmMessage U2 = LlmMessage.user(TEXT);
+    private static final LlmMessage A2 = LlmMessage.assistant(TEXT);
+    private static final LlmMessage U3 = LlmMessage.user(TEXT);
+    private static final LlmMessage A3 = LlmMessage.assistant(TEXT);
+    private static final LlmMessage U4 = LlmMessage.user(TEXT);
+    private static final List<LlmMessage> CONVERSATION = List.of(SYSTEM, U1, A1, U2, A2, U3, A3, U4);
+
+    // Every message above costs the same
+    private static final int COST = TokenEstimator.estimate(U1);
+
+    @Test
+    void conversationThatFitsIsSentAsIs() {
+        LlmContextBudget budget = budget(ANSWER + TokenEstimator.estimate(CONVERSATION), 0);
+
+        LlmContextBudget.Fitted fitted = budget.fit(CONVERSATION, ANSWER);
+
+        assertSame(CONVERSATION, fitted.messages());
+        assertEquals(TokenEstimator.estimate(CONVERSATION), fitted.promptTokens());
+        assertEquals(ANSWER, fitted.maxTokens());
+    }
+
+    @Test
+    void middleIsDroppedKeepingSystemFirstUserAndRecentMessages() {
+        // Room for the three pinned messages and four more
+        LlmContextBudget budget = budget(ANSWER + TokenEstimator.REPLY_PRIMING + 7 * COST, 0);
+
+        LlmContextBudget.Fitted fitted = budget.fit(CONVERSATION, ANSWER);
+
+        // U2 would fit too, but would follow U1: roles must alternate across the gap
+        assertEquals(List.of(SYSTEM, U1, A2, U3, A3, U4), fitted.messages());
+        assertEquals(TokenEstimator.REPLY_PRIMING + 6 * COST, fitted.promptTokens());
+        assertEquals(ANSWER, fitted.maxTokens());
+    }
+
+    @Test
+    void historyIsCappedAtMaxTurns() {
+        LlmContextBudget budget = budget(100_000, 1);
+
+        LlmContextBudget.Fitted fitted = budget.fit(CONVERSATION, ANSWER);
+
+        assertEquals(List.of(SYSTEM, U1, A3, U4), fitted.messages());
+    }
+
+    @Test
+    void answerShrinksWhenPinnedMessagesOverflow() {
+        int pinned = TokenEstimator.REPLY_PRIMING + 3 * COST;
+        LlmContextBudget budget = budget(pinned + ANSWER / 2, 0);
+        budget.minAnswerTokens = 10;
+
+        LlmContextBudget.Fitted fitted = budget.fit(CONVERSATION, ANSWER);
+
+        assertEquals(List.of(SYSTEM, U1, U4), fitted.messages());
+        assertEquals(pinned, fitted.promptTokens());
+        assertEquals(ANSWER / 2, fitted.maxTokens());
+    }
+
+    @Test
+    void answerNeverShrinksBelowFloor() {
+        LlmContextBudget budget = budget(TokenEstimator.REPLY_PRIMING + 3 * COST, 0);
+        budget.minAnswerTokens = 64;
+
+        assertEquals(64, budget.fit(CONVERSATION, ANSWER).maxTokens());
+    }
+
+    private static LlmContextBudget budget(int contextWindow, int maxHistoryTurns) {
+        LlmContextBudget budget = new LlmContextBudget();
+        budget.registry = new SimpleMeterRegistry();
+        budget.contextWindow = contextWindow;
+        budget.maxHistoryTurns = maxHistoryTurns;
+        budget.minAnswerTokens = 256;
+        budget.init();
+        return budget;
+    }
+}
@@ -0,0 +1,70 @@
+package com.wspiernik.infrastructure.llm;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import io.smallrye.mutiny.Uni;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@QuarkusTest
+@TestProfile(LlmEndpointPoolTest.TwoEndpoints.class)
+class LlmEndpointPoolTest {
+
+    public static class TwoEndpoints implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "wspiernik.llm.endpoints", "http://localhost:18081,http://localhost:18082",
+                    "wspiernik.llm.hedging.min-delay", "100ms");
+        }
+    }
+
+    private static final Duration SLOW = Duration.ofMillis(500);
+
+    @Inject
+    LlmEndpointPool pool;
+
+    @BeforeEach
+    void learnLatency() {
+        // Hedging waits for enough successful calls to know the p95
+        for (int i = 0; i < 20; i++) {
+            pool.call(null, route -> Uni.createFrom().item("warm-up")).await().indefinitely();
+        }
+    }
+
+    @Test
+    void failedHedgeLeavesTheOriginalToAnswer() {
+        AtomicInteger attempts = new AtomicInteger();
+        String answer = pool.hedgedCall(null, route -> attempts.getAndIncrement() == 0
+                        ? Uni.createFrom().item("original").onItem().delayIt().by(SLOW)
+                        : Uni.createFrom().<String>failure(new LlmException("hedge refused")))
+                .await().atMost(Duration.ofSeconds(5));
+
+        assertEquals("original", answer);
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    void failedOriginalFailsTheCall() {
+        LlmException failure = new LlmException("original failed");
+        AtomicInteger attempts = new AtomicInteger();
+        LlmException thrown = assertThrows(LlmException.class, () -> pool.hedgedCall(null, route ->
+                        attempts.getAndIncrement() == 0
+                                ? Uni.createFrom().<String>failure(failure).onFailure().call(() ->
+                                        Uni.createFrom().voidItem().onItem().delayIt().by(SLOW))
+                                : Uni.createFrom().<String>nothing())
+                .await().atMost(Duration.ofSeconds(5)));
+
+        assertSame(failure, thrown);
+    }
+}
@@ -0,0 +1,121 @@
+package com.wspiernik.infrastructure.llm;
+
+import io.smallrye.mutiny.Uni;
+import io.smallrye.mutiny.subscription.Cancellable;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LlmSchedulerTest {
+
+    private final List<String> started = new ArrayList<>();
+    private final Map<String, CompletableFuture<String>> calls = new HashMap<>();
+
+    @Test
+    void queuedCallsStartByPriorityThenArrival() {
+        LlmScheduler scheduler = scheduler(1, 0);
+        submit(scheduler, LlmPriority.CONVERSATION, "running");
+        submit(scheduler, LlmPriority.HEALTH_PROBE, "probe");
+        submit(scheduler, LlmPriority.FACTS_DISTILLATION, "facts");
+        submit(scheduler, LlmPriority.CONVERSATION, "conversation 1");
+        submit(scheduler, LlmPriority.INTERVENTION, "intervention");
+        submit(scheduler, LlmPriority.CONVERSATION, "conversation 2");
+        assertEquals(List.of("running"), started);
+        assertEquals(5, scheduler.queueDepth());
+
+        for (String name : List.of("running", "intervention", "conversation 1", "conversation 2", "facts")) {
+            finish(name);
+        }
+
+        assertEquals(List.of("running", "intervention", "conversation 1", "conversation 2", "facts", "probe"), started);
+        assertEquals(0, scheduler.queueDepth());
+        assertEquals(1, scheduler.runningCalls());
+    }
+
+    @Test
+    void backgroundCallsLeaveReservedSlotsToInteractiveOnes() {
+        LlmScheduler scheduler = scheduler(3, 1);
+        submit(scheduler, LlmPriority.FACTS_DISTILLATION, "facts 1");
+        submit(scheduler, LlmPriority.FACTS_DISTILLATION, "facts 2");
+        submit(scheduler, LlmPriority.PREWARM, "prewarm");
+        assertEquals(List.of("facts 1", "facts 2"), started);
+
+        submit(scheduler, LlmPriority.INTERVENTION, "intervention");
+        assertEquals(List.of("facts 1", "facts 2", "intervention"), started);
+
+        // The reserved slot freed by the interactive call is still not for background work
+        finish("intervention");
+        assertEquals(1, scheduler.queueDepth());
+        finish("facts 1");
+        assertEquals(List.of("facts 1", "facts 2", "intervention", "prewarm"), started);
+    }
+
+    @Test
+    void backgroundCallsRunWhenEveryNonReservedSlotWouldBeReserved() {
+        LlmScheduler scheduler = scheduler(1, 1);
+        submit(scheduler, LlmPriority.HEALTH_PROBE, "probe");
+
+        assertEquals(List.of("probe"), started);
+    }
+
+    @Test
+    void cancelledWaitingCallGivesUpItsPlace() {
+        LlmScheduler scheduler = scheduler(1, 0);
+        submit(scheduler, LlmPriority.CONVERSATION, "running");
+        Cancellable waiting = submit(scheduler, LlmPriority.INTERVENTION, "cancelled");
+        submit(scheduler, LlmPriority.CONVERSATION, "next");
+
+        waiting.cancel();
+        assertEquals(1, scheduler.queueDepth());
+        finish("running");
+
+        assertEquals(List.of("running", "next"), started);
+    }
+
+    @Test
+    void cancellingRunningCallReleasesItsSlot() {
+        LlmScheduler scheduler = scheduler(1, 0);
+        Cancellable running = submit(scheduler, LlmPriority.CONVERSATION, "running");
+        submit(scheduler, LlmPriority.CONVERSATION, "next");
+
+        running.cancel();
+
+        assertEquals(List.of("running", "next"), started);
+        assertEquals(1, scheduler.runningCalls());
+    }
+
+    private Cancellable submit(LlmScheduler scheduler, LlmPriority priority, String name) {
+        CompletableFuture<String> call = new CompletableFuture<>();
+        calls.put(name, call);
+        return scheduler.admit(priority, () -> {
+            started.add(name);
+            return Uni.createFrom().completionStage(call);
+        }).subscribe().with(result -> {
+        }, failure -> {
+        });
+    }
+
+    private void finish(String name) {
+        calls.get(name).complete(name);
+    }
+
+    private static LlmScheduler scheduler(int slots, int reserved) {
+        LlmScheduler scheduler = new LlmScheduler();
+        scheduler.endpointPool = new LlmEndpointPool() {
+            @Override
+            public int size() {
+                return 1;
+            }
+        };
+        scheduler.parallelSlots = slots;
+        scheduler.interactiveReservedSlots = reserved;
+        scheduler.init();
+        return scheduler;
+    }
+}
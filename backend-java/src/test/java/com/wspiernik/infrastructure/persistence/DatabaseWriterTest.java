@@ -0,0 +1,154 @@
+package com.wspiernik.infrastructure.persistence;
+
+import com.wspiernik.domain.facts.Fact;
+import com.wspiernik.domain.facts.FactRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+class DatabaseWriterTest {
+
+    // Facts of each test carry their own conversation id, so tests do not see each other's rows
+    private static final AtomicLong CONVERSATION = new AtomicLong(-System.currentTimeMillis());
+
+    @Inject
+    DatabaseWriter writer;
+
+    @Inject
+    FactRepository factRepository;
+
+    @Inject
+    MeterRegistry registry;
+
+    @Test
+    void writesQueuedTogetherCommitInOneTransaction() {
+        long conversationId = CONVERSATION.decrementAndGet();
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> blocker = holdWriter(release);
+
+        List<CompletableFuture<Void>> writes = IntStream.range(0, 20)
+                .mapToObj(i -> writer.execute(() -> persistFact(conversationId, "grouped " + i)))
+                .toList();
+        release.countDown();
+        blocker.join();
+        writes.forEach(CompletableFuture::join);
+
+        assertEquals(20, countFacts(conversationId));
+        DistributionSummary groupSize = registry.get("wspiernik.persistence.commit.writes").summary();
+        assertTrue(groupSize.max() >= 20, "largest group was " + groupSize.max());
+    }
+
+    @Test
+    void failingWriteIsRetriedAloneAndOthersCommit() {
+        long conversationId = CONVERSATION.decrementAndGet();
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> blocker = holdWriter(release);
+
+        CompletableFuture<Void> before = writer.execute(() -> persistFact(conversationId, "before"));
+        CompletableFuture<Void> failing = writer.execute(() -> {
+            persistFact(conversationId, "rolled back");
+            throw new IllegalStateException("boom");
+        });
+        CompletableFuture<Void> after = writer.execute(() -> persistFact(conversationId, "after"));
+        release.countDown();
+        blocker.join();
+
+        before.join();
+        after.join();
+        CompletionException error = assertThrows(CompletionException.class, failing::join);
+        assertInstanceOf(IllegalStateException.class, error.getCause());
+        // The group's first attempt inserted all three; only the retried good writes remain, each once
+        assertEquals(List.of("after", "before"), factValues(conversationId));
+    }
+
+    @Test
+    void writesRunInSubmissionOrder() {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        List<CompletableFuture<Void>> writes = IntStream.range(0, 500)
+                .mapToObj(i -> writer.execute(() -> order.add(i)))
+                .toList();
+        writes.forEach(CompletableFuture::join);
+
+        assertEquals(IntStream.range(0, 500).boxed().toList(), order);
+    }
+
+    @Test
+    void flushWaitsForEarlierWrites() {
+        long conversationId = CONVERSATION.decrementAndGet();
+        for (int i = 0; i < 10; i++) {
+            int n = i;
+            writer.execute(() -> persistFact(conversationId, "flushed " + n));
+        }
+        writer.flush().join();
+
+        assertEquals(10, countFacts(conversationId));
+    }
+
+    @Test
+    void callReturnsValueAfterCommit() {
+        long conversationId = CONVERSATION.decrementAndGet();
+        Long id = writer.call(() -> persistFact(conversationId, "with id")).join();
+
+        assertTrue(id != null && id > 0);
+        assertEquals(1, countFacts(conversationId));
+    }
+
+    /**
+     * Occupy the writer until released, so the writes queued meanwhile are drained as one group.
+     */
+    private CompletableFuture<Void> holdWriter(CountDownLatch release) {
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Void> blocker = writer.execute(() -> {
+            started.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            assertTrue(started.await(10, TimeUnit.SECONDS), "writer did not pick up the blocking write");
+        } catch (InterruptedException e) {
+            throw new AssertionError(e);
+        }
+        return blocker;
+    }
+
+    private Long persistFact(long conversationId, String value) {
+        Fact fact = new Fact();
+        fact.conversationId = conversationId;
+        fact.tags = List.of("test");
+        fact.factValue = value;
+        factRepository.persist(fact);
+        factRepository.flush();
+        return fact.id;
+    }
+
+    private long countFacts(long conversationId) {
+        return QuarkusTransaction.requiringNew().call(() -> factRepository.count("conversationId", conversationId));
+    }
+
+    private List<String> factValues(long conversationId) {
+        return QuarkusTransaction.requiringNew().call(() -> factRepository.list("conversationId", conversationId)
+                .stream().map(fact -> fact.factValue).sorted().toList());
+    }
+}
@@ -0,0 +1,79 @@
+package com.wspiernik.infrastructure.persistence.shard;
+
+import io.quarkus.hibernate.orm.PersistenceUnitExtension;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import jakarta.inject.Inject;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@QuarkusTest
+@TestProfile(ShardConnectionResolverTest.OneOpenShard.class)
+class ShardConnectionResolverTest {
+
+    public static class OneOpenShard implements QuarkusTestProfile {
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of(
+                    "wspiernik.sharding.max-open", "1",
+                    "wspiernik.sharding.directory", "target/shards-" + UUID.randomUUID());
+        }
+    }
+
+    @Inject
+    @PersistenceUnitExtension
+    ShardConnectionResolver resolver;
+
+    @Test
+    void newShardGetsSchema() throws SQLException {
+        ConnectionProvider shard = resolver.resolve("schema");
+        Connection connection = shard.getConnection();
+        try (Statement statement = connection.createStatement();
+             ResultSet count = statement.executeQuery("SELECT COUNT(*) FROM facts")) {
+            assertTrue(count.next());
+            assertEquals(0, count.getInt(1));
+        } finally {
+            shard.closeConnection(connection);
+        }
+    }
+
+    @Test
+    void shardWithConnectionOutIsNotEvicted() throws SQLException {
+        ConnectionProvider first = resolver.resolve("first");
+        Connection held = first.getConnection();
+
+        use(resolver.resolve("second"));
+        // Over the limit of one, but the first shard's connection is still out
+        assertEquals(2, resolver.openShards());
+        try (Statement statement = held.createStatement()) {
+            statement.execute("SELECT COUNT(*) FROM conversations");
+        }
+        first.closeConnection(held);
+
+        use(resolver.resolve("third"));
+        assertEquals(1, resolver.openShards());
+        // An evicted shard opens again on demand
+        use(first);
+        assertEquals(1, resolver.openShards());
+    }
+
+    private static void use(ConnectionProvider shard) throws SQLException {
+        Connection connection = shard.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("SELECT COUNT(*) FROM facts");
+        } finally {
+            shard.closeConnection(connection);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.wspiernik.infrastructure.persistence.shard;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ShardRouterTest {
+
+    private final ShardRouter router = router(true);
+
+    @Test
+    void caregiverNamedLikeMainDatabaseGetsOwnShard() {
+        router.opened("c1", "main");
+
+        assertEquals("main", router.shardOf("c1"));
+        assertEquals("main", router.shardFor("main"));
+    }
+
+    @Test
+    void mainDatabaseNameIsNeverAShard() {
+        router.opened("c1", ShardRouter.MAIN);
+
+        assertNull(router.shardOf("c1"));
+        assertNull(router.shardFor(ShardRouter.MAIN));
+    }
+
+    @Test
+    void invalidOrMissingCaregiverUsesMainDatabase() {
+        router.opened("c1", "../etc/passwd");
+        router.opened("c2", "");
+        router.opened("c3", null);
+        router.opened("c4", "x".repeat(65));
+
+        assertNull(router.shardOf("c1"));
+        assertNull(router.shardOf("c2"));
+        assertNull(router.shardOf("c3"));
+        assertNull(router.shardOf("c4"));
+    }
+
+    @Test
+    void closedConnectionForgetsItsShard() {
+        router.opened("c1", "caregiver-7");
+        router.closed("c1");
+
+        assertNull(router.shardOf("c1"));
+    }
+
+    @Test
+    void disabledRouterKeepsEverythingOnMainDatabase() {
+        ShardRouter disabled = router(false);
+        disabled.opened("c1", "caregiver-7");
+
+        assertNull(disabled.shardOf("c1"));
+        assertNull(disabled.shardFor("caregiver-7"));
+    }
+
+    private static ShardRouter router(boolean enabled) {
+        ShardRouter router = new ShardRouter();
+        router.enabled = enabled;
+        router.directory = Path.of("target", "shards");
+        return router;
+    }
+}
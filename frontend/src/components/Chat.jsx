@@ -20,6 +20,8 @@ const Chat = () => {
     const [input, setInput] = useState('');
     const [loading, setLoading] = useState(false);
     const messagesEndRef = useRef(null);
+    // Id of the assistant message currently being built from *_delta fragments
+    const streamingIdRef = useRef(null);
 
     const {
         isConnected,
@@ -51,6 +53,31 @@ const Chat = () => {
             }]);
         };
 
+        // Append a streamed fragment to the in-progress assistant message
+        const appendDelta = (delta, sessionType) => {
+            setLoading(false);
+            if (streamingIdRef.current === null) {
+                const id = Date.now();
+                streamingIdRef.current = id;
+                setMessages(prev => [...prev, { id, role: 'assistant', content: delta, sessionType }]);
+            } else {
+                const id = streamingIdRef.current;
+                setMessages(prev => prev.map(m => m.id === id ? { ...m, content: m.content + delta } : m));
+            }
+        };
+
+        // Replace the streamed message with the final text, or add it if nothing was streamed
+        const finalizeAssistantMessage = (content, sessionType) => {
+            const id = streamingIdRef.current;
+            streamingIdRef.current = null;
+            if (id === null) {
+                addAssistantMessage(content, sessionType);
+                return;
+            }
+            setLoading(false);
+            setMessages(prev => prev.map(m => m.id === id ? { ...m, content } : m));
+        };
+
         const unsubscribes = [
             // Support messages
             subscribe('support_message', (msg) => {
@@ -58,10 +85,14 @@ const Chat = () => {
                 // Backend sends 'text' field, fallback to 'message' for compatibility
                 const content = msg.payload.text || msg.payload.message;
                 if (content) {
-                    addAssistantMessage(content, 'support');
+                    finalizeAssistantMessage(content, 'support');
                 }
             }),
 
+            subscribe('support_message_delta', (msg) => {
+                appendDelta(msg.payload.delta, 'support');
+            }),
+
             // Survey questions
             subscribe('survey_question', (msg) => {
                 addAssistantMessage(msg.payload.question, 'survey');
@@ -69,7 +100,11 @@ const Chat = () => {
 
             // Intervention messages
             subscribe('intervention_question', (msg) => {
-                addAssistantMessage(msg.payload.question, 'intervention');
+                finalizeAssistantMessage(msg.payload.question, 'intervention');
+            }),
+
+            subscribe('intervention_question_delta', (msg) => {
+                appendDelta(msg.payload.delta, 'intervention');
             }),
 
             subscribe('intervention_scenario_matched', (msg) => {
@@ -105,6 +140,7 @@ const Chat = () => {
             // Error handling - detect session type from error message
             subscribe('error', (msg) => {
                 setLoading(false);
+                streamingIdRef.current = null;
                 const errorMsg = msg.payload.message || '';
                 let errorSessionType = null;
                 if (errorMsg.includes('interwencj')) errorSessionType = 'intervention';
@@ -120,6 +156,7 @@ const Chat = () => {
     // Clear chat when conversation type changes
     useEffect(() => {
         if (conversationType) {
+            streamingIdRef.current = null;
             setMessages([]);
             setLoading(true);
         }